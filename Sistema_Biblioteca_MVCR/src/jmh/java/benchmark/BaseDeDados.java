@@ -0,0 +1,182 @@
+package benchmark;
+
+import repository.JPAUtil;
+import repository.UsuarioRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+
+/**
+ * Prepara o banco H2 em memória usado pelos benchmarks, no lugar do MySQL.
+ * <p>
+ * O esquema é criado pelo Hibernate e os dados são inseridos diretamente via JDBC, em lotes,
+ * para que a preparação de 1 milhão de linhas não domine o tempo de execução; ao final, os
+ * contadores de empréstimos dos usuários são reconciliados. Para um tamanho N são criados
+ * N livros, N usuários e N empréstimos:
+ * <ul>
+ *     <li>10% dos empréstimos estão ativos e atrasados, 10% ativos no prazo e o restante devolvido;</li>
+ *     <li>1 em cada 20 usuários está com multa vigente;</li>
+ *     <li>os últimos {@link #usuariosLivres} usuários não têm empréstimos nem multa e são
+ *     usados pelos benchmarks de empréstimo.</li>
+ * </ul>
+ */
+final class BaseDeDados {
+
+    static final String[] PALAVRAS = {
+            "casmurro", "memorias", "sertao", "veredas", "cortico", "iracema", "guarani", "senhora",
+            "macunaima", "vidas", "secas", "capitaes", "areia", "quincas", "borba", "alienista",
+            "lucola", "ubirajara", "triste", "policarpo", "quaresma", "angustia", "menino", "engenho",
+            "fogo", "morto", "estrela", "hora", "paixao", "ensaio", "cegueira", "jangada"};
+    static final String[] SOBRENOMES = {
+            "Silva", "Santos", "Oliveira", "Souza", "Lima", "Pereira", "Ferreira", "Costa",
+            "Rodrigues", "Almeida", "Nascimento", "Carvalho", "Araujo", "Ribeiro", "Gomes", "Martins"};
+    static final String[] TEMAS = {"Romance", "Poesia", "Conto", "Ensaio", "Biografia", "Historia", "Ciencia", "Drama"};
+
+    // Sem MODE=MySQL: nesse modo o H2 2.2 ajusta a sequência do id a cada UPDATE da linha e, com
+    // empréstimos e devoluções simultâneos, chega a entregar ids já usados (violação de chave primária)
+    private static final String URL = "jdbc:h2:mem:biblioteca_benchmark;DB_CLOSE_DELAY=-1";
+    private static final int TAMANHO_LOTE = 1000;
+
+    private static int tamanhoPreparado = -1;
+
+    private BaseDeDados() {
+    }
+
+    /**
+     * Quantidade de usuários reservados para os benchmarks de empréstimo.
+     */
+    static int usuariosLivres(int tamanho) {
+        return Math.max(10, Math.min(1000, tamanho / 10));
+    }
+
+    /**
+     * Cria o esquema e carrega os dados, uma única vez por JVM (o JMH usa um processo
+     * separado para cada valor de tamanho).
+     */
+    static synchronized void preparar(int tamanho) {
+        if (tamanhoPreparado == tamanho) {
+            return;
+        }
+        if (tamanhoPreparado != -1) {
+            throw new IllegalStateException("Banco já preparado com " + tamanhoPreparado + " registros");
+        }
+
+        System.setProperty("javax.persistence.jdbc.driver", "org.h2.Driver");
+        System.setProperty("javax.persistence.jdbc.url", URL);
+        System.setProperty("javax.persistence.jdbc.user", "sa");
+        System.setProperty("javax.persistence.jdbc.password", "");
+        System.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        System.setProperty("hibernate.hbm2ddl.auto", "create");
+        System.setProperty("hibernate.show_sql", "false");
+
+        long inicio = System.nanoTime();
+        JPAUtil.getEntityManagerFactory();
+        try (Connection conexao = DriverManager.getConnection(URL, "sa", "")) {
+            conexao.setAutoCommit(false);
+            inserirLivros(conexao, tamanho);
+            inserirUsuarios(conexao, tamanho);
+            inserirEmprestimos(conexao, tamanho);
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao preparar banco de benchmark: " + e.getMessage(), e);
+        }
+        new UsuarioRepository().reconciliarContadores();
+        tamanhoPreparado = tamanho;
+        System.out.printf("Banco de benchmark preparado com %d registros por tabela em %d ms%n",
+                tamanho, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private static void inserirLivros(Connection conexao, int tamanho) throws SQLException {
+        String sql = "INSERT INTO livros (titulo, tema, autor, isbn, data_publicacao, quantidade_disponivel) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conexao.prepareStatement(sql)) {
+            Date publicacao = Date.valueOf(LocalDate.of(2000, 1, 1));
+            for (int i = 1; i <= tamanho; i++) {
+                ps.setString(1, "Livro " + PALAVRAS[i % PALAVRAS.length] + " " + i);
+                ps.setString(2, TEMAS[i % TEMAS.length]);
+                ps.setString(3, "Autor " + SOBRENOMES[i % SOBRENOMES.length]);
+                ps.setString(4, String.valueOf(9780000000000L + i));
+                ps.setDate(5, publicacao);
+                ps.setInt(6, 1000);
+                adicionar(conexao, ps, i);
+            }
+            finalizar(conexao, ps);
+        }
+    }
+
+    private static void inserirUsuarios(Connection conexao, int tamanho) throws SQLException {
+        String sql = "INSERT INTO usuarios (nome, sexo, celular, email, dias_multa, data_fim_multa) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        int primeiroLivre = tamanho - usuariosLivres(tamanho) + 1;
+        Date fimMulta = Date.valueOf(LocalDate.now().plusDays(5));
+        try (PreparedStatement ps = conexao.prepareStatement(sql)) {
+            for (int i = 1; i <= tamanho; i++) {
+                boolean comMulta = i < primeiroLivre && i % 20 == 0;
+                ps.setString(1, "Usuario " + SOBRENOMES[i % SOBRENOMES.length] + " " + i);
+                ps.setString(2, "Outro");
+                ps.setString(3, "(11) 91234-5678");
+                ps.setString(4, "usuario" + i + "@biblioteca.com");
+                ps.setInt(5, comMulta ? 5 : 0);
+                if (comMulta) {
+                    ps.setDate(6, fimMulta);
+                } else {
+                    ps.setNull(6, Types.DATE);
+                }
+                adicionar(conexao, ps, i);
+            }
+            finalizar(conexao, ps);
+        }
+    }
+
+    private static void inserirEmprestimos(Connection conexao, int tamanho) throws SQLException {
+        String sql = "INSERT INTO emprestimos (usuario_id, livro_id, data_emprestimo, data_devolucao_prevista, "
+                + "data_devolucao, ativo) VALUES (?, ?, ?, ?, ?, ?)";
+        int usuariosComEmprestimo = tamanho - usuariosLivres(tamanho);
+        LocalDate hoje = LocalDate.now();
+        try (PreparedStatement ps = conexao.prepareStatement(sql)) {
+            for (int i = 1; i <= tamanho; i++) {
+                LocalDate dataEmprestimo;
+                LocalDate devolucao = null;
+                boolean ativo = true;
+                if (i % 10 == 0) {
+                    dataEmprestimo = hoje.minusDays(30);
+                } else if (i % 10 == 1) {
+                    dataEmprestimo = hoje.minusDays(3);
+                } else {
+                    dataEmprestimo = hoje.minusDays(60 + i % 300);
+                    devolucao = dataEmprestimo.plusDays(10);
+                    ativo = false;
+                }
+                ps.setLong(1, 1 + (i % usuariosComEmprestimo));
+                ps.setLong(2, 1 + (i % tamanho));
+                ps.setDate(3, Date.valueOf(dataEmprestimo));
+                ps.setDate(4, Date.valueOf(dataEmprestimo.plusDays(14)));
+                if (devolucao != null) {
+                    ps.setDate(5, Date.valueOf(devolucao));
+                } else {
+                    ps.setNull(5, Types.DATE);
+                }
+                ps.setBoolean(6, ativo);
+                adicionar(conexao, ps, i);
+            }
+            finalizar(conexao, ps);
+        }
+    }
+
+    private static void adicionar(Connection conexao, PreparedStatement ps, int linha) throws SQLException {
+        ps.addBatch();
+        if (linha % TAMANHO_LOTE == 0) {
+            ps.executeBatch();
+            conexao.commit();
+        }
+    }
+
+    private static void finalizar(Connection conexao, PreparedStatement ps) throws SQLException {
+        ps.executeBatch();
+        conexao.commit();
+    }
+}
@@ -0,0 +1,199 @@
+package benchmark;
+
+import api.ServidorApi;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Teste de carga da API HTTP ({@link ServidorApi}): sobe o servidor sobre o banco H2 dos
+ * benchmarks e dispara requisições concorrentes com uma mistura de consultas e empréstimos,
+ * relatando vazão e latências p50/p99 por operação.
+ * <p>
+ * Uso: {@code java -cp target/benchmarks.jar benchmark.CargaApi [tamanho] [requisicoes] [clientes]}
+ * (padrão: 100000 registros por tabela, 50000 requisições, 64 clientes simultâneos).
+ * As primeiras 10% das requisições servem de aquecimento e não entram nas estatísticas.
+ */
+public final class CargaApi {
+
+    enum Operacao {
+        BUSCAR_LIVROS(35), LIVRO_POR_ID(20), STATUS_USUARIO(20), PAGINA_EMPRESTIMOS(10), EMPRESTIMO_E_DEVOLUCAO(15);
+
+        private final int peso;
+
+        Operacao(int peso) {
+            this.peso = peso;
+        }
+
+        static Operacao sortear() {
+            int sorteio = ThreadLocalRandom.current().nextInt(100);
+            for (Operacao operacao : values()) {
+                sorteio -= operacao.peso;
+                if (sorteio < 0) {
+                    return operacao;
+                }
+            }
+            return BUSCAR_LIVROS;
+        }
+    }
+
+    private static final Pattern ID_JSON = Pattern.compile("\"id\":(\\d+)");
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String base;
+    private final int tamanho;
+    private final AtomicLong usuarioLivre = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong rejeitadas = new AtomicLong();
+
+    private CargaApi(String base, int tamanho) {
+        this.base = base;
+        this.tamanho = tamanho;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tamanho = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int requisicoes = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int clientes = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        BaseDeDados.preparar(tamanho);
+        ServidorApi servidor = new ServidorApi(0);
+        servidor.iniciar();
+        try {
+            CargaApi carga = new CargaApi("http://" + servidor.getEndereco().getHostAddress() + ":" + servidor.getPorta(),
+                    tamanho);
+            int aquecimento = requisicoes / 10;
+            System.out.printf("Aquecimento: %d requisições%n", aquecimento);
+            carga.executar(aquecimento, clientes);
+            carga.falhas.set(0);
+            carga.rejeitadas.set(0);
+
+            System.out.printf("Medição: %d requisições com %d clientes simultâneos%n", requisicoes, clientes);
+            long inicio = System.nanoTime();
+            Map<Operacao, long[]> latencias = carga.executar(requisicoes, clientes);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            carga.relatar(latencias, segundos);
+        } finally {
+            servidor.parar();
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Distribui as requisições entre os clientes e retorna as latências (ns) de cada operação.
+     */
+    private Map<Operacao, long[]> executar(int requisicoes, int clientes) throws Exception {
+        List<Future<Map<Operacao, List<Long>>>> resultados = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                int cota = requisicoes / clientes + (c < requisicoes % clientes ? 1 : 0);
+                resultados.add(executor.submit(() -> cliente(cota)));
+            }
+        }
+
+        Map<Operacao, List<Long>> todas = new EnumMap<>(Operacao.class);
+        for (Future<Map<Operacao, List<Long>>> resultado : resultados) {
+            resultado.get().forEach((operacao, lista) ->
+                    todas.computeIfAbsent(operacao, o -> new ArrayList<>()).addAll(lista));
+        }
+        Map<Operacao, long[]> ordenadas = new EnumMap<>(Operacao.class);
+        todas.forEach((operacao, lista) -> {
+            long[] valores = lista.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(valores);
+            ordenadas.put(operacao, valores);
+        });
+        return ordenadas;
+    }
+
+    private Map<Operacao, List<Long>> cliente(int requisicoes) throws Exception {
+        Map<Operacao, List<Long>> latencias = new EnumMap<>(Operacao.class);
+        for (int i = 0; i < requisicoes; i++) {
+            Operacao operacao = Operacao.sortear();
+            long inicio = System.nanoTime();
+            executar(operacao);
+            latencias.computeIfAbsent(operacao, o -> new ArrayList<>()).add(System.nanoTime() - inicio);
+        }
+        return latencias;
+    }
+
+    private void executar(Operacao operacao) throws IOException, InterruptedException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        switch (operacao) {
+            case BUSCAR_LIVROS -> get("/api/livros?tamanho=20&busca="
+                    + BaseDeDados.PALAVRAS[aleatorio.nextInt(BaseDeDados.PALAVRAS.length)].substring(0, 4));
+            case LIVRO_POR_ID -> get("/api/livros/" + (1 + aleatorio.nextInt(tamanho)));
+            case STATUS_USUARIO -> get("/api/usuarios/" + (1 + aleatorio.nextInt(tamanho)) + "/status");
+            case PAGINA_EMPRESTIMOS -> get("/api/emprestimos?tamanho=50&inicio=" + aleatorio.nextInt(1000));
+            case EMPRESTIMO_E_DEVOLUCAO -> {
+                int livres = BaseDeDados.usuariosLivres(tamanho);
+                long usuarioId = tamanho - livres + 1 + usuarioLivre.getAndIncrement() % livres;
+                long livroId = 1 + aleatorio.nextInt(tamanho);
+                HttpResponse<String> resposta = enviar("POST", "/api/emprestimos",
+                        "{\"usuarioId\":" + usuarioId + ",\"livroId\":" + livroId + "}");
+                Matcher id = ID_JSON.matcher(resposta.body());
+                if (resposta.statusCode() == 201 && id.find()) {
+                    enviar("POST", "/api/emprestimos/" + id.group(1) + "/devolucao", null);
+                }
+            }
+        }
+    }
+
+    private void get(String caminho) throws IOException, InterruptedException {
+        enviar("GET", caminho, null);
+    }
+
+    private HttpResponse<String> enviar(String metodo, String caminho, String corpo)
+            throws IOException, InterruptedException {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create(base + caminho))
+                .method(metodo, corpo == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(corpo))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        HttpResponse<String> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofString());
+        if (resposta.statusCode() >= 500) {
+            falhas.incrementAndGet();
+        } else if (resposta.statusCode() >= 400) {
+            // Regras de negócio (ex.: limite de empréstimos do usuário atingido por clientes simultâneos)
+            rejeitadas.incrementAndGet();
+        }
+        return resposta;
+    }
+
+    private void relatar(Map<Operacao, long[]> latencias, double segundos) {
+        long total = latencias.values().stream().mapToLong(valores -> valores.length).sum();
+        System.out.printf("%nVazão: %.0f operações/s (%d em %.1f s); falhas: %d; rejeitadas por regra de negócio: %d%n",
+                total / segundos, total, segundos, falhas.get(), rejeitadas.get());
+        System.out.printf("%-24s %8s %10s %10s %10s%n", "Operação", "Qtde", "p50 (ms)", "p99 (ms)", "máx (ms)");
+        latencias.forEach((operacao, valores) -> System.out.printf("%-24s %8d %10.2f %10.2f %10.2f%n",
+                operacao, valores.length, percentil(valores, 50), percentil(valores, 99),
+                valores[valores.length - 1] / 1e6));
+        long[] todas = latencias.values().stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-24s %8d %10.2f %10.2f %10.2f%n", "TODAS", todas.length,
+                percentil(todas, 50), percentil(todas, 99), todas[todas.length - 1] / 1e6);
+    }
+
+    private static double percentil(long[] ordenados, int percentil) {
+        int indice = (int) Math.ceil(percentil / 100.0 * ordenados.length) - 1;
+        return ordenados[Math.max(0, indice)] / 1e6;
+    }
+}
@@ -0,0 +1,123 @@
+package benchmark;
+
+import controller.EmprestimoController;
+import controller.UsuarioController;
+import model.Emprestimo;
+import model.EmprestimoResumo;
+import model.Livro;
+import model.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.LivroRepository;
+import repository.Sugestao;
+import repository.UsuarioRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas das telas: buscas de livros e usuários, sugestões enquanto se digita na tela de
+ * empréstimo, listagem de atrasados (entidades e resumos) e o preenchimento da coluna de
+ * status de um bloco da tabela de usuários.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+@State(Scope.Benchmark)
+public class ConsultaBenchmark {
+
+    /** Tamanho do bloco carregado por vez pela tabela de usuários. */
+    private static final int LINHAS_POR_BLOCO = 100;
+
+    /** Sugestões exibidas por vez na tela de empréstimo. */
+    private static final int LIMITE_SUGESTOES = 10;
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    private final LivroRepository livroRepository = new LivroRepository();
+    private final UsuarioRepository usuarioRepository = new UsuarioRepository();
+    private final UsuarioController usuarioController = new UsuarioController();
+    private final EmprestimoController emprestimoController = new EmprestimoController();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        BaseDeDados.preparar(tamanho);
+        usuarioRepository.prepararSugestoes();
+        livroRepository.prepararSugestoes();
+    }
+
+    @Benchmark
+    public List<Livro> buscarLivroPorTitulo() {
+        int i = sortear();
+        return livroRepository.buscarPorTitulo(BaseDeDados.PALAVRAS[i % BaseDeDados.PALAVRAS.length] + " " + i);
+    }
+
+    @Benchmark
+    public List<Usuario> buscarUsuarioPorNome() {
+        int i = sortear();
+        return usuarioRepository.buscarPorNome(BaseDeDados.SOBRENOMES[i % BaseDeDados.SOBRENOMES.length] + " " + i);
+    }
+
+    /**
+     * Uma tecla digitada no campo de usuário: início do sobrenome e dos primeiros dígitos.
+     */
+    @Benchmark
+    public List<Sugestao> sugerirUsuarios() {
+        int i = sortear();
+        String sobrenome = BaseDeDados.SOBRENOMES[i % BaseDeDados.SOBRENOMES.length];
+        return usuarioRepository.sugerir(sobrenome.substring(0, 3) + " " + (i % 100), LIMITE_SUGESTOES);
+    }
+
+    @Benchmark
+    public List<Sugestao> sugerirLivros() {
+        int i = sortear();
+        String palavra = BaseDeDados.PALAVRAS[i % BaseDeDados.PALAVRAS.length];
+        return livroRepository.sugerir(palavra.substring(0, 4), LIMITE_SUGESTOES);
+    }
+
+    @Benchmark
+    public List<Emprestimo> listarAtrasados() {
+        return emprestimoController.listarAtrasados();
+    }
+
+    @Benchmark
+    public List<EmprestimoResumo> listarResumoAtrasados() {
+        return emprestimoController.listarResumoAtrasados();
+    }
+
+    /**
+     * Mesmo trabalho da tela de usuários ao exibir um bloco: lê a página pelo cursor
+     * e calcula o status de multa/atraso de todos os usuários do bloco de uma vez.
+     */
+    @Benchmark
+    public Map<Long, String> preencherStatusUsuarios() {
+        int i = sortear();
+        String nome = "Usuario " + BaseDeDados.SOBRENOMES[i % BaseDeDados.SOBRENOMES.length] + " " + i;
+        List<Usuario> usuarios = usuarioController.listarPagina(nome, (long) i, LINHAS_POR_BLOCO);
+        List<Long> ids = new ArrayList<>(usuarios.size());
+        for (Usuario usuario : usuarios) {
+            ids.add(usuario.getId());
+        }
+        return emprestimoController.verificarStatusEmLote(ids);
+    }
+
+    private int sortear() {
+        return 1 + ThreadLocalRandom.current().nextInt(tamanho);
+    }
+}
@@ -0,0 +1,320 @@
+package benchmark;
+
+import controller.EmprestimoController;
+import controller.LivroController;
+import controller.UsuarioController;
+import model.Emprestimo;
+import model.Livro;
+import model.Usuario;
+import repository.ConflitoDeVersaoException;
+import repository.EmprestimoRepository;
+import repository.JPAUtil;
+import repository.LivroRepository;
+import repository.UsuarioRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Teste de concorrência do empréstimo: a cada rodada, várias threads, cada uma com um usuário
+ * diferente, pedem um empréstimo ao mesmo tempo. Há dois cenários:
+ * <ul>
+ *     <li>DISPUTA: todas disputam um livro novo com poucos exemplares; ao fim da rodada, confere
+ *     no banco que a quantidade disponível não ficou negativa e é igual ao estoque inicial menos
+ *     os empréstimos bem-sucedidos;</li>
+ *     <li>LIVROS_DISTINTOS: cada thread empresta o seu próprio livro, sem disputa, o que mede a
+ *     vazão do caminho em si; confere o estoque somado dos livros.</li>
+ * </ul>
+ * Os empréstimos de cada rodada são devolvidos antes da próxima. As rodadas são feitas por dois
+ * caminhos, para comparação:
+ * <ul>
+ *     <li>ANTERIOR: as idas ao banco do empréstimo antes da transação única (leitura do usuário
+ *     e do livro, contagem dos ativos e gravação do livro e do empréstimo, cada uma em sua
+ *     própria transação), reproduzidas com os repositórios. Com a versão dos livros, a gravação
+ *     de um livro alterado depois da leitura é recusada ({@link ConflitoDeVersaoException}) em
+ *     vez de emprestar além do estoque;</li>
+ *     <li>ATUAL: {@link EmprestimoController#registrarEmprestimo}.</li>
+ * </ul>
+ * Ao final, relata para cada cenário e caminho a vazão de tentativas e de empréstimos, as rodadas
+ * em que o estoque divergiu e os empréstimos além do estoque. Termina com status 1 se alguma
+ * conferência do caminho ATUAL falhar (ou se ele recusar uma thread enquanto havia exemplares).
+ * <p>
+ * Usa um banco H2 em memória. Uso: {@code java -cp target/benchmarks.jar benchmark.CorridaEmprestimos
+ * [threads] [exemplares] [rodadas]} (padrão: 64 threads, 5 exemplares, 100 rodadas por caminho;
+ * as primeiras 10% servem de aquecimento e não entram na vazão).
+ */
+public final class CorridaEmprestimos {
+
+    enum Cenario { DISPUTA, LIVROS_DISTINTOS }
+
+    enum Caminho { ANTERIOR, ATUAL }
+
+    private static final int ESTOQUE_LIVROS_DISTINTOS = 1_000_000;
+    // Sem MODE=MySQL, pelo mesmo motivo de BaseDeDados
+    private static final String URL = "jdbc:h2:mem:biblioteca_corrida;DB_CLOSE_DELAY=-1";
+
+    private final EmprestimoController emprestimoController = new EmprestimoController();
+    private final LivroController livroController = new LivroController();
+    private final EmprestimoRepository emprestimoRepository = new EmprestimoRepository();
+    private final LivroRepository livroRepository = new LivroRepository();
+    private final UsuarioRepository usuarioRepository = new UsuarioRepository();
+    private final int threads;
+    private final int exemplares;
+    private final List<Long> usuarioIds = new ArrayList<>();
+    private final List<Long> livrosDistintos = new ArrayList<>();
+    private int livrosCadastrados;
+
+    private CorridaEmprestimos(int threads, int exemplares) {
+        this.threads = threads;
+        this.exemplares = exemplares;
+    }
+
+    /**
+     * Totais de um caminho nas rodadas medidas.
+     */
+    private static final class Resultado {
+        long tentativas;
+        long emprestimos;
+        long nanos;
+        long rodadasDivergentes;
+        long alemDoEstoque;
+        final List<String> falhas = new ArrayList<>();
+
+        void zerar() {
+            tentativas = 0;
+            emprestimos = 0;
+            nanos = 0;
+            rodadasDivergentes = 0;
+            alemDoEstoque = 0;
+            falhas.clear();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int exemplares = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int rodadas = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        CorridaEmprestimos corrida = new CorridaEmprestimos(threads, exemplares);
+        corrida.preparar();
+        int aquecimento = Math.max(1, rodadas / 10);
+        boolean aprovado = true;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            System.out.printf("%d rodadas por caminho, %d threads; na disputa, um livro com %d exemplar(es)%n",
+                    rodadas, threads, exemplares);
+            System.out.printf("%-17s %-9s %12s %13s %19s %15s %7s%n", "Cenário", "Caminho", "Tentativas/s",
+                    "Empréstimos/s", "Rodadas divergentes", "Além do estoque", "Falhas");
+            for (Cenario cenario : Cenario.values()) {
+                for (Caminho caminho : Caminho.values()) {
+                    Resultado resultado = new Resultado();
+                    for (int r = 0; r < aquecimento; r++) {
+                        corrida.rodada(executor, cenario, caminho, resultado);
+                    }
+                    resultado.zerar();
+                    for (int r = 0; r < rodadas; r++) {
+                        corrida.rodada(executor, cenario, caminho, resultado);
+                    }
+                    relatar(cenario, caminho, resultado);
+                    if (caminho == Caminho.ATUAL) {
+                        aprovado &= resultado.rodadasDivergentes == 0 && resultado.falhas.isEmpty();
+                    }
+                }
+            }
+        }
+        System.exit(aprovado ? 0 : 1);
+    }
+
+    private void preparar() {
+        System.setProperty("javax.persistence.jdbc.driver", "org.h2.Driver");
+        System.setProperty("javax.persistence.jdbc.url", URL);
+        System.setProperty("javax.persistence.jdbc.user", "sa");
+        System.setProperty("javax.persistence.jdbc.password", "");
+        System.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        System.setProperty("hibernate.hbm2ddl.auto", "create");
+        System.setProperty("hibernate.show_sql", "false");
+        JPAUtil.getEntityManagerFactory();
+
+        UsuarioController usuarioController = new UsuarioController();
+        for (int i = 1; i <= threads; i++) {
+            usuarioIds.add(usuarioController.cadastrarUsuario("Usuario Corrida " + i, "Outro", "(11) 91234-5678",
+                    "corrida" + i + "@biblioteca.com").getId());
+            livrosDistintos.add(cadastrarLivro(ESTOQUE_LIVROS_DISTINTOS));
+        }
+    }
+
+    private Long cadastrarLivro(int quantidade) {
+        livrosCadastrados++;
+        return livroController.cadastrarLivro("Livro disputado " + livrosCadastrados, "Romance", "Autor Corrida",
+                String.valueOf(9790000000000L + livrosCadastrados), LocalDate.of(2000, 1, 1), quantidade).getId();
+    }
+
+    /**
+     * Libera todas as threads ao mesmo tempo para emprestar o livro do cenário, confere o
+     * estoque gravado e devolve os empréstimos, para que os usuários voltem a ficar livres.
+     */
+    private void rodada(ExecutorService executor, Cenario cenario, Caminho caminho, Resultado resultado)
+            throws Exception {
+        Long livroDisputado = cenario == Cenario.DISPUTA ? cadastrarLivro(exemplares) : null;
+        long[] estadoInicial = cenario == Cenario.DISPUTA ? null : lerLivrosDistintos();
+
+        CountDownLatch prontas = new CountDownLatch(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Long> emprestados = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<String> falhas = new ConcurrentLinkedQueue<>();
+        List<Future<?>> tarefas = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Long usuarioId = usuarioIds.get(t);
+            Long livroId = livroDisputado != null ? livroDisputado : livrosDistintos.get(t);
+            tarefas.add(executor.submit(() -> {
+                prontas.countDown();
+                largada.await();
+                try {
+                    Emprestimo emprestimo = caminho == Caminho.ATUAL
+                            ? emprestimoController.registrarEmprestimo(usuarioId, livroId, null)
+                            : emprestarPeloCaminhoAnterior(usuarioId, livroId);
+                    emprestados.add(emprestimo.getId());
+                } catch (IllegalArgumentException | ConflitoDeVersaoException e) {
+                    // Sem exemplares disponíveis, ou (caminho anterior) livro gravado por outra thread
+                    // depois da leitura: resultado esperado para quem chega depois
+                } catch (RuntimeException e) {
+                    falhas.add(e.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+                return null;
+            }));
+        }
+        prontas.await();
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get();
+        }
+        resultado.nanos += System.nanoTime() - inicio;
+        resultado.tentativas += threads;
+        resultado.emprestimos += emprestados.size();
+        resultado.falhas.addAll(falhas);
+
+        if (cenario == Cenario.DISPUTA) {
+            conferirDisputa(caminho, livroDisputado, emprestados.size(), resultado);
+        } else {
+            conferirLivrosDistintos(caminho, estadoInicial, emprestados.size(), resultado);
+        }
+        for (Long emprestimoId : emprestados) {
+            if (caminho == Caminho.ATUAL) {
+                emprestimoController.registrarDevolucao(emprestimoId);
+            } else {
+                devolverPeloCaminhoAnterior(emprestimoId);
+            }
+        }
+    }
+
+    /**
+     * Idas ao banco do empréstimo anterior à transação única: cada leitura e gravação em sua
+     * própria transação, com o estoque decrementado no objeto lido e gravado por inteiro.
+     */
+    private Emprestimo emprestarPeloCaminhoAnterior(Long usuarioId, Long livroId) {
+        Usuario usuario = usuarioRepository.buscarPorId(usuarioId);
+        Livro livro = livroRepository.buscarPorId(livroId);
+        if (!livro.temExemplaresDisponiveis()) {
+            throw new IllegalArgumentException("Não há exemplares disponíveis do livro: " + livro.getTitulo());
+        }
+        if (emprestimoRepository.contarEmprestimosAtivos(usuario) >= 5) {
+            throw new IllegalArgumentException("Limite de empréstimos atingido.");
+        }
+        Emprestimo emprestimo = new Emprestimo(usuario, livro, LocalDate.now());
+        livro.decrementarQuantidade();
+        livroRepository.atualizar(livro);
+        return emprestimoRepository.salvar(emprestimo);
+    }
+
+    /**
+     * Devolução anterior à transação única: o livro lido com o empréstimo é incrementado e
+     * gravado por inteiro, e o empréstimo em seguida, em outra transação.
+     */
+    private void devolverPeloCaminhoAnterior(Long emprestimoId) {
+        Emprestimo emprestimo = emprestimoRepository.buscarPorId(emprestimoId);
+        emprestimo.registrarDevolucao();
+        Livro livro = livroRepository.buscarPorId(emprestimo.getLivro().getId());
+        livro.incrementarQuantidade();
+        livroRepository.atualizar(livro);
+        emprestimoRepository.atualizar(emprestimo);
+    }
+
+    private void conferirDisputa(Caminho caminho, Long livroId, int sucessos, Resultado resultado) {
+        long disponivel = consultarNumero("SELECT quantidade_disponivel FROM livros WHERE id = ?", livroId);
+        long ativos = consultarNumero("SELECT COUNT(*) FROM emprestimos WHERE livro_id = ? AND ativo = TRUE",
+                livroId);
+        boolean divergente = disponivel < 0 || disponivel != exemplares - sucessos || ativos != sucessos;
+        if (caminho == Caminho.ATUAL) {
+            // O caminho anterior pode recusar threads por conflito; o atual só por falta de exemplares
+            divergente |= sucessos < Math.min(exemplares, threads);
+        }
+        if (divergente) {
+            resultado.rodadasDivergentes++;
+        }
+        resultado.alemDoEstoque += Math.max(0, sucessos - exemplares);
+    }
+
+    /**
+     * Confere a rodada contra o estado lido no seu início, para que uma falha numa rodada não
+     * contamine as seguintes.
+     */
+    private void conferirLivrosDistintos(Caminho caminho, long[] estadoInicial, int sucessos,
+                                         Resultado resultado) {
+        long[] estadoFinal = lerLivrosDistintos();
+        boolean divergente = estadoFinal[0] != estadoInicial[0] - sucessos
+                || estadoFinal[1] != estadoInicial[1] + sucessos;
+        if (divergente || (caminho == Caminho.ATUAL && sucessos < threads)) {
+            resultado.rodadasDivergentes++;
+        }
+    }
+
+    /**
+     * @return o estoque somado dos livros distintos e quantos empréstimos ativos eles têm
+     */
+    private long[] lerLivrosDistintos() {
+        long primeiro = livrosDistintos.get(0);
+        long ultimo = livrosDistintos.get(livrosDistintos.size() - 1);
+        long disponivel = consultarNumero(
+                "SELECT SUM(quantidade_disponivel) FROM livros WHERE id BETWEEN ? AND ?", primeiro, ultimo);
+        long ativos = consultarNumero("SELECT COUNT(*) FROM emprestimos WHERE livro_id BETWEEN ? AND ? "
+                + "AND ativo = TRUE", primeiro, ultimo);
+        return new long[]{disponivel, ativos};
+    }
+
+    /**
+     * Consulta direto no banco, sem passar pelo Hibernate, o estado gravado ao fim da rodada.
+     */
+    private static long consultarNumero(String sql, long... parametros) {
+        try (Connection conexao = DriverManager.getConnection(URL, "sa", "");
+             PreparedStatement ps = conexao.prepareStatement(sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                ps.setLong(i + 1, parametros[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao consultar banco de teste: " + e.getMessage(), e);
+        }
+    }
+
+    private static void relatar(Cenario cenario, Caminho caminho, Resultado resultado) {
+        double segundos = resultado.nanos / 1e9;
+        System.out.printf("%-17s %-9s %12.0f %13.0f %19d %15d %7d%n", cenario, caminho,
+                resultado.tentativas / segundos, resultado.emprestimos / segundos, resultado.rodadasDivergentes,
+                resultado.alemDoEstoque, resultado.falhas.size());
+        resultado.falhas.stream().distinct().limit(3).forEach(falha -> System.out.println("    " + falha));
+    }
+}
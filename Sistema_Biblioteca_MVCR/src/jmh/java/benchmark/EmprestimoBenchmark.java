@@ -0,0 +1,101 @@
+package benchmark;
+
+import controller.EmprestimoController;
+import model.Emprestimo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho de empréstimo e devolução ({@link EmprestimoController}).
+ * <p>
+ * Cada operação medida é desfeita fora da medição (a devolução do empréstimo criado,
+ * ou a criação do empréstimo a devolver), de modo que estoque e limites dos usuários
+ * permanecem estáveis durante toda a execução.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+@State(Scope.Benchmark)
+public class EmprestimoBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    private final EmprestimoController emprestimoController = new EmprestimoController();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        BaseDeDados.preparar(tamanho);
+    }
+
+    @Benchmark
+    public Emprestimo registrarEmprestimo(NovoEmprestimo novo) {
+        Emprestimo emprestimo = emprestimoController.registrarEmprestimo(novo.usuarioId, novo.livroId, null);
+        novo.emprestimoId = emprestimo.getId();
+        return emprestimo;
+    }
+
+    @Benchmark
+    public Emprestimo registrarDevolucao(EmprestimoAberto aberto) {
+        return emprestimoController.registrarDevolucao(aberto.emprestimoId);
+    }
+
+    /**
+     * Escolhe um usuário livre e um livro para o próximo empréstimo e o devolve após a medição.
+     */
+    @State(Scope.Thread)
+    public static class NovoEmprestimo {
+        private int sequencia;
+        Long usuarioId;
+        Long livroId;
+        Long emprestimoId;
+
+        @Setup(Level.Invocation)
+        public void escolher(EmprestimoBenchmark benchmark) {
+            int livres = BaseDeDados.usuariosLivres(benchmark.tamanho);
+            usuarioId = (long) (benchmark.tamanho - livres + 1 + (sequencia++ % livres));
+            livroId = 1 + ThreadLocalRandom.current().nextLong(benchmark.tamanho);
+            emprestimoId = null;
+        }
+
+        @TearDown(Level.Invocation)
+        public void devolver(EmprestimoBenchmark benchmark) {
+            if (emprestimoId != null) {
+                benchmark.emprestimoController.registrarDevolucao(emprestimoId);
+            }
+        }
+    }
+
+    /**
+     * Registra, fora da medição, o empréstimo que será devolvido.
+     */
+    @State(Scope.Thread)
+    public static class EmprestimoAberto {
+        private int sequencia;
+        Long emprestimoId;
+
+        @Setup(Level.Invocation)
+        public void emprestar(EmprestimoBenchmark benchmark) {
+            int livres = BaseDeDados.usuariosLivres(benchmark.tamanho);
+            long usuarioId = benchmark.tamanho - livres + 1 + (sequencia++ % livres);
+            long livroId = 1 + ThreadLocalRandom.current().nextLong(benchmark.tamanho);
+            emprestimoId = benchmark.emprestimoController.registrarEmprestimo(usuarioId, livroId, null).getId();
+        }
+    }
+}
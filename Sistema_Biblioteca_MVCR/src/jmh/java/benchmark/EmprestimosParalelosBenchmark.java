@@ -0,0 +1,110 @@
+package benchmark;
+
+import controller.EmprestimoController;
+import controller.EstatisticasTravas;
+import model.Emprestimo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vazão de {@link EmprestimoController#registrarEmprestimo} com 1, 4 e todas as threads
+ * disponíveis, cada thread com o seu usuário e o seu livro, sobre o banco H2 em memória. Ao
+ * contrário do {@link TravasBenchmark}, mede o caminho inteiro: travas em faixas, transação,
+ * log de eventos e análise de circulação.
+ * <p>
+ * Cada operação é um empréstimo seguido da sua devolução, para que estoque e limite do usuário
+ * fiquem estáveis. As threads não disputam travas (as métricas de disputa são impressas ao
+ * final); o que limita a vazão com mais threads é o pool de conexões ({@code conexoes}, o
+ * maximumPoolSize do Hikari) e o próprio banco. O aquecimento é longo porque, com poucos núcleos,
+ * a compilação do JIT disputa a CPU com as threads medidas.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 8, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+@State(Scope.Benchmark)
+public class EmprestimosParalelosBenchmark {
+
+    @Param({"100000"})
+    public int tamanho;
+
+    @Param({"10"})
+    public int conexoes;
+
+    private final EmprestimoController emprestimoController = new EmprestimoController();
+    private final AtomicInteger proximaThread = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        System.setProperty("hibernate.hikari.maximumPoolSize", Integer.toString(conexoes));
+        BaseDeDados.preparar(tamanho);
+    }
+
+    @TearDown(Level.Trial)
+    public void relatar() {
+        System.out.println();
+        for (EstatisticasTravas estatisticas : EmprestimoController.getEstatisticasTravas()) {
+            System.out.println(estatisticas);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Emprestimo umaThread(Balcao balcao) {
+        return emprestarEDevolver(balcao);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Emprestimo quatroThreads(Balcao balcao) {
+        return emprestarEDevolver(balcao);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Emprestimo todasAsThreads(Balcao balcao) {
+        return emprestarEDevolver(balcao);
+    }
+
+    private Emprestimo emprestarEDevolver(Balcao balcao) {
+        Emprestimo emprestimo = emprestimoController.registrarEmprestimo(balcao.usuarioId, balcao.livroId, null);
+        return emprestimoController.registrarDevolucao(emprestimo.getId());
+    }
+
+    /**
+     * Usuário livre e livro próprios de cada thread, para que as threads não disputem travas.
+     */
+    @State(Scope.Thread)
+    public static class Balcao {
+        Long usuarioId;
+        Long livroId;
+
+        @Setup(Level.Trial)
+        public void escolher(EmprestimosParalelosBenchmark benchmark) {
+            int indice = benchmark.proximaThread.getAndIncrement();
+            int livres = BaseDeDados.usuariosLivres(benchmark.tamanho);
+            if (indice >= livres) {
+                throw new IllegalStateException("Há apenas " + livres + " usuários livres para " + (indice + 1)
+                        + " threads");
+            }
+            usuarioId = (long) (benchmark.tamanho - livres + 1 + indice);
+            livroId = (long) (1 + indice);
+        }
+    }
+}
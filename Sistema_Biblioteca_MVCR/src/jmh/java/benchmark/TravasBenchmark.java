@@ -0,0 +1,108 @@
+package benchmark;
+
+import controller.TravasEmFaixas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vazão das travas em faixas usadas em empréstimos e devoluções ({@link TravasEmFaixas}),
+ * com 1, 4 e todas as threads disponíveis. A seção crítica é simulada com um trabalho de CPU
+ * fixo, sem banco, para isolar o custo e a disputa das travas.
+ * <p>
+ * Com livros distintos por thread e faixas suficientes, nenhuma thread espera pelas outras; com
+ * o mesmo livro em todas as threads (ou uma única faixa), a vazão fica limitada à de uma thread.
+ * A vazão do empréstimo em si, com o banco, é medida por {@link EmprestimosParalelosBenchmark}.
+ * As métricas de disputa de cada execução são impressas ao final.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+@State(Scope.Benchmark)
+public class TravasBenchmark {
+
+    @Param({"1", "256"})
+    public int faixas;
+
+    @Param({"distintos", "mesmo"})
+    public String livros;
+
+    /** Custo da seção crítica, em unidades de {@link Blackhole#consumeCPU}. */
+    @Param({"500"})
+    public int trabalho;
+
+    private final AtomicLong proximoLivro = new AtomicLong(1);
+    private TravasEmFaixas travas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        travas = new TravasEmFaixas("livros", faixas);
+    }
+
+    @TearDown(Level.Trial)
+    public void relatar() {
+        System.out.println();
+        System.out.println(travas.obterEstatisticas());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void umaThread(Livro livro) {
+        emprestar(livro);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void quatroThreads(Livro livro) {
+        emprestar(livro);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void todasAsThreads(Livro livro) {
+        emprestar(livro);
+    }
+
+    private void emprestar(Livro livro) {
+        int[] indices = travas.faixas(livro.ids);
+        travas.travar(indices);
+        try {
+            Blackhole.consumeCPU(trabalho);
+        } finally {
+            travas.liberar(indices);
+        }
+    }
+
+    /**
+     * Livro usado por cada thread: um id próprio, ou o mesmo para todas.
+     */
+    @State(Scope.Thread)
+    public static class Livro {
+        List<Long> ids;
+
+        @Setup(Level.Trial)
+        public void escolher(TravasBenchmark benchmark) {
+            long id = "mesmo".equals(benchmark.livros) ? 1 : benchmark.proximoLivro.getAndIncrement();
+            ids = Collections.singletonList(id);
+        }
+    }
+}
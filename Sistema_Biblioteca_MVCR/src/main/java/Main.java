@@ -1,34 +1,113 @@
+import api.ServidorApi;
+import controller.AgendadorAtrasos;
+import controller.AnaliseCirculacao;
+import controller.EmprestimoController;
+import evento.RegistroEventos;
+import repository.JPAUtil;
 import view.Principal;
+import view.TelaInicial;
 
+import javax.persistence.EntityManagerFactory;
 import javax.swing.*;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 
 public class Main {
 
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--server")) {
+            iniciarServidor(args);
+            return;
+        }
+
+        // Conecta ao banco em segundo plano enquanto a interface é preparada
+        CompletableFuture<EntityManagerFactory> inicializacao = JPAUtil.iniciarEmSegundoPlano();
+
         configurarLookAndFeel();
 
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                try {
-                    // Cria e exibe a tela principal
-                    Principal principal = new Principal();
-                    principal.setVisible(true);
-                } catch (Exception e) {
-                    System.err.println("Erro ao iniciar a aplicação: " + e.getMessage());
-                    e.printStackTrace();
-                    
-                    JOptionPane.showMessageDialog(null,
-                        "Erro ao iniciar a aplicação:\n" + e.getMessage() +
-                        "\n\nVerifique se o banco de dados está configurado corretamente.",
-                        "Erro de Inicialização",
-                        JOptionPane.ERROR_MESSAGE);
-                    
-                    System.exit(1);
-                }
+                TelaInicial telaInicial = new TelaInicial();
+                telaInicial.setVisible(true);
+
+                inicializacao.whenComplete((fabrica, erro) -> SwingUtilities.invokeLater(() -> {
+                    telaInicial.dispose();
+                    if (erro != null) {
+                        exibirErroInicializacao(erro);
+                        return;
+                    }
+                    try {
+                        // Cria e exibe a tela principal
+                        Principal principal = new Principal();
+                        principal.setVisible(true);
+                    } catch (Exception e) {
+                        exibirErroInicializacao(e);
+                    }
+                }));
             }
         });
+
+        // Marca os empréstimos vencidos desde a última execução e repete diariamente
+        inicializacao.thenRun(() -> new AgendadorAtrasos(new EmprestimoController()).iniciar());
+
+        // Reconstrói os modelos de leitura do log de eventos antes do primeiro empréstimo
+        inicializacao.thenRunAsync(RegistroEventos::iniciar);
+        inicializacao.thenRunAsync(AnaliseCirculacao::iniciar);
+    }
+
+    private static void exibirErroInicializacao(Throwable e) {
+        System.err.println("Erro ao iniciar a aplicação: " + e.getMessage());
+        e.printStackTrace();
+
+        Throwable causa = e.getCause() != null ? e.getCause() : e;
+        JOptionPane.showMessageDialog(null,
+            "Erro ao iniciar a aplicação:\n" + causa.getMessage() +
+            "\n\nVerifique se o banco de dados está configurado corretamente.",
+            "Erro de Inicialização",
+            JOptionPane.ERROR_MESSAGE);
+
+        System.exit(1);
+    }
+
+    /**
+     * Modo sem interface gráfica: expõe a API JSON em /api. Porta: --porta=N,
+     * -Dbiblioteca.api.porta ou 8080.
+     */
+    private static void iniciarServidor(String[] args) {
+        int porta = ServidorApi.PORTA_PADRAO;
+        for (String arg : args) {
+            if (arg.startsWith("--porta=")) {
+                porta = Integer.parseInt(arg.substring("--porta=".length()));
+            }
+        }
+
+        try {
+            // Conecta ao banco antes de aceitar requisições, para falhar cedo se não estiver acessível,
+            // e aquece as consultas para que as primeiras requisições não paguem a inicialização
+            JPAUtil.getEntityManagerFactory();
+            JPAUtil.aquecer();
+            RegistroEventos.iniciar();
+            AnaliseCirculacao.iniciar();
+            ServidorApi servidor = new ServidorApi(porta);
+            AgendadorAtrasos agendador = new AgendadorAtrasos(new EmprestimoController());
+            servidor.iniciar();
+            agendador.iniciar();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                servidor.parar();
+                agendador.parar();
+                RegistroEventos.fechar();
+                JPAUtil.closeEntityManagerFactory();
+            }));
+            System.out.println("API disponível em http://" + servidor.getEndereco().getHostAddress() + ":"
+                    + servidor.getPorta() + "/api");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao iniciar o servidor: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
     }
 
     private static void configurarLookAndFeel() {
@@ -0,0 +1,26 @@
+package api;
+
+/**
+ * Erro que interrompe o atendimento de uma requisição com o status HTTP informado.
+ */
+class ErroHttp extends RuntimeException {
+
+    private final int status;
+
+    ErroHttp(int status, String mensagem) {
+        super(mensagem);
+        this.status = status;
+    }
+
+    static ErroHttp naoEncontrado(String mensagem) {
+        return new ErroHttp(404, mensagem);
+    }
+
+    static ErroHttp requisicaoInvalida(String mensagem) {
+        return new ErroHttp(400, mensagem);
+    }
+
+    int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,71 @@
+package api;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resposta paginada: {"itens": [...], "proximo": cursor}. O cursor é opaco para o cliente e
+ * guarda a chave de ordenação e o id do último item, usados na consulta por cursor (keyset)
+ * dos repositórios; "proximo" é null na última página.
+ */
+final class Pagina {
+
+    private Pagina() {
+    }
+
+    static <T> Map<String, Object> de(List<T> itens, int tamanho, Function<T, Object> representar,
+                                      Function<T, String> chave, Function<T, Long> id) {
+        Map<String, Object> pagina = new LinkedHashMap<>();
+        pagina.put("itens", itens.stream().map(representar).toList());
+        T ultimo = itens.isEmpty() ? null : itens.get(itens.size() - 1);
+        pagina.put("proximo", ultimo == null || itens.size() < tamanho
+                ? null : codificar(chave.apply(ultimo), id.apply(ultimo)));
+        return pagina;
+    }
+
+    static <T> Map<String, Object> semCursor(List<T> itens, Function<T, Object> representar) {
+        Map<String, Object> pagina = new LinkedHashMap<>();
+        pagina.put("itens", itens.stream().map(representar).toList());
+        pagina.put("proximo", null);
+        return pagina;
+    }
+
+    /**
+     * Cursor recebido no parâmetro "cursor": [chave, id], ou null para a primeira página.
+     */
+    static String[] decodificar(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.indexOf(':');
+            Long.parseLong(texto.substring(0, separador));
+            return new String[]{texto.substring(separador + 1), texto.substring(0, separador)};
+        } catch (RuntimeException e) {
+            throw ErroHttp.requisicaoInvalida("Cursor inválido");
+        }
+    }
+
+    /**
+     * Chave de um cursor cuja ordenação começa por uma data.
+     */
+    static LocalDate data(String[] cursor) {
+        try {
+            return LocalDate.parse(cursor[0]);
+        } catch (DateTimeParseException e) {
+            throw ErroHttp.requisicaoInvalida("Cursor inválido");
+        }
+    }
+
+    private static String codificar(String chave, Long id) {
+        String texto = id + ":" + chave;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,128 @@
+package api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import repository.ConflitoDeVersaoException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Base dos recursos da API: separa a requisição, limita quantas são atendidas ao mesmo
+ * tempo (cada uma ocupa uma conexão do pool enquanto consulta o banco) e converte o
+ * resultado ou o erro em uma resposta JSON.
+ * <p>
+ * As regras de negócio continuam nos controllers: {@link IllegalArgumentException} vira
+ * 400, ou 404 quando a mensagem indica que o registro não foi encontrado; um conflito de
+ * versão (que persistiu após as novas tentativas do controller, ou de uma edição condicionada
+ * a uma versão com If-Match) vira 409.
+ */
+abstract class Recurso implements HttpHandler {
+
+    static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String base;
+    private final Semaphore permissoes;
+
+    Recurso(String base, Semaphore permissoes) {
+        this.base = base;
+        this.permissoes = permissoes;
+    }
+
+    String getBase() {
+        return base;
+    }
+
+    /**
+     * Atende a requisição, retornando a resposta ou lançando {@link ErroHttp}.
+     */
+    protected abstract Resposta atender(Requisicao requisicao);
+
+    @Override
+    public final void handle(HttpExchange troca) throws IOException {
+        Resposta resposta;
+        try {
+            permissoes.acquire();
+            try {
+                resposta = atender(new Requisicao(troca, base));
+            } finally {
+                permissoes.release();
+            }
+        } catch (ErroHttp e) {
+            resposta = Resposta.erro(e.getStatus(), e.getMessage());
+        } catch (ConflitoDeVersaoException e) {
+            resposta = Resposta.erro(409, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // Mensagens dos controllers para registros inexistentes: "... não encontrado ..."
+            boolean naoEncontrado = e.getMessage() != null && e.getMessage().contains("não encontrado");
+            resposta = Resposta.erro(naoEncontrado ? 404 : 400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resposta = Resposta.erro(503, "Servidor encerrando");
+        } catch (Exception e) {
+            System.err.println("Erro ao atender " + troca.getRequestMethod() + " " + troca.getRequestURI()
+                    + ": " + e.getMessage());
+            e.printStackTrace();
+            resposta = Resposta.erro(500, "Erro interno: " + e.getMessage());
+        }
+        enviar(troca, resposta);
+    }
+
+    private static void enviar(HttpExchange troca, Resposta resposta) throws IOException {
+        try (troca) {
+            if (resposta.corpo() == null) {
+                troca.sendResponseHeaders(resposta.status(), -1);
+                return;
+            }
+            byte[] bytes = JSON.writeValueAsBytes(resposta.corpo());
+            troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            troca.sendResponseHeaders(resposta.status(), bytes.length);
+            try (OutputStream saida = troca.getResponseBody()) {
+                saida.write(bytes);
+            }
+        }
+    }
+
+    static ErroHttp metodoNaoPermitido(Requisicao requisicao) {
+        return new ErroHttp(405, "Método não permitido: " + requisicao.metodo());
+    }
+
+    static ErroHttp caminhoDesconhecido(Requisicao requisicao) {
+        return ErroHttp.naoEncontrado("Recurso não encontrado: /" + String.join("/", requisicao.caminho()));
+    }
+
+    /**
+     * Status HTTP e corpo (convertido em JSON) de uma resposta; corpo null para respostas vazias.
+     */
+    record Resposta(int status, Object corpo) {
+
+        static Resposta ok(Object corpo) {
+            return new Resposta(200, corpo);
+        }
+
+        static Resposta criado(Object corpo) {
+            return new Resposta(201, corpo);
+        }
+
+        static Resposta semConteudo() {
+            return new Resposta(204, null);
+        }
+
+        static Resposta erro(int status, String mensagem) {
+            return new Resposta(status, Map.of("erro", mensagem == null ? "Erro" : mensagem));
+        }
+
+        /**
+         * Retorna 200 com o objeto, ou 404 se ele não existir.
+         */
+        static Resposta encontrado(Object corpo, String descricao) {
+            if (corpo == null) {
+                throw ErroHttp.naoEncontrado(descricao + " não encontrado");
+            }
+            return ok(corpo);
+        }
+    }
+}
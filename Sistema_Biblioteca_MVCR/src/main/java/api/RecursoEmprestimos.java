@@ -0,0 +1,170 @@
+package api;
+
+import controller.AnaliseCirculacao;
+import controller.EmprestimoController;
+import controller.ItemPopular;
+import model.Emprestimo;
+import model.EmprestimoResumo;
+import repository.Paginacao;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * /api/emprestimos
+ * <pre>
+ * GET    /api/emprestimos?tamanho=&amp;cursor=&amp;inicio=   página dos ativos, do mais recente ao mais antigo
+ * GET    /api/emprestimos/atrasados?tamanho=&amp;cursor=   do mais antigo ao mais recente
+ * GET    /api/emprestimos/populares?k=      livros, temas, autores e usuários com mais empréstimos na semana
+ * GET    /api/emprestimos/{id}
+ * POST   /api/emprestimos                  {usuarioId, livroId, dataEmprestimo (opcional)}
+ * POST   /api/emprestimos/lote             {usuarioId, livroIds, dataEmprestimo (opcional)}
+ * POST   /api/emprestimos/{id}/devolucao
+ * POST   /api/emprestimos/devolucoes       {emprestimoIds}
+ * DELETE /api/emprestimos/{id}
+ * </pre>
+ */
+class RecursoEmprestimos extends Recurso {
+
+    private static final int POSICOES_PADRAO = 10;
+    private static final int POSICOES_MAXIMAS = 100;
+
+    private final EmprestimoController emprestimoController;
+
+    RecursoEmprestimos(EmprestimoController emprestimoController, Semaphore permissoes) {
+        super("/api/emprestimos", permissoes);
+        this.emprestimoController = emprestimoController;
+    }
+
+    @Override
+    protected Resposta atender(Requisicao requisicao) {
+        List<String> caminho = requisicao.caminho();
+        String metodo = requisicao.metodo();
+
+        if (caminho.isEmpty()) {
+            if ("GET".equals(metodo)) {
+                return Resposta.ok(listarAtivos(requisicao));
+            }
+            if ("POST".equals(metodo)) {
+                Map<String, Object> corpo = requisicao.corpoJson();
+                Long usuarioId = Requisicao.longo(corpo, "usuarioId");
+                Long livroId = Requisicao.longo(corpo, "livroId");
+                if (usuarioId == null || livroId == null) {
+                    throw ErroHttp.requisicaoInvalida("Informe usuarioId e livroId");
+                }
+                Emprestimo emprestimo = emprestimoController.registrarEmprestimo(usuarioId, livroId,
+                        Requisicao.data(corpo, "dataEmprestimo"));
+                return Resposta.criado(RepresentacaoJson.emprestimo(emprestimo));
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        if (caminho.size() == 1 && "atrasados".equals(caminho.get(0))) {
+            if ("GET".equals(metodo)) {
+                return Resposta.ok(listarAtrasados(requisicao));
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        if (caminho.size() == 1 && "populares".equals(caminho.get(0))) {
+            if ("GET".equals(metodo)) {
+                return Resposta.ok(listarPopulares(requisicao));
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        if (caminho.size() == 1 && "lote".equals(caminho.get(0))) {
+            if ("POST".equals(metodo)) {
+                Map<String, Object> corpo = requisicao.corpoJson();
+                Long usuarioId = Requisicao.longo(corpo, "usuarioId");
+                List<Long> livroIds = Requisicao.longos(corpo, "livroIds");
+                if (usuarioId == null || livroIds == null) {
+                    throw ErroHttp.requisicaoInvalida("Informe usuarioId e livroIds");
+                }
+                List<Emprestimo> emprestimos = emprestimoController.registrarEmprestimos(usuarioId, livroIds,
+                        Requisicao.data(corpo, "dataEmprestimo"));
+                return Resposta.criado(Pagina.semCursor(emprestimos, RepresentacaoJson::emprestimo));
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        if (caminho.size() == 1 && "devolucoes".equals(caminho.get(0))) {
+            if ("POST".equals(metodo)) {
+                List<Long> emprestimoIds = Requisicao.longos(requisicao.corpoJson(), "emprestimoIds");
+                if (emprestimoIds == null) {
+                    throw ErroHttp.requisicaoInvalida("Informe emprestimoIds");
+                }
+                return Resposta.ok(Pagina.semCursor(emprestimoController.registrarDevolucoes(emprestimoIds),
+                        RepresentacaoJson::emprestimo));
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        Long id = requisicao.id(0);
+        if (caminho.size() == 1) {
+            if ("GET".equals(metodo)) {
+                Emprestimo emprestimo = emprestimoController.buscarPorId(id);
+                return Resposta.encontrado(emprestimo == null ? null : RepresentacaoJson.emprestimo(emprestimo),
+                        "Empréstimo");
+            }
+            if ("DELETE".equals(metodo)) {
+                emprestimoController.removerEmprestimo(id);
+                return Resposta.semConteudo();
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        if (caminho.size() == 2 && "devolucao".equals(caminho.get(1))) {
+            if ("POST".equals(metodo)) {
+                return Resposta.ok(RepresentacaoJson.emprestimo(emprestimoController.registrarDevolucao(id)));
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+        throw caminhoDesconhecido(requisicao);
+    }
+
+    private Map<String, Object> listarAtivos(Requisicao requisicao) {
+        int tamanho = Paginacao.limitar(requisicao.parametroInteiro("tamanho", Paginacao.TAMANHO_PADRAO));
+        List<EmprestimoResumo> emprestimos;
+        String[] cursor = Pagina.decodificar(requisicao.parametro("cursor"));
+        if (cursor != null) {
+            emprestimos = emprestimoController.listarResumoAtivosPagina(Pagina.data(cursor), Long.valueOf(cursor[1]),
+                    tamanho);
+        } else {
+            emprestimos = emprestimoController.listarResumoAtivosPorPosicao(
+                    requisicao.parametroInteiro("inicio", 0), tamanho);
+        }
+        return Pagina.de(emprestimos, tamanho, RepresentacaoJson::resumo,
+                e -> e.dataEmprestimo().toString(), EmprestimoResumo::id);
+    }
+
+    private Map<String, Object> listarAtrasados(Requisicao requisicao) {
+        int tamanho = Paginacao.limitar(requisicao.parametroInteiro("tamanho", Paginacao.TAMANHO_PADRAO));
+        String[] cursor = Pagina.decodificar(requisicao.parametro("cursor"));
+        List<EmprestimoResumo> emprestimos = cursor == null
+                ? emprestimoController.listarResumoAtrasadosPagina(null, null, tamanho)
+                : emprestimoController.listarResumoAtrasadosPagina(Pagina.data(cursor), Long.valueOf(cursor[1]),
+                        tamanho);
+        return Pagina.de(emprestimos, tamanho, RepresentacaoJson::resumo,
+                e -> e.dataDevolucaoPrevista().toString(), EmprestimoResumo::id);
+    }
+
+    private static Map<String, Object> listarPopulares(Requisicao requisicao) {
+        int k = requisicao.parametroInteiro("k", POSICOES_PADRAO);
+        k = k <= 0 ? POSICOES_PADRAO : Math.min(k, POSICOES_MAXIMAS);
+        AnaliseCirculacao analise = AnaliseCirculacao.obter();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("dias", analise.getDias());
+        json.put("livros", representar(analise.listarLivrosMaisEmprestados(k)));
+        json.put("temas", representar(analise.listarTemasMaisEmprestados(k)));
+        json.put("autores", representar(analise.listarAutoresMaisEmprestados(k)));
+        json.put("usuarios", representar(analise.listarUsuariosMaisAtivos(k)));
+        return json;
+    }
+
+    private static List<Map<String, Object>> representar(List<ItemPopular> itens) {
+        return itens.stream().map(RepresentacaoJson::itemPopular).toList();
+    }
+}
@@ -0,0 +1,168 @@
+package api;
+
+import controller.EmprestimoController;
+import controller.LivroController;
+import model.Emprestimo;
+import model.Livro;
+import repository.Paginacao;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * /api/livros
+ * <pre>
+ * GET    /api/livros?busca=&amp;tamanho=&amp;cursor=&amp;inicio=   busca ou página por título
+ * GET    /api/livros/{id}
+ * GET    /api/livros/isbn/{isbn}
+ * GET    /api/livros/{id}/emprestimos?tamanho=&amp;cursor=   do mais recente ao mais antigo
+ * POST   /api/livros                 {titulo, tema, autor, isbn, dataPublicacao, quantidadeDisponivel}
+ * PUT    /api/livros/{id}            (mesmos campos) + quantidadeLida, ou cabeçalho If-Match: versao
+ * DELETE /api/livros/{id}
+ * </pre>
+ */
+class RecursoLivros extends Recurso {
+
+    private final LivroController livroController;
+    private final EmprestimoController emprestimoController;
+
+    RecursoLivros(LivroController livroController, EmprestimoController emprestimoController,
+                  Semaphore permissoes) {
+        super("/api/livros", permissoes);
+        this.livroController = livroController;
+        this.emprestimoController = emprestimoController;
+    }
+
+    @Override
+    protected Resposta atender(Requisicao requisicao) {
+        List<String> caminho = requisicao.caminho();
+        String metodo = requisicao.metodo();
+
+        if (caminho.isEmpty()) {
+            if ("GET".equals(metodo)) {
+                return Resposta.ok(listar(requisicao));
+            }
+            if ("POST".equals(metodo)) {
+                return Resposta.criado(RepresentacaoJson.livro(cadastrar(requisicao.corpoJson())));
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        if (caminho.size() == 2 && "isbn".equals(caminho.get(0)) && "GET".equals(metodo)) {
+            Livro livro = livroController.buscarPorIsbn(caminho.get(1));
+            return Resposta.encontrado(livro == null ? null : RepresentacaoJson.livro(livro), "Livro");
+        }
+
+        Long id = requisicao.id(0);
+        if (caminho.size() == 1) {
+            if ("GET".equals(metodo)) {
+                Livro livro = livroController.buscarPorId(id);
+                return Resposta.encontrado(livro == null ? null : RepresentacaoJson.livro(livro), "Livro");
+            }
+            if ("PUT".equals(metodo)) {
+                return Resposta.ok(RepresentacaoJson.livro(atualizar(id, requisicao)));
+            }
+            if ("DELETE".equals(metodo)) {
+                livroController.removerLivro(id);
+                return Resposta.semConteudo();
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        if (caminho.size() == 2 && "emprestimos".equals(caminho.get(1))) {
+            if ("GET".equals(metodo)) {
+                return Resposta.ok(listarEmprestimos(id, requisicao));
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+        throw caminhoDesconhecido(requisicao);
+    }
+
+    /**
+     * Com "busca", retorna os livros mais relevantes do índice de busca; sem ela, uma página
+     * da listagem por título, a partir do cursor ou de uma posição ("inicio").
+     */
+    private Map<String, Object> listar(Requisicao requisicao) {
+        int tamanho = Paginacao.limitar(requisicao.parametroInteiro("tamanho", Paginacao.TAMANHO_PADRAO));
+        String busca = requisicao.parametro("busca");
+        if (busca != null) {
+            List<Livro> encontrados = livroController.buscar(busca);
+            return Pagina.semCursor(encontrados.subList(0, Math.min(tamanho, encontrados.size())),
+                    RepresentacaoJson::livro);
+        }
+
+        List<Livro> livros;
+        String[] cursor = Pagina.decodificar(requisicao.parametro("cursor"));
+        if (cursor != null) {
+            livros = livroController.listarPagina(cursor[0], Long.valueOf(cursor[1]), tamanho);
+        } else {
+            livros = livroController.listarPorPosicao(requisicao.parametroInteiro("inicio", 0), tamanho);
+        }
+        return Pagina.de(livros, tamanho, RepresentacaoJson::livro, Livro::getTitulo, Livro::getId);
+    }
+
+    private Map<String, Object> listarEmprestimos(Long id, Requisicao requisicao) {
+        int tamanho = Paginacao.limitar(requisicao.parametroInteiro("tamanho", Paginacao.TAMANHO_PADRAO));
+        String[] cursor = Pagina.decodificar(requisicao.parametro("cursor"));
+        List<Emprestimo> emprestimos = cursor == null
+                ? emprestimoController.listarPorLivroPagina(id, null, null, tamanho)
+                : emprestimoController.listarPorLivroPagina(id, Pagina.data(cursor), Long.valueOf(cursor[1]), tamanho);
+        return Pagina.de(emprestimos, tamanho, RepresentacaoJson::emprestimo,
+                e -> e.getDataEmprestimo().toString(), Emprestimo::getId);
+    }
+
+    private Livro cadastrar(Map<String, Object> corpo) {
+        return livroController.cadastrarLivro(
+                Requisicao.texto(corpo, "titulo"),
+                Requisicao.texto(corpo, "tema"),
+                Requisicao.texto(corpo, "autor"),
+                Requisicao.texto(corpo, "isbn"),
+                Requisicao.data(corpo, "dataPublicacao"),
+                Requisicao.inteiro(corpo, "quantidadeDisponivel"));
+    }
+
+    /**
+     * A quantidade disponível muda a cada empréstimo, então a edição precisa dizer sobre qual
+     * leitura do livro foi feita: com "quantidadeLida" no corpo, apenas a diferença é aplicada
+     * ao estoque atual; com o cabeçalho If-Match (a "versao" retornada na leitura), a quantidade
+     * é gravada como informada, ou a requisição falha com 409 se o livro mudou desde então.
+     */
+    private Livro atualizar(Long id, Requisicao requisicao) {
+        Map<String, Object> corpo = requisicao.corpoJson();
+        String titulo = Requisicao.texto(corpo, "titulo");
+        String tema = Requisicao.texto(corpo, "tema");
+        String autor = Requisicao.texto(corpo, "autor");
+        String isbn = Requisicao.texto(corpo, "isbn");
+        LocalDate dataPublicacao = Requisicao.data(corpo, "dataPublicacao");
+        Integer quantidade = Requisicao.inteiro(corpo, "quantidadeDisponivel");
+
+        Integer quantidadeLida = Requisicao.inteiro(corpo, "quantidadeLida");
+        if (quantidadeLida != null) {
+            return livroController.atualizarLivro(id, titulo, tema, autor, isbn, dataPublicacao, quantidade,
+                    quantidadeLida);
+        }
+        String versao = requisicao.cabecalho("If-Match");
+        if (versao != null) {
+            return livroController.atualizarLivroNaVersao(id, titulo, tema, autor, isbn, dataPublicacao, quantidade,
+                    versaoDe(versao));
+        }
+        throw new ErroHttp(428, "Informe a quantidade lida (quantidadeLida) ou a versão lida do livro (If-Match)");
+    }
+
+    /**
+     * Aceita a versão com ou sem aspas, como em uma ETag ("3" ou 3).
+     */
+    private static long versaoDe(String ifMatch) {
+        String valor = ifMatch.startsWith("W/") ? ifMatch.substring(2) : ifMatch;
+        if (valor.length() >= 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+            valor = valor.substring(1, valor.length() - 1);
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw ErroHttp.requisicaoInvalida("Versão inválida no cabeçalho If-Match: " + ifMatch);
+        }
+    }
+}
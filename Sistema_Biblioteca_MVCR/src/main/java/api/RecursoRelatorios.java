@@ -0,0 +1,114 @@
+package api;
+
+import evento.EmprestimoAtivo;
+import evento.RegistroEventos;
+import repository.Paginacao;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * /api/relatorios — lidos dos modelos de leitura do log de eventos ({@link RegistroEventos}),
+ * em memória, sem consultar as tabelas de empréstimos; retornam 503 se o log estiver desligado
+ * ou ainda em abertura.
+ * <pre>
+ * GET /api/relatorios/emprestimos?tamanho=   total de ativos e de atrasados, e os mais atrasados
+ * GET /api/relatorios/usuarios/{id}          empréstimos ativos e último fim de multa do usuário
+ * GET /api/relatorios/livros?tamanho=        livros com mais exemplares emprestados
+ * GET /api/relatorios/livros/{id}            exemplares emprestados do livro
+ * </pre>
+ */
+class RecursoRelatorios extends Recurso {
+
+    RecursoRelatorios(Semaphore permissoes) {
+        super("/api/relatorios", permissoes);
+    }
+
+    @Override
+    protected Resposta atender(Requisicao requisicao) {
+        List<String> caminho = requisicao.caminho();
+        if (!"GET".equals(requisicao.metodo())) {
+            throw metodoNaoPermitido(requisicao);
+        }
+        if (caminho.size() == 1 && "emprestimos".equals(caminho.get(0))) {
+            return Resposta.ok(resumirEmprestimos(registro(), tamanho(requisicao)));
+        }
+        if (caminho.size() == 1 && "livros".equals(caminho.get(0))) {
+            return Resposta.ok(listarLivrosMaisEmprestados(registro(), tamanho(requisicao)));
+        }
+        if (caminho.size() == 2 && "livros".equals(caminho.get(0))) {
+            long livroId = requisicao.id(1);
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("livroId", livroId);
+            json.put("exemplaresEmprestados", registro().contarEmprestadosPorLivro(livroId));
+            return Resposta.ok(json);
+        }
+        if (caminho.size() == 2 && "usuarios".equals(caminho.get(0))) {
+            return Resposta.ok(resumirUsuario(registro(), requisicao.id(1)));
+        }
+        throw caminhoDesconhecido(requisicao);
+    }
+
+    /**
+     * O registro de eventos. Se a inicialização ainda não o abriu, a abertura (com a conferência
+     * com o banco) é iniciada em segundo plano, sem prender a requisição.
+     */
+    private static RegistroEventos registro() {
+        if (!RegistroEventos.isAtivo()) {
+            throw new ErroHttp(503, "Log de eventos desligado: relatórios indisponíveis");
+        }
+        RegistroEventos registro = RegistroEventos.obterSeAberto();
+        if (registro == null) {
+            throw new ErroHttp(503, "Log de eventos em abertura: tente novamente em instantes");
+        }
+        return registro;
+    }
+
+    private static int tamanho(Requisicao requisicao) {
+        return Paginacao.limitar(requisicao.parametroInteiro("tamanho", Paginacao.TAMANHO_PADRAO));
+    }
+
+    private static Map<String, Object> resumirEmprestimos(RegistroEventos registro, int tamanho) {
+        LocalDate hoje = LocalDate.now();
+        List<EmprestimoAtivo> atrasados = registro.listarAtrasados(hoje);
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("ativos", registro.contarAtivos());
+        json.put("atrasados", atrasados.size());
+        json.put("maisAtrasados", atrasados.subList(0, Math.min(tamanho, atrasados.size())).stream()
+                .map(ativo -> RepresentacaoJson.emprestimoAtivo(ativo, hoje))
+                .toList());
+        return json;
+    }
+
+    private static Map<String, Object> resumirUsuario(RegistroEventos registro, long usuarioId) {
+        LocalDate hoje = LocalDate.now();
+        LocalDate fimDaMulta = registro.buscarFimDaMulta(usuarioId);
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("usuarioId", usuarioId);
+        json.put("emprestimosAtivos", registro.contarAtivosPorUsuario(usuarioId));
+        json.put("fimDaMulta", fimDaMulta == null ? null : fimDaMulta.toString());
+        json.put("ativos", registro.listarAtivosPorUsuario(usuarioId).stream()
+                .map(ativo -> RepresentacaoJson.emprestimoAtivo(ativo, hoje))
+                .toList());
+        return json;
+    }
+
+    private static Map<String, Object> listarLivrosMaisEmprestados(RegistroEventos registro, int tamanho) {
+        List<Map<String, Object>> itens = registro.contarEmprestadosPorLivro().entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(tamanho)
+                .map(livro -> {
+                    Map<String, Object> json = new LinkedHashMap<>();
+                    json.put("livroId", livro.getKey());
+                    json.put("exemplaresEmprestados", livro.getValue());
+                    return json;
+                })
+                .toList();
+        return Map.of("itens", itens);
+    }
+}
@@ -0,0 +1,114 @@
+package api;
+
+import controller.EmprestimoController;
+import controller.UsuarioController;
+import model.Usuario;
+import repository.Paginacao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * /api/usuarios
+ * <pre>
+ * GET    /api/usuarios?busca=&amp;tamanho=&amp;cursor=&amp;inicio=   busca por nome ou página por nome
+ * GET    /api/usuarios/{id}
+ * GET    /api/usuarios/{id}/status
+ * GET    /api/usuarios/{id}/emprestimos?ativos=true
+ * POST   /api/usuarios               {nome, sexo, celular, email}
+ * PUT    /api/usuarios/{id}          (mesmos campos)
+ * DELETE /api/usuarios/{id}
+ * </pre>
+ */
+class RecursoUsuarios extends Recurso {
+
+    private final UsuarioController usuarioController;
+    private final EmprestimoController emprestimoController;
+
+    RecursoUsuarios(UsuarioController usuarioController, EmprestimoController emprestimoController,
+                    Semaphore permissoes) {
+        super("/api/usuarios", permissoes);
+        this.usuarioController = usuarioController;
+        this.emprestimoController = emprestimoController;
+    }
+
+    @Override
+    protected Resposta atender(Requisicao requisicao) {
+        List<String> caminho = requisicao.caminho();
+        String metodo = requisicao.metodo();
+
+        if (caminho.isEmpty()) {
+            if ("GET".equals(metodo)) {
+                return Resposta.ok(listar(requisicao));
+            }
+            if ("POST".equals(metodo)) {
+                Map<String, Object> corpo = requisicao.corpoJson();
+                return Resposta.criado(RepresentacaoJson.usuario(usuarioController.cadastrarUsuario(
+                        Requisicao.texto(corpo, "nome"),
+                        Requisicao.texto(corpo, "sexo"),
+                        Requisicao.texto(corpo, "celular"),
+                        Requisicao.texto(corpo, "email"))));
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        Long id = requisicao.id(0);
+        if (caminho.size() == 1) {
+            if ("GET".equals(metodo)) {
+                Usuario usuario = usuarioController.buscarPorId(id);
+                return Resposta.encontrado(usuario == null ? null : RepresentacaoJson.usuario(usuario), "Usuário");
+            }
+            if ("PUT".equals(metodo)) {
+                Map<String, Object> corpo = requisicao.corpoJson();
+                return Resposta.ok(RepresentacaoJson.usuario(usuarioController.atualizarUsuario(id,
+                        Requisicao.texto(corpo, "nome"),
+                        Requisicao.texto(corpo, "sexo"),
+                        Requisicao.texto(corpo, "celular"),
+                        Requisicao.texto(corpo, "email"))));
+            }
+            if ("DELETE".equals(metodo)) {
+                usuarioController.removerUsuario(id);
+                return Resposta.semConteudo();
+            }
+            throw metodoNaoPermitido(requisicao);
+        }
+
+        if (caminho.size() == 2 && "GET".equals(metodo)) {
+            if ("status".equals(caminho.get(1))) {
+                String status = emprestimoController.verificarStatusTexto(id);
+                if ("Erro".equals(status)) {
+                    throw ErroHttp.naoEncontrado("Usuário não encontrado");
+                }
+                return Resposta.ok(Map.of("status", status));
+            }
+            if ("emprestimos".equals(caminho.get(1))) {
+                boolean somenteAtivos = Boolean.parseBoolean(requisicao.parametro("ativos"));
+                return Resposta.ok(Pagina.semCursor(somenteAtivos
+                                ? emprestimoController.listarAtivosPorUsuario(id)
+                                : emprestimoController.listarHistoricoPorUsuario(id),
+                        RepresentacaoJson::emprestimo));
+            }
+        }
+        throw caminhoDesconhecido(requisicao);
+    }
+
+    private Map<String, Object> listar(Requisicao requisicao) {
+        int tamanho = Paginacao.limitar(requisicao.parametroInteiro("tamanho", Paginacao.TAMANHO_PADRAO));
+        String busca = requisicao.parametro("busca");
+        if (busca != null) {
+            List<Usuario> encontrados = usuarioController.buscarPorNome(busca);
+            return Pagina.semCursor(encontrados.subList(0, Math.min(tamanho, encontrados.size())),
+                    RepresentacaoJson::usuario);
+        }
+
+        List<Usuario> usuarios;
+        String[] cursor = Pagina.decodificar(requisicao.parametro("cursor"));
+        if (cursor != null) {
+            usuarios = usuarioController.listarPagina(cursor[0], Long.valueOf(cursor[1]), tamanho);
+        } else {
+            usuarios = usuarioController.listarPorPosicao(requisicao.parametroInteiro("inicio", 0), tamanho);
+        }
+        return Pagina.de(usuarios, tamanho, RepresentacaoJson::usuario, Usuario::getNome, Usuario::getId);
+    }
+}
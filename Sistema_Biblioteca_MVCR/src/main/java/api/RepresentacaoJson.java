@@ -0,0 +1,118 @@
+package api;
+
+import controller.ItemPopular;
+import evento.EmprestimoAtivo;
+import model.Emprestimo;
+import model.EmprestimoResumo;
+import model.Livro;
+import model.Usuario;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Converte as entidades nos objetos JSON da API. As datas seguem o formato ISO (aaaa-mm-dd)
+ * e as associações dos empréstimos aparecem apenas pelo id quando não foram carregadas.
+ */
+final class RepresentacaoJson {
+
+    private RepresentacaoJson() {
+    }
+
+    static Map<String, Object> livro(Livro livro) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", livro.getId());
+        json.put("titulo", livro.getTitulo());
+        json.put("tema", livro.getTema());
+        json.put("autor", livro.getAutor());
+        json.put("isbn", livro.getIsbn());
+        json.put("dataPublicacao", data(livro.getDataPublicacao()));
+        json.put("quantidadeDisponivel", livro.getQuantidadeDisponivel());
+        json.put("versao", livro.getVersao());
+        return json;
+    }
+
+    static Map<String, Object> usuario(Usuario usuario) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", usuario.getId());
+        json.put("nome", usuario.getNome());
+        json.put("sexo", usuario.getSexo());
+        json.put("celular", usuario.getCelular());
+        json.put("email", usuario.getEmail());
+        json.put("emMulta", usuario.isEmMulta());
+        json.put("dataFimMulta", data(usuario.getDataFimMulta()));
+        json.put("emprestimosAtivos", usuario.getEmprestimosAtivos());
+        json.put("proximaDevolucao", data(usuario.getProximaDevolucao()));
+        return json;
+    }
+
+    static Map<String, Object> emprestimo(Emprestimo emprestimo) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", emprestimo.getId());
+        json.put("usuarioId", emprestimo.getUsuario().getId());
+        if (Hibernate.isInitialized(emprestimo.getUsuario())) {
+            json.put("usuarioNome", emprestimo.getUsuario().getNome());
+        }
+        json.put("livroId", emprestimo.getLivro().getId());
+        if (Hibernate.isInitialized(emprestimo.getLivro())) {
+            json.put("livroTitulo", emprestimo.getLivro().getTitulo());
+        }
+        json.put("dataEmprestimo", data(emprestimo.getDataEmprestimo()));
+        json.put("dataDevolucaoPrevista", data(emprestimo.getDataDevolucaoPrevista()));
+        json.put("dataDevolucao", data(emprestimo.getDataDevolucao()));
+        json.put("ativo", emprestimo.getAtivo());
+        json.put("atrasado", emprestimo.isAtrasado());
+        json.put("diasAtraso", emprestimo.getDiasAtraso());
+        return json;
+    }
+
+    static Map<String, Object> resumo(EmprestimoResumo resumo) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", resumo.id());
+        json.put("usuarioId", resumo.usuarioId());
+        json.put("usuarioNome", resumo.usuarioNome());
+        json.put("livroId", resumo.livroId());
+        json.put("livroTitulo", resumo.livroTitulo());
+        json.put("dataEmprestimo", data(resumo.dataEmprestimo()));
+        json.put("dataDevolucaoPrevista", data(resumo.dataDevolucaoPrevista()));
+        json.put("dataDevolucao", data(resumo.dataDevolucao()));
+        json.put("ativo", resumo.ativo());
+        json.put("atrasado", resumo.isAtrasado());
+        json.put("diasAtraso", resumo.getDiasAtraso());
+        return json;
+    }
+
+    /**
+     * Empréstimo ativo como visto pelos modelos de leitura do log de eventos (apenas ids e datas).
+     */
+    static Map<String, Object> emprestimoAtivo(EmprestimoAtivo ativo, LocalDate hoje) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", ativo.emprestimoId());
+        json.put("usuarioId", ativo.usuarioId());
+        json.put("livroId", ativo.livroId());
+        json.put("dataEmprestimo", data(ativo.dataEmprestimo()));
+        json.put("dataDevolucaoPrevista", data(ativo.dataDevolucaoPrevista()));
+        boolean atrasado = ativo.dataDevolucaoPrevista() != null && ativo.dataDevolucaoPrevista().isBefore(hoje);
+        json.put("atrasado", atrasado);
+        json.put("diasAtraso", atrasado ? ChronoUnit.DAYS.between(ativo.dataDevolucaoPrevista(), hoje) : 0);
+        return json;
+    }
+
+    static Map<String, Object> itemPopular(ItemPopular item) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        if (item.id() != null) {
+            json.put("id", item.id());
+        }
+        json.put("descricao", item.descricao());
+        json.put("emprestimos", item.emprestimos());
+        json.put("erroMaximo", item.erroMaximo());
+        return json;
+    }
+
+    private static String data(LocalDate data) {
+        return data == null ? null : data.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dados de uma requisição já separados: método, trechos do caminho após a base do recurso
+ * (ex.: "/api/livros/10/emprestimos" → ["10", "emprestimos"]), parâmetros da URL e corpo JSON.
+ */
+final class Requisicao {
+
+    private final String metodo;
+    private final List<String> caminho;
+    private final Map<String, String> parametros;
+    private final Headers cabecalhos;
+    private final InputStream corpo;
+
+    Requisicao(HttpExchange troca, String base) {
+        this.metodo = troca.getRequestMethod().toUpperCase();
+        this.caminho = separarCaminho(troca.getRequestURI().getRawPath(), base);
+        this.parametros = separarParametros(troca.getRequestURI().getRawQuery());
+        this.cabecalhos = troca.getRequestHeaders();
+        this.corpo = troca.getRequestBody();
+    }
+
+    String metodo() {
+        return metodo;
+    }
+
+    List<String> caminho() {
+        return caminho;
+    }
+
+    /**
+     * Trecho do caminho convertido em ID.
+     */
+    Long id(int posicao) {
+        try {
+            return Long.valueOf(caminho.get(posicao));
+        } catch (NumberFormatException e) {
+            throw ErroHttp.naoEncontrado("Recurso não encontrado: " + caminho.get(posicao));
+        }
+    }
+
+    String parametro(String nome) {
+        String valor = parametros.get(nome);
+        return valor == null || valor.isBlank() ? null : valor;
+    }
+
+    String cabecalho(String nome) {
+        String valor = cabecalhos.getFirst(nome);
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    int parametroInteiro(String nome, int padrao) {
+        String valor = parametro(nome);
+        if (valor == null) {
+            return padrao;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw ErroHttp.requisicaoInvalida("Parâmetro '" + nome + "' deve ser um número inteiro");
+        }
+    }
+
+    /**
+     * Corpo da requisição como objeto JSON; vazio se não houver corpo.
+     */
+    Map<String, Object> corpoJson() {
+        try {
+            byte[] bytes = corpo.readAllBytes();
+            if (bytes.length == 0) {
+                return Collections.emptyMap();
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> objeto = Recurso.JSON.readValue(bytes, Map.class);
+            return objeto == null ? Collections.emptyMap() : objeto;
+        } catch (JsonProcessingException e) {
+            throw ErroHttp.requisicaoInvalida("Corpo JSON inválido: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao ler o corpo da requisição: " + e.getMessage(), e);
+        }
+    }
+
+    static String texto(Map<String, Object> corpo, String campo) {
+        Object valor = corpo.get(campo);
+        return valor == null ? null : valor.toString();
+    }
+
+    static Integer inteiro(Map<String, Object> corpo, String campo) {
+        Object valor = corpo.get(campo);
+        if (valor == null || valor instanceof Integer) {
+            return (Integer) valor;
+        }
+        try {
+            return Integer.valueOf(valor.toString());
+        } catch (NumberFormatException e) {
+            throw ErroHttp.requisicaoInvalida("Campo '" + campo + "' deve ser um número inteiro");
+        }
+    }
+
+    static Long longo(Map<String, Object> corpo, String campo) {
+        Object valor = corpo.get(campo);
+        if (valor == null) {
+            return null;
+        }
+        if (valor instanceof Number) {
+            return ((Number) valor).longValue();
+        }
+        try {
+            return Long.valueOf(valor.toString());
+        } catch (NumberFormatException e) {
+            throw ErroHttp.requisicaoInvalida("Campo '" + campo + "' deve ser um número inteiro");
+        }
+    }
+
+    /**
+     * Lista de números inteiros (ex.: {@code "livroIds": [1, 2, 3]}), ou null se o campo não
+     * foi informado.
+     */
+    static List<Long> longos(Map<String, Object> corpo, String campo) {
+        Object valor = corpo.get(campo);
+        if (valor == null) {
+            return null;
+        }
+        if (!(valor instanceof List<?> itens)) {
+            throw ErroHttp.requisicaoInvalida("Campo '" + campo + "' deve ser uma lista de números inteiros");
+        }
+        List<Long> numeros = new ArrayList<>(itens.size());
+        for (Object item : itens) {
+            if (!(item instanceof Number numero)) {
+                throw ErroHttp.requisicaoInvalida("Campo '" + campo + "' deve ser uma lista de números inteiros");
+            }
+            numeros.add(numero.longValue());
+        }
+        return numeros;
+    }
+
+    /**
+     * Data no formato ISO (aaaa-mm-dd).
+     */
+    static LocalDate data(Map<String, Object> corpo, String campo) {
+        String valor = texto(corpo, campo);
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(valor.trim());
+        } catch (DateTimeParseException e) {
+            throw ErroHttp.requisicaoInvalida("Campo '" + campo + "' deve estar no formato aaaa-mm-dd");
+        }
+    }
+
+    private static List<String> separarCaminho(String caminhoCompleto, String base) {
+        List<String> trechos = new ArrayList<>();
+        for (String trecho : caminhoCompleto.substring(base.length()).split("/")) {
+            if (!trecho.isEmpty()) {
+                trechos.add(URLDecoder.decode(trecho, StandardCharsets.UTF_8));
+            }
+        }
+        return trechos;
+    }
+
+    private static Map<String, String> separarParametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nome = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(nome, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+}
@@ -0,0 +1,97 @@
+package api;
+
+import com.sun.net.httpserver.HttpServer;
+import controller.EmprestimoController;
+import controller.LivroController;
+import controller.UsuarioController;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Servidor HTTP da API JSON (modo sem interface gráfica: {@code Main --server}), sobre os
+ * mesmos controllers usados pelas telas. Cada requisição é atendida em uma virtual thread;
+ * um semáforo limita quantas consultam o banco ao mesmo tempo, para que as demais aguardem
+ * sem ocupar conexões do pool.
+ * <p>
+ * A porta pode ser definida com -Dbiblioteca.api.porta (padrão: 8080) e o limite de
+ * requisições simultâneas com -Dbiblioteca.api.maximo (padrão: 16).
+ * <p>
+ * A API não tem autenticação, por isso o servidor atende apenas conexões locais. Para aceitar
+ * conexões de outras máquinas (ex.: atrás de um proxy que autentica), informe o endereço com
+ * -Dbiblioteca.api.endereco (ex.: 0.0.0.0 para todas as interfaces).
+ */
+public class ServidorApi {
+
+    public static final int PORTA_PADRAO = Integer.getInteger("biblioteca.api.porta", 8080);
+
+    private static final int MAXIMO_SIMULTANEO = Integer.getInteger("biblioteca.api.maximo", 16);
+    // Conexões aguardando aceite; comporta picos de clientes sem recusar conexões
+    private static final int FILA_CONEXOES = 1024;
+
+    static {
+        // O servidor do JDK envia cabeçalhos e corpo em escritas separadas; sem TCP_NODELAY,
+        // o algoritmo de Nagle somado ao ACK atrasado do cliente adiciona ~40 ms a cada resposta.
+        // Lida uma única vez, quando o primeiro servidor é criado.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+
+    public ServidorApi(int porta) throws IOException {
+        LivroController livroController = new LivroController();
+        UsuarioController usuarioController = new UsuarioController();
+        EmprestimoController emprestimoController = new EmprestimoController();
+        Semaphore permissoes = new Semaphore(MAXIMO_SIMULTANEO, true);
+
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("biblioteca-api-", 0).factory());
+        this.servidor = HttpServer.create(new InetSocketAddress(endereco(), porta), FILA_CONEXOES);
+        registrar(new RecursoLivros(livroController, emprestimoController, permissoes));
+        registrar(new RecursoUsuarios(usuarioController, emprestimoController, permissoes));
+        registrar(new RecursoEmprestimos(emprestimoController, permissoes));
+        registrar(new RecursoRelatorios(permissoes));
+        servidor.setExecutor(executor);
+    }
+
+    private static InetAddress endereco() throws IOException {
+        String endereco = System.getProperty("biblioteca.api.endereco");
+        if (endereco == null || endereco.isBlank()) {
+            return InetAddress.getLoopbackAddress();
+        }
+        return InetAddress.getByName(endereco.trim());
+    }
+
+    private void registrar(Recurso recurso) {
+        servidor.createContext(recurso.getBase(), recurso);
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Para de aceitar requisições e aguarda até 2 segundos as que estão em andamento.
+     */
+    public void parar() {
+        servidor.stop(2);
+        executor.shutdown();
+    }
+
+    /**
+     * Porta em uso (útil quando o servidor é criado com porta 0, escolhida pelo sistema).
+     */
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    public InetAddress getEndereco() {
+        return servidor.getAddress().getAddress();
+    }
+}
@@ -0,0 +1,85 @@
+package controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agenda a varredura de atrasos ({@link EmprestimoController#varrerAtrasos()}): uma execução
+ * logo ao iniciar, que cobre os dias em que a aplicação ficou parada, e depois uma por dia
+ * no horário configurado. Se uma execução falhar, nova tentativa é feita alguns minutos depois.
+ * <p>
+ * Após cada varredura, os contadores de empréstimos mantidos nos usuários são conferidos com
+ * os empréstimos e corrigidos se divergirem ({@link EmprestimoController#reconciliarContadores()}).
+ * <p>
+ * O horário pode ser ajustado com -Dbiblioteca.varredura.horario (padrão: 00:05).
+ */
+public final class AgendadorAtrasos {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AgendadorAtrasos.class);
+    private static final LocalTime HORARIO =
+            LocalTime.parse(System.getProperty("biblioteca.varredura.horario", "00:05"));
+    private static final Duration ESPERA_APOS_FALHA = Duration.ofMinutes(15);
+
+    private final EmprestimoController emprestimoController;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("biblioteca-varredura").daemon().factory());
+    private volatile RelatorioVarredura ultimoRelatorio;
+
+    public AgendadorAtrasos(EmprestimoController emprestimoController) {
+        this.emprestimoController = emprestimoController;
+    }
+
+    public void iniciar() {
+        executor.execute(this::executarEAgendar);
+    }
+
+    public void parar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resultado da última varredura concluída, ou null se nenhuma terminou ainda.
+     */
+    public RelatorioVarredura getUltimoRelatorio() {
+        return ultimoRelatorio;
+    }
+
+    private void executarEAgendar() {
+        Duration espera;
+        try {
+            ultimoRelatorio = emprestimoController.varrerAtrasos();
+            LOG.info("Varredura de atrasos: {}", ultimoRelatorio);
+            espera = esperaAteProximaExecucao(ZonedDateTime.now());
+        } catch (Exception e) {
+            LOG.error("Erro na varredura de atrasos", e);
+            espera = ESPERA_APOS_FALHA;
+        }
+        try {
+            emprestimoController.reconciliarContadores();
+        } catch (Exception e) {
+            LOG.error("Erro ao reconciliar os contadores de empréstimos", e);
+        }
+        if (!executor.isShutdown()) {
+            executor.schedule(this::executarEAgendar, espera.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Tempo até o próximo horário de execução; calculado sobre a data local, de modo que
+     * mudanças de horário de verão não desloquem a varredura.
+     */
+    static Duration esperaAteProximaExecucao(ZonedDateTime agora) {
+        ZonedDateTime proxima = agora.with(HORARIO);
+        if (!proxima.isAfter(agora)) {
+            proxima = agora.toLocalDate().plusDays(1).atTime(HORARIO).atZone(agora.getZone());
+        }
+        return Duration.between(agora, proxima);
+    }
+}
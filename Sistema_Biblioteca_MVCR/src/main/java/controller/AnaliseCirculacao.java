@@ -0,0 +1,243 @@
+package controller;
+
+import model.Emprestimo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import repository.EmprestimoRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Rankings de circulação dos últimos dias: livros, temas e autores mais emprestados e usuários
+ * mais ativos, para painéis e relatórios, sem consultar os empréstimos a cada pedido.
+ * <p>
+ * O {@link EmprestimoController} informa cada empréstimo confirmado. Na inicialização (ou na
+ * primeira consulta), os empréstimos da janela já existentes no banco são carregados uma única
+ * vez. Cada ranking é um {@link RankingJanela}: as contagens são exatas enquanto cada dia tiver
+ * até {@code capacidade} itens distintos, e aproximadas (com o erro máximo informado) acima disso.
+ * <p>
+ * O registro de um empréstimo não espera por nenhuma trava: ele entra numa fila, aplicada aos
+ * rankings pela consulta seguinte ou, sem consultas, a cada {@value #LIMITE_PENDENTES} empréstimos.
+ * Se a carga ainda não tiver sido feita, ela é iniciada numa thread própria, nunca na do
+ * empréstimo.
+ * <p>
+ * Configuração: -Dbiblioteca.analise.dias (tamanho da janela, padrão: 7) e
+ * -Dbiblioteca.analise.capacidade (itens acompanhados por dia em cada ranking, padrão: 1024).
+ */
+public final class AnaliseCirculacao {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnaliseCirculacao.class);
+
+    private static final int LIMITE_PENDENTES = 4096;
+
+    private static final Object CARGA = new Object();
+    private static final AtomicBoolean CARGA_INICIADA = new AtomicBoolean();
+    /** Empréstimos confirmados ainda não contados, na ordem em que foram registrados. */
+    private static final ConcurrentLinkedQueue<Circulacao> PENDENTES = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger QUANTIDADE_PENDENTES = new AtomicInteger();
+
+    private static volatile AnaliseCirculacao instancia;
+
+    private final int dias;
+    private final RankingJanela<Long> livros;
+    private final RankingJanela<String> temas;
+    private final RankingJanela<String> autores;
+    private final RankingJanela<Long> usuarios;
+    private final Map<Long, String> titulos = new HashMap<>();
+    private final Map<Long, String> nomes = new HashMap<>();
+
+    /** Empréstimos da carga inicial, para não contar de novo os confirmados durante ela. */
+    private Set<Long> carregados = new HashSet<>();
+    private LocalDate fimDaCarga;
+    private final AtomicBoolean aplicando = new AtomicBoolean();
+
+    private AnaliseCirculacao(int dias, int capacidade) {
+        this.dias = dias;
+        this.livros = new RankingJanela<>(dias, capacidade);
+        this.temas = new RankingJanela<>(dias, capacidade);
+        this.autores = new RankingJanela<>(dias, capacidade);
+        this.usuarios = new RankingJanela<>(dias, capacidade);
+    }
+
+    /**
+     * A análise, fazendo a carga inicial se ainda não feita (bloqueia até o fim dela).
+     */
+    public static AnaliseCirculacao obter() {
+        AnaliseCirculacao analise = instancia;
+        if (analise != null) {
+            return analise;
+        }
+        synchronized (CARGA) {
+            if (instancia == null) {
+                carregar();
+            }
+            return instancia;
+        }
+    }
+
+    private static void carregar() {
+        long inicio = System.nanoTime();
+        AnaliseCirculacao analise = new AnaliseCirculacao(
+                Math.max(1, Integer.getInteger("biblioteca.analise.dias", 7)),
+                Math.max(1, Integer.getInteger("biblioteca.analise.capacidade", 1024)));
+        int carregados = analise.carregarJanela();
+        synchronized (analise) {
+            analise.aplicarPendentes();
+        }
+        instancia = analise;
+        LOG.info("Análise de circulação pronta em {} ms: {} empréstimo(s) dos últimos {} dia(s)",
+                (System.nanoTime() - inicio) / 1_000_000, carregados, analise.dias);
+    }
+
+    /**
+     * Faz a carga inicial durante a inicialização. Falhas são apenas registradas: a carga é
+     * tentada de novo na primeira consulta ou no próximo empréstimo.
+     */
+    public static void iniciar() {
+        CARGA_INICIADA.set(true);
+        try {
+            obter();
+        } catch (RuntimeException e) {
+            CARGA_INICIADA.set(false);
+            LOG.error("Erro ao carregar a análise de circulação", e);
+        }
+    }
+
+    private static void iniciarEmSegundoPlano() {
+        if (CARGA_INICIADA.compareAndSet(false, true)) {
+            Thread.ofPlatform().name("biblioteca-analise").daemon().start(AnaliseCirculacao::iniciar);
+        }
+    }
+
+    /**
+     * Conta empréstimos já confirmados. Uma falha aqui não desfaz a operação; ela é apenas
+     * registrada.
+     */
+    static void registrar(List<Emprestimo> emprestimos) {
+        try {
+            for (Emprestimo emprestimo : emprestimos) {
+                PENDENTES.add(Circulacao.de(emprestimo));
+            }
+            int pendentes = QUANTIDADE_PENDENTES.addAndGet(emprestimos.size());
+            AnaliseCirculacao analise = instancia;
+            if (analise == null) {
+                iniciarEmSegundoPlano();
+            } else if (pendentes >= LIMITE_PENDENTES && analise.aplicando.compareAndSet(false, true)) {
+                // Sem consultas, a fila é aplicada por quem a encher, e só por uma thread de cada vez
+                try {
+                    synchronized (analise) {
+                        analise.aplicarPendentes();
+                    }
+                } finally {
+                    analise.aplicando.set(false);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Erro ao registrar {} empréstimo(s) na análise de circulação", emprestimos.size(), e);
+        }
+    }
+
+    private int carregarJanela() {
+        LocalDate hoje = LocalDate.now();
+        LocalDate desde = hoje.minusDays(dias - 1);
+        List<Object[]> linhas = new EmprestimoRepository().listarCirculacaoDesde(desde);
+        fimDaCarga = hoje;
+        for (Object[] linha : linhas) {
+            carregados.add((Long) linha[0]);
+            contar((Long) linha[1], (String) linha[2], (String) linha[3], (String) linha[4], (Long) linha[5],
+                    (String) linha[6], (LocalDate) linha[7], hoje);
+        }
+        return linhas.size();
+    }
+
+    /**
+     * Conta os empréstimos da fila. Deve ser chamado com o monitor da análise.
+     */
+    private void aplicarPendentes() {
+        LocalDate hoje = LocalDate.now();
+        Circulacao circulacao;
+        while ((circulacao = PENDENTES.poll()) != null) {
+            QUANTIDADE_PENDENTES.decrementAndGet();
+            if (carregados != null && carregados.contains(circulacao.emprestimoId())) {
+                continue;
+            }
+            contar(circulacao.livroId(), circulacao.titulo(), circulacao.tema(), circulacao.autor(),
+                    circulacao.usuarioId(), circulacao.nome(), circulacao.data(), hoje);
+        }
+    }
+
+    private void contar(Long livroId, String titulo, String tema, String autor, Long usuarioId, String nome,
+                        LocalDate data, LocalDate hoje) {
+        // Depois que toda a janela da carga passou, nenhum empréstimo dela pode ser contado de novo
+        if (carregados != null && hoje.isAfter(fimDaCarga.plusDays(dias))) {
+            carregados = null;
+        }
+        titulos.put(livroId, titulo);
+        nomes.put(usuarioId, nome);
+        livros.registrar(livroId, data, hoje);
+        temas.registrar(tema.trim(), data, hoje);
+        autores.registrar(autor.trim(), data, hoje);
+        usuarios.registrar(usuarioId, data, hoje);
+    }
+
+    public synchronized List<ItemPopular> listarLivrosMaisEmprestados(int k) {
+        aplicarPendentes();
+        return listar(livros, k, id -> id, titulos::get);
+    }
+
+    public synchronized List<ItemPopular> listarTemasMaisEmprestados(int k) {
+        aplicarPendentes();
+        return listar(temas, k, tema -> null, tema -> tema);
+    }
+
+    public synchronized List<ItemPopular> listarAutoresMaisEmprestados(int k) {
+        aplicarPendentes();
+        return listar(autores, k, autor -> null, autor -> autor);
+    }
+
+    public synchronized List<ItemPopular> listarUsuariosMaisAtivos(int k) {
+        aplicarPendentes();
+        return listar(usuarios, k, id -> id, nomes::get);
+    }
+
+    public int getDias() {
+        return dias;
+    }
+
+    private static <K> List<ItemPopular> listar(RankingJanela<K> ranking, int k, Function<K, Long> id,
+                                                Function<K, String> descricao) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Informe ao menos uma posição do ranking");
+        }
+        List<ItemPopular> itens = new ArrayList<>();
+        for (RankingJanela.Estimativa<K> estimativa : ranking.listarMaisFrequentes(k, LocalDate.now())) {
+            itens.add(new ItemPopular(id.apply(estimativa.chave()), descricao.apply(estimativa.chave()),
+                    estimativa.contagem(), estimativa.erro()));
+        }
+        return itens;
+    }
+
+    /**
+     * O que a análise guarda de um empréstimo confirmado, copiado da entidade no registro.
+     */
+    private record Circulacao(long emprestimoId, Long livroId, String titulo, String tema, String autor,
+                              Long usuarioId, String nome, LocalDate data) {
+
+        static Circulacao de(Emprestimo emprestimo) {
+            return new Circulacao(emprestimo.getId(), emprestimo.getLivro().getId(), emprestimo.getLivro().getTitulo(),
+                    emprestimo.getLivro().getTema(), emprestimo.getLivro().getAutor(),
+                    emprestimo.getUsuario().getId(), emprestimo.getUsuario().getNome(),
+                    emprestimo.getDataEmprestimo());
+        }
+    }
+}
@@ -1,41 +1,70 @@
 package controller;
 
+import evento.EventoEmprestimo;
+import evento.RegistroEventos;
 import model.Emprestimo;
+import model.EmprestimoResumo;
 import model.Livro;
 import model.Usuario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import repository.EmprestimoRepository;
 import repository.LivroRepository;
+import repository.TarefaAgendadaRepository;
+import repository.UnidadeDeTrabalho;
 import repository.UsuarioRepository;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class EmprestimoController {
 
+    private static final Logger LOG = LoggerFactory.getLogger(EmprestimoController.class);
     private static final int LIMITE_EMPRESTIMOS_POR_USUARIO = 5;
+    private static final String TEXTO_LIVRE = "Livre";
+    private static final String TEXTO_BLOQUEADO = "BLOQUEADO (Livro em Atraso)";
+    private static final String TAREFA_VARREDURA_ATRASOS = "varredura_atrasos";
+
+    // Compartilhadas por todas as instâncias: telas e API usam controllers próprios na mesma JVM
+    private static final int FAIXAS_TRAVAS = Math.max(1, Integer.getInteger("biblioteca.travas.faixas", 256));
+    private static final TravasEmFaixas TRAVAS_USUARIOS = new TravasEmFaixas("usuarios", FAIXAS_TRAVAS);
+    private static final TravasEmFaixas TRAVAS_LIVROS = new TravasEmFaixas("livros", FAIXAS_TRAVAS);
 
     private final EmprestimoRepository emprestimoRepository;
     private final LivroRepository livroRepository;
     private final UsuarioRepository usuarioRepository;
+    private final TarefaAgendadaRepository tarefaAgendadaRepository;
 
     public EmprestimoController() {
         this.emprestimoRepository = new EmprestimoRepository();
         this.livroRepository = new LivroRepository();
         this.usuarioRepository = new UsuarioRepository();
+        this.tarefaAgendadaRepository = new TarefaAgendadaRepository();
     }
 
+    /**
+     * Registra um empréstimo em uma única transação. O usuário é bloqueado para leitura
+     * consistente do limite de empréstimos e o exemplar é retirado do estoque com uma
+     * atualização condicional, de modo que dois balcões nunca emprestam o mesmo exemplar.
+     * <p>
+     * Limite e atraso são conferidos pelos contadores mantidos no próprio usuário, sem
+     * consultas agregadas sobre os empréstimos.
+     */
     public Emprestimo registrarEmprestimo(Long usuarioId, Long livroId, LocalDate dataEmprestimo) {
 
-        Usuario usuario = usuarioRepository.buscarPorId(usuarioId);
-        if (usuario == null) {
-            throw new IllegalArgumentException("Usuário não encontrado com ID: " + usuarioId);
-        }
-
-        Livro livro = livroRepository.buscarPorId(livroId);
-        if (livro == null) {
-            throw new IllegalArgumentException("Livro não encontrado com ID: " + livroId);
-        }
-
         if (dataEmprestimo == null) {
             dataEmprestimo = LocalDate.now();
         }
@@ -44,65 +73,313 @@ public class EmprestimoController {
             throw new IllegalArgumentException("A data do empréstimo não pode ser futura");
         }
 
-        if (usuario.isEmMulta()) {
-            throw new IllegalArgumentException(
-                    String.format("BLOQUEADO: O usuário está em período de multa. Faltam %d dias.",
-                            usuario.getDiasRestantesMulta())
-            );
+        final LocalDate data = dataEmprestimo;
+        Emprestimo registrado = comTravas(Collections.singletonList(usuarioId), Collections.singletonList(livroId),
+                () -> executarRegistrandoEventos((uow, eventos) -> {
+
+            Usuario usuario = usuarioRepository.buscarPorIdParaAtualizacao(uow, usuarioId);
+            if (usuario == null) {
+                throw new IllegalArgumentException("Usuário não encontrado com ID: " + usuarioId);
+            }
+
+            if (usuario.isEmMulta()) {
+                throw new IllegalArgumentException(
+                        String.format("BLOQUEADO: O usuário está em período de multa. Faltam %d dias.",
+                                usuario.getDiasRestantesMulta())
+                );
+            }
+
+            if (usuario.isComAtrasoPendente()) {
+                throw new IllegalArgumentException("BLOQUEADO: O usuário possui livros com devolução atrasada pendente.");
+            }
+
+            if (usuario.getEmprestimosAtivos() >= LIMITE_EMPRESTIMOS_POR_USUARIO) {
+                throw new IllegalArgumentException("Limite de empréstimos atingido.");
+            }
+
+            if (!livroRepository.decrementarQuantidade(uow, livroId)) {
+                Livro livro = livroRepository.buscarPorId(uow, livroId);
+                if (livro == null) {
+                    throw new IllegalArgumentException("Livro não encontrado com ID: " + livroId);
+                }
+                throw new IllegalArgumentException("Não há exemplares disponíveis do livro: " + livro.getTitulo());
+            }
+
+            Livro livro = livroRepository.buscarPorId(uow, livroId);
+            Emprestimo emprestimo = new Emprestimo(usuario, livro, data);
+            usuario.adicionarEmprestimoAtivo(emprestimo.getDataDevolucaoPrevista());
+            emprestimoRepository.salvar(uow, emprestimo);
+            eventos.add(EventoEmprestimo.emprestimo(emprestimo));
+            return emprestimo;
+        }));
+        AnaliseCirculacao.registrar(Collections.singletonList(registrado));
+        return registrado;
+    }
+
+    public Emprestimo registrarDevolucao(Long emprestimoId) {
+        return comTravasDosEmprestimos(Collections.singletonList(emprestimoId),
+                () -> executarRegistrandoEventos((uow, eventos) -> {
+
+            Emprestimo emprestimo = emprestimoRepository.buscarPorIdParaAtualizacao(uow, emprestimoId);
+            if (emprestimo == null) {
+                throw new IllegalArgumentException("Empréstimo não encontrado com ID: " + emprestimoId);
+            }
+
+            if (emprestimo.isDevolvido()) {
+                throw new IllegalArgumentException("Este empréstimo já foi devolvido em: " +
+                        emprestimo.getDataDevolucao());
+            }
+
+            // O atraso precisa ser apurado antes de marcar a devolução
+            long diasAtraso = emprestimo.getDiasAtraso();
+
+            // Usuário antes do livro, na mesma ordem do empréstimo, para evitar deadlocks
+            Usuario usuario = usuarioRepository.buscarPorIdParaAtualizacao(uow, emprestimo.getUsuario().getId());
+            emprestimo.registrarDevolucao();
+            encerrarEmprestimoAtivo(uow, usuario, emprestimo);
+            livroRepository.incrementarQuantidade(uow, emprestimo.getLivro().getId());
+            eventos.add(EventoEmprestimo.devolucao(emprestimo, diasAtraso));
+
+            if (diasAtraso > 0) {
+                aplicarMulta(usuario, diasAtraso);
+                eventos.add(EventoEmprestimo.multa(emprestimo, usuario.getDataFimMulta(), diasAtraso));
+            }
+
+            return emprestimo;
+        }));
+    }
+
+    /**
+     * Registra de uma vez o empréstimo de vários livros a um usuário, tudo ou nada: se algum
+     * livro não puder ser emprestado, nenhum empréstimo é registrado.
+     * <p>
+     * O usuário é lido e validado uma única vez, os livros são bloqueados e retirados do
+     * estoque com uma consulta e uma atualização para todos, e os empréstimos são inseridos em
+     * um único lote, de modo que o custo não cresce com idas ao banco por livro.
+     */
+    public List<Emprestimo> registrarEmprestimos(Long usuarioId, Collection<Long> livroIds, LocalDate dataEmprestimo) {
+
+        if (livroIds == null || livroIds.isEmpty()) {
+            throw new IllegalArgumentException("Selecione ao menos um livro");
         }
 
-        if (temAtrasoPendente(usuario)) {
-            throw new IllegalArgumentException("BLOQUEADO: O usuário possui livros com devolução atrasada pendente.");
+        Set<Long> ids = new LinkedHashSet<>(livroIds);
+        if (ids.size() < livroIds.size()) {
+            throw new IllegalArgumentException("O mesmo livro foi selecionado mais de uma vez");
         }
 
-        if (!livro.temExemplaresDisponiveis()) {
-            throw new IllegalArgumentException("Não há exemplares disponíveis do livro: " + livro.getTitulo());
+        if (dataEmprestimo == null) {
+            dataEmprestimo = LocalDate.now();
         }
 
-        long emprestimosAtivos = emprestimoRepository.contarEmprestimosAtivos(usuario);
-        if (emprestimosAtivos >= LIMITE_EMPRESTIMOS_POR_USUARIO) {
-            throw new IllegalArgumentException("Limite de empréstimos atingido.");
+        if (dataEmprestimo.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("A data do empréstimo não pode ser futura");
         }
 
-        Emprestimo emprestimo = new Emprestimo(usuario, livro, dataEmprestimo);
+        final LocalDate data = dataEmprestimo;
+        List<Emprestimo> registrados = comTravas(Collections.singletonList(usuarioId), ids,
+                () -> executarRegistrandoEventos((uow, eventos) -> {
 
-        livro.decrementarQuantidade();
-        livroRepository.atualizar(livro);
+            Usuario usuario = usuarioRepository.buscarPorIdParaAtualizacao(uow, usuarioId);
+            if (usuario == null) {
+                throw new IllegalArgumentException("Usuário não encontrado com ID: " + usuarioId);
+            }
 
-        return emprestimoRepository.salvar(emprestimo);
-    }
+            if (usuario.isEmMulta()) {
+                throw new IllegalArgumentException(
+                        String.format("BLOQUEADO: O usuário está em período de multa. Faltam %d dias.",
+                                usuario.getDiasRestantesMulta())
+                );
+            }
 
-    public Emprestimo registrarDevolucao(Long emprestimoId) {
+            if (usuario.isComAtrasoPendente()) {
+                throw new IllegalArgumentException("BLOQUEADO: O usuário possui livros com devolução atrasada pendente.");
+            }
 
-        Emprestimo emprestimo = emprestimoRepository.buscarPorId(emprestimoId);
-        if (emprestimo == null) {
-            throw new IllegalArgumentException("Empréstimo não encontrado com ID: " + emprestimoId);
-        }
+            int restantes = LIMITE_EMPRESTIMOS_POR_USUARIO - usuario.getEmprestimosAtivos();
+            if (ids.size() > restantes) {
+                throw new IllegalArgumentException(restantes <= 0
+                        ? "Limite de empréstimos atingido."
+                        : String.format("Limite de empréstimos atingido: o usuário pode levar apenas mais "
+                                + "%d livro(s).", restantes));
+            }
+
+            // Bloqueia os livros (em ordem de id) para conferir o estoque de todos antes de retirar
+            Map<Long, Livro> livros = new HashMap<>();
+            for (Livro livro : livroRepository.buscarPorIdsParaAtualizacao(uow, ids)) {
+                livros.put(livro.getId(), livro);
+            }
+            for (Long livroId : ids) {
+                Livro livro = livros.get(livroId);
+                if (livro == null) {
+                    throw new IllegalArgumentException("Livro não encontrado com ID: " + livroId);
+                }
+                if (!livro.temExemplaresDisponiveis()) {
+                    throw new IllegalArgumentException(
+                            "Não há exemplares disponíveis do livro: " + livro.getTitulo());
+                }
+            }
 
-        if (emprestimo.isDevolvido()) {
-            throw new IllegalArgumentException("Este empréstimo já foi devolvido em: " +
-                    emprestimo.getDataDevolucao());
+            if (livroRepository.decrementarQuantidades(uow, ids) != ids.size()) {
+                throw new IllegalStateException("O estoque dos livros foi alterado durante o empréstimo");
+            }
+            // Os livros devolvidos com os empréstimos devem refletir o estoque e a versão atualizados
+            livroRepository.recarregar(uow, livros.values());
+
+            List<Emprestimo> emprestimos = new ArrayList<>(ids.size());
+            for (Long livroId : ids) {
+                Emprestimo emprestimo = new Emprestimo(usuario, livros.get(livroId), data);
+                usuario.adicionarEmprestimoAtivo(emprestimo.getDataDevolucaoPrevista());
+                emprestimos.add(emprestimo);
+            }
+            emprestimoRepository.salvarEmLote(uow, emprestimos);
+            for (Emprestimo emprestimo : emprestimos) {
+                eventos.add(EventoEmprestimo.emprestimo(emprestimo));
+            }
+            return emprestimos;
+        }));
+        AnaliseCirculacao.registrar(registrados);
+        return registrados;
+    }
+
+    /**
+     * Registra de uma vez a devolução de vários empréstimos, tudo ou nada: se algum já tiver
+     * sido devolvido ou não existir, nenhuma devolução é registrada. Multas e contadores são
+     * apurados como em devoluções individuais, na ordem dos ids.
+     * <p>
+     * Os empréstimos são bloqueados com uma única consulta, o estoque é devolvido com uma
+     * atualização para todos os livros e a próxima devolução de cada usuário é recalculada no
+     * máximo uma vez.
+     */
+    public List<Emprestimo> registrarDevolucoes(Collection<Long> emprestimoIds) {
+
+        if (emprestimoIds == null || emprestimoIds.isEmpty()) {
+            throw new IllegalArgumentException("Selecione ao menos um empréstimo");
         }
 
-        emprestimo.registrarDevolucao();
+        Set<Long> ids = new LinkedHashSet<>(emprestimoIds);
+        return comTravasDosEmprestimos(ids, () -> executarRegistrandoEventos((uow, eventos) -> {
 
-        Livro livro = emprestimo.getLivro();
-        livro.incrementarQuantidade();
-        livroRepository.atualizar(livro);
+            List<Emprestimo> emprestimos = emprestimoRepository.buscarPorIdsParaAtualizacao(uow, ids);
+            if (emprestimos.size() < ids.size()) {
+                for (Emprestimo emprestimo : emprestimos) {
+                    ids.remove(emprestimo.getId());
+                }
+                throw new IllegalArgumentException("Empréstimo não encontrado com ID: " + ids.iterator().next());
+            }
 
-        Emprestimo emprestimoAtualizado = emprestimoRepository.atualizar(emprestimo);
+            // Usuários na ordem dos ids, depois dos empréstimos, como na devolução individual
+            Map<Long, Usuario> usuarios = new TreeMap<>();
+            Map<Long, Integer> exemplaresPorLivro = new HashMap<>();
+            for (Emprestimo emprestimo : emprestimos) {
+                if (emprestimo.isDevolvido()) {
+                    throw new IllegalArgumentException("O empréstimo " + emprestimo.getId()
+                            + " já foi devolvido em: " + emprestimo.getDataDevolucao());
+                }
+                usuarios.put(emprestimo.getUsuario().getId(), null);
+                exemplaresPorLivro.merge(emprestimo.getLivro().getId(), 1, Integer::sum);
+            }
+            for (Long usuarioId : usuarios.keySet()) {
+                usuarios.put(usuarioId, usuarioRepository.buscarPorIdParaAtualizacao(uow, usuarioId));
+            }
+
+            Set<Usuario> recalcularProximaDevolucao = new HashSet<>();
+            for (Emprestimo emprestimo : emprestimos) {
+                // O atraso precisa ser apurado antes de marcar a devolução
+                long diasAtraso = emprestimo.getDiasAtraso();
+                Usuario usuario = usuarios.get(emprestimo.getUsuario().getId());
+                emprestimo.registrarDevolucao();
+                if (usuario.removerEmprestimoAtivo(emprestimo.getDataDevolucaoPrevista())) {
+                    recalcularProximaDevolucao.add(usuario);
+                }
+                eventos.add(EventoEmprestimo.devolucao(emprestimo, diasAtraso));
+                if (diasAtraso > 0) {
+                    aplicarMulta(usuario, diasAtraso);
+                    eventos.add(EventoEmprestimo.multa(emprestimo, usuario.getDataFimMulta(), diasAtraso));
+                }
+            }
+            for (Usuario usuario : recalcularProximaDevolucao) {
+                if (usuario.getEmprestimosAtivos() > 0) {
+                    usuario.setProximaDevolucao(emprestimoRepository.buscarProximaDevolucao(uow, usuario));
+                }
+            }
+            livroRepository.incrementarQuantidades(uow, exemplaresPorLivro);
 
-        if (emprestimoAtualizado.isAtrasado()) {
-            aplicarMulta(emprestimoAtualizado);
+            return emprestimos;
+        }));
+    }
+
+    /**
+     * Executa a operação com as faixas dos usuários e dos livros travadas, nessa ordem, como
+     * no banco. Operações sobre o mesmo usuário ou livro esperam aqui, antes de abrir a
+     * transação, em vez de segurar uma conexão esperando pela trava da linha.
+     */
+    private static <T> T comTravas(Collection<Long> usuarioIds, Collection<Long> livroIds, Supplier<T> operacao) {
+        int[] faixasUsuarios = TRAVAS_USUARIOS.faixas(usuarioIds);
+        int[] faixasLivros = TRAVAS_LIVROS.faixas(livroIds);
+        TRAVAS_USUARIOS.travar(faixasUsuarios);
+        try {
+            TRAVAS_LIVROS.travar(faixasLivros);
+            try {
+                return operacao.get();
+            } finally {
+                TRAVAS_LIVROS.liberar(faixasLivros);
+            }
+        } finally {
+            TRAVAS_USUARIOS.liberar(faixasUsuarios);
+        }
+    }
+
+    /**
+     * Como {@link #comTravas}, descobrindo antes o usuário e o livro de cada empréstimo, que não
+     * mudam depois de registrado.
+     */
+    private <T> T comTravasDosEmprestimos(Collection<Long> emprestimoIds, Supplier<T> operacao) {
+        List<Long> usuarioIds = new ArrayList<>();
+        List<Long> livroIds = new ArrayList<>();
+        for (Object[] linha : emprestimoRepository.buscarUsuariosELivros(emprestimoIds)) {
+            usuarioIds.add((Long) linha[0]);
+            livroIds.add((Long) linha[1]);
         }
+        return comTravas(usuarioIds, livroIds, operacao);
+    }
 
-        return emprestimoAtualizado;
+    /**
+     * Executa a operação em uma transação e, depois de confirmada, grava no log de eventos
+     * ({@link RegistroEventos}) os eventos que ela acumulou. Chamado dentro das travas, de modo
+     * que os eventos de um mesmo usuário ou livro chegam ao log na ordem em que foram confirmados.
+     */
+    private static <T> T executarRegistrandoEventos(
+            BiFunction<UnidadeDeTrabalho, List<EventoEmprestimo>, T> operacao) {
+        List<EventoEmprestimo> eventos = new ArrayList<>();
+        T resultado = UnidadeDeTrabalho.executar(uow -> {
+            eventos.clear();
+            return operacao.apply(uow, eventos);
+        });
+        RegistroEventos.registrar(eventos);
+        return resultado;
     }
 
-    private void aplicarMulta(Emprestimo emprestimo) {
-        Usuario usuario = emprestimo.getUsuario();
-        long diasAtraso = emprestimo.getDiasAtraso();
+    /**
+     * Métricas de disputa das travas de usuários e de livros usadas em empréstimos e devoluções.
+     * A quantidade de faixas de cada uma é definida por -Dbiblioteca.travas.faixas (padrão: 256).
+     */
+    public static List<EstatisticasTravas> getEstatisticasTravas() {
+        return List.of(TRAVAS_USUARIOS.obterEstatisticas(), TRAVAS_LIVROS.obterEstatisticas());
+    }
 
+    /**
+     * Atualiza os contadores do usuário (já bloqueado) após o encerramento de um empréstimo
+     * ativo. A próxima devolução só é consultada de novo quando o empréstimo encerrado era o
+     * que a definia.
+     */
+    private void encerrarEmprestimoAtivo(UnidadeDeTrabalho uow, Usuario usuario, Emprestimo emprestimo) {
+        if (usuario.removerEmprestimoAtivo(emprestimo.getDataDevolucaoPrevista())) {
+            usuario.setProximaDevolucao(emprestimoRepository.buscarProximaDevolucao(uow, usuario));
+        }
+    }
+
+    private void aplicarMulta(Usuario usuario, long diasAtraso) {
         int novaMulta = (int) diasAtraso;
 
         LocalDate dataBase = LocalDate.now();
@@ -115,18 +392,6 @@ public class EmprestimoController {
 
         usuario.setDiasMulta(novaMulta);
         usuario.setDataFimMulta(novaDataFimMulta);
-
-        usuarioRepository.atualizar(usuario);
-    }
-
-    private boolean temAtrasoPendente(Usuario usuario) {
-        List<Emprestimo> ativos = emprestimoRepository.listarAtivosPorUsuario(usuario);
-        for (Emprestimo emp : ativos) {
-            if (emp.isAtrasado()) {
-                return true;
-            }
-        }
-        return false;
     }
 
     public String verificarStatusTexto(Long usuarioId) {
@@ -134,14 +399,46 @@ public class EmprestimoController {
         if (usuario == null) return "Erro";
 
         if (usuario.isEmMulta()) {
-            return "MULTA (" + usuario.getDiasRestantesMulta() + " dias restantes)";
+            return textoMulta(usuario.getDataFimMulta());
+        }
+
+        if (usuario.isComAtrasoPendente()) {
+            return TEXTO_BLOQUEADO;
         }
 
-        if (temAtrasoPendente(usuario)) {
-            return "BLOQUEADO (Livro em Atraso)";
+        return TEXTO_LIVRE;
+    }
+
+    /**
+     * Calcula o status de vários usuários de uma só vez (ex.: uma página da tabela),
+     * com uma consulta para multas vigentes e outra para atrasos, em vez de duas por usuário.
+     * Ambas leem apenas a tabela de usuários: o atraso vem da próxima devolução mantida em
+     * cada um, sem agregar os empréstimos.
+     *
+     * @param usuarioIds IDs dos usuários
+     * @return Mapa de ID do usuário para o texto de status
+     */
+    public Map<Long, String> verificarStatusEmLote(Collection<Long> usuarioIds) {
+        Map<Long, LocalDate> multas = usuarioRepository.buscarFimMultaVigente(usuarioIds);
+        Set<Long> comAtraso = usuarioRepository.buscarComAtrasoPendente(usuarioIds);
+
+        Map<Long, String> status = new HashMap<>();
+        for (Long id : usuarioIds) {
+            LocalDate fimMulta = multas.get(id);
+            if (fimMulta != null) {
+                status.put(id, textoMulta(fimMulta));
+            } else if (comAtraso.contains(id)) {
+                status.put(id, TEXTO_BLOQUEADO);
+            } else {
+                status.put(id, TEXTO_LIVRE);
+            }
         }
+        return status;
+    }
 
-        return "Livre";
+    private String textoMulta(LocalDate dataFimMulta) {
+        long diasRestantes = ChronoUnit.DAYS.between(LocalDate.now(), dataFimMulta) + 1;
+        return "MULTA (" + diasRestantes + " dias restantes)";
     }
 
     public Emprestimo buscarPorId(Long id) {
@@ -152,6 +449,43 @@ public class EmprestimoController {
         return emprestimoRepository.listarTodos();
     }
 
+    /**
+     * Lista uma página do histórico de empréstimos, do mais recente para o mais antigo.
+     * Para obter a próxima página, informe a data e o id do último empréstimo recebido;
+     * use null para a primeira.
+     */
+    public List<Emprestimo> listarPagina(LocalDate dataAntes, Long idAntes, int tamanho) {
+        return emprestimoRepository.listarPagina(dataAntes, idAntes, tamanho);
+    }
+
+    public List<Emprestimo> listarAtivosPagina(LocalDate dataAntes, Long idAntes, int tamanho) {
+        return emprestimoRepository.listarAtivosPagina(dataAntes, idAntes, tamanho);
+    }
+
+    public List<Emprestimo> listarAtivosPorPosicao(int inicio, int tamanho) {
+        return emprestimoRepository.listarAtivosPorPosicao(inicio, tamanho);
+    }
+
+    /**
+     * Versões resumidas das listagens, para as telas: trazem apenas nome do usuário e
+     * título do livro, sem carregar as entidades associadas.
+     */
+    public List<EmprestimoResumo> listarResumoAtivosPagina(LocalDate dataAntes, Long idAntes, int tamanho) {
+        return emprestimoRepository.listarResumoAtivosPagina(dataAntes, idAntes, tamanho);
+    }
+
+    public List<EmprestimoResumo> listarResumoAtivosPorPosicao(int inicio, int tamanho) {
+        return emprestimoRepository.listarResumoAtivosPorPosicao(inicio, tamanho);
+    }
+
+    public List<EmprestimoResumo> listarResumoAtrasados() {
+        return emprestimoRepository.listarResumoAtrasados();
+    }
+
+    public long contarAtivos() {
+        return emprestimoRepository.contarAtivos();
+    }
+
     public List<Emprestimo> listarAtivos() {
         return emprestimoRepository.listarAtivos();
     }
@@ -172,6 +506,25 @@ public class EmprestimoController {
         return emprestimoRepository.listarPorLivro(livro);
     }
 
+    /**
+     * Uma página do histórico de empréstimos do livro, do mais recente para o mais antigo, com o
+     * mesmo cursor de {@link #listarPagina}.
+     */
+    public List<Emprestimo> listarPorLivroPagina(Long livroId, LocalDate dataAntes, Long idAntes, int tamanho) {
+        if (livroRepository.buscarPorId(livroId) == null) {
+            throw new IllegalArgumentException("Livro não encontrado");
+        }
+        return emprestimoRepository.listarPorLivroPagina(livroId, dataAntes, idAntes, tamanho);
+    }
+
+    /**
+     * Uma página dos empréstimos atrasados, do mais antigo para o mais recente. Para obter a
+     * próxima página, informe a devolução prevista e o id do último empréstimo recebido.
+     */
+    public List<EmprestimoResumo> listarResumoAtrasadosPagina(LocalDate previstaDepois, Long idDepois, int tamanho) {
+        return emprestimoRepository.listarResumoAtrasadosPagina(previstaDepois, idDepois, tamanho);
+    }
+
     public List<Emprestimo> listarAtrasados() {
         return emprestimoRepository.listarAtrasados();
     }
@@ -184,18 +537,80 @@ public class EmprestimoController {
         return emprestimoRepository.listarHistoricoPorUsuario(usuario);
     }
 
-    public void removerEmprestimo(Long id) {
-        Emprestimo emprestimo = emprestimoRepository.buscarPorId(id);
-        if (emprestimo == null) {
-            throw new IllegalArgumentException("Empréstimo não encontrado");
-        }
+    /**
+     * Entrega todos os empréstimos ao consumidor, um a um, sem carregá-los em memória de uma vez.
+     *
+     * @return quantidade de empréstimos percorridos
+     */
+    public long percorrerTodos(Consumer<Emprestimo> consumidor) {
+        return emprestimoRepository.percorrerTodos(consumidor);
+    }
 
-        if (emprestimo.getAtivo() && !emprestimo.isDevolvido()) {
-            Livro livro = emprestimo.getLivro();
-            livro.incrementarQuantidade();
-            livroRepository.atualizar(livro);
+    public long percorrerHistoricoPorUsuario(Long usuarioId, Consumer<Emprestimo> consumidor) {
+        Usuario usuario = usuarioRepository.buscarPorId(usuarioId);
+        if (usuario == null) {
+            throw new IllegalArgumentException("Usuário não encontrado");
         }
+        return emprestimoRepository.percorrerHistoricoPorUsuario(usuario, consumidor);
+    }
+
+    public void removerEmprestimo(Long id) {
+        comTravasDosEmprestimos(Collections.singletonList(id), () -> executarRegistrandoEventos((uow, eventos) -> {
+            Emprestimo emprestimo = emprestimoRepository.buscarPorIdParaAtualizacao(uow, id);
+            if (emprestimo == null) {
+                throw new IllegalArgumentException("Empréstimo não encontrado");
+            }
 
-        emprestimoRepository.remover(id);
+            emprestimoRepository.remover(uow, emprestimo);
+
+            boolean estavaAtivo = emprestimo.getAtivo() && !emprestimo.isDevolvido();
+            if (estavaAtivo) {
+                Usuario usuario = usuarioRepository.buscarPorIdParaAtualizacao(uow, emprestimo.getUsuario().getId());
+                encerrarEmprestimoAtivo(uow, usuario, emprestimo);
+                livroRepository.incrementarQuantidade(uow, emprestimo.getLivro().getId());
+            }
+            eventos.add(EventoEmprestimo.remocao(emprestimo, estavaAtivo));
+            return null;
+        }));
+    }
+
+    /**
+     * Marca como atrasados os empréstimos ativos que venceram desde a varredura anterior,
+     * com atualizações em conjunto no banco em vez de uma verificação por empréstimo.
+     * Executada diariamente pelo {@link AgendadorAtrasos}; se a aplicação ficou parada por
+     * alguns dias, a próxima execução cobre todo o período.
+     * <p>
+     * O bloqueio dos usuários não precisa ser recalculado aqui: ele decorre da próxima
+     * devolução, já mantida em cada usuário a cada empréstimo e devolução.
+     */
+    public RelatorioVarredura varrerAtrasos() {
+        long inicio = System.nanoTime();
+        LocalDate hoje = LocalDate.now();
+        return UnidadeDeTrabalho.executar(uow -> {
+            LocalDate desde = tarefaAgendadaRepository.buscarUltimaExecucaoParaAtualizacao(uow, TAREFA_VARREDURA_ATRASOS);
+            long usuarios = emprestimoRepository.contarUsuariosComNovosAtrasos(uow, desde, hoje);
+            int marcados = emprestimoRepository.marcarAtrasados(uow, desde, hoje);
+            tarefaAgendadaRepository.registrarExecucao(uow, TAREFA_VARREDURA_ATRASOS, hoje);
+            return new RelatorioVarredura(desde, hoje, marcados, usuarios, (System.nanoTime() - inicio) / 1_000_000);
+        });
+    }
+
+    /**
+     * Reconstrói os contadores de empréstimos ativos de todos os usuários a partir dos
+     * empréstimos registrados. Executada pelo {@link AgendadorAtrasos} ao iniciar e depois
+     * diariamente, após a varredura de atrasos.
+     *
+     * @return quantidade de usuários cujos contadores estavam divergentes
+     */
+    public int reconciliarContadores() {
+        long inicio = System.nanoTime();
+        int corrigidos = usuarioRepository.reconciliarContadores();
+        long duracao = (System.nanoTime() - inicio) / 1_000_000;
+        if (corrigidos > 0) {
+            LOG.warn("Contadores de empréstimos divergentes corrigidos: {} usuário(s), em {} ms", corrigidos, duracao);
+        } else {
+            LOG.info("Contadores de empréstimos conferidos em {} ms, sem divergências", duracao);
+        }
+        return corrigidos;
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package controller;
+
+import model.Emprestimo;
+import model.EmprestimoResumo;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variante assíncrona do {@link EmprestimoController}, para uso pelas telas: as operações
+ * rodam fora da thread do Swing e devolvem um {@link CompletableFuture}.
+ */
+public class EmprestimoControllerAsync {
+
+    private final EmprestimoController emprestimoController;
+
+    public EmprestimoControllerAsync() {
+        this(new EmprestimoController());
+    }
+
+    public EmprestimoControllerAsync(EmprestimoController emprestimoController) {
+        this.emprestimoController = emprestimoController;
+    }
+
+    public CompletableFuture<Emprestimo> registrarEmprestimo(Long usuarioId, Long livroId, LocalDate dataEmprestimo) {
+        return ExecucaoAssincrona.executar(() ->
+                emprestimoController.registrarEmprestimo(usuarioId, livroId, dataEmprestimo));
+    }
+
+    public CompletableFuture<List<Emprestimo>> registrarEmprestimos(Long usuarioId, Collection<Long> livroIds,
+                                                                    LocalDate dataEmprestimo) {
+        return ExecucaoAssincrona.executar(() ->
+                emprestimoController.registrarEmprestimos(usuarioId, livroIds, dataEmprestimo));
+    }
+
+    public CompletableFuture<Emprestimo> registrarDevolucao(Long emprestimoId) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.registrarDevolucao(emprestimoId));
+    }
+
+    public CompletableFuture<List<Emprestimo>> registrarDevolucoes(Collection<Long> emprestimoIds) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.registrarDevolucoes(emprestimoIds));
+    }
+
+    public CompletableFuture<Void> removerEmprestimo(Long id) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.removerEmprestimo(id));
+    }
+
+    public CompletableFuture<String> verificarStatusTexto(Long usuarioId) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.verificarStatusTexto(usuarioId));
+    }
+
+    public CompletableFuture<Map<Long, String>> verificarStatusEmLote(Collection<Long> usuarioIds) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.verificarStatusEmLote(usuarioIds));
+    }
+
+    public CompletableFuture<Emprestimo> buscarPorId(Long id) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.buscarPorId(id));
+    }
+
+    public CompletableFuture<List<Emprestimo>> listarPagina(LocalDate dataAntes, Long idAntes, int tamanho) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.listarPagina(dataAntes, idAntes, tamanho));
+    }
+
+    public CompletableFuture<List<Emprestimo>> listarAtivos() {
+        return ExecucaoAssincrona.executar(emprestimoController::listarAtivos);
+    }
+
+    public CompletableFuture<List<Emprestimo>> listarAtivosPorUsuario(Long usuarioId) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.listarAtivosPorUsuario(usuarioId));
+    }
+
+    public CompletableFuture<List<Emprestimo>> listarPorLivro(Long livroId) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.listarPorLivro(livroId));
+    }
+
+    public CompletableFuture<List<Emprestimo>> listarAtrasados() {
+        return ExecucaoAssincrona.executar(emprestimoController::listarAtrasados);
+    }
+
+    public CompletableFuture<List<Emprestimo>> listarHistoricoPorUsuario(Long usuarioId) {
+        return ExecucaoAssincrona.executar(() -> emprestimoController.listarHistoricoPorUsuario(usuarioId));
+    }
+
+    public CompletableFuture<List<EmprestimoResumo>> listarResumoAtrasados() {
+        return ExecucaoAssincrona.executar(emprestimoController::listarResumoAtrasados);
+    }
+}
@@ -0,0 +1,25 @@
+package controller;
+
+/**
+ * Retrato imutável das métricas de um conjunto de {@link TravasEmFaixas}.
+ * Uma aquisição é disputada quando precisou esperar por ao menos uma faixa ocupada;
+ * os tempos de espera, em milissegundos, consideram apenas as aquisições disputadas.
+ */
+public record EstatisticasTravas(
+        String nome,
+        int faixas,
+        long aquisicoes,
+        long disputas,
+        double esperaMediaMillis,
+        double esperaMaximaMillis) {
+
+    public double percentualDisputado() {
+        return aquisicoes == 0 ? 0 : 100.0 * disputas / aquisicoes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: faixas=%d, aquisicoes=%d, disputadas=%d (%.1f%%), espera media=%.2fms (max %.2fms)",
+                nome, faixas, aquisicoes, disputas, percentualDisputado(), esperaMediaMillis, esperaMaximaMillis);
+    }
+}
@@ -0,0 +1,79 @@
+package controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Executor compartilhado pelas fachadas assíncronas dos controllers.
+ * Cada tarefa roda em uma virtual thread; um semáforo limita quantas acessam o banco
+ * ao mesmo tempo, para não esgotar o pool de conexões.
+ * <p>
+ * O limite pode ser ajustado com -Dbiblioteca.async.maximo (padrão: 8).
+ */
+public final class ExecucaoAssincrona {
+
+    private static final int MAXIMO_SIMULTANEO = Integer.getInteger("biblioteca.async.maximo", 8);
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("biblioteca-async-", 0).factory());
+    private static final Semaphore PERMISSOES = new Semaphore(MAXIMO_SIMULTANEO, true);
+
+    private ExecucaoAssincrona() {
+    }
+
+    /**
+     * Executa a operação em segundo plano. Cancelar o future retornado interrompe a
+     * tarefa: se ainda estiver aguardando vaga ela nem chega a consultar o banco.
+     */
+    public static <T> CompletableFuture<T> executar(Supplier<T> operacao) {
+        TarefaCancelavel<T> tarefa = new TarefaCancelavel<>();
+        EXECUTOR.execute(() -> {
+            if (tarefa.isDone()) {
+                return;
+            }
+            tarefa.thread = Thread.currentThread();
+            try {
+                PERMISSOES.acquire();
+                try {
+                    if (!tarefa.isDone()) {
+                        tarefa.complete(operacao.get());
+                    }
+                } finally {
+                    PERMISSOES.release();
+                }
+            } catch (InterruptedException e) {
+                tarefa.cancel(false);
+            } catch (Throwable e) {
+                tarefa.completeExceptionally(e);
+            } finally {
+                tarefa.thread = null;
+                Thread.interrupted();
+            }
+        });
+        return tarefa;
+    }
+
+    public static CompletableFuture<Void> executar(Runnable operacao) {
+        return executar(() -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    private static class TarefaCancelavel<T> extends CompletableFuture<T> {
+        private volatile Thread thread;
+
+        @Override
+        public boolean cancel(boolean interromper) {
+            boolean cancelada = super.cancel(interromper);
+            Thread executando = thread;
+            if (cancelada && executando != null) {
+                executando.interrupt();
+            }
+            return cancelada;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import model.Emprestimo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Exporta empréstimos para arquivo em CSV ou NDJSON (um objeto JSON por linha).
+ * Os empréstimos são lidos do banco por cursor e escritos à medida que chegam, de modo
+ * que arquivos com dezenas de milhões de linhas são gerados com uso de memória constante.
+ */
+public class ExportadorEmprestimos {
+
+    public enum Formato {
+        CSV, NDJSON
+    }
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final String CABECALHO_CSV = "id,usuario_id,usuario_nome,livro_id,livro_titulo,livro_isbn,"
+            + "data_emprestimo,data_devolucao_prevista,data_devolucao,ativo";
+
+    private final EmprestimoController emprestimoController;
+
+    public ExportadorEmprestimos() {
+        this(new EmprestimoController());
+    }
+
+    public ExportadorEmprestimos(EmprestimoController emprestimoController) {
+        this.emprestimoController = emprestimoController;
+    }
+
+    /**
+     * Exporta todos os empréstimos, do mais recente para o mais antigo.
+     *
+     * @return quantidade de empréstimos exportados
+     */
+    public long exportar(Path destino, Formato formato) {
+        return exportar(destino, formato, emprestimoController::percorrerTodos);
+    }
+
+    /**
+     * Exporta o histórico de empréstimos de um usuário.
+     *
+     * @return quantidade de empréstimos exportados
+     */
+    public long exportarHistorico(Long usuarioId, Path destino, Formato formato) {
+        return exportar(destino, formato,
+                consumidor -> emprestimoController.percorrerHistoricoPorUsuario(usuarioId, consumidor));
+    }
+
+    private long exportar(Path destino, Formato formato, Percurso percurso) {
+        try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer escritor = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), TAMANHO_BUFFER)) {
+
+            long quantidade;
+            if (formato == Formato.CSV) {
+                escritor.write(CABECALHO_CSV);
+                escritor.write('\n');
+                quantidade = percurso.percorrer(emprestimo -> escrever(() -> escreverCsv(escritor, emprestimo)));
+            } else {
+                try (JsonGenerator json = new JsonFactory().createGenerator(escritor)) {
+                    json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    json.setRootValueSeparator(null);
+                    quantidade = percurso.percorrer(emprestimo -> escrever(() -> escreverJson(json, emprestimo)));
+                }
+            }
+            return quantidade;
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao exportar empréstimos: " + e.getMessage(), e);
+        } catch (UncheckedIOException e) {
+            throw new RuntimeException("Erro ao exportar empréstimos: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static void escreverCsv(Writer escritor, Emprestimo emprestimo) throws IOException {
+        escritor.write(String.valueOf(emprestimo.getId()));
+        escritor.write(',');
+        escritor.write(String.valueOf(emprestimo.getUsuario().getId()));
+        escritor.write(',');
+        escritor.write(campoCsv(emprestimo.getUsuario().getNome()));
+        escritor.write(',');
+        escritor.write(String.valueOf(emprestimo.getLivro().getId()));
+        escritor.write(',');
+        escritor.write(campoCsv(emprestimo.getLivro().getTitulo()));
+        escritor.write(',');
+        escritor.write(campoCsv(emprestimo.getLivro().getIsbn()));
+        escritor.write(',');
+        escritor.write(data(emprestimo.getDataEmprestimo()));
+        escritor.write(',');
+        escritor.write(data(emprestimo.getDataDevolucaoPrevista()));
+        escritor.write(',');
+        escritor.write(data(emprestimo.getDataDevolucao()));
+        escritor.write(',');
+        escritor.write(String.valueOf(emprestimo.getAtivo()));
+        escritor.write('\n');
+    }
+
+    private static void escreverJson(JsonGenerator json, Emprestimo emprestimo) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", emprestimo.getId());
+        json.writeNumberField("usuarioId", emprestimo.getUsuario().getId());
+        json.writeStringField("usuarioNome", emprestimo.getUsuario().getNome());
+        json.writeNumberField("livroId", emprestimo.getLivro().getId());
+        json.writeStringField("livroTitulo", emprestimo.getLivro().getTitulo());
+        json.writeStringField("livroIsbn", emprestimo.getLivro().getIsbn());
+        json.writeStringField("dataEmprestimo", dataOuNulo(emprestimo.getDataEmprestimo()));
+        json.writeStringField("dataDevolucaoPrevista", dataOuNulo(emprestimo.getDataDevolucaoPrevista()));
+        json.writeStringField("dataDevolucao", dataOuNulo(emprestimo.getDataDevolucao()));
+        json.writeBooleanField("ativo", Boolean.TRUE.equals(emprestimo.getAtivo()));
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    private static String data(LocalDate data) {
+        return data == null ? "" : data.toString();
+    }
+
+    private static String dataOuNulo(LocalDate data) {
+        return data == null ? null : data.toString();
+    }
+
+    private static void escrever(Escrita escrita) {
+        try {
+            escrita.executar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Escrita {
+        void executar() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Percurso {
+        long percorrer(Consumer<Emprestimo> consumidor);
+    }
+}
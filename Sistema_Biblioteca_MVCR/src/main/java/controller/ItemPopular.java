@@ -0,0 +1,19 @@
+package controller;
+
+/**
+ * Posição em um ranking de circulação.
+ *
+ * @param id          id do livro ou do usuário; null nos rankings de temas e autores
+ * @param descricao   título, nome, tema ou autor
+ * @param emprestimos empréstimos na janela; pode exceder o real em até {@code erroMaximo}
+ * @param erroMaximo  zero quando a contagem é exata
+ */
+public record ItemPopular(Long id, String descricao, long emprestimos, long erroMaximo) {
+
+    @Override
+    public String toString() {
+        return erroMaximo == 0
+                ? String.format("%s: %d empréstimo(s)", descricao, emprestimos)
+                : String.format("%s: %d empréstimo(s) (±%d)", descricao, emprestimos, erroMaximo);
+    }
+}
@@ -0,0 +1,152 @@
+package controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lê os registros de um arquivo de importação de livros um a um, sem carregar o arquivo inteiro.
+ * Cada registro é um mapa com os campos titulo, tema, autor, isbn, dataPublicacao e
+ * quantidadeDisponivel (valores em texto, ainda não validados).
+ */
+class LeitorLivrosImportados {
+
+    static final String[] CAMPOS = {"titulo", "tema", "autor", "isbn", "dataPublicacao", "quantidadeDisponivel"};
+
+    private LeitorLivrosImportados() {
+    }
+
+    /**
+     * CSV com cabeçalho (nomes dos campos, em qualquer ordem), separado por vírgula ou
+     * ponto e vírgula; valores podem estar entre aspas duplas.
+     */
+    static Iterator<Map<String, String>> csv(Reader leitor) throws IOException {
+        BufferedReader linhas = new BufferedReader(leitor);
+        String cabecalho = linhas.readLine();
+        if (cabecalho == null) {
+            return new ArrayList<Map<String, String>>().iterator();
+        }
+        if (cabecalho.startsWith("\uFEFF")) {
+            cabecalho = cabecalho.substring(1);
+        }
+        char separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+        List<String> colunas = new ArrayList<>();
+        for (String coluna : separarCsv(cabecalho, separador)) {
+            colunas.add(nomeCampo(coluna));
+        }
+
+        return new Iterator<>() {
+            private String proxima = lerProxima();
+
+            @Override
+            public boolean hasNext() {
+                return proxima != null;
+            }
+
+            @Override
+            public Map<String, String> next() {
+                if (proxima == null) {
+                    throw new NoSuchElementException();
+                }
+                List<String> valores = separarCsv(proxima, separador);
+                Map<String, String> registro = new HashMap<>();
+                for (int i = 0; i < colunas.size() && i < valores.size(); i++) {
+                    registro.put(colunas.get(i), valores.get(i));
+                }
+                proxima = lerProxima();
+                return registro;
+            }
+
+            private String lerProxima() {
+                try {
+                    String linha;
+                    do {
+                        linha = linhas.readLine();
+                    } while (linha != null && linha.isBlank());
+                    return linha;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * JSON com um array de objetos, lido elemento a elemento.
+     */
+    static Iterator<Map<String, String>> json(Reader leitor) throws IOException {
+        MappingIterator<Map<String, Object>> objetos = new ObjectMapper()
+                .readerForMapOf(Object.class)
+                .readValues(leitor);
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return objetos.hasNext();
+            }
+
+            @Override
+            public Map<String, String> next() {
+                Map<String, String> registro = new HashMap<>();
+                for (Map.Entry<String, Object> campo : objetos.next().entrySet()) {
+                    if (campo.getValue() != null) {
+                        registro.put(nomeCampo(campo.getKey()), String.valueOf(campo.getValue()));
+                    }
+                }
+                return registro;
+            }
+        };
+    }
+
+    /**
+     * Aceita o nome do campo em qualquer caixa e com ou sem "_" (ex.: data_publicacao).
+     */
+    private static String nomeCampo(String nome) {
+        String normalizado = nome.trim().replace("_", "").toLowerCase(Locale.ROOT);
+        for (String campo : CAMPOS) {
+            if (campo.toLowerCase(Locale.ROOT).equals(normalizado)) {
+                return campo;
+            }
+        }
+        return nome.trim();
+    }
+
+    private static List<String> separarCsv(String linha, char separador) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                valores.add(atual.toString().trim());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        valores.add(atual.toString().trim());
+        return valores;
+    }
+}
@@ -1,14 +1,31 @@
 package controller;
 
 import model.Livro;
+import repository.ConflitoDeVersaoException;
 import repository.LivroRepository;
+import repository.Sugestao;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
 
 
 public class LivroController {
 
+    /** Quantidade padrão de livros inseridos por lote JDBC na importação. */
+    public static final int TAMANHO_LOTE_IMPORTACAO = 500;
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
     private final LivroRepository livroRepository;
 
     public LivroController() {
@@ -32,18 +49,64 @@ public class LivroController {
         return livroRepository.salvar(livro);
     }
 
+    /**
+     * Atualiza o livro a partir de um formulário aberto com {@code quantidadeLida} exemplares.
+     * Apenas a diferença entre a quantidade informada e a lida é aplicada ao estoque atual, de
+     * modo que empréstimos e devoluções registrados enquanto o formulário estava aberto não
+     * são desfeitos; se a quantidade não foi alterada no formulário, o estoque é mantido.
+     */
     public Livro atualizarLivro(Long id, String titulo, String tema, String autor, String isbn,
-                                LocalDate dataPublicacao, Integer quantidadeDisponivel) {
-        
+                                LocalDate dataPublicacao, Integer quantidadeDisponivel, int quantidadeLida) {
+
         // Validações
         validarDadosLivro(titulo, tema, autor, isbn, dataPublicacao, quantidadeDisponivel);
-        
+        int ajuste = quantidadeDisponivel - quantidadeLida;
+
+        return RepeticaoEmConflito.executar(() ->
+                atualizar(id, titulo, tema, autor, isbn, dataPublicacao, null, atual -> {
+                    int quantidade = atual + ajuste;
+                    if (quantidade < 0) {
+                        throw new IllegalArgumentException(String.format(
+                                "A quantidade disponível ficaria negativa: restam apenas %d exemplares, "
+                                        + "pois houve empréstimos enquanto o livro era editado", atual));
+                    }
+                    return quantidade;
+                }));
+    }
+
+    /**
+     * Atualiza o livro gravando a quantidade disponível informada, desde que ele ainda esteja
+     * na versão {@code versaoLida}. Se o livro foi alterado depois de lido (ex.: por um
+     * empréstimo), a gravação não é repetida: lança {@link ConflitoDeVersaoException} para que
+     * quem chamou releia o livro e decida a nova quantidade.
+     */
+    public Livro atualizarLivroNaVersao(Long id, String titulo, String tema, String autor, String isbn,
+                                        LocalDate dataPublicacao, Integer quantidadeDisponivel, long versaoLida) {
+
+        // Validações
+        validarDadosLivro(titulo, tema, autor, isbn, dataPublicacao, quantidadeDisponivel);
+
+        return atualizar(id, titulo, tema, autor, isbn, dataPublicacao, versaoLida, atual -> quantidadeDisponivel);
+    }
+
+    /**
+     * Uma tentativa de atualização: relê o livro e aplica os dados do formulário sobre ele.
+     * Com {@code versaoLida}, falha se o livro relido não estiver mais nessa versão.
+     */
+    private Livro atualizar(Long id, String titulo, String tema, String autor, String isbn,
+                            LocalDate dataPublicacao, Long versaoLida, IntUnaryOperator novaQuantidade) {
+
         // Busca o livro existente
         Livro livro = livroRepository.buscarPorId(id);
         if (livro == null) {
             throw new IllegalArgumentException("Livro não encontrado com ID: " + id);
         }
-        
+        if (versaoLida != null && livro.getVersao() != versaoLida) {
+            throw new ConflitoDeVersaoException(String.format(
+                    "O livro foi alterado depois de lido (versão %d, esperada %d); leia-o novamente",
+                    livro.getVersao(), versaoLida), null);
+        }
+
         // Verifica se o ISBN foi alterado e se já existe outro livro com o novo ISBN
         if (!livro.getIsbn().equals(isbn)) {
             Livro livroComMesmoIsbn = livroRepository.buscarPorIsbn(isbn);
@@ -51,15 +114,15 @@ public class LivroController {
                 throw new IllegalArgumentException("Já existe outro livro cadastrado com o ISBN: " + isbn);
             }
         }
-        
+
         // Atualiza os dados
         livro.setTitulo(titulo);
         livro.setTema(tema);
         livro.setAutor(autor);
         livro.setIsbn(isbn);
         livro.setDataPublicacao(dataPublicacao);
-        livro.setQuantidadeDisponivel(quantidadeDisponivel);
-        
+        livro.setQuantidadeDisponivel(novaQuantidade.applyAsInt(livro.getQuantidadeDisponivel()));
+
         return livroRepository.atualizar(livro);
     }
 
@@ -84,6 +147,22 @@ public class LivroController {
         return livroRepository.listarDisponiveis();
     }
 
+    /**
+     * Lista uma página de livros ordenados por título. Para obter a próxima página,
+     * informe o título e o id do último livro recebido; use null para a primeira.
+     */
+    public List<Livro> listarPagina(String tituloApos, Long idApos, int tamanho) {
+        return livroRepository.listarPagina(tituloApos, idApos, tamanho);
+    }
+
+    public List<Livro> listarPorPosicao(int inicio, int tamanho) {
+        return livroRepository.listarPorPosicao(inicio, tamanho);
+    }
+
+    public long contarTodos() {
+        return livroRepository.contarTodos();
+    }
+
     public List<Livro> buscarPorTitulo(String titulo) {
         if (titulo == null || titulo.trim().isEmpty()) {
             return listarTodos();
@@ -91,6 +170,18 @@ public class LivroController {
         return livroRepository.buscarPorTitulo(titulo);
     }
 
+    /**
+     * Indica se a busca por título {@code nova} pode ser refeita sobre o resultado de
+     * {@code anterior} com {@link #refinarBuscaPorTitulo}, sem nova consulta.
+     */
+    public boolean refinaBuscaPorTitulo(String anterior, String nova) {
+        return livroRepository.refinaBuscaPorTitulo(anterior, nova);
+    }
+
+    public List<Livro> refinarBuscaPorTitulo(List<Livro> livros, String titulo) {
+        return livroRepository.refinarPorTitulo(livros, titulo);
+    }
+
     public List<Livro> buscarPorAutor(String autor) {
         if (autor == null || autor.trim().isEmpty()) {
             return listarTodos();
@@ -104,6 +195,167 @@ public class LivroController {
         }
         return livroRepository.buscarPorTema(tema);
     }
+
+    /**
+     * Busca livros cujo título, autor ou tema contenham todos os termos informados,
+     * do mais para o menos relevante.
+     */
+    public List<Livro> buscar(String texto) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return listarTodos();
+        }
+        return livroRepository.buscar(texto);
+    }
+
+    /**
+     * Sugere livros pelo início do título ou do ISBN enquanto o texto é digitado.
+     * Consulta apenas o índice em memória; o estoque deve ser lido ao escolher o livro.
+     */
+    public List<Sugestao> sugerir(String texto, int limite) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return livroRepository.sugerir(texto, limite);
+    }
+
+    /**
+     * Carrega o índice de sugestões de livros, para que a primeira busca não espere pela carga.
+     */
+    public void prepararSugestoes() {
+        livroRepository.prepararSugestoes();
+    }
+
+    public RelatorioImportacao importarCsv(Reader leitor) {
+        return importarCsv(leitor, TAMANHO_LOTE_IMPORTACAO);
+    }
+
+    /**
+     * Importa livros de um CSV com cabeçalho (titulo, tema, autor, isbn, dataPublicacao,
+     * quantidadeDisponivel), lido linha a linha.
+     *
+     * @param tamanhoLote quantidade de livros inseridos por lote/transação
+     * @return relatório com o resultado de cada linha rejeitada
+     */
+    public RelatorioImportacao importarCsv(Reader leitor, int tamanhoLote) {
+        try {
+            return importar(LeitorLivrosImportados.csv(leitor), tamanhoLote);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler arquivo de importação: " + e.getMessage(), e);
+        }
+    }
+
+    public RelatorioImportacao importarJson(Reader leitor) {
+        return importarJson(leitor, TAMANHO_LOTE_IMPORTACAO);
+    }
+
+    /**
+     * Importa livros de um array JSON de objetos com os mesmos campos do CSV,
+     * lido elemento a elemento.
+     */
+    public RelatorioImportacao importarJson(Reader leitor, int tamanhoLote) {
+        try {
+            return importar(LeitorLivrosImportados.json(leitor), tamanhoLote);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler arquivo de importação: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Valida cada registro com as mesmas regras do cadastro e ignora ISBNs já cadastrados
+     * (consultados uma única vez) ou repetidos no próprio arquivo. Os livros válidos são
+     * inseridos em lotes, cada um em sua transação: uma falha descarta apenas o lote em que
+     * ocorreu e é informada no relatório.
+     */
+    private RelatorioImportacao importar(Iterator<Map<String, String>> registros, int tamanhoLote) {
+        if (tamanhoLote < 1) {
+            throw new IllegalArgumentException("O tamanho do lote deve ser maior que zero");
+        }
+        long inicio = System.nanoTime();
+        RelatorioImportacao relatorio = new RelatorioImportacao();
+        Set<String> isbns = livroRepository.listarIsbns();
+        List<Livro> lote = new ArrayList<>(tamanhoLote);
+        int linha = 1;
+        int primeiraLinhaLote = 0;
+
+        try {
+            while (registros.hasNext()) {
+                Map<String, String> registro = registros.next();
+                linha++;
+                relatorio.registrarLinha();
+
+                Livro livro;
+                try {
+                    livro = converterRegistro(registro);
+                } catch (IllegalArgumentException e) {
+                    relatorio.registrarInvalido(linha, e.getMessage());
+                    continue;
+                }
+                if (!isbns.add(livro.getIsbn())) {
+                    relatorio.registrarDuplicado(linha, livro.getIsbn());
+                    continue;
+                }
+
+                if (lote.isEmpty()) {
+                    primeiraLinhaLote = linha;
+                }
+                lote.add(livro);
+                if (lote.size() == tamanhoLote) {
+                    inserirLote(lote, primeiraLinhaLote, linha, relatorio);
+                }
+            }
+        } catch (RuntimeException e) {
+            relatorio.registrarErro("Leitura interrompida após a linha " + linha + ": " + e.getMessage());
+        } finally {
+            if (!lote.isEmpty()) {
+                inserirLote(lote, primeiraLinhaLote, linha, relatorio);
+            }
+            livroRepository.concluirImportacao();
+            relatorio.setDuracaoMillis((System.nanoTime() - inicio) / 1_000_000);
+        }
+        return relatorio;
+    }
+
+    private void inserirLote(List<Livro> lote, int primeiraLinha, int ultimaLinha, RelatorioImportacao relatorio) {
+        try {
+            livroRepository.inserirEmLote(lote);
+            relatorio.registrarImportados(lote.size());
+        } catch (RuntimeException e) {
+            relatorio.registrarFalhaLote(primeiraLinha, ultimaLinha, lote.size(), e.getMessage());
+        }
+        lote.clear();
+    }
+
+    private Livro converterRegistro(Map<String, String> registro) {
+        String isbn = registro.get("isbn");
+        LocalDate dataPublicacao = converterData(registro.get("dataPublicacao"));
+        Integer quantidade;
+        try {
+            String valor = registro.get("quantidadeDisponivel");
+            quantidade = valor == null || valor.isBlank() ? null : Integer.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("A quantidade disponível deve ser um número inteiro");
+        }
+
+        validarDadosLivro(registro.get("titulo"), registro.get("tema"), registro.get("autor"),
+                isbn, dataPublicacao, quantidade);
+        return new Livro(registro.get("titulo").trim(), registro.get("tema").trim(), registro.get("autor").trim(),
+                isbn.trim(), dataPublicacao, quantidade);
+    }
+
+    /**
+     * Aceita datas no formato da tela (dd/MM/yyyy) ou ISO (yyyy-MM-dd).
+     */
+    private LocalDate converterData(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return valor.contains("/") ? LocalDate.parse(valor.trim(), FORMATO_DATA) : LocalDate.parse(valor.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data de publicação inválida: " + valor);
+        }
+    }
+
     private void validarDadosLivro(String titulo, String tema, String autor, String isbn,
                                    LocalDate dataPublicacao, Integer quantidadeDisponivel) {
         
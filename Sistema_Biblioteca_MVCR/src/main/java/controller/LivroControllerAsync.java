@@ -0,0 +1,95 @@
+package controller;
+
+import model.Livro;
+import repository.Sugestao;
+
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variante assíncrona do {@link LivroController}, para uso pelas telas: as operações
+ * rodam fora da thread do Swing e devolvem um {@link CompletableFuture}.
+ */
+public class LivroControllerAsync {
+
+    private final LivroController livroController;
+
+    public LivroControllerAsync() {
+        this(new LivroController());
+    }
+
+    public LivroControllerAsync(LivroController livroController) {
+        this.livroController = livroController;
+    }
+
+    public CompletableFuture<Livro> cadastrarLivro(String titulo, String tema, String autor, String isbn,
+                                                   LocalDate dataPublicacao, Integer quantidadeDisponivel) {
+        return ExecucaoAssincrona.executar(() ->
+                livroController.cadastrarLivro(titulo, tema, autor, isbn, dataPublicacao, quantidadeDisponivel));
+    }
+
+    public CompletableFuture<Livro> atualizarLivro(Long id, String titulo, String tema, String autor, String isbn,
+                                                   LocalDate dataPublicacao, Integer quantidadeDisponivel,
+                                                   int quantidadeLida) {
+        return ExecucaoAssincrona.executar(() -> livroController.atualizarLivro(id, titulo, tema, autor, isbn,
+                dataPublicacao, quantidadeDisponivel, quantidadeLida));
+    }
+
+    public CompletableFuture<Void> removerLivro(Long id) {
+        return ExecucaoAssincrona.executar(() -> livroController.removerLivro(id));
+    }
+
+    public CompletableFuture<Livro> buscarPorId(Long id) {
+        return ExecucaoAssincrona.executar(() -> livroController.buscarPorId(id));
+    }
+
+    public CompletableFuture<Livro> buscarPorIsbn(String isbn) {
+        return ExecucaoAssincrona.executar(() -> livroController.buscarPorIsbn(isbn));
+    }
+
+    public CompletableFuture<List<Livro>> listarTodos() {
+        return ExecucaoAssincrona.executar(livroController::listarTodos);
+    }
+
+    public CompletableFuture<List<Livro>> listarDisponiveis() {
+        return ExecucaoAssincrona.executar(livroController::listarDisponiveis);
+    }
+
+    public CompletableFuture<List<Livro>> listarPagina(String tituloApos, Long idApos, int tamanho) {
+        return ExecucaoAssincrona.executar(() -> livroController.listarPagina(tituloApos, idApos, tamanho));
+    }
+
+    public CompletableFuture<List<Livro>> buscarPorTitulo(String titulo) {
+        return ExecucaoAssincrona.executar(() -> livroController.buscarPorTitulo(titulo));
+    }
+
+    public CompletableFuture<List<Livro>> buscarPorAutor(String autor) {
+        return ExecucaoAssincrona.executar(() -> livroController.buscarPorAutor(autor));
+    }
+
+    public CompletableFuture<List<Livro>> buscarPorTema(String tema) {
+        return ExecucaoAssincrona.executar(() -> livroController.buscarPorTema(tema));
+    }
+
+    public CompletableFuture<List<Livro>> buscar(String texto) {
+        return ExecucaoAssincrona.executar(() -> livroController.buscar(texto));
+    }
+
+    public CompletableFuture<RelatorioImportacao> importarCsv(Reader leitor, int tamanhoLote) {
+        return ExecucaoAssincrona.executar(() -> livroController.importarCsv(leitor, tamanhoLote));
+    }
+
+    public CompletableFuture<RelatorioImportacao> importarJson(Reader leitor, int tamanhoLote) {
+        return ExecucaoAssincrona.executar(() -> livroController.importarJson(leitor, tamanhoLote));
+    }
+
+    public CompletableFuture<List<Sugestao>> sugerir(String texto, int limite) {
+        return ExecucaoAssincrona.executar(() -> livroController.sugerir(texto, limite));
+    }
+
+    public CompletableFuture<Void> prepararSugestoes() {
+        return ExecucaoAssincrona.executar(livroController::prepararSugestoes);
+    }
+}
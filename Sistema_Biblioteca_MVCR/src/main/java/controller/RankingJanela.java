@@ -0,0 +1,149 @@
+package controller;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Itens mais frequentes dos últimos {@code dias} dias (janela deslizante por dia).
+ * <p>
+ * Cada dia da janela tem seu próprio {@link ResumoFrequentes}, e a soma das contagens de todos
+ * os dias é mantida a cada ocorrência. Quando um dia sai da janela, suas contagens são
+ * subtraídas da soma e o resumo é reaproveitado. O ranking é montado com um heap de tamanho
+ * {@code k} sobre a soma, que tem no máximo {@code dias * capacidade} itens, e fica guardado
+ * até a próxima alteração: o custo das consultas não depende do tamanho do histórico.
+ */
+final class RankingJanela<K> {
+
+    /** Do menos para o mais frequente; empates pela chave, em ordem decrescente. */
+    private final Comparator<Estimativa<K>> ordemCrescente = Comparator
+            .comparingLong((Estimativa<K> estimativa) -> estimativa.contagem())
+            .thenComparing(estimativa -> String.valueOf(estimativa.chave()), Comparator.reverseOrder());
+
+    private final int dias;
+    private final int capacidade;
+    private final List<ResumoFrequentes<K>> resumos;
+    private final long[] diaDoResumo;
+    private final Map<K, Soma> soma = new HashMap<>();
+    private long ultimoDia = Long.MIN_VALUE;
+    private List<Estimativa<K>> ranking;
+
+    RankingJanela(int dias, int capacidade) {
+        if (dias < 1) {
+            throw new IllegalArgumentException("A janela deve ter ao menos um dia");
+        }
+        this.dias = dias;
+        this.capacidade = capacidade;
+        this.resumos = new ArrayList<>(dias);
+        this.diaDoResumo = new long[dias];
+        for (int i = 0; i < dias; i++) {
+            resumos.add(new ResumoFrequentes<>(capacidade));
+            diaDoResumo[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Conta uma ocorrência do item na data informada. Datas fora da janela que termina em
+     * {@code hoje} são ignoradas.
+     */
+    void registrar(K chave, LocalDate data, LocalDate hoje) {
+        avancar(hoje);
+        long dia = data.toEpochDay();
+        if (dia > ultimoDia || dia <= ultimoDia - dias) {
+            return;
+        }
+        int posicao = (int) Math.floorMod(dia, (long) dias);
+        if (diaDoResumo[posicao] != dia) {
+            descartar(posicao);
+            diaDoResumo[posicao] = dia;
+        }
+        ResumoFrequentes.Contador<K> descartado = resumos.get(posicao).incrementar(chave);
+        long herdado = 0;
+        if (descartado != null) {
+            herdado = descartado.contagem;
+            subtrair(descartado.chave, descartado.contagem, descartado.erro);
+        }
+        Soma total = soma.computeIfAbsent(chave, k -> new Soma());
+        total.contagem += herdado + 1;
+        total.erro += herdado;
+        ranking = null;
+    }
+
+    /**
+     * Os {@code k} itens mais frequentes da janela que termina em {@code hoje}, do mais para o
+     * menos frequente.
+     */
+    List<Estimativa<K>> listarMaisFrequentes(int k, LocalDate hoje) {
+        avancar(hoje);
+        if (ranking == null) {
+            ranking = montarRanking(capacidade);
+        }
+        return ranking.subList(0, Math.min(k, ranking.size()));
+    }
+
+    /**
+     * Remove da soma os dias que saíram da janela.
+     */
+    private void avancar(LocalDate hoje) {
+        long dia = hoje.toEpochDay();
+        if (dia <= ultimoDia) {
+            return;
+        }
+        ultimoDia = dia;
+        for (int i = 0; i < dias; i++) {
+            if (diaDoResumo[i] != Long.MIN_VALUE && diaDoResumo[i] <= dia - dias) {
+                descartar(i);
+            }
+        }
+    }
+
+    private void descartar(int posicao) {
+        if (diaDoResumo[posicao] == Long.MIN_VALUE) {
+            return;
+        }
+        for (ResumoFrequentes.Contador<K> contador : resumos.get(posicao).getContadores()) {
+            subtrair(contador.chave, contador.contagem, contador.erro);
+        }
+        resumos.set(posicao, new ResumoFrequentes<>(capacidade));
+        diaDoResumo[posicao] = Long.MIN_VALUE;
+        ranking = null;
+    }
+
+    private void subtrair(K chave, long contagem, long erro) {
+        Soma total = soma.get(chave);
+        total.contagem -= contagem;
+        total.erro -= erro;
+        if (total.contagem == 0) {
+            soma.remove(chave);
+        }
+    }
+
+    private List<Estimativa<K>> montarRanking(int k) {
+        PriorityQueue<Estimativa<K>> heap = new PriorityQueue<>(k + 1, ordemCrescente);
+        for (Map.Entry<K, Soma> entrada : soma.entrySet()) {
+            Soma total = entrada.getValue();
+            heap.add(new Estimativa<>(entrada.getKey(), total.contagem, total.erro));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Estimativa<K>> lista = new ArrayList<>(heap);
+        lista.sort(ordemCrescente.reversed());
+        return List.copyOf(lista);
+    }
+
+    /**
+     * Contagem de um item na janela; a real está entre {@code contagem - erro} e {@code contagem}.
+     */
+    record Estimativa<K>(K chave, long contagem, long erro) {
+    }
+
+    private static final class Soma {
+        long contagem;
+        long erro;
+    }
+}
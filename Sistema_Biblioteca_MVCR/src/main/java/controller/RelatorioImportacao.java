@@ -0,0 +1,92 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma importação de livros: quantas linhas foram lidas, importadas,
+ * ignoradas por ISBN repetido ou rejeitadas, e a descrição dos problemas encontrados.
+ */
+public class RelatorioImportacao {
+
+    /** Quantidade máxima de mensagens de erro guardadas no relatório. */
+    private static final int MAXIMO_ERROS = 1000;
+
+    private int linhasLidas;
+    private int importados;
+    private int duplicados;
+    private int invalidos;
+    private long duracaoMillis;
+    private final List<String> erros = new ArrayList<>();
+
+    void registrarLinha() {
+        linhasLidas++;
+    }
+
+    void registrarImportados(int quantidade) {
+        importados += quantidade;
+    }
+
+    void registrarDuplicado(int linha, String isbn) {
+        duplicados++;
+        adicionarErro(linha, "ISBN já cadastrado ou repetido no arquivo: " + isbn);
+    }
+
+    void registrarInvalido(int linha, String motivo) {
+        invalidos++;
+        adicionarErro(linha, motivo);
+    }
+
+    void registrarFalhaLote(int primeiraLinha, int ultimaLinha, int quantidade, String motivo) {
+        invalidos += quantidade;
+        erros.add(String.format("Linhas %d a %d não importadas: %s", primeiraLinha, ultimaLinha, motivo));
+    }
+
+    void registrarErro(String motivo) {
+        erros.add(motivo);
+    }
+
+    void setDuracaoMillis(long duracaoMillis) {
+        this.duracaoMillis = duracaoMillis;
+    }
+
+    private void adicionarErro(int linha, String motivo) {
+        if (erros.size() < MAXIMO_ERROS) {
+            erros.add("Linha " + linha + ": " + motivo);
+        }
+    }
+
+    public int getLinhasLidas() {
+        return linhasLidas;
+    }
+
+    public int getImportados() {
+        return importados;
+    }
+
+    public int getDuplicados() {
+        return duplicados;
+    }
+
+    public int getInvalidos() {
+        return invalidos;
+    }
+
+    public long getDuracaoMillis() {
+        return duracaoMillis;
+    }
+
+    /**
+     * Mensagens de erro (limitadas às primeiras {@value #MAXIMO_ERROS} linhas com problema).
+     */
+    public List<String> getErros() {
+        return Collections.unmodifiableList(erros);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Importação: %d linhas lidas, %d importadas, %d duplicadas, %d inválidas em %d ms",
+                linhasLidas, importados, duplicados, invalidos, duracaoMillis);
+    }
+}
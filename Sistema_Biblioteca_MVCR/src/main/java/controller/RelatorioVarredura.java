@@ -0,0 +1,20 @@
+package controller;
+
+import java.time.LocalDate;
+
+/**
+ * Resultado de uma varredura de atrasos: o intervalo de datas de devolução prevista
+ * percorrido, quantos empréstimos passaram a constar como atrasados e de quantos usuários.
+ *
+ * @param desde data da varredura anterior (null na primeira execução, que percorre todo o histórico)
+ * @param ate data desta varredura; atrasados são os com devolução prevista anterior a ela
+ */
+public record RelatorioVarredura(LocalDate desde, LocalDate ate, int emprestimosMarcados,
+                                 long usuariosAfetados, long duracaoMillis) {
+
+    @Override
+    public String toString() {
+        return String.format("%d empréstimo(s) atrasado(s) de %d usuário(s) entre %s e %s, em %d ms",
+                emprestimosMarcados, usuariosAfetados, desde == null ? "o início" : desde, ate, duracaoMillis);
+    }
+}
@@ -0,0 +1,32 @@
+package controller;
+
+import repository.ConflitoDeVersaoException;
+
+import java.util.function.Supplier;
+
+/**
+ * Repete uma edição que falhou por conflito de versão, isto é, porque o registro foi alterado
+ * por outra operação (ex.: um empréstimo) entre a leitura e a gravação. A operação deve ler o
+ * registro de novo a cada tentativa e reaplicar sobre ele apenas o que o usuário alterou.
+ * <p>
+ * A quantidade de tentativas pode ser ajustada com -Dbiblioteca.conflito.tentativas (padrão: 3).
+ */
+final class RepeticaoEmConflito {
+
+    private static final int TENTATIVAS = Math.max(1, Integer.getInteger("biblioteca.conflito.tentativas", 3));
+
+    private RepeticaoEmConflito() {
+    }
+
+    static <T> T executar(Supplier<T> operacao) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return operacao.get();
+            } catch (ConflitoDeVersaoException e) {
+                if (tentativa >= TENTATIVAS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package controller;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Contagem aproximada dos itens mais frequentes com memória limitada (algoritmo Space-Saving):
+ * no máximo {@code capacidade} itens são acompanhados, e quando chega um item novo com o resumo
+ * cheio ele herda a contagem do item menos frequente, que deixa de ser acompanhado.
+ * <p>
+ * A contagem de um item nunca é menor que a real e a excede em no máximo o seu {@code erro};
+ * enquanto houver até {@code capacidade} itens distintos, as contagens são exatas.
+ */
+final class ResumoFrequentes<K> {
+
+    private final int capacidade;
+    private final Map<K, Contador<K>> contadores = new HashMap<>();
+    private final TreeSet<Contador<K>> porContagem = new TreeSet<>(
+            Comparator.<Contador<K>>comparingLong(contador -> contador.contagem)
+                    .thenComparingLong(contador -> contador.ordem));
+    private long proximaOrdem;
+
+    ResumoFrequentes(int capacidade) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("A capacidade deve ser maior que zero");
+        }
+        this.capacidade = capacidade;
+    }
+
+    /**
+     * Conta mais uma ocorrência do item.
+     *
+     * @return o item descartado para dar lugar a este, com a contagem que tinha, ou null
+     */
+    Contador<K> incrementar(K chave) {
+        Contador<K> contador = contadores.get(chave);
+        if (contador != null) {
+            porContagem.remove(contador);
+            contador.contagem++;
+            porContagem.add(contador);
+            return null;
+        }
+        Contador<K> descartado = null;
+        long herdado = 0;
+        if (contadores.size() == capacidade) {
+            descartado = porContagem.pollFirst();
+            contadores.remove(descartado.chave);
+            herdado = descartado.contagem;
+        }
+        contador = new Contador<>(chave, herdado + 1, herdado, proximaOrdem++);
+        contadores.put(chave, contador);
+        porContagem.add(contador);
+        return descartado;
+    }
+
+    Collection<Contador<K>> getContadores() {
+        return contadores.values();
+    }
+
+    static final class Contador<K> {
+        final K chave;
+        final long erro;
+        final long ordem;
+        long contagem;
+
+        Contador(K chave, long contagem, long erro, long ordem) {
+            this.chave = chave;
+            this.contagem = contagem;
+            this.erro = erro;
+            this.ordem = ordem;
+        }
+    }
+}
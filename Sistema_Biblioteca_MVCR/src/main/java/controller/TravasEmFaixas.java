@@ -0,0 +1,112 @@
+package controller;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Travas em memória repartidas em faixas (lock striping): cada chave (ex.: o id de um livro)
+ * cai sempre na mesma faixa, e operações sobre chaves de faixas diferentes não competem.
+ * <p>
+ * Serve para enfileirar dentro da JVM as operações sobre o mesmo registro antes que elas
+ * abram uma transação, de modo que quem espera não segura uma conexão do pool nem uma trava
+ * de linha no banco. As travas do banco continuam garantindo a consistência entre processos.
+ * <p>
+ * As faixas de uma operação são sempre travadas em ordem crescente; quem usa mais de um
+ * conjunto de faixas deve travá-los sempre na mesma ordem.
+ */
+public final class TravasEmFaixas {
+
+    private final String nome;
+    private final ReentrantLock[] faixas;
+
+    private final LongAdder aquisicoes = new LongAdder();
+    private final LongAdder disputas = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final LongAccumulator esperaMaximaNanos = new LongAccumulator(Long::max, 0);
+
+    public TravasEmFaixas(String nome, int quantidadeFaixas) {
+        if (quantidadeFaixas < 1) {
+            throw new IllegalArgumentException("A quantidade de faixas deve ser maior que zero");
+        }
+        this.nome = nome;
+        this.faixas = new ReentrantLock[quantidadeFaixas];
+        for (int i = 0; i < quantidadeFaixas; i++) {
+            faixas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Faixas das chaves informadas, sem repetição e em ordem crescente. Chaves nulas são ignoradas.
+     */
+    public int[] faixas(Collection<Long> chaves) {
+        int[] resultado = new int[chaves.size()];
+        int quantidade = 0;
+        for (Long chave : chaves) {
+            if (chave != null) {
+                resultado[quantidade++] = (int) Math.floorMod(chave, (long) faixas.length);
+            }
+        }
+        Arrays.sort(resultado, 0, quantidade);
+        int distintas = 0;
+        for (int i = 0; i < quantidade; i++) {
+            if (distintas == 0 || resultado[i] != resultado[distintas - 1]) {
+                resultado[distintas++] = resultado[i];
+            }
+        }
+        return Arrays.copyOf(resultado, distintas);
+    }
+
+    /**
+     * Trava as faixas obtidas de {@link #faixas}, aguardando as que estiverem ocupadas.
+     */
+    public void travar(int[] indices) {
+        long esperaNanos = 0;
+        boolean disputada = false;
+        for (int indice : indices) {
+            ReentrantLock trava = faixas[indice];
+            if (!trava.tryLock()) {
+                disputada = true;
+                long inicio = System.nanoTime();
+                trava.lock();
+                esperaNanos += System.nanoTime() - inicio;
+            }
+        }
+        aquisicoes.increment();
+        if (disputada) {
+            disputas.increment();
+            esperaTotalNanos.add(esperaNanos);
+            esperaMaximaNanos.accumulate(esperaNanos);
+        }
+    }
+
+    public void liberar(int[] indices) {
+        for (int i = indices.length - 1; i >= 0; i--) {
+            faixas[indices[i]].unlock();
+        }
+    }
+
+    public int getQuantidadeFaixas() {
+        return faixas.length;
+    }
+
+    /**
+     * Retrato das métricas de disputa acumuladas desde a criação ou desde o último {@link #zerar()}.
+     */
+    public EstatisticasTravas obterEstatisticas() {
+        long total = aquisicoes.sum();
+        long disputadas = disputas.sum();
+        double esperaMedia = disputadas == 0 ? 0 : esperaTotalNanos.sum() / 1_000_000.0 / disputadas;
+        return new EstatisticasTravas(nome, faixas.length, total, disputadas,
+                esperaMedia, esperaMaximaNanos.get() / 1_000_000.0);
+    }
+
+    public void zerar() {
+        aquisicoes.reset();
+        disputas.reset();
+        esperaTotalNanos.reset();
+        esperaMaximaNanos.reset();
+    }
+}
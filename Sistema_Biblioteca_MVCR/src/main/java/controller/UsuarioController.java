@@ -1,8 +1,10 @@
 package controller;
 
 import model.Usuario;
+import repository.Sugestao;
 import repository.UsuarioRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -69,7 +71,13 @@ public class UsuarioController {
         
         // Validações
         validarDadosUsuario(nome, sexo, celular, email);
-        
+
+        // Empréstimos, devoluções e multas registrados durante a edição alteram a versão do
+        // usuário; a edição é então repetida sobre os dados atuais, sem desfazê-los
+        return RepeticaoEmConflito.executar(() -> atualizar(id, nome, sexo, celular, email));
+    }
+
+    private Usuario atualizar(Long id, String nome, String sexo, String celular, String email) {
         // Busca o usuário existente
         Usuario usuario = usuarioRepository.buscarPorId(id);
         if (usuario == null) {
@@ -136,6 +144,38 @@ public class UsuarioController {
         return usuarioRepository.listarTodos();
     }
 
+    /**
+     * Lista uma página de usuários ordenados por nome.
+     *
+     * @param nomeApos Nome do último usuário recebido (null para a primeira página)
+     * @param idApos ID do último usuário recebido (null para a primeira página)
+     * @param tamanho Quantidade de usuários por página
+     * @return Lista de usuários da página
+     */
+    public List<Usuario> listarPagina(String nomeApos, Long idApos, int tamanho) {
+        return usuarioRepository.listarPagina(nomeApos, idApos, tamanho);
+    }
+
+    /**
+     * Lista usuários a partir de uma posição, na mesma ordem de {@link #listarPagina}.
+     *
+     * @param inicio Posição do primeiro usuário
+     * @param tamanho Quantidade de usuários
+     * @return Lista de usuários
+     */
+    public List<Usuario> listarPorPosicao(int inicio, int tamanho) {
+        return usuarioRepository.listarPorPosicao(inicio, tamanho);
+    }
+
+    /**
+     * Conta os usuários cadastrados.
+     *
+     * @return Total de usuários
+     */
+    public long contarTodos() {
+        return usuarioRepository.contarTodos();
+    }
+
     /**
      * Busca usuários por nome.
      *
@@ -149,6 +189,18 @@ public class UsuarioController {
         return usuarioRepository.buscarPorNome(nome);
     }
 
+    /**
+     * Indica se a busca por nome {@code nova} pode ser refeita sobre o resultado de
+     * {@code anterior} com {@link #refinarBuscaPorNome}, sem nova consulta.
+     */
+    public boolean refinaBuscaPorNome(String anterior, String nova) {
+        return usuarioRepository.refinaBuscaPorNome(anterior, nova);
+    }
+
+    public List<Usuario> refinarBuscaPorNome(List<Usuario> usuarios, String nome) {
+        return usuarioRepository.refinarPorNome(usuarios, nome);
+    }
+
     /**
      * Busca usuários por celular.
      *
@@ -162,6 +214,28 @@ public class UsuarioController {
         return usuarioRepository.buscarPorCelular(celular);
     }
 
+    /**
+     * Sugere usuários pelo início do nome ou do e-mail enquanto o texto é digitado.
+     * Consulta apenas o índice em memória; multa e atrasos devem ser lidos ao escolher o usuário.
+     *
+     * @param texto Texto digitado
+     * @param limite Quantidade máxima de sugestões
+     * @return Sugestões encontradas, das mais para as menos próximas do texto
+     */
+    public List<Sugestao> sugerir(String texto, int limite) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return usuarioRepository.sugerir(texto, limite);
+    }
+
+    /**
+     * Carrega o índice de sugestões de usuários, para que a primeira busca não espere pela carga.
+     */
+    public void prepararSugestoes() {
+        usuarioRepository.prepararSugestoes();
+    }
+
     /**
      * Valida os dados de um usuário.
      *
@@ -0,0 +1,68 @@
+package controller;
+
+import model.Usuario;
+import repository.Sugestao;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variante assíncrona do {@link UsuarioController}, para uso pelas telas: as operações
+ * rodam fora da thread do Swing e devolvem um {@link CompletableFuture}.
+ */
+public class UsuarioControllerAsync {
+
+    private final UsuarioController usuarioController;
+
+    public UsuarioControllerAsync() {
+        this(new UsuarioController());
+    }
+
+    public UsuarioControllerAsync(UsuarioController usuarioController) {
+        this.usuarioController = usuarioController;
+    }
+
+    public CompletableFuture<Usuario> cadastrarUsuario(String nome, String sexo, String celular, String email) {
+        return ExecucaoAssincrona.executar(() -> usuarioController.cadastrarUsuario(nome, sexo, celular, email));
+    }
+
+    public CompletableFuture<Usuario> atualizarUsuario(Long id, String nome, String sexo, String celular, String email) {
+        return ExecucaoAssincrona.executar(() -> usuarioController.atualizarUsuario(id, nome, sexo, celular, email));
+    }
+
+    public CompletableFuture<Void> removerUsuario(Long id) {
+        return ExecucaoAssincrona.executar(() -> usuarioController.removerUsuario(id));
+    }
+
+    public CompletableFuture<Usuario> buscarPorId(Long id) {
+        return ExecucaoAssincrona.executar(() -> usuarioController.buscarPorId(id));
+    }
+
+    public CompletableFuture<Usuario> buscarPorEmail(String email) {
+        return ExecucaoAssincrona.executar(() -> usuarioController.buscarPorEmail(email));
+    }
+
+    public CompletableFuture<List<Usuario>> listarTodos() {
+        return ExecucaoAssincrona.executar(usuarioController::listarTodos);
+    }
+
+    public CompletableFuture<List<Usuario>> listarPagina(String nomeApos, Long idApos, int tamanho) {
+        return ExecucaoAssincrona.executar(() -> usuarioController.listarPagina(nomeApos, idApos, tamanho));
+    }
+
+    public CompletableFuture<List<Usuario>> buscarPorNome(String nome) {
+        return ExecucaoAssincrona.executar(() -> usuarioController.buscarPorNome(nome));
+    }
+
+    public CompletableFuture<List<Usuario>> buscarPorCelular(String celular) {
+        return ExecucaoAssincrona.executar(() -> usuarioController.buscarPorCelular(celular));
+    }
+
+    public CompletableFuture<List<Sugestao>> sugerir(String texto, int limite) {
+        return ExecucaoAssincrona.executar(() -> usuarioController.sugerir(texto, limite));
+    }
+
+    public CompletableFuture<Void> prepararSugestoes() {
+        return ExecucaoAssincrona.executar(usuarioController::prepararSugestoes);
+    }
+}
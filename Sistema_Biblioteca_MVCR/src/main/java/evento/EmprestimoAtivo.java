@@ -0,0 +1,19 @@
+package evento;
+
+import java.time.LocalDate;
+
+/**
+ * Empréstimo ainda não devolvido, como visto pelos modelos de leitura.
+ */
+public record EmprestimoAtivo(
+        long emprestimoId,
+        long usuarioId,
+        long livroId,
+        LocalDate dataEmprestimo,
+        LocalDate dataDevolucaoPrevista) {
+
+    static EmprestimoAtivo de(EventoEmprestimo evento) {
+        return new EmprestimoAtivo(evento.emprestimoId(), evento.usuarioId(), evento.livroId(), evento.data(),
+                evento.dataDevolucaoPrevista());
+    }
+}
@@ -0,0 +1,65 @@
+package evento;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Empréstimos ativos e fim da multa de cada usuário.
+ */
+public class EmprestimosPorUsuario implements ModeloDeLeitura {
+
+    private final Map<Long, Map<Long, EmprestimoAtivo>> ativos = new HashMap<>();
+    private final Map<Long, LocalDate> fimDasMultas = new HashMap<>();
+
+    @Override
+    public void aplicar(EventoEmprestimo evento) {
+        if (evento.tipo() == TipoEvento.EMPRESTIMO) {
+            ativos.computeIfAbsent(evento.usuarioId(), id -> new LinkedHashMap<>())
+                    .put(evento.emprestimoId(), EmprestimoAtivo.de(evento));
+        } else if (evento.tipo() == TipoEvento.DEVOLUCAO || evento.tipo() == TipoEvento.REMOCAO) {
+            Map<Long, EmprestimoAtivo> doUsuario = ativos.get(evento.usuarioId());
+            if (doUsuario != null) {
+                doUsuario.remove(evento.emprestimoId());
+                if (doUsuario.isEmpty()) {
+                    ativos.remove(evento.usuarioId());
+                }
+            }
+        } else if (evento.tipo() == TipoEvento.MULTA && evento.data() != null) {
+            // Multas só estendem o prazo; reaplicar um evento antigo não o encurta
+            fimDasMultas.merge(evento.usuarioId(), evento.data(),
+                    (atual, nova) -> nova.isAfter(atual) ? nova : atual);
+        }
+    }
+
+    /**
+     * Empréstimos ativos do usuário, do mais antigo para o mais recente.
+     */
+    public List<EmprestimoAtivo> listarAtivos(long usuarioId) {
+        Map<Long, EmprestimoAtivo> doUsuario = ativos.get(usuarioId);
+        if (doUsuario == null) {
+            return List.of();
+        }
+        List<EmprestimoAtivo> lista = new ArrayList<>(doUsuario.values());
+        lista.sort(Comparator.comparing(EmprestimoAtivo::dataEmprestimo,
+                        Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparingLong(EmprestimoAtivo::emprestimoId));
+        return lista;
+    }
+
+    public int contarAtivos(long usuarioId) {
+        Map<Long, EmprestimoAtivo> doUsuario = ativos.get(usuarioId);
+        return doUsuario == null ? 0 : doUsuario.size();
+    }
+
+    /**
+     * Último dia da multa do usuário, ou null se ele nunca foi multado.
+     */
+    public LocalDate buscarFimDaMulta(long usuarioId) {
+        return fimDasMultas.get(usuarioId);
+    }
+}
@@ -0,0 +1,71 @@
+package evento;
+
+import model.Emprestimo;
+
+import java.time.LocalDate;
+
+/**
+ * Fato ocorrido com um empréstimo, gravado no {@link LogDeEventos} depois que a transação que
+ * o produziu é confirmada.
+ * <p>
+ * O significado de {@code data} e {@code valor} depende do tipo:
+ * <ul>
+ *     <li>EMPRESTIMO: data do empréstimo;</li>
+ *     <li>DEVOLUCAO: data da devolução e dias de atraso;</li>
+ *     <li>MULTA: novo fim da multa do usuário e dias de multa aplicados;</li>
+ *     <li>REMOCAO: data da remoção e 1 se o empréstimo ainda estava ativo (o exemplar voltou ao estoque).</li>
+ * </ul>
+ *
+ * @param sequencia posição no log, a partir de 1; zero enquanto o evento não foi gravado
+ * @param instante  momento do registro, em milissegundos desde 1970
+ */
+public record EventoEmprestimo(
+        long sequencia,
+        TipoEvento tipo,
+        long instante,
+        long emprestimoId,
+        long usuarioId,
+        long livroId,
+        LocalDate data,
+        LocalDate dataDevolucaoPrevista,
+        int valor) {
+
+    public static EventoEmprestimo emprestimo(Emprestimo emprestimo) {
+        return novo(TipoEvento.EMPRESTIMO, emprestimo, emprestimo.getDataEmprestimo(), 0);
+    }
+
+    public static EventoEmprestimo devolucao(Emprestimo emprestimo, long diasAtraso) {
+        return novo(TipoEvento.DEVOLUCAO, emprestimo, emprestimo.getDataDevolucao(), (int) diasAtraso);
+    }
+
+    public static EventoEmprestimo multa(Emprestimo emprestimo, LocalDate dataFimMulta, long diasMulta) {
+        return novo(TipoEvento.MULTA, emprestimo, dataFimMulta, (int) diasMulta);
+    }
+
+    public static EventoEmprestimo remocao(Emprestimo emprestimo, boolean estavaAtivo) {
+        return novo(TipoEvento.REMOCAO, emprestimo, LocalDate.now(), estavaAtivo ? 1 : 0);
+    }
+
+    /**
+     * Remoção de um empréstimo ativo conhecido apenas pelos modelos de leitura (ex.: já
+     * removido do banco quando a falta da remoção no log foi percebida).
+     */
+    static EventoEmprestimo remocao(EmprestimoAtivo emprestimo) {
+        return new EventoEmprestimo(0, TipoEvento.REMOCAO, System.currentTimeMillis(), emprestimo.emprestimoId(),
+                emprestimo.usuarioId(), emprestimo.livroId(), LocalDate.now(), emprestimo.dataDevolucaoPrevista(), 1);
+    }
+
+    private static EventoEmprestimo novo(TipoEvento tipo, Emprestimo emprestimo, LocalDate data, int valor) {
+        return new EventoEmprestimo(0, tipo, System.currentTimeMillis(), emprestimo.getId(),
+                emprestimo.getUsuario().getId(), emprestimo.getLivro().getId(), data,
+                emprestimo.getDataDevolucaoPrevista(), valor);
+    }
+
+    /**
+     * O mesmo evento na posição informada do log.
+     */
+    EventoEmprestimo comSequencia(long novaSequencia) {
+        return new EventoEmprestimo(novaSequencia, tipo, instante, emprestimoId, usuarioId, livroId, data,
+                dataDevolucaoPrevista, valor);
+    }
+}
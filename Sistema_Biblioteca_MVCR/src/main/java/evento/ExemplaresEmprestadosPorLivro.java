@@ -0,0 +1,46 @@
+package evento;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Quantidade de exemplares de cada livro que estão emprestados.
+ * <p>
+ * O estoque do acervo não faz parte dos eventos de empréstimo; a disponibilidade de um livro
+ * é o seu estoque cadastrado menos o valor deste modelo.
+ */
+public class ExemplaresEmprestadosPorLivro implements ModeloDeLeitura {
+
+    private final Map<Long, Set<Long>> emprestadosPorLivro = new HashMap<>();
+
+    @Override
+    public void aplicar(EventoEmprestimo evento) {
+        if (evento.tipo() == TipoEvento.EMPRESTIMO) {
+            emprestadosPorLivro.computeIfAbsent(evento.livroId(), id -> new HashSet<>()).add(evento.emprestimoId());
+        } else if (evento.tipo() == TipoEvento.DEVOLUCAO || evento.tipo() == TipoEvento.REMOCAO) {
+            Set<Long> emprestados = emprestadosPorLivro.get(evento.livroId());
+            if (emprestados != null) {
+                emprestados.remove(evento.emprestimoId());
+                if (emprestados.isEmpty()) {
+                    emprestadosPorLivro.remove(evento.livroId());
+                }
+            }
+        }
+    }
+
+    public int contarEmprestados(long livroId) {
+        Set<Long> emprestados = emprestadosPorLivro.get(livroId);
+        return emprestados == null ? 0 : emprestados.size();
+    }
+
+    /**
+     * Exemplares emprestados de cada livro com ao menos um empréstimo ativo.
+     */
+    public Map<Long, Integer> contarEmprestadosPorLivro() {
+        Map<Long, Integer> contagem = new HashMap<>();
+        emprestadosPorLivro.forEach((livroId, emprestados) -> contagem.put(livroId, emprestados.size()));
+        return contagem;
+    }
+}
@@ -0,0 +1,62 @@
+package evento;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Empréstimos ativos ordenados pela data prevista de devolução, de modo que os atrasados
+ * em uma data são sempre o início da fila.
+ */
+public class FilaDeAtrasos implements ModeloDeLeitura {
+
+    private final TreeSet<EmprestimoAtivo> fila = new TreeSet<>(
+            Comparator.comparing(EmprestimoAtivo::dataDevolucaoPrevista)
+                    .thenComparingLong(EmprestimoAtivo::emprestimoId));
+    private final Map<Long, EmprestimoAtivo> porId = new HashMap<>();
+
+    @Override
+    public void aplicar(EventoEmprestimo evento) {
+        if (evento.tipo() == TipoEvento.EMPRESTIMO && evento.dataDevolucaoPrevista() != null) {
+            EmprestimoAtivo anterior = porId.put(evento.emprestimoId(), EmprestimoAtivo.de(evento));
+            if (anterior != null) {
+                fila.remove(anterior);
+            }
+            fila.add(porId.get(evento.emprestimoId()));
+        } else if (evento.tipo() == TipoEvento.DEVOLUCAO || evento.tipo() == TipoEvento.REMOCAO) {
+            EmprestimoAtivo removido = porId.remove(evento.emprestimoId());
+            if (removido != null) {
+                fila.remove(removido);
+            }
+        }
+    }
+
+    /**
+     * Empréstimos com devolução prevista antes de {@code hoje}, do mais atrasado para o menos.
+     */
+    public List<EmprestimoAtivo> listarAtrasados(LocalDate hoje) {
+        List<EmprestimoAtivo> atrasados = new ArrayList<>();
+        for (EmprestimoAtivo emprestimo : fila) {
+            if (!emprestimo.dataDevolucaoPrevista().isBefore(hoje)) {
+                break;
+            }
+            atrasados.add(emprestimo);
+        }
+        return atrasados;
+    }
+
+    /**
+     * Todos os empréstimos ativos, do mais atrasado para o que vence por último.
+     */
+    public List<EmprestimoAtivo> listarAtivos() {
+        return new ArrayList<>(fila);
+    }
+
+    public int contarAtivos() {
+        return porId.size();
+    }
+}
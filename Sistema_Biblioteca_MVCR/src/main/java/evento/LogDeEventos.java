@@ -0,0 +1,393 @@
+package evento;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log de eventos somente de acréscimo, dividido em segmentos de tamanho fixo mapeados em
+ * memória. Cada segmento é um arquivo {@code <primeira sequência>.seg} com registros de
+ * {@value #TAMANHO_REGISTRO} bytes; quando um segmento enche, um novo é criado.
+ * <p>
+ * Cada registro guarda um CRC32 do seu conteúdo, gravado por último. Ao abrir o log, a leitura
+ * do último segmento para no primeiro registro vazio ou inválido (ex.: uma gravação
+ * interrompida), e as próximas gravações continuam a partir dali.
+ * <p>
+ * As gravações vão para a memória mapeada e chegam ao disco pelo sistema operacional, o que
+ * as preserva se o processo cair; com {@code sincronizarACadaGravacao}, cada gravação também
+ * é forçada ao disco, preservando-as numa queda do sistema, ao custo de uma escrita síncrona.
+ * A escrita síncrona é feita fora da trava das gravações e cobre tudo o que já foi gravado,
+ * então gravações simultâneas compartilham uma mesma escrita em vez de esperar uma pela outra.
+ * A leitura ({@link #percorrer}) também roda fora da trava, sobre os registros já completos.
+ * <p>
+ * Apenas um processo pode ter o log aberto: ao abrir, é obtida uma trava exclusiva sobre o
+ * arquivo {@value #ARQUIVO_TRAVA} do diretório, liberada no {@link #close()}. Se outro processo
+ * (ex.: uma segunda instância do sistema no mesmo diretório) já a detém, o log não é aberto.
+ */
+public final class LogDeEventos implements AutoCloseable {
+
+    static final int TAMANHO_REGISTRO = 64;
+
+    private static final String EXTENSAO = ".seg";
+    private static final String ARQUIVO_TRAVA = "log.lock";
+    private static final short VERSAO_FORMATO = 1;
+    private static final int SEM_DATA = Integer.MIN_VALUE;
+
+    private final Path diretorio;
+    private final int registrosPorSegmento;
+    private final boolean sincronizarACadaGravacao;
+    private final List<Segmento> segmentos = new ArrayList<>();
+    private final FileLock trava;
+    private final Object travaSincronizacao = new Object();
+    private final AtomicLong sincronizadaAte = new AtomicLong();
+
+    public LogDeEventos(Path diretorio, int registrosPorSegmento, boolean sincronizarACadaGravacao) {
+        if (registrosPorSegmento < 1) {
+            throw new IllegalArgumentException("Cada segmento deve comportar ao menos um registro");
+        }
+        this.diretorio = diretorio;
+        this.registrosPorSegmento = registrosPorSegmento;
+        this.sincronizarACadaGravacao = sincronizarACadaGravacao;
+        this.trava = travar(diretorio);
+        try {
+            List<Path> arquivos;
+            try (Stream<Path> listagem = Files.list(diretorio)) {
+                arquivos = listagem.filter(arquivo -> arquivo.getFileName().toString().endsWith(EXTENSAO))
+                        .sorted(Comparator.comparingLong(LogDeEventos::primeiraSequencia))
+                        .toList();
+            }
+            for (Path arquivo : arquivos) {
+                segmentos.add(abrir(arquivo, primeiraSequencia(arquivo), 0));
+            }
+            if (segmentos.isEmpty()) {
+                segmentos.add(criarSegmento(1));
+            }
+        } catch (IOException e) {
+            fecharSegmentos();
+            liberarTrava();
+            throw new UncheckedIOException("Erro ao abrir o log de eventos em " + diretorio + ": " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            fecharSegmentos();
+            liberarTrava();
+            throw e;
+        }
+    }
+
+    /**
+     * Cria o diretório, se necessário, e obtém a trava exclusiva do log.
+     *
+     * @throws IllegalStateException se o log já estiver aberto por outro processo
+     */
+    private static FileLock travar(Path diretorio) {
+        try {
+            Files.createDirectories(diretorio);
+            FileChannel canal = FileChannel.open(diretorio.resolve(ARQUIVO_TRAVA), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            FileLock trava;
+            try {
+                trava = canal.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Já travado por este mesmo processo (o log foi aberto duas vezes)
+                trava = null;
+            } catch (IOException | RuntimeException e) {
+                canal.close();
+                throw e;
+            }
+            if (trava == null) {
+                canal.close();
+                throw new IllegalStateException("O log de eventos em " + diretorio.toAbsolutePath()
+                        + " já está aberto por outro processo");
+            }
+            return trava;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao abrir o log de eventos em " + diretorio + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void liberarTrava() {
+        try {
+            trava.channel().close();
+        } catch (IOException e) {
+            System.err.println("Erro ao liberar a trava do log de eventos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Grava os eventos em sequência, numerando-os a partir da próxima posição livre.
+     *
+     * @return os eventos com as sequências atribuídas
+     */
+    public List<EventoEmprestimo> anexar(List<EventoEmprestimo> eventos) {
+        List<EventoEmprestimo> gravados;
+        synchronized (this) {
+            gravados = gravar(eventos);
+        }
+        sincronizarSeNecessario(gravados);
+        return gravados;
+    }
+
+    /**
+     * Como {@link #anexar}, retirando os eventos da fila dentro da trava das gravações: uma
+     * gravação feita depois desta chamada nunca chega ao log antes dos eventos retirados.
+     *
+     * @return os eventos com as sequências atribuídas
+     */
+    public List<EventoEmprestimo> anexarDaFila(Queue<EventoEmprestimo> fila) {
+        List<EventoEmprestimo> gravados;
+        synchronized (this) {
+            List<EventoEmprestimo> eventos = new ArrayList<>();
+            for (EventoEmprestimo evento = fila.poll(); evento != null; evento = fila.poll()) {
+                eventos.add(evento);
+            }
+            gravados = gravar(eventos);
+        }
+        sincronizarSeNecessario(gravados);
+        return gravados;
+    }
+
+    private List<EventoEmprestimo> gravar(List<EventoEmprestimo> eventos) {
+        List<EventoEmprestimo> gravados = new ArrayList<>(eventos.size());
+        try {
+            for (EventoEmprestimo evento : eventos) {
+                Segmento atual = segmentos.get(segmentos.size() - 1);
+                if (atual.quantidade == atual.capacidade) {
+                    atual.buffer.force();
+                    sincronizadaAte.accumulateAndGet(atual.primeira + atual.quantidade - 1, Math::max);
+                    atual = criarSegmento(atual.primeira + atual.quantidade);
+                    segmentos.add(atual);
+                }
+                EventoEmprestimo gravado = evento.comSequencia(atual.primeira + atual.quantidade);
+                escrever(atual.buffer, atual.quantidade * TAMANHO_REGISTRO, gravado);
+                atual.quantidade++;
+                gravados.add(gravado);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar no log de eventos: " + e.getMessage(), e);
+        }
+        return gravados;
+    }
+
+    /**
+     * Com {@code sincronizarACadaGravacao}, garante que os eventos gravados chegaram ao disco.
+     * Quem chega enquanto outra escrita síncrona está em andamento espera por ela e, se ela já
+     * cobriu os seus eventos, não faz outra.
+     */
+    private void sincronizarSeNecessario(List<EventoEmprestimo> gravados) {
+        if (!sincronizarACadaGravacao || gravados.isEmpty()) {
+            return;
+        }
+        long ultima = gravados.get(gravados.size() - 1).sequencia();
+        if (sincronizadaAte.get() >= ultima) {
+            return;
+        }
+        synchronized (travaSincronizacao) {
+            if (sincronizadaAte.get() < ultima) {
+                sincronizar();
+            }
+        }
+    }
+
+    /**
+     * Entrega, em ordem, os eventos a partir da sequência informada. Os eventos gravados
+     * durante a leitura não são entregues.
+     *
+     * @return quantidade de eventos entregues
+     */
+    public long percorrer(long aPartirDe, Consumer<EventoEmprestimo> consumidor) {
+        List<Segmento> lidos;
+        int[] quantidades;
+        synchronized (this) {
+            lidos = new ArrayList<>(segmentos);
+            quantidades = new int[lidos.size()];
+            for (int i = 0; i < lidos.size(); i++) {
+                quantidades[i] = lidos.get(i).quantidade;
+            }
+        }
+        long entregues = 0;
+        for (int j = 0; j < lidos.size(); j++) {
+            Segmento segmento = lidos.get(j);
+            long fim = segmento.primeira + quantidades[j];
+            if (fim <= aPartirDe) {
+                continue;
+            }
+            int inicio = (int) Math.max(0, aPartirDe - segmento.primeira);
+            for (int i = inicio; i < quantidades[j]; i++) {
+                consumidor.accept(ler(segmento.buffer, i * TAMANHO_REGISTRO));
+                entregues++;
+            }
+        }
+        return entregues;
+    }
+
+    /**
+     * Sequência do último evento gravado, ou zero se o log estiver vazio.
+     */
+    public synchronized long getUltimaSequencia() {
+        Segmento atual = segmentos.get(segmentos.size() - 1);
+        return atual.primeira + atual.quantidade - 1;
+    }
+
+    public synchronized int getQuantidadeSegmentos() {
+        return segmentos.size();
+    }
+
+    /**
+     * Força ao disco as gravações do segmento atual (as dos anteriores já foram forçadas quando
+     * cada um encheu).
+     */
+    public void sincronizar() {
+        Segmento atual;
+        long ultima;
+        synchronized (this) {
+            atual = segmentos.get(segmentos.size() - 1);
+            ultima = atual.primeira + atual.quantidade - 1;
+        }
+        atual.buffer.force();
+        sincronizadaAte.accumulateAndGet(ultima, Math::max);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!segmentos.isEmpty()) {
+            sincronizar();
+        }
+        fecharSegmentos();
+        if (trava.channel().isOpen()) {
+            liberarTrava();
+        }
+    }
+
+    private void fecharSegmentos() {
+        for (Segmento segmento : segmentos) {
+            try {
+                segmento.canal.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar segmento do log de eventos: " + e.getMessage());
+            }
+        }
+        segmentos.clear();
+    }
+
+    private Segmento criarSegmento(long primeira) throws IOException {
+        return abrir(diretorio.resolve(String.format("%020d%s", primeira, EXTENSAO)), primeira,
+                (long) registrosPorSegmento * TAMANHO_REGISTRO);
+    }
+
+    /**
+     * Mapeia o arquivo (criando-o com o tamanho informado, se necessário) e conta os
+     * registros válidos já gravados.
+     */
+    private static Segmento abrir(Path arquivo, long primeira, long tamanhoNovo) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long tamanho = canal.size() == 0 ? tamanhoNovo : canal.size();
+            int capacidade = (int) (tamanho / TAMANHO_REGISTRO);
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) capacidade * TAMANHO_REGISTRO);
+            int quantidade = 0;
+            while (quantidade < capacidade && valido(buffer, quantidade * TAMANHO_REGISTRO, primeira + quantidade)) {
+                quantidade++;
+            }
+            return new Segmento(primeira, canal, buffer, capacidade, quantidade);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private static long primeiraSequencia(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return Long.parseLong(nome.substring(0, nome.length() - EXTENSAO.length()));
+    }
+
+    /*
+     * Formato do registro (64 bytes, big-endian):
+     * crc(4) tipo(2) versao(2) sequencia(8) instante(8) emprestimo(8) usuario(8) livro(8)
+     * data(4, dia desde 1970) dataPrevista(4) valor(4) reservado(4)
+     */
+
+    private static void escrever(ByteBuffer buffer, int posicao, EventoEmprestimo evento) {
+        ByteBuffer registro = buffer.slice(posicao, TAMANHO_REGISTRO);
+        registro.putShort(4, evento.tipo().getCodigo());
+        registro.putShort(6, VERSAO_FORMATO);
+        registro.putLong(8, evento.sequencia());
+        registro.putLong(16, evento.instante());
+        registro.putLong(24, evento.emprestimoId());
+        registro.putLong(32, evento.usuarioId());
+        registro.putLong(40, evento.livroId());
+        registro.putInt(48, diaDe(evento.data()));
+        registro.putInt(52, diaDe(evento.dataDevolucaoPrevista()));
+        registro.putInt(56, evento.valor());
+        registro.putInt(60, 0);
+        // O CRC por último marca o registro como completo
+        registro.putInt(0, crc(registro));
+    }
+
+    private static EventoEmprestimo ler(ByteBuffer buffer, int posicao) {
+        ByteBuffer registro = buffer.slice(posicao, TAMANHO_REGISTRO);
+        return new EventoEmprestimo(
+                registro.getLong(8),
+                TipoEvento.doCodigo(registro.getShort(4)),
+                registro.getLong(16),
+                registro.getLong(24),
+                registro.getLong(32),
+                registro.getLong(40),
+                dataDe(registro.getInt(48)),
+                dataDe(registro.getInt(52)),
+                registro.getInt(56));
+    }
+
+    private static boolean valido(ByteBuffer buffer, int posicao, long sequenciaEsperada) {
+        ByteBuffer registro = buffer.slice(posicao, TAMANHO_REGISTRO);
+        return TipoEvento.doCodigo(registro.getShort(4)) != null
+                && registro.getLong(8) == sequenciaEsperada
+                && registro.getInt(0) == crc(registro);
+    }
+
+    private static int crc(ByteBuffer registro) {
+        CRC32 crc = new CRC32();
+        crc.update(registro.slice(4, TAMANHO_REGISTRO - 4));
+        return (int) crc.getValue();
+    }
+
+    private static int diaDe(LocalDate data) {
+        return data == null ? SEM_DATA : (int) data.toEpochDay();
+    }
+
+    private static LocalDate dataDe(int dia) {
+        return dia == SEM_DATA ? null : LocalDate.ofEpochDay(dia);
+    }
+
+    private static final class Segmento {
+        final long primeira;
+        final FileChannel canal;
+        final MappedByteBuffer buffer;
+        final int capacidade;
+        int quantidade;
+
+        Segmento(long primeira, FileChannel canal, MappedByteBuffer buffer, int capacidade, int quantidade) {
+            this.primeira = primeira;
+            this.canal = canal;
+            this.buffer = buffer;
+            this.capacidade = capacidade;
+            this.quantidade = quantidade;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package evento;
+
+/**
+ * Visão mantida a partir do {@link LogDeEventos}, aplicando os eventos na ordem do log.
+ * <p>
+ * Um mesmo evento pode ser aplicado mais de uma vez (ex.: a carga inicial e o log contêm o
+ * mesmo empréstimo), então cada modelo deve chegar ao mesmo estado nesse caso.
+ */
+public interface ModeloDeLeitura {
+
+    void aplicar(EventoEmprestimo evento);
+}
@@ -0,0 +1,68 @@
+package evento;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Até onde o log foi conferido com a tabela de empréstimos, gravado no diretório do log ao fim
+ * de cada conferência.
+ *
+ * @param sequencia    última sequência do log no início da conferência: os eventos de empréstimos
+ *                     que ela não viu no banco são todos posteriores
+ * @param emprestimoId maior id de empréstimo visto no banco pela conferência
+ */
+record PontoDeConferencia(long sequencia, long emprestimoId) {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PontoDeConferencia.class);
+    static final String ARQUIVO = "conferencia.properties";
+
+    /**
+     * O ponto gravado no diretório, ou null se não houver um (ex.: log novo) ou se ele não puder
+     * ser lido, casos em que a conferência é completa.
+     */
+    static PontoDeConferencia ler(Path diretorio) {
+        Properties propriedades = new Properties();
+        try (Reader leitor = Files.newBufferedReader(diretorio.resolve(ARQUIVO), StandardCharsets.UTF_8)) {
+            propriedades.load(leitor);
+            return new PontoDeConferencia(Long.parseLong(propriedades.getProperty("sequencia")),
+                    Long.parseLong(propriedades.getProperty("emprestimoId")));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Ponto de conferência do log de eventos ilegível, conferindo tudo: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Grava o ponto num arquivo temporário e o move sobre o anterior, para que uma queda no meio
+     * da gravação deixe o ponto anterior intacto.
+     */
+    void gravar(Path diretorio) {
+        Properties propriedades = new Properties();
+        propriedades.setProperty("sequencia", Long.toString(sequencia));
+        propriedades.setProperty("emprestimoId", Long.toString(emprestimoId));
+        Path temporario = diretorio.resolve(ARQUIVO + ".tmp");
+        try {
+            try (Writer escritor = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+                propriedades.store(escritor, "Conferência do log de eventos com a tabela de empréstimos");
+            }
+            Files.move(temporario, diretorio.resolve(ARQUIVO), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar o ponto de conferência do log de eventos: "
+                    + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package evento;
+
+import model.Emprestimo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import repository.EmprestimoRepository;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Ponto de acesso ao log de eventos de empréstimos e aos modelos de leitura mantidos a partir
+ * dele: empréstimos ativos por usuário, exemplares emprestados por livro e fila de atrasos.
+ * Relatórios (os da API em /api/relatorios) e auditoria consultam estes modelos, em memória,
+ * sem passar pelas tabelas usadas nos empréstimos e devoluções.
+ * <p>
+ * O {@link controller.EmprestimoController} registra os eventos depois de confirmar cada
+ * transação, então um evento pode se perder se o processo cair (ou a gravação falhar) logo após
+ * a confirmação. Por isso, a cada abertura o log é conferido com a tabela de empréstimos e os
+ * eventos que faltam são gravados (na primeira abertura, com o log vazio, são todos os
+ * empréstimos existentes); em seguida os modelos são reconstruídos percorrendo o log. Os
+ * modelos são atualizados de forma incremental: cada consulta aplica apenas os eventos gravados
+ * desde a anterior.
+ * <p>
+ * A abertura (com a conferência) roda na inicialização ou numa thread própria, nunca na de um
+ * empréstimo ou de uma requisição: enquanto o log não está aberto, os eventos registrados
+ * esperam numa fila e são gravados logo após a conferência, e os relatórios respondem que o
+ * log está em abertura. Depois de aberto, o registro de eventos não passa por nenhuma trava
+ * além da gravação no próprio log.
+ * <p>
+ * Configuração:
+ * <ul>
+ *     <li>-Dbiblioteca.eventos=false desliga o registro;</li>
+ *     <li>-Dbiblioteca.eventos.diretorio: pasta dos segmentos (padrão: dados/eventos);</li>
+ *     <li>-Dbiblioteca.eventos.segmento: registros por segmento (padrão: 1048576, 64 MB);</li>
+ *     <li>-Dbiblioteca.eventos.sincronizar=true força cada gravação ao disco;</li>
+ *     <li>-Dbiblioteca.eventos.conferencia=completa confere todo o log com o banco na abertura.</li>
+ * </ul>
+ * Se o log não puder ser aberto (ex.: o diretório já está em uso por outra instância do sistema),
+ * ele fica desligado até o fim do processo, sem afetar empréstimos e devoluções.
+ */
+public final class RegistroEventos {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistroEventos.class);
+    private static final int REGISTROS_POR_SEGMENTO_MINIMO = 1024;
+    private static final int TAMANHO_LOTE_CARGA = 1000;
+    private static final String CONFERENCIA_COMPLETA = "completa";
+
+    private static final Object ABERTURA = new Object();
+    private static final AtomicBoolean ABERTURA_INICIADA = new AtomicBoolean();
+    /** Eventos registrados antes de o log estar aberto, na ordem em que foram confirmados. */
+    private static final ConcurrentLinkedQueue<EventoEmprestimo> PENDENTES = new ConcurrentLinkedQueue<>();
+
+    private static volatile RegistroEventos instancia;
+    private static volatile boolean indisponivel;
+
+    private final LogDeEventos log;
+    private final EmprestimosPorUsuario emprestimosPorUsuario = new EmprestimosPorUsuario();
+    private final ExemplaresEmprestadosPorLivro exemplaresPorLivro = new ExemplaresEmprestadosPorLivro();
+    private final FilaDeAtrasos filaDeAtrasos = new FilaDeAtrasos();
+    private final List<ModeloDeLeitura> modelos = List.of(emprestimosPorUsuario, exemplaresPorLivro, filaDeAtrasos);
+    private long aplicados;
+
+    private RegistroEventos(LogDeEventos log) {
+        this.log = log;
+    }
+
+    public static boolean isAtivo() {
+        return !indisponivel && Boolean.parseBoolean(System.getProperty("biblioteca.eventos", "true"));
+    }
+
+    /**
+     * Abre o log (fazendo a conferência com o banco, se ainda não aberto) e reconstrói os
+     * modelos de leitura. Bloqueia até o fim da abertura: em threads de requisição, use
+     * {@link #obterSeAberto()}.
+     */
+    public static RegistroEventos obter() {
+        RegistroEventos registro = instancia;
+        if (registro != null) {
+            return registro;
+        }
+        synchronized (ABERTURA) {
+            if (instancia == null) {
+                abrir();
+            }
+            return instancia;
+        }
+    }
+
+    /**
+     * O registro, se o log já estiver aberto; caso contrário, inicia a abertura em segundo
+     * plano e retorna null.
+     */
+    public static RegistroEventos obterSeAberto() {
+        RegistroEventos registro = instancia;
+        if (registro == null) {
+            iniciarEmSegundoPlano();
+        }
+        return registro;
+    }
+
+    private static void abrir() {
+        long inicio = System.nanoTime();
+        Path diretorio = Path.of(System.getProperty("biblioteca.eventos.diretorio", "dados/eventos"));
+        int registrosPorSegmento = Math.max(REGISTROS_POR_SEGMENTO_MINIMO,
+                Integer.getInteger("biblioteca.eventos.segmento", 1 << 20));
+        boolean sincronizar = Boolean.getBoolean("biblioteca.eventos.sincronizar");
+
+        LogDeEventos log;
+        try {
+            log = new LogDeEventos(diretorio, registrosPorSegmento, sincronizar);
+        } catch (RuntimeException e) {
+            desligar();
+            throw e;
+        }
+        try {
+            RegistroEventos registro = new RegistroEventos(log);
+            registro.atualizar();
+            long conciliados = conciliar(log, diretorio, registro.filaDeAtrasos.listarAtivos());
+            registro.atualizar();
+            instancia = registro;
+            long pendentes = log.anexarDaFila(PENDENTES).size();
+            LOG.info("Log de eventos aberto em {} ms: {} evento(s) em {} segmento(s), {} gravado(s) na "
+                            + "conferência com o banco, {} registrado(s) durante a abertura",
+                    (System.nanoTime() - inicio) / 1_000_000, log.getUltimaSequencia(),
+                    log.getQuantidadeSegmentos(), conciliados, pendentes);
+        } catch (RuntimeException e) {
+            instancia = null;
+            log.close();
+            desligar();
+            throw e;
+        }
+    }
+
+    private static void desligar() {
+        indisponivel = true;
+        PENDENTES.clear();
+    }
+
+    /**
+     * Abre o log durante a inicialização, para que a reconstrução dos modelos não atrase o
+     * primeiro empréstimo. Falhas são apenas registradas: o log é opcional para a operação.
+     */
+    public static void iniciar() {
+        if (!isAtivo()) {
+            return;
+        }
+        ABERTURA_INICIADA.set(true);
+        try {
+            obter();
+        } catch (RuntimeException e) {
+            LOG.warn("Log de eventos desligado: {}", e.getMessage());
+        }
+    }
+
+    private static void iniciarEmSegundoPlano() {
+        if (isAtivo() && ABERTURA_INICIADA.compareAndSet(false, true)) {
+            Thread.ofPlatform().name("biblioteca-eventos").daemon().start(RegistroEventos::iniciar);
+        }
+    }
+
+    /**
+     * Grava eventos de uma transação já confirmada. Uma falha aqui não desfaz a operação, que
+     * já está no banco; ela é apenas registrada. Se o log ainda não estiver aberto, os eventos
+     * ficam na fila de pendentes, sem esperar pela abertura.
+     */
+    public static void registrar(List<EventoEmprestimo> eventos) {
+        if (eventos.isEmpty() || !isAtivo()) {
+            return;
+        }
+        try {
+            RegistroEventos registro = instancia;
+            if (registro == null) {
+                PENDENTES.addAll(eventos);
+                iniciarEmSegundoPlano();
+                registro = instancia;
+                if (registro != null) {
+                    // A abertura terminou enquanto os eventos entravam na fila
+                    registro.log.anexarDaFila(PENDENTES);
+                }
+                return;
+            }
+            if (!PENDENTES.isEmpty()) {
+                // Eventos de antes da abertura vão primeiro, para manter a ordem de cada empréstimo
+                registro.log.anexarDaFila(PENDENTES);
+            }
+            registro.log.anexar(eventos);
+        } catch (RuntimeException e) {
+            LOG.error("Erro ao gravar {} evento(s) no log", eventos.size(), e);
+        }
+    }
+
+    public static void fechar() {
+        synchronized (ABERTURA) {
+            RegistroEventos registro = instancia;
+            if (registro != null) {
+                instancia = null;
+                registro.log.close();
+            }
+        }
+    }
+
+    /**
+     * Confere o log com a tabela de empréstimos e grava o que falta:
+     * <ul>
+     *     <li>um evento de empréstimo (e um de devolução, se já encerrado) para cada empréstimo
+     *     do banco que não está no log;</li>
+     *     <li>um evento de devolução para cada empréstimo ativo no log e encerrado no banco;</li>
+     *     <li>um evento de remoção para cada empréstimo ativo no log que não existe mais no banco.</li>
+     * </ul>
+     * Ao fim, grava um {@link PontoDeConferencia} no diretório do log. Na abertura seguinte, só os
+     * eventos gravados e os empréstimos criados depois dele são lidos, além dos empréstimos ativos
+     * (do banco e dos modelos), o que cobre empréstimos novos e devoluções e remoções de empréstimos
+     * ativos. A conferência é completa (o log inteiro e todos os empréstimos) quando não há ponto,
+     * quando o log termina antes dele (ex.: o fim do log se perdeu numa queda do sistema) ou com
+     * -Dbiblioteca.eventos.conferencia=completa, necessária se o banco for restaurado de um backup
+     * ou se empréstimos anteriores ao ponto forem feitos e devolvidos sem que seus eventos cheguem
+     * ao log (ex.: com o log desligado).
+     * <p>
+     * Empréstimos removidos antes da existência do log e multas cujo evento se perdeu não são
+     * recuperados. Eventos de transações confirmadas durante a conferência podem ser gravados
+     * de novo depois dela, o que os modelos toleram (ver {@link ModeloDeLeitura}).
+     *
+     * @param ativosNoLog empréstimos ativos segundo os modelos, antes da conferência
+     * @return quantidade de eventos gravados
+     */
+    private static long conciliar(LogDeEventos log, Path diretorio, List<EmprestimoAtivo> ativosNoLog) {
+        long inicio = System.nanoTime();
+        long sequenciaInicial = log.getUltimaSequencia();
+        PontoDeConferencia ponto = CONFERENCIA_COMPLETA.equals(System.getProperty("biblioteca.eventos.conferencia"))
+                ? null : PontoDeConferencia.ler(diretorio);
+        if (ponto != null && ponto.sequencia() > sequenciaInicial) {
+            LOG.warn("O log de eventos termina no evento {}, antes do ponto de conferência (evento {}): "
+                    + "conferindo tudo", sequenciaInicial, ponto.sequencia());
+            ponto = null;
+        }
+        long aposEmprestimo = ponto == null ? 0 : ponto.emprestimoId();
+
+        // Os eventos de empréstimos que o ponto não viu no banco são todos posteriores a ele
+        BitSet registrados = new BitSet();
+        BitSet encerrados = new BitSet();
+        log.percorrer(ponto == null ? 1 : ponto.sequencia() + 1, evento -> {
+            int id = Math.toIntExact(evento.emprestimoId());
+            if (evento.tipo() == TipoEvento.EMPRESTIMO) {
+                registrados.set(id);
+            } else if (evento.tipo() == TipoEvento.DEVOLUCAO || evento.tipo() == TipoEvento.REMOCAO) {
+                encerrados.set(id);
+            }
+        });
+        // Ativos no log ainda não conferidos com o banco
+        Map<Long, EmprestimoAtivo> ativos = new HashMap<>();
+        for (EmprestimoAtivo ativo : ativosNoLog) {
+            ativos.put(ativo.emprestimoId(), ativo);
+        }
+
+        List<EventoEmprestimo> lote = new ArrayList<>(TAMANHO_LOTE_CARGA);
+        long[] gravados = {0};
+        long[] maiorId = {aposEmprestimo};
+        EmprestimoRepository repositorio = new EmprestimoRepository();
+        repositorio.percorrerAposId(aposEmprestimo, emprestimo -> {
+            int id = Math.toIntExact(emprestimo.getId());
+            maiorId[0] = Math.max(maiorId[0], emprestimo.getId());
+            ativos.remove(emprestimo.getId());
+            if (!registrados.get(id)) {
+                lote.add(EventoEmprestimo.emprestimo(emprestimo));
+            }
+            if (isEncerrado(emprestimo) && !encerrados.get(id)) {
+                lote.add(EventoEmprestimo.devolucao(emprestimo, diasAtraso(emprestimo)));
+            }
+            gravados[0] += gravarSeCheio(log, lote);
+        });
+        if (ponto != null) {
+            repositorio.percorrerAtivos(emprestimo -> {
+                if (emprestimo.getId() <= aposEmprestimo && ativos.remove(emprestimo.getId()) == null) {
+                    lote.add(EventoEmprestimo.emprestimo(emprestimo));
+                    gravados[0] += gravarSeCheio(log, lote);
+                }
+            });
+            // Ativos no log e não no banco: devolvidos, se ainda existem, ou removidos
+            List<Long> ids = new ArrayList<>(ativos.keySet());
+            for (int i = 0; i < ids.size(); i += TAMANHO_LOTE_CARGA) {
+                for (Emprestimo emprestimo : repositorio.buscarPorIds(
+                        ids.subList(i, Math.min(ids.size(), i + TAMANHO_LOTE_CARGA)))) {
+                    ativos.remove(emprestimo.getId());
+                    if (isEncerrado(emprestimo)) {
+                        lote.add(EventoEmprestimo.devolucao(emprestimo, diasAtraso(emprestimo)));
+                        gravados[0] += gravarSeCheio(log, lote);
+                    }
+                }
+            }
+        }
+        for (EmprestimoAtivo ativo : ativos.values()) {
+            lote.add(EventoEmprestimo.remocao(ativo));
+        }
+        gravados[0] += log.anexar(lote).size();
+        log.sincronizar();
+
+        try {
+            new PontoDeConferencia(sequenciaInicial, maiorId[0]).gravar(diretorio);
+        } catch (RuntimeException e) {
+            LOG.warn("A próxima abertura do log de eventos fará a conferência completa: {}", e.getMessage());
+        }
+        LOG.info("Conferência {} do log de eventos com o banco em {} ms", ponto == null ? "completa"
+                : "a partir do evento " + (ponto.sequencia() + 1) + " e do empréstimo " + (aposEmprestimo + 1),
+                (System.nanoTime() - inicio) / 1_000_000);
+        return gravados[0];
+    }
+
+    /**
+     * Grava o lote quando ele atinge {@value #TAMANHO_LOTE_CARGA} eventos.
+     *
+     * @return quantidade de eventos gravados
+     */
+    private static long gravarSeCheio(LogDeEventos log, List<EventoEmprestimo> lote) {
+        if (lote.size() < TAMANHO_LOTE_CARGA) {
+            return 0;
+        }
+        long gravados = log.anexar(lote).size();
+        lote.clear();
+        return gravados;
+    }
+
+    private static long diasAtraso(Emprestimo emprestimo) {
+        if (emprestimo.getDataDevolucao() == null || emprestimo.getDataDevolucaoPrevista() == null) {
+            return 0;
+        }
+        return Math.max(0, ChronoUnit.DAYS.between(emprestimo.getDataDevolucaoPrevista(),
+                emprestimo.getDataDevolucao()));
+    }
+
+    private static boolean isEncerrado(Emprestimo emprestimo) {
+        return emprestimo.isDevolvido() || !Boolean.TRUE.equals(emprestimo.getAtivo());
+    }
+
+    /**
+     * Aplica aos modelos os eventos gravados desde a última atualização.
+     */
+    private void atualizar() {
+        aplicados += log.percorrer(aplicados + 1, evento -> {
+            for (ModeloDeLeitura modelo : modelos) {
+                modelo.aplicar(evento);
+            }
+        });
+    }
+
+    public synchronized List<EmprestimoAtivo> listarAtivosPorUsuario(long usuarioId) {
+        atualizar();
+        return emprestimosPorUsuario.listarAtivos(usuarioId);
+    }
+
+    public synchronized int contarAtivosPorUsuario(long usuarioId) {
+        atualizar();
+        return emprestimosPorUsuario.contarAtivos(usuarioId);
+    }
+
+    /**
+     * Último dia de multa registrado para o usuário, ou null se ele nunca foi multado.
+     */
+    public synchronized LocalDate buscarFimDaMulta(long usuarioId) {
+        atualizar();
+        return emprestimosPorUsuario.buscarFimDaMulta(usuarioId);
+    }
+
+    public synchronized int contarEmprestadosPorLivro(long livroId) {
+        atualizar();
+        return exemplaresPorLivro.contarEmprestados(livroId);
+    }
+
+    public synchronized Map<Long, Integer> contarEmprestadosPorLivro() {
+        atualizar();
+        return exemplaresPorLivro.contarEmprestadosPorLivro();
+    }
+
+    public synchronized List<EmprestimoAtivo> listarAtrasados(LocalDate hoje) {
+        atualizar();
+        return filaDeAtrasos.listarAtrasados(hoje);
+    }
+
+    public synchronized int contarAtivos() {
+        atualizar();
+        return filaDeAtrasos.contarAtivos();
+    }
+
+    /**
+     * Entrega ao consumidor, em ordem, os eventos a partir da sequência informada (ex.: para
+     * auditoria ou para montar outro modelo de leitura).
+     *
+     * @return quantidade de eventos entregues
+     */
+    public long percorrer(long aPartirDe, Consumer<EventoEmprestimo> consumidor) {
+        return log.percorrer(aPartirDe, consumidor);
+    }
+
+    public long getUltimaSequencia() {
+        return log.getUltimaSequencia();
+    }
+}
@@ -0,0 +1,34 @@
+package evento;
+
+/**
+ * Tipos de evento gravados no {@link LogDeEventos}. O código de cada tipo é o valor gravado
+ * no arquivo e não deve mudar.
+ */
+public enum TipoEvento {
+    EMPRESTIMO(1),
+    DEVOLUCAO(2),
+    MULTA(3),
+    REMOCAO(4);
+
+    private final short codigo;
+
+    TipoEvento(int codigo) {
+        this.codigo = (short) codigo;
+    }
+
+    short getCodigo() {
+        return codigo;
+    }
+
+    /**
+     * Tipo correspondente ao código gravado, ou null se o código não for conhecido.
+     */
+    static TipoEvento doCodigo(short codigo) {
+        for (TipoEvento tipo : values()) {
+            if (tipo.codigo == codigo) {
+                return tipo;
+            }
+        }
+        return null;
+    }
+}
@@ -1,26 +1,45 @@
 package model;
 
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
+
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 
 @Entity
-@Table(name = "emprestimos")
+@Table(name = "emprestimos", indexes = {
+        // Empréstimos ativos e atrasos pendentes de um usuário (limite e bloqueio no empréstimo)
+        @Index(name = "idx_emprestimos_usuario_ativo", columnList = "usuario_id, ativo, data_devolucao_prevista"),
+        // Listagem de atrasados
+        @Index(name = "idx_emprestimos_ativo_prevista", columnList = "ativo, data_devolucao_prevista"),
+        // Histórico de um livro
+        @Index(name = "idx_emprestimos_livro_data", columnList = "livro_id, data_emprestimo"),
+        // Histórico de um usuário, do mais recente para o mais antigo
+        @Index(name = "idx_emprestimos_usuario_data", columnList = "usuario_id, data_emprestimo")
+})
+@NamedEntityGraph(name = Emprestimo.GRAFO_COMPLETO, attributeNodes = {
+        @NamedAttributeNode("usuario"),
+        @NamedAttributeNode("livro")
+})
 public class Emprestimo {
 
     public static final int PRAZO_MAXIMO_DIAS = 14;
 
+    /** Plano de busca que carrega usuário e livro junto com o empréstimo. */
+    public static final String GRAFO_COMPLETO = "Emprestimo.completo";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "livro_id", nullable = false)
     private Livro livro;
 
@@ -36,6 +55,12 @@ public class Emprestimo {
     @Column(name = "ativo", nullable = false)
     private Boolean ativo;
 
+    // Marcado pela varredura diária de atrasos (ou na criação, se já nasce atrasado);
+    // permanece marcado após a devolução, como registro de que houve atraso
+    @ColumnDefault("false")
+    @Column(name = "marcado_atrasado", nullable = false)
+    private boolean marcadoAtrasado;
+
     // Construtores
     public Emprestimo() {
         this.ativo = true;
@@ -47,6 +72,7 @@ public class Emprestimo {
         this.dataEmprestimo = dataEmprestimo;
         this.dataDevolucaoPrevista = dataEmprestimo.plusDays(PRAZO_MAXIMO_DIAS);
         this.ativo = true;
+        this.marcadoAtrasado = isAtrasado();
     }
 
     // Getters e Setters
@@ -109,6 +135,14 @@ public class Emprestimo {
         this.ativo = ativo;
     }
 
+    public boolean isMarcadoAtrasado() {
+        return marcadoAtrasado;
+    }
+
+    public void setMarcadoAtrasado(boolean marcadoAtrasado) {
+        this.marcadoAtrasado = marcadoAtrasado;
+    }
+
     // Métodos auxiliares
     public boolean isAtrasado() {
         if (dataDevolucao != null) {
@@ -151,12 +185,15 @@ public class Emprestimo {
     public String toString() {
         return "Emprestimo{" +
                 "id=" + id +
-                ", usuario=" + (usuario != null ? usuario.getNome() : "null") +
-                ", livro=" + (livro != null ? livro.getTitulo() : "null") +
+                ", usuario=" + (usuario == null ? "null"
+                        : Hibernate.isInitialized(usuario) ? usuario.getNome() : "#" + usuario.getId()) +
+                ", livro=" + (livro == null ? "null"
+                        : Hibernate.isInitialized(livro) ? livro.getTitulo() : "#" + livro.getId()) +
                 ", dataEmprestimo=" + dataEmprestimo +
                 ", dataDevolucaoPrevista=" + dataDevolucaoPrevista +
                 ", dataDevolucao=" + dataDevolucao +
                 ", ativo=" + ativo +
+                ", marcadoAtrasado=" + marcadoAtrasado +
                 '}';
     }
 }
@@ -0,0 +1,43 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Visão somente leitura de um empréstimo para as telas de listagem: apenas o nome do
+ * usuário e o título do livro, em vez das entidades completas. Montada diretamente pela
+ * consulta (expressão construtora JPQL), sem passar pelo contexto de persistência.
+ */
+public record EmprestimoResumo(
+        Long id,
+        Long usuarioId,
+        String usuarioNome,
+        Long livroId,
+        String livroTitulo,
+        LocalDate dataEmprestimo,
+        LocalDate dataDevolucaoPrevista,
+        LocalDate dataDevolucao,
+        Boolean ativo) {
+
+    /**
+     * Expressão de seleção JPQL que monta o resumo; requer os aliases e, u e l para
+     * empréstimo, usuário e livro.
+     */
+    public static final String SELECAO_JPQL = "SELECT new model.EmprestimoResumo(e.id, u.id, u.nome, l.id, " +
+            "l.titulo, e.dataEmprestimo, e.dataDevolucaoPrevista, e.dataDevolucao, e.ativo) " +
+            "FROM Emprestimo e JOIN e.usuario u JOIN e.livro l";
+
+    public boolean isAtrasado() {
+        if (dataDevolucao != null) {
+            return false;
+        }
+        return LocalDate.now().isAfter(dataDevolucaoPrevista);
+    }
+
+    public long getDiasAtraso() {
+        if (!isAtrasado()) {
+            return 0;
+        }
+        return ChronoUnit.DAYS.between(dataDevolucaoPrevista, LocalDate.now());
+    }
+}
@@ -1,5 +1,9 @@
 package model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.util.Objects;
@@ -9,7 +13,12 @@ import java.util.Objects;
  * Contém informações sobre título, autor, tema, ISBN, data de publicação e quantidade disponível.
  */
 @Entity
-@Table(name = "livros")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "livros", indexes = {
+        // Listagem paginada por título
+        @Index(name = "idx_livros_titulo", columnList = "titulo, id")
+})
 public class Livro {
 
     @Id
@@ -35,6 +44,13 @@ public class Livro {
     @Column(name = "quantidade_disponivel", nullable = false)
     private Integer quantidadeDisponivel;
 
+    // Controle de concorrência otimista: incrementada a cada alteração, inclusive nas
+    // retiradas e devoluções de exemplares feitas diretamente no banco
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "versao", nullable = false)
+    private long versao;
+
     // Construtores
     public Livro() {
     }
@@ -105,6 +121,10 @@ public class Livro {
         this.quantidadeDisponivel = quantidadeDisponivel;
     }
 
+    public long getVersao() {
+        return versao;
+    }
+
     // Métodos auxiliares
     public boolean temExemplaresDisponiveis() {
         return quantidadeDisponivel != null && quantidadeDisponivel > 0;
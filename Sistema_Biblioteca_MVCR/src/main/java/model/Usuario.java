@@ -1,11 +1,20 @@
 package model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
 import javax.persistence.*;
 import java.util.Objects;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "usuarios")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "usuarios", indexes = {
+        // Busca e listagem paginada por nome
+        @Index(name = "idx_usuarios_nome", columnList = "nome, id")
+})
 public class Usuario {
 
     @Id
@@ -31,6 +40,22 @@ public class Usuario {
     @Column(name = "data_fim_multa")
     private java.time.LocalDate dataFimMulta; // Data em que a multa termina
 
+    // Resumo dos empréstimos ativos, mantido a cada empréstimo, devolução e remoção,
+    // para que a liberação de um novo empréstimo não precise consultar a tabela de empréstimos
+    @ColumnDefault("0")
+    @Column(name = "emprestimos_ativos", nullable = false)
+    private int emprestimosAtivos;
+
+    @Column(name = "proxima_devolucao")
+    private LocalDate proximaDevolucao; // Menor data de devolução prevista entre os empréstimos ativos
+
+    // Controle de concorrência otimista: incrementada a cada alteração do usuário, inclusive
+    // as de empréstimos, devoluções e multas
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "versao", nullable = false)
+    private long versao;
+
     // Construtores
     public Usuario() {
         this.diasMulta = 0;
@@ -103,6 +128,57 @@ public class Usuario {
         this.dataFimMulta = dataFimMulta;
     }
 
+    public int getEmprestimosAtivos() {
+        return emprestimosAtivos;
+    }
+
+    public void setEmprestimosAtivos(int emprestimosAtivos) {
+        this.emprestimosAtivos = emprestimosAtivos;
+    }
+
+    public LocalDate getProximaDevolucao() {
+        return proximaDevolucao;
+    }
+
+    public void setProximaDevolucao(LocalDate proximaDevolucao) {
+        this.proximaDevolucao = proximaDevolucao;
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Contabiliza um novo empréstimo ativo do usuário.
+     */
+    public void adicionarEmprestimoAtivo(LocalDate dataDevolucaoPrevista) {
+        emprestimosAtivos++;
+        if (proximaDevolucao == null || dataDevolucaoPrevista.isBefore(proximaDevolucao)) {
+            proximaDevolucao = dataDevolucaoPrevista;
+        }
+    }
+
+    /**
+     * Desconta um empréstimo ativo encerrado (devolvido ou removido).
+     * @return true se o empréstimo encerrado era o de devolução mais próxima e ainda restam
+     * outros ativos, caso em que a próxima devolução precisa ser recalculada.
+     */
+    public boolean removerEmprestimoAtivo(LocalDate dataDevolucaoPrevista) {
+        emprestimosAtivos = Math.max(0, emprestimosAtivos - 1);
+        if (emprestimosAtivos == 0) {
+            proximaDevolucao = null;
+            return false;
+        }
+        return dataDevolucaoPrevista.equals(proximaDevolucao);
+    }
+
+    /**
+     * Verifica se algum empréstimo ativo do usuário já passou da data de devolução prevista.
+     */
+    public boolean isComAtrasoPendente() {
+        return proximaDevolucao != null && proximaDevolucao.isBefore(LocalDate.now());
+    }
+
     /**
      * Verifica se o usuário está atualmente sob multa.
      * @return true se estiver em período de multa.
@@ -150,6 +226,8 @@ public class Usuario {
                 ", email='" + email + '\'' +
                 ", diasMulta=" + diasMulta +
                 ", dataFimMulta=" + dataFimMulta +
+                ", emprestimosAtivos=" + emprestimosAtivos +
+                ", proximaDevolucao=" + proximaDevolucao +
                 '}';
     }
 }
@@ -0,0 +1,57 @@
+package repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executa, logo após a inicialização, as consultas que as telas fazem ao abrir (contagem e
+ * primeiro bloco de livros, usuários e empréstimos ativos) e carrega os índices em memória
+ * de busca e de sugestões. Assim, conexões do pool, planos de consulta, caches e o JIT já
+ * estão prontos quando o usuário abre a primeira tela.
+ * <p>
+ * Pode ser desligado com -Dbiblioteca.aquecimento=false.
+ */
+final class Aquecimento {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Aquecimento.class);
+
+    /** Mesmo tamanho do bloco carregado por vez pelas tabelas das telas. */
+    private static final int LINHAS = 100;
+
+    private Aquecimento() {
+    }
+
+    static boolean isAtivo() {
+        return Boolean.parseBoolean(System.getProperty("biblioteca.aquecimento", "true"));
+    }
+
+    static void executar() {
+        long inicio = System.nanoTime();
+        LivroRepository livroRepository = new LivroRepository();
+        UsuarioRepository usuarioRepository = new UsuarioRepository();
+        EmprestimoRepository emprestimoRepository = new EmprestimoRepository();
+
+        livroRepository.contarTodos();
+        long primeiraConsulta = System.nanoTime() - inicio;
+        livroRepository.listarPorPosicao(0, LINHAS);
+        long livros = System.nanoTime() - inicio;
+
+        usuarioRepository.contarTodos();
+        usuarioRepository.listarPorPosicao(0, LINHAS);
+        long usuarios = System.nanoTime() - inicio;
+
+        emprestimoRepository.contarAtivos();
+        emprestimoRepository.listarResumoAtivosPorPosicao(0, LINHAS);
+        long emprestimos = System.nanoTime() - inicio;
+
+        livroRepository.prepararBusca();
+        livroRepository.prepararSugestoes();
+        usuarioRepository.prepararSugestoes();
+        long total = System.nanoTime() - inicio;
+
+        LOG.info("Aquecimento concluído em {} ms (primeira consulta em {} ms; livros {} ms, usuários {} ms, "
+                        + "empréstimos {} ms, índices em memória {} ms)", total / 1_000_000, primeiraConsulta / 1_000_000, livros / 1_000_000,
+                (usuarios - livros) / 1_000_000, (emprestimos - usuarios) / 1_000_000,
+                (total - emprestimos) / 1_000_000);
+    }
+}
@@ -0,0 +1,30 @@
+package repository;
+
+import org.hibernate.StaleStateException;
+
+import javax.persistence.OptimisticLockException;
+
+/**
+ * O registro foi alterado por outra transação depois de lido (a versão gravada no banco não
+ * é mais a do objeto salvo). Quem recebe a exceção deve ler o registro de novo, reaplicar a
+ * alteração e tentar outra vez.
+ */
+public class ConflitoDeVersaoException extends RuntimeException {
+
+    public ConflitoDeVersaoException(String mensagem, Throwable causa) {
+        super(mensagem, causa);
+    }
+
+    /**
+     * Indica se a falha (ou alguma de suas causas) foi a verificação de versão do Hibernate,
+     * seja no merge de um objeto desatualizado, seja na confirmação da transação.
+     */
+    static boolean causouConflito(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof OptimisticLockException || causa instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,159 +1,629 @@
 package repository;
 
 import model.Emprestimo;
+import model.EmprestimoResumo;
 import model.Usuario;
 import model.Livro;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 
 public class EmprestimoRepository {
 
+    // Dica JPA que aplica um plano de busca, carregando as associações listadas nele
+    private static final String DICA_GRAFO = "javax.persistence.loadgraph";
+
+    // Linhas buscadas por vez no cursor e lidas entre cada limpeza do EntityManager
+    private static final int TAMANHO_LOTE_CURSOR = 1000;
 
     public Emprestimo salvar(Emprestimo emprestimo) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            em.persist(emprestimo);
-            em.getTransaction().commit();
-            return emprestimo;
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
+        return MetricasRepositorio.medir("EmprestimoRepository.salvar", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                em.persist(emprestimo);
+                em.getTransaction().commit();
+                return emprestimo;
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new RuntimeException("Erro ao salvar empréstimo: " + e.getMessage(), e);
+            } finally {
+                em.close();
             }
-            throw new RuntimeException("Erro ao salvar empréstimo: " + e.getMessage(), e);
-        } finally {
-            em.close();
-        }
+        });
     }
 
     public Emprestimo atualizar(Emprestimo emprestimo) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            Emprestimo emprestimoAtualizado = em.merge(emprestimo);
-            em.getTransaction().commit();
-            return emprestimoAtualizado;
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
-            throw new RuntimeException("Erro ao atualizar empréstimo: " + e.getMessage(), e);
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("EmprestimoRepository.atualizar", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                Emprestimo emprestimoAtualizado = em.merge(emprestimo);
+                em.getTransaction().commit();
+                return emprestimoAtualizado;
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new RuntimeException("Erro ao atualizar empréstimo: " + e.getMessage(), e);
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public void remover(Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            Emprestimo emprestimo = em.find(Emprestimo.class, id);
-            if (emprestimo != null) {
-                em.remove(emprestimo);
+        MetricasRepositorio.medir("EmprestimoRepository.remover", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                Emprestimo emprestimo = em.find(Emprestimo.class, id);
+                if (emprestimo != null) {
+                    em.remove(emprestimo);
+                }
+                em.getTransaction().commit();
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new RuntimeException("Erro ao remover empréstimo: " + e.getMessage(), e);
+            } finally {
+                em.close();
             }
-            em.getTransaction().commit();
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
-            throw new RuntimeException("Erro ao remover empréstimo: " + e.getMessage(), e);
-        } finally {
-            em.close();
-        }
+        });
     }
 
     public Emprestimo buscarPorId(Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            return em.find(Emprestimo.class, id);
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("EmprestimoRepository.buscarPorId", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return em.find(Emprestimo.class, id, Map.of(DICA_GRAFO, em.getEntityGraph(Emprestimo.GRAFO_COMPLETO)));
+            } finally {
+                em.close();
+            }
+        });
     }
 
 
     public List<Emprestimo> listarTodos() {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            TypedQuery<Emprestimo> query = em.createQuery(
-                    "SELECT e FROM Emprestimo e ORDER BY e.dataEmprestimo DESC", Emprestimo.class);
-            return query.getResultList();
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("EmprestimoRepository.listarTodos", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Emprestimo> query = em.createQuery(
+                        "SELECT e FROM Emprestimo e ORDER BY e.dataEmprestimo DESC", Emprestimo.class);
+                query.setHint(DICA_GRAFO, em.getEntityGraph(Emprestimo.GRAFO_COMPLETO));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public List<Emprestimo> listarAtivos() {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            TypedQuery<Emprestimo> query = em.createQuery(
-                    "SELECT e FROM Emprestimo e WHERE e.ativo = true ORDER BY e.dataEmprestimo DESC", Emprestimo.class);
-            return query.getResultList();
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("EmprestimoRepository.listarAtivos", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Emprestimo> query = em.createQuery(
+                        "SELECT e FROM Emprestimo e WHERE e.ativo = true ORDER BY e.dataEmprestimo DESC", Emprestimo.class);
+                query.setHint(DICA_GRAFO, em.getEntityGraph(Emprestimo.GRAFO_COMPLETO));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public List<Emprestimo> listarAtivosPorUsuario(Usuario usuario) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            TypedQuery<Emprestimo> query = em.createQuery(
-                    "SELECT e FROM Emprestimo e WHERE e.usuario = :usuario AND e.ativo = true ORDER BY e.dataEmprestimo DESC", 
-                    Emprestimo.class);
-            query.setParameter("usuario", usuario);
-            return query.getResultList();
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("EmprestimoRepository.listarAtivosPorUsuario", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Emprestimo> query = em.createQuery(
+                        "SELECT e FROM Emprestimo e WHERE e.usuario = :usuario AND e.ativo = true ORDER BY e.dataEmprestimo DESC", 
+                        Emprestimo.class);
+                query.setParameter("usuario", usuario);
+                query.setHint(DICA_GRAFO, em.getEntityGraph(Emprestimo.GRAFO_COMPLETO));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public long contarEmprestimosAtivos(Usuario usuario) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            TypedQuery<Long> query = em.createQuery(
-                    "SELECT COUNT(e) FROM Emprestimo e WHERE e.usuario = :usuario AND e.ativo = true", Long.class);
-            query.setParameter("usuario", usuario);
-            return query.getSingleResult();
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("EmprestimoRepository.contarEmprestimosAtivos", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Long> query = em.createQuery(
+                        "SELECT COUNT(e) FROM Emprestimo e WHERE e.usuario = :usuario AND e.ativo = true", Long.class);
+                query.setParameter("usuario", usuario);
+                return query.getSingleResult();
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public List<Emprestimo> listarPorLivro(Livro livro) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            TypedQuery<Emprestimo> query = em.createQuery(
-                    "SELECT e FROM Emprestimo e WHERE e.livro = :livro ORDER BY e.dataEmprestimo DESC", 
-                    Emprestimo.class);
-            query.setParameter("livro", livro);
-            return query.getResultList();
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("EmprestimoRepository.listarPorLivro", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Emprestimo> query = em.createQuery(
+                        "SELECT e FROM Emprestimo e WHERE e.livro = :livro ORDER BY e.dataEmprestimo DESC", 
+                        Emprestimo.class);
+                query.setParameter("livro", livro);
+                query.setHint(DICA_GRAFO, em.getEntityGraph(Emprestimo.GRAFO_COMPLETO));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public List<Emprestimo> listarAtrasados() {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarAtrasados", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Emprestimo> query = em.createQuery(
+                        "SELECT e FROM Emprestimo e WHERE e.ativo = true AND e.dataDevolucaoPrevista < CURRENT_DATE ORDER BY e.dataDevolucaoPrevista", 
+                        Emprestimo.class);
+                query.setHint(DICA_GRAFO, em.getEntityGraph(Emprestimo.GRAFO_COMPLETO));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    public List<Emprestimo> listarHistoricoPorUsuario(Usuario usuario) {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarHistoricoPorUsuario", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Emprestimo> query = em.createQuery(
+                        "SELECT e FROM Emprestimo e WHERE e.usuario = :usuario ORDER BY e.dataEmprestimo DESC", 
+                        Emprestimo.class);
+                query.setParameter("usuario", usuario);
+                query.setHint(DICA_GRAFO, em.getEntityGraph(Emprestimo.GRAFO_COMPLETO));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Percorre todos os empréstimos, do mais recente para o mais antigo, sem montar uma lista:
+     * as linhas são lidas por um cursor somente-avanço e o EntityManager é limpo periodicamente,
+     * de modo que o uso de memória não depende da quantidade de empréstimos. O consumidor não
+     * deve guardar as entidades recebidas.
+     *
+     * @return quantidade de empréstimos percorridos
+     */
+    public long percorrerTodos(Consumer<Emprestimo> consumidor) {
+        return MetricasRepositorio.medir("EmprestimoRepository.percorrerTodos", () -> {
+            return percorrer("SELECT e FROM Emprestimo e JOIN FETCH e.usuario JOIN FETCH e.livro " +
+                    "ORDER BY e.dataEmprestimo DESC, e.id DESC", null, consumidor);
+        }, Long::longValue);
+    }
+
+    /**
+     * Percorre o histórico do usuário como {@link #percorrerTodos}.
+     */
+    public long percorrerHistoricoPorUsuario(Usuario usuario, Consumer<Emprestimo> consumidor) {
+        return MetricasRepositorio.medir("EmprestimoRepository.percorrerHistoricoPorUsuario", () -> {
+            return percorrer("SELECT e FROM Emprestimo e JOIN FETCH e.usuario JOIN FETCH e.livro " +
+                    "WHERE e.usuario = :valor ORDER BY e.dataEmprestimo DESC, e.id DESC", usuario, consumidor);
+        }, Long::longValue);
+    }
+
+    /**
+     * Percorre, em ordem de id, os empréstimos com id maior que o informado, como {@link #percorrerTodos}.
+     */
+    public long percorrerAposId(long idAnterior, Consumer<Emprestimo> consumidor) {
+        return MetricasRepositorio.medir("EmprestimoRepository.percorrerAposId", () -> {
+            return percorrer("SELECT e FROM Emprestimo e JOIN FETCH e.usuario JOIN FETCH e.livro " +
+                    "WHERE e.id > :valor ORDER BY e.id", idAnterior, consumidor);
+        }, Long::longValue);
+    }
+
+    /**
+     * Percorre os empréstimos ativos e ainda não devolvidos, em ordem de id, como {@link #percorrerTodos}.
+     */
+    public long percorrerAtivos(Consumer<Emprestimo> consumidor) {
+        return MetricasRepositorio.medir("EmprestimoRepository.percorrerAtivos", () -> {
+            return percorrer("SELECT e FROM Emprestimo e JOIN FETCH e.usuario JOIN FETCH e.livro " +
+                    "WHERE e.ativo = true AND e.dataDevolucao IS NULL ORDER BY e.id", null, consumidor);
+        }, Long::longValue);
+    }
+
+    private long percorrer(String jpql, Object valor, Consumer<Emprestimo> consumidor) {
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<Emprestimo> query = em.createQuery(
-                    "SELECT e FROM Emprestimo e WHERE e.ativo = true AND e.dataDevolucaoPrevista < CURRENT_DATE ORDER BY e.dataDevolucaoPrevista", 
-                    Emprestimo.class);
-            return query.getResultList();
+            Query<Emprestimo> query = em.unwrap(Session.class).createQuery(jpql, Emprestimo.class);
+            if (valor != null) {
+                query.setParameter("valor", valor);
+            }
+            query.setFetchSize(TAMANHO_LOTE_CURSOR);
+            query.setReadOnly(true);
+            query.setCacheMode(CacheMode.IGNORE);
+
+            long quantidade = 0;
+            try (ScrollableResults cursor = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (cursor.next()) {
+                    consumidor.accept((Emprestimo) cursor.get(0));
+                    if (++quantidade % TAMANHO_LOTE_CURSOR == 0) {
+                        em.clear();
+                    }
+                }
+            }
+            return quantidade;
         } finally {
             em.close();
         }
     }
 
-    public List<Emprestimo> listarHistoricoPorUsuario(Usuario usuario) {
+    public Emprestimo salvar(UnidadeDeTrabalho uow, Emprestimo emprestimo) {
+        return MetricasRepositorio.medir("EmprestimoRepository.salvar(uow)", () -> {
+            uow.getEntityManager().persist(emprestimo);
+            return emprestimo;
+        });
+    }
+
+    /**
+     * Insere os empréstimos em um único lote JDBC, na transação da unidade de trabalho, e
+     * preenche seus ids. Como em {@link LivroRepository#inserirEmLote}, os ids gerados por
+     * IDENTITY impediriam o Hibernate de agrupar os INSERTs; os empréstimos inseridos não
+     * ficam associados ao EntityManager.
+     */
+    public void salvarEmLote(UnidadeDeTrabalho uow, List<Emprestimo> emprestimos) {
+        MetricasRepositorio.medir("EmprestimoRepository.salvarEmLote(uow)", () -> {
+            uow.getEntityManager().unwrap(Session.class).doWork(conexao -> {
+                try (PreparedStatement ps = conexao.prepareStatement(
+                        "INSERT INTO emprestimos (usuario_id, livro_id, data_emprestimo, data_devolucao_prevista, " +
+                        "ativo, marcado_atrasado) VALUES (?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                    for (Emprestimo emprestimo : emprestimos) {
+                        ps.setLong(1, emprestimo.getUsuario().getId());
+                        ps.setLong(2, emprestimo.getLivro().getId());
+                        ps.setDate(3, Date.valueOf(emprestimo.getDataEmprestimo()));
+                        ps.setDate(4, Date.valueOf(emprestimo.getDataDevolucaoPrevista()));
+                        ps.setBoolean(5, emprestimo.getAtivo());
+                        ps.setBoolean(6, emprestimo.isMarcadoAtrasado());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet ids = ps.getGeneratedKeys()) {
+                        for (Emprestimo emprestimo : emprestimos) {
+                            if (!ids.next()) {
+                                throw new SQLException("O banco não retornou os ids dos empréstimos inseridos");
+                            }
+                            emprestimo.setId(ids.getLong(1));
+                        }
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Busca os empréstimos informados bloqueando suas linhas, como em
+     * {@link #buscarPorIdParaAtualizacao}, na ordem dos ids.
+     */
+    public List<Emprestimo> buscarPorIdsParaAtualizacao(UnidadeDeTrabalho uow, Collection<Long> ids) {
+        return MetricasRepositorio.medir("EmprestimoRepository.buscarPorIdsParaAtualizacao(uow)",
+                () -> uow.getEntityManager()
+                        .createQuery("SELECT e FROM Emprestimo e WHERE e.id IN :ids ORDER BY e.id", Emprestimo.class)
+                        .setParameter("ids", ids)
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                        .getResultList());
+    }
+
+    /**
+     * Empréstimos informados, com usuário e livro, em ordem de id. Empréstimos inexistentes são ignorados.
+     */
+    public List<Emprestimo> buscarPorIds(Collection<Long> ids) {
+        return MetricasRepositorio.medir("EmprestimoRepository.buscarPorIds", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return em.createQuery("SELECT e FROM Emprestimo e JOIN FETCH e.usuario JOIN FETCH e.livro " +
+                                "WHERE e.id IN :ids ORDER BY e.id", Emprestimo.class)
+                        .setParameter("ids", ids)
+                        .getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Usuário e livro dos empréstimos informados, sem carregar as entidades: cada linha é
+     * {@code {usuarioId, livroId}}. Empréstimos inexistentes são ignorados.
+     */
+    public List<Object[]> buscarUsuariosELivros(Collection<Long> ids) {
+        return MetricasRepositorio.medir("EmprestimoRepository.buscarUsuariosELivros", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return em.createQuery(
+                        "SELECT e.usuario.id, e.livro.id FROM Emprestimo e WHERE e.id IN :ids", Object[].class)
+                        .setParameter("ids", ids)
+                        .getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Empréstimos feitos a partir da data informada, sem carregar as entidades: cada linha é
+     * {@code {id, livroId, titulo, tema, autor, usuarioId, nome, dataEmprestimo}}.
+     */
+    public List<Object[]> listarCirculacaoDesde(LocalDate desde) {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarCirculacaoDesde", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return em.createQuery(
+                        "SELECT e.id, l.id, l.titulo, l.tema, l.autor, u.id, u.nome, e.dataEmprestimo " +
+                        "FROM Emprestimo e JOIN e.livro l JOIN e.usuario u WHERE e.dataEmprestimo >= :desde",
+                        Object[].class)
+                        .setParameter("desde", desde)
+                        .getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    public void remover(UnidadeDeTrabalho uow, Emprestimo emprestimo) {
+        MetricasRepositorio.medir("EmprestimoRepository.remover(uow)", () -> uow.getEntityManager().remove(emprestimo));
+    }
+
+    /**
+     * Busca o empréstimo bloqueando sua linha, evitando que duas devoluções
+     * simultâneas do mesmo empréstimo devolvam o exemplar duas vezes ao estoque.
+     */
+    public Emprestimo buscarPorIdParaAtualizacao(UnidadeDeTrabalho uow, Long id) {
+        return MetricasRepositorio.medir("EmprestimoRepository.buscarPorIdParaAtualizacao(uow)",
+                () -> uow.getEntityManager().find(Emprestimo.class, id, LockModeType.PESSIMISTIC_WRITE));
+    }
+
+    /**
+     * Menor data de devolução prevista entre os empréstimos ativos do usuário,
+     * ou null se ele não tiver nenhum.
+     */
+    public LocalDate buscarProximaDevolucao(UnidadeDeTrabalho uow, Usuario usuario) {
+        return MetricasRepositorio.medir("EmprestimoRepository.buscarProximaDevolucao(uow)", () -> {
+            TypedQuery<LocalDate> query = uow.getEntityManager().createQuery(
+                    "SELECT MIN(e.dataDevolucaoPrevista) FROM Emprestimo e WHERE e.usuario = :usuario AND e.ativo = true",
+                    LocalDate.class);
+            query.setParameter("usuario", usuario);
+            return query.getSingleResult();
+        });
+    }
+
+    /**
+     * Conta os usuários com empréstimos ativos que passaram da devolução prevista no
+     * intervalo [desde, hoje) e ainda não foram marcados como atrasados.
+     *
+     * @param desde início do intervalo (null para considerar todo o histórico)
+     */
+    public long contarUsuariosComNovosAtrasos(UnidadeDeTrabalho uow, LocalDate desde, LocalDate hoje) {
+        return MetricasRepositorio.medir("EmprestimoRepository.contarUsuariosComNovosAtrasos(uow)", () -> {
+            TypedQuery<Long> query = uow.getEntityManager().createQuery(
+                    "SELECT COUNT(DISTINCT e.usuario.id) FROM Emprestimo e WHERE " + filtroNovosAtrasos(desde), Long.class);
+            query.setParameter("hoje", hoje);
+            if (desde != null) {
+                query.setParameter("desde", desde);
+            }
+            return query.getSingleResult();
+        });
+    }
+
+    /**
+     * Marca como atrasados, em uma única atualização, os empréstimos ativos que passaram da
+     * devolução prevista no intervalo [desde, hoje). Como a varredura registra a data de cada
+     * execução, o intervalo percorrido no índice (ativo, data_devolucao_prevista) cobre
+     * apenas os dias desde a anterior.
+     *
+     * @param desde início do intervalo (null para considerar todo o histórico)
+     * @return quantidade de empréstimos marcados
+     */
+    public int marcarAtrasados(UnidadeDeTrabalho uow, LocalDate desde, LocalDate hoje) {
+        return MetricasRepositorio.medir("EmprestimoRepository.marcarAtrasados(uow)", () -> {
+            Query<?> query = uow.getEntityManager().unwrap(Session.class).createQuery(
+                    "UPDATE Emprestimo e SET e.marcadoAtrasado = true WHERE " + filtroNovosAtrasos(desde));
+            query.setParameter("hoje", hoje);
+            if (desde != null) {
+                query.setParameter("desde", desde);
+            }
+            return query.executeUpdate();
+        });
+    }
+
+    private static String filtroNovosAtrasos(LocalDate desde) {
+        String filtro = "e.ativo = true AND e.marcadoAtrasado = false AND e.dataDevolucaoPrevista < :hoje";
+        return desde == null ? filtro : filtro + " AND e.dataDevolucaoPrevista >= :desde";
+    }
+
+    /**
+     * Lista uma página do histórico de empréstimos, do mais recente para o mais antigo,
+     * ordenada por (dataEmprestimo, id) decrescentes, a partir do cursor informado.
+     * Usuário e livro são carregados na mesma consulta.
+     *
+     * @param dataAntes data do último empréstimo da página anterior (null para a primeira página)
+     * @param idAntes id do último empréstimo da página anterior (null para a primeira página)
+     * @param tamanho quantidade de empréstimos por página (limitada a Paginacao.TAMANHO_MAXIMO)
+     */
+    public List<Emprestimo> listarPagina(LocalDate dataAntes, Long idAntes, int tamanho) {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarPagina",
+                () -> listarPagina(false, dataAntes, idAntes, tamanho));
+    }
+
+    /**
+     * Igual a {@link #listarPagina(LocalDate, Long, int)}, considerando apenas empréstimos ativos.
+     */
+    public List<Emprestimo> listarAtivosPagina(LocalDate dataAntes, Long idAntes, int tamanho) {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarAtivosPagina",
+                () -> listarPagina(true, dataAntes, idAntes, tamanho));
+    }
+
+    /**
+     * Lista empréstimos ativos a partir de uma posição, na mesma ordem de {@link #listarAtivosPagina}.
+     * Usado apenas quando o cursor da página anterior não é conhecido (saltos na rolagem).
+     */
+    public List<Emprestimo> listarAtivosPorPosicao(int inicio, int tamanho) {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarAtivosPorPosicao", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Emprestimo> query = em.createQuery(
+                        "SELECT e FROM Emprestimo e JOIN FETCH e.usuario JOIN FETCH e.livro WHERE e.ativo = true " +
+                        "ORDER BY e.dataEmprestimo DESC, e.id DESC", Emprestimo.class);
+                query.setFirstResult(inicio);
+                query.setMaxResults(Paginacao.limitar(tamanho));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    public long contarAtivos() {
+        return MetricasRepositorio.medir("EmprestimoRepository.contarAtivos", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return em.createQuery("SELECT COUNT(e) FROM Emprestimo e WHERE e.ativo = true", Long.class)
+                        .getSingleResult();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Resumos dos empréstimos ativos, na mesma ordem e com o mesmo cursor de
+     * {@link #listarAtivosPagina}. Lê apenas as colunas exibidas nas telas.
+     */
+    public List<EmprestimoResumo> listarResumoAtivosPagina(LocalDate dataAntes, Long idAntes, int tamanho) {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarResumoAtivosPagina",
+                () -> listarPagina(EmprestimoResumo.SELECAO_JPQL, EmprestimoResumo.class, true, null, dataAntes, idAntes,
+                        tamanho));
+    }
+
+    public List<EmprestimoResumo> listarResumoAtivosPorPosicao(int inicio, int tamanho) {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarResumoAtivosPorPosicao", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<EmprestimoResumo> query = em.createQuery(EmprestimoResumo.SELECAO_JPQL +
+                        " WHERE e.ativo = true ORDER BY e.dataEmprestimo DESC, e.id DESC", EmprestimoResumo.class);
+                query.setFirstResult(inicio);
+                query.setMaxResults(Paginacao.limitar(tamanho));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Uma página do histórico de empréstimos do livro, na mesma ordem e com o mesmo cursor de
+     * {@link #listarPagina(LocalDate, Long, int)}.
+     */
+    public List<Emprestimo> listarPorLivroPagina(Long livroId, LocalDate dataAntes, Long idAntes, int tamanho) {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarPorLivroPagina",
+                () -> listarPagina("SELECT e FROM Emprestimo e JOIN FETCH e.usuario JOIN FETCH e.livro",
+                        Emprestimo.class, false, livroId, dataAntes, idAntes, tamanho));
+    }
+
+    /**
+     * Uma página dos resumos dos empréstimos atrasados, do mais antigo para o mais recente,
+     * ordenada por (dataDevolucaoPrevista, id) crescentes a partir do cursor informado.
+     *
+     * @param previstaDepois devolução prevista do último empréstimo da página anterior (null para a primeira)
+     * @param idDepois id do último empréstimo da página anterior (null para a primeira)
+     */
+    public List<EmprestimoResumo> listarResumoAtrasadosPagina(LocalDate previstaDepois, Long idDepois, int tamanho) {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarResumoAtrasadosPagina", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                boolean comCursor = previstaDepois != null && idDepois != null;
+                TypedQuery<EmprestimoResumo> query = em.createQuery(EmprestimoResumo.SELECAO_JPQL +
+                        " WHERE e.ativo = true AND e.dataDevolucaoPrevista < CURRENT_DATE" +
+                        (comCursor ? " AND (e.dataDevolucaoPrevista > :data OR " +
+                                "(e.dataDevolucaoPrevista = :data AND e.id > :id))" : "") +
+                        " ORDER BY e.dataDevolucaoPrevista, e.id", EmprestimoResumo.class);
+                if (comCursor) {
+                    query.setParameter("data", previstaDepois);
+                    query.setParameter("id", idDepois);
+                }
+                query.setMaxResults(Paginacao.limitar(tamanho));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    public List<EmprestimoResumo> listarResumoAtrasados() {
+        return MetricasRepositorio.medir("EmprestimoRepository.listarResumoAtrasados", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<EmprestimoResumo> query = em.createQuery(EmprestimoResumo.SELECAO_JPQL +
+                        " WHERE e.ativo = true AND e.dataDevolucaoPrevista < CURRENT_DATE ORDER BY e.dataDevolucaoPrevista",
+                        EmprestimoResumo.class);
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    private List<Emprestimo> listarPagina(boolean somenteAtivos, LocalDate dataAntes, Long idAntes, int tamanho) {
+        return listarPagina("SELECT e FROM Emprestimo e JOIN FETCH e.usuario JOIN FETCH e.livro",
+                Emprestimo.class, somenteAtivos, null, dataAntes, idAntes, tamanho);
+    }
+
+    private <T> List<T> listarPagina(String selecao, Class<T> tipo, boolean somenteAtivos, Long livroId,
+                                     LocalDate dataAntes, Long idAntes, int tamanho) {
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<Emprestimo> query = em.createQuery(
-                    "SELECT e FROM Emprestimo e WHERE e.usuario = :usuario ORDER BY e.dataEmprestimo DESC", 
-                    Emprestimo.class);
-            query.setParameter("usuario", usuario);
+            StringBuilder jpql = new StringBuilder(selecao).append(" WHERE 1 = 1");
+            if (somenteAtivos) {
+                jpql.append(" AND e.ativo = true");
+            }
+            if (livroId != null) {
+                jpql.append(" AND e.livro.id = :livro");
+            }
+            boolean comCursor = dataAntes != null && idAntes != null;
+            if (comCursor) {
+                jpql.append(" AND (e.dataEmprestimo < :data OR (e.dataEmprestimo = :data AND e.id < :id))");
+            }
+            jpql.append(" ORDER BY e.dataEmprestimo DESC, e.id DESC");
+
+            TypedQuery<T> query = em.createQuery(jpql.toString(), tipo);
+            if (livroId != null) {
+                query.setParameter("livro", livroId);
+            }
+            if (comCursor) {
+                query.setParameter("data", dataAntes);
+                query.setParameter("id", idAntes);
+            }
+            query.setMaxResults(Paginacao.limitar(tamanho));
             return query.getResultList();
         } finally {
             em.close();
@@ -0,0 +1,27 @@
+package repository;
+
+/**
+ * Retrato das métricas de uma região do cache de segundo nível em um determinado instante.
+ * Elementos em memória é -1 quando o provedor de cache não informa o valor.
+ */
+public record EstatisticasCache(
+        String regiao,
+        long acertos,
+        long falhas,
+        long insercoes,
+        long elementosEmMemoria) {
+
+    /**
+     * Proporção de leituras atendidas pelo cache (0 a 1).
+     */
+    public double taxaAcerto() {
+        long leituras = acertos + falhas;
+        return leituras == 0 ? 0 : (double) acertos / leituras;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: acertos=%d, falhas=%d, taxa de acerto=%.1f%%, insercoes=%d, em memoria=%d",
+                regiao, acertos, falhas, taxaAcerto() * 100, insercoes, elementosEmMemoria);
+    }
+}
@@ -0,0 +1,79 @@
+package repository;
+
+/**
+ * Retrato das métricas de um método de repositório: chamadas, falhas, tempo (total, máximo e
+ * histograma), linhas retornadas e comandos SQL emitidos. O histograma conta as chamadas por
+ * faixa de duração, com os limites de {@link MetricasRepositorio#LIMITES_MICROS}; a última
+ * posição conta as chamadas acima do maior limite.
+ */
+public record EstatisticasMetodo(
+        String metodo,
+        long chamadas,
+        long falhas,
+        long tempoTotalNanos,
+        long tempoMaximoNanos,
+        long linhas,
+        long comandosSql,
+        long[] histograma) {
+
+    public double tempoMedioMillis() {
+        return chamadas == 0 ? 0 : tempoTotalNanos / 1e6 / chamadas;
+    }
+
+    public double tempoMaximoMillis() {
+        return tempoMaximoNanos / 1e6;
+    }
+
+    /**
+     * Estimativa do percentil (0 a 100) pelo histograma: o limite superior da faixa em que ele
+     * cai, nunca acima do tempo máximo observado.
+     */
+    public double percentilMillis(double percentil) {
+        if (chamadas == 0) {
+            return 0;
+        }
+        long posicao = (long) Math.ceil(percentil / 100 * chamadas);
+        long acumulado = 0;
+        for (int i = 0; i < histograma.length; i++) {
+            acumulado += histograma[i];
+            if (acumulado >= posicao && i < MetricasRepositorio.LIMITES_MICROS.length) {
+                return Math.min(MetricasRepositorio.LIMITES_MICROS[i] / 1e3, tempoMaximoMillis());
+            }
+        }
+        return tempoMaximoMillis();
+    }
+
+    public double linhasPorChamada() {
+        return chamadas == 0 ? 0 : (double) linhas / chamadas;
+    }
+
+    public double sqlPorChamada() {
+        return chamadas == 0 ? 0 : (double) comandosSql / chamadas;
+    }
+
+    /**
+     * Métricas do intervalo desde o retrato anterior do mesmo método (null se não havia).
+     * O tempo máximo do intervalo não sai da diferença entre retratos e é medido à parte.
+     */
+    EstatisticasMetodo desde(EstatisticasMetodo anterior, long tempoMaximoNoIntervalo) {
+        if (anterior == null) {
+            return new EstatisticasMetodo(metodo, chamadas, falhas, tempoTotalNanos, tempoMaximoNoIntervalo,
+                    linhas, comandosSql, histograma.clone());
+        }
+        long[] diferenca = new long[histograma.length];
+        for (int i = 0; i < histograma.length; i++) {
+            diferenca[i] = histograma[i] - anterior.histograma[i];
+        }
+        return new EstatisticasMetodo(metodo, chamadas - anterior.chamadas, falhas - anterior.falhas,
+                tempoTotalNanos - anterior.tempoTotalNanos, tempoMaximoNoIntervalo,
+                linhas - anterior.linhas, comandosSql - anterior.comandosSql, diferenca);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: chamadas=%d, falhas=%d, media=%.2fms, p50=%.2fms, p99=%.2fms, max=%.2fms, "
+                        + "linhas/chamada=%.1f, sql/chamada=%.1f",
+                metodo, chamadas, falhas, tempoMedioMillis(), percentilMillis(50), percentilMillis(99),
+                tempoMaximoMillis(), linhasPorChamada(), sqlPorChamada());
+    }
+}
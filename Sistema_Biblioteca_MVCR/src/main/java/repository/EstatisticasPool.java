@@ -0,0 +1,31 @@
+package repository;
+
+/**
+ * Retrato imutável das métricas do pool de conexões em um determinado instante.
+ * Tempos de espera e de uso estão em milissegundos.
+ */
+public record EstatisticasPool(
+        String nomePool,
+        int conexoesAtivas,
+        int conexoesOciosas,
+        int conexoesTotais,
+        int threadsAguardando,
+        int tamanhoMaximo,
+        long aquisicoes,
+        double esperaMediaMillis,
+        double esperaMaximaMillis,
+        double usoMedioMillis,
+        long usoMaximoMillis,
+        long timeouts,
+        long conexoesCriadas) {
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: ativas=%d, ociosas=%d, total=%d/%d, aguardando=%d, aquisicoes=%d, "
+                        + "espera media=%.2fms (max %.2fms), uso medio=%.1fms (max %dms), timeouts=%d",
+                nomePool, conexoesAtivas, conexoesOciosas, conexoesTotais, tamanhoMaximo,
+                threadsAguardando, aquisicoes, esperaMediaMillis, esperaMaximaMillis,
+                usoMedioMillis, usoMaximoMillis, timeouts);
+    }
+}
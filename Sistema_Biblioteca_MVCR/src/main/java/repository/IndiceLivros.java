@@ -0,0 +1,324 @@
+package repository;
+
+import model.Livro;
+import util.Texto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória sobre título, autor e tema dos livros.
+ * <p>
+ * Os textos são quebrados em termos sem acentos e em minúsculas; cada termo da busca é
+ * comparado por prefixo ("dom casm" encontra "Dom Casmurro") e todos os termos precisam
+ * ser encontrados. Os resultados são ordenados por relevância: termos exatos pesam mais
+ * que prefixos e o título pesa mais que o autor, que pesa mais que o tema.
+ * <p>
+ * O índice é carregado na primeira busca e mantido pelo {@link LivroRepository} a cada
+ * livro salvo, atualizado ou removido. Guarda apenas os IDs; os livros são lidos do banco
+ * pela chave primária, para que o estoque exibido esteja sempre atualizado.
+ */
+public class IndiceLivros {
+
+    public enum Campo {
+        TITULO(3), AUTOR(2), TEMA(1);
+
+        private final int peso;
+
+        Campo(int peso) {
+            this.peso = peso;
+        }
+    }
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> PALAVRAS_VAZIAS = new HashSet<>(Arrays.asList(
+            "a", "o", "as", "os", "de", "da", "do", "das", "dos", "e", "em", "na", "no", "nas", "nos",
+            "um", "uma", "para", "por", "com"));
+
+    private final ReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Map<Campo, NavigableMap<String, Set<Long>>> termos = new EnumMap<>(Campo.class);
+    private final Map<Long, Map<Campo, List<String>>> documentos = new HashMap<>();
+    private final Map<Long, String> titulos = new HashMap<>();
+    private final Consumer<IndiceLivros> carga;
+    private volatile boolean carregado;
+
+    /**
+     * @param carga indexa todos os livros do banco; chamada na primeira busca e após {@link #invalidar()}
+     */
+    IndiceLivros(Consumer<IndiceLivros> carga) {
+        this.carga = carga;
+        for (Campo campo : Campo.values()) {
+            termos.put(campo, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Busca em todos os campos.
+     *
+     * @return IDs dos livros encontrados, do mais para o menos relevante
+     */
+    public List<Long> buscar(String texto) {
+        return buscar(Campo.values(), texto);
+    }
+
+    /**
+     * Busca apenas no campo informado.
+     *
+     * @return IDs dos livros encontrados, do mais para o menos relevante
+     */
+    public List<Long> buscar(Campo campo, String texto) {
+        return buscar(new Campo[]{campo}, texto);
+    }
+
+    /**
+     * Carrega o índice, se ainda não estiver carregado, para que a primeira busca não espere pela carga.
+     */
+    public void preparar() {
+        garantirCarregado();
+    }
+
+    /**
+     * Inclui ou reindexa um livro.
+     */
+    public void indexar(Livro livro) {
+        if (livro != null && livro.getId() != null) {
+            indexar(livro.getId(), livro.getTitulo(), livro.getAutor(), livro.getTema());
+        }
+    }
+
+    public void indexar(Long id, String titulo, String autor, String tema) {
+        trava.writeLock().lock();
+        try {
+            removerSemTrava(id);
+            Map<Campo, List<String>> porCampo = new EnumMap<>(Campo.class);
+            porCampo.put(Campo.TITULO, tokenizar(titulo));
+            porCampo.put(Campo.AUTOR, tokenizar(autor));
+            porCampo.put(Campo.TEMA, tokenizar(tema));
+            for (Map.Entry<Campo, List<String>> entrada : porCampo.entrySet()) {
+                NavigableMap<String, Set<Long>> indice = termos.get(entrada.getKey());
+                for (String termo : entrada.getValue()) {
+                    indice.computeIfAbsent(termo, t -> new HashSet<>()).add(id);
+                }
+            }
+            documentos.put(id, porCampo);
+            titulos.put(id, Texto.normalizar(titulo));
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    public void remover(Long id) {
+        trava.writeLock().lock();
+        try {
+            removerSemTrava(id);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Descarta o índice; ele será recarregado do banco na próxima busca.
+     * Usado após alterações em massa que não passam por {@link #indexar}.
+     */
+    public void invalidar() {
+        trava.writeLock().lock();
+        try {
+            for (NavigableMap<String, Set<Long>> indice : termos.values()) {
+                indice.clear();
+            }
+            documentos.clear();
+            titulos.clear();
+            carregado = false;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica se a busca por {@code nova} só pode encontrar livros já encontrados por
+     * {@code anterior}: cada termo anterior precisa ser prefixo de algum termo novo
+     * ("dom" &rarr; "dom casm"). Nesse caso, {@link #filtrarPorTitulo} sobre o resultado
+     * anterior dá o mesmo resultado da consulta ao índice.
+     */
+    public static boolean refina(String anterior, String nova) {
+        List<String> termosNovos = termosConsulta(nova);
+        if (termosNovos.isEmpty()) {
+            return false;
+        }
+        for (String termo : termosConsulta(anterior)) {
+            boolean estendido = false;
+            for (String novo : termosNovos) {
+                if (novo.startsWith(termo)) {
+                    estendido = true;
+                    break;
+                }
+            }
+            if (!estendido) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Refaz em memória a busca por título sobre livros já carregados, com o mesmo critério
+     * e a mesma ordem de {@link #buscar(Campo, String)}.
+     */
+    public static List<Livro> filtrarPorTitulo(List<Livro> livros, String texto) {
+        List<String> consulta = termosConsulta(texto);
+        List<Livro> encontrados = new ArrayList<>();
+        if (consulta.isEmpty()) {
+            return encontrados;
+        }
+        Map<Livro, Integer> pontos = new HashMap<>();
+        for (Livro livro : livros) {
+            List<String> tokens = tokenizar(livro.getTitulo());
+            int total = 0;
+            for (String termo : consulta) {
+                int pontosTermo = 0;
+                for (String token : tokens) {
+                    if (token.startsWith(termo)) {
+                        pontosTermo = Math.max(pontosTermo, Campo.TITULO.peso * (token.equals(termo) ? 2 : 1));
+                    }
+                }
+                if (pontosTermo == 0) {
+                    total = 0;
+                    break;
+                }
+                total += pontosTermo;
+            }
+            if (total > 0) {
+                encontrados.add(livro);
+                pontos.put(livro, total);
+            }
+        }
+        encontrados.sort(Comparator.<Livro>comparingInt(pontos::get).reversed()
+                .thenComparing(livro -> Texto.normalizar(livro.getTitulo()))
+                .thenComparing(Livro::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return encontrados;
+    }
+
+    private List<Long> buscar(Campo[] campos, String texto) {
+        List<String> consulta = termosConsulta(texto);
+        if (consulta.isEmpty()) {
+            return new ArrayList<>();
+        }
+        garantirCarregado();
+
+        trava.readLock().lock();
+        try {
+            Map<Long, Integer> pontuacao = null;
+            for (String termo : consulta) {
+                Map<Long, Integer> pontosTermo = pontuarTermo(campos, termo);
+                if (pontuacao == null) {
+                    pontuacao = pontosTermo;
+                } else {
+                    // Todos os termos precisam ser encontrados
+                    pontuacao.keySet().retainAll(pontosTermo.keySet());
+                    for (Map.Entry<Long, Integer> entrada : pontuacao.entrySet()) {
+                        entrada.setValue(entrada.getValue() + pontosTermo.get(entrada.getKey()));
+                    }
+                }
+                if (pontuacao.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            final Map<Long, Integer> pontos = pontuacao;
+            List<Long> ids = new ArrayList<>(pontos.keySet());
+            ids.sort(Comparator.<Long>comparingInt(pontos::get).reversed()
+                    .thenComparing(id -> titulos.getOrDefault(id, ""))
+                    .thenComparing(Comparator.naturalOrder()));
+            return ids;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> pontuarTermo(Campo[] campos, String termo) {
+        Map<Long, Integer> pontos = new HashMap<>();
+        for (Campo campo : campos) {
+            NavigableMap<String, Set<Long>> prefixados =
+                    termos.get(campo).subMap(termo, true, termo + Character.MAX_VALUE, false);
+            for (Map.Entry<String, Set<Long>> entrada : prefixados.entrySet()) {
+                int peso = campo.peso * (entrada.getKey().equals(termo) ? 2 : 1);
+                for (Long id : entrada.getValue()) {
+                    pontos.merge(id, peso, Math::max);
+                }
+            }
+        }
+        return pontos;
+    }
+
+    private void garantirCarregado() {
+        if (carregado) {
+            return;
+        }
+        synchronized (this) {
+            if (!carregado) {
+                carga.accept(this);
+                carregado = true;
+            }
+        }
+    }
+
+    private void removerSemTrava(Long id) {
+        Map<Campo, List<String>> porCampo = documentos.remove(id);
+        titulos.remove(id);
+        if (porCampo == null) {
+            return;
+        }
+        for (Map.Entry<Campo, List<String>> entrada : porCampo.entrySet()) {
+            NavigableMap<String, Set<Long>> indice = termos.get(entrada.getKey());
+            for (String termo : entrada.getValue()) {
+                Set<Long> ids = indice.get(termo);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        indice.remove(termo);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Termos da busca; palavras vazias são ignoradas, a menos que sejam tudo o que foi digitado.
+     */
+    private static List<String> termosConsulta(String texto) {
+        List<String> todos = tokenizar(texto);
+        List<String> relevantes = new ArrayList<>();
+        for (String termo : todos) {
+            if (!PALAVRAS_VAZIAS.contains(termo)) {
+                relevantes.add(termo);
+            }
+        }
+        return relevantes.isEmpty() ? todos : relevantes;
+    }
+
+    static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null) {
+            return tokens;
+        }
+        for (String parte : SEPARADORES.split(Texto.normalizar(texto))) {
+            if (!parte.isEmpty() && !tokens.contains(parte)) {
+                tokens.add(parte);
+            }
+        }
+        return tokens;
+    }
+}
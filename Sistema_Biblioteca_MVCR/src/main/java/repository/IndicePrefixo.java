@@ -0,0 +1,444 @@
+package repository;
+
+import util.Texto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Índice compacto em memória para sugestões enquanto o usuário digita (ex.: nome ou e-mail
+ * do usuário, título ou ISBN do livro na tela de empréstimo).
+ * <p>
+ * Cada texto indexado é quebrado em termos sem acentos e em minúsculas; textos sem espaços
+ * (e-mail, ISBN) formam um único termo, sem a pontuação. Os termos de todos os
+ * registros ficam em um único array ordenado, com um array paralelo apontando para o registro
+ * de cada termo; a busca localiza por busca binária a faixa de termos com o prefixo digitado
+ * e percorre apenas o início dela, até reunir as primeiras sugestões. Com vários termos na
+ * busca, a faixa percorrida é a do termo mais seletivo, e os demais são conferidos em cada
+ * registro ou, se poucos registros da faixa os tiverem, por filtros de bits.
+ * <p>
+ * Os arrays não são alterados depois de montados: inclusões, alterações e remoções ficam em
+ * uma pequena lista de pendentes consultada junto com eles, e o índice é remontado em memória,
+ * fora da trava, quando a lista passa de {@link #LIMITE_PENDENTES}. A carga inicial é feita na
+ * primeira busca (ou em {@link #carregar()}) e lê apenas as colunas indexadas, sem entidades.
+ */
+public class IndicePrefixo {
+
+    /** Alterações acumuladas antes de os arrays do índice serem remontados. */
+    private static final int LIMITE_PENDENTES = 256;
+
+    /**
+     * Registros conferidos termo a termo, sem sucesso, antes de os demais termos da busca
+     * passarem a ser conferidos por filtros de bits.
+     */
+    private static final int ORCAMENTO_VERIFICACOES = 256;
+
+    /**
+     * Um termo da busca só vira filtro de bits quando sua faixa de termos não é muito maior
+     * que a do termo mais seletivo; senão continua sendo conferido registro a registro.
+     */
+    private static final int PROPORCAO_MAXIMA_FILTRO = 16;
+
+    /**
+     * Registro lido do banco na carga do índice.
+     */
+    record Entrada(Long id, String rotulo, String... textos) {
+    }
+
+    private final ReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Supplier<List<Entrada>> carga;
+    private final Map<Long, Documento> pendentes = new HashMap<>();
+    // Registros dos arrays que foram alterados ou removidos depois da montagem
+    private final Set<Long> descartados = new HashSet<>();
+    private final AtomicBoolean compactando = new AtomicBoolean();
+    private volatile Instantaneo instantaneo;
+    private volatile boolean carregando;
+
+    /**
+     * @param carga lê do banco os registros a indexar; chamada na primeira busca e após {@link #invalidar()}
+     */
+    IndicePrefixo(Supplier<List<Entrada>> carga) {
+        this.carga = carga;
+    }
+
+    /**
+     * Garante que o índice esteja montado, lendo os registros do banco se necessário.
+     * Permite preparar o índice em segundo plano antes da primeira busca.
+     */
+    public void carregar() {
+        garantirCarregado();
+    }
+
+    /**
+     * Primeiras sugestões cujos termos começam com os termos digitados (todos precisam ser
+     * encontrados). Termos exatos aparecem antes de prefixos mais longos; empates seguem a
+     * ordem alfabética do rótulo.
+     */
+    public List<Sugestao> buscar(String texto, int limite) {
+        List<String> termos = termos(texto);
+        if (termos.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+        Instantaneo base = garantirCarregado();
+
+        trava.readLock().lock();
+        try {
+            int[] inicios = new int[termos.size()];
+            int[] fins = new int[termos.size()];
+            int indiceGuia = 0;
+            for (int t = 0; t < termos.size(); t++) {
+                inicios[t] = base.inicio(termos.get(t));
+                fins[t] = base.fim(termos.get(t));
+                if (fins[t] - inicios[t] < fins[indiceGuia] - inicios[indiceGuia]) {
+                    indiceGuia = t;
+                }
+            }
+            String guia = termos.get(indiceGuia);
+            int inicioGuia = inicios[indiceGuia];
+            int fimGuia = fins[indiceGuia];
+
+            List<String> conferidos = new ArrayList<>(termos);
+            conferidos.remove(guia);
+            List<BitSet> filtros = new ArrayList<>();
+            int verificados = 0;
+            List<Candidato> candidatos = new ArrayList<>();
+            Set<Integer> vistos = new HashSet<>();
+            for (int i = inicioGuia; i < fimGuia && candidatos.size() < limite; i++) {
+                int posicao = base.donos[i];
+                if (!passaFiltros(filtros, posicao) || !vistos.add(posicao)) {
+                    continue;
+                }
+                Documento documento = base.documentos[posicao];
+                if ((descartados.isEmpty() || !descartados.contains(documento.id))
+                        && documento.contemTodos(conferidos)) {
+                    candidatos.add(new Candidato(base.chaves[i], documento));
+                } else if (++verificados == ORCAMENTO_VERIFICACOES && !conferidos.isEmpty()) {
+                    // Os demais termos são raros na faixa: passam a ser conferidos por filtros
+                    // de bits sobre as posições dos registros, montados uma única vez
+                    criarFiltros(base, termos, inicios, fins, fimGuia - inicioGuia, conferidos, filtros);
+                }
+            }
+            for (Documento documento : pendentes.values()) {
+                String chave = documento.primeiraChave(guia);
+                if (chave != null && documento.contemTodos(termos)) {
+                    candidatos.add(new Candidato(chave, documento));
+                }
+            }
+
+            candidatos.sort(Comparator.comparing(Candidato::chave)
+                    .thenComparing(candidato -> candidato.documento().ordem)
+                    .thenComparing(candidato -> candidato.documento().id));
+            List<Sugestao> sugestoes = new ArrayList<>(Math.min(limite, candidatos.size()));
+            for (Candidato candidato : candidatos) {
+                if (sugestoes.size() == limite) {
+                    break;
+                }
+                sugestoes.add(new Sugestao(candidato.documento().id, candidato.documento().rotulo));
+            }
+            return sugestoes;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Troca a conferência registro a registro dos termos por filtros de bits, exceto para
+     * termos cuja faixa é tão grande que montar o filtro custaria mais que conferir.
+     */
+    private static void criarFiltros(Instantaneo base, List<String> termos, int[] inicios, int[] fins,
+                                     int faixaGuia, List<String> conferidos, List<BitSet> filtros) {
+        for (int t = 0; t < termos.size(); t++) {
+            String termo = termos.get(t);
+            if (!conferidos.contains(termo)
+                    || fins[t] - inicios[t] > (long) faixaGuia * PROPORCAO_MAXIMA_FILTRO) {
+                continue;
+            }
+            BitSet filtro = new BitSet(base.documentos.length);
+            for (int i = inicios[t]; i < fins[t]; i++) {
+                filtro.set(base.donos[i]);
+            }
+            filtros.add(filtro);
+            conferidos.remove(termo);
+        }
+    }
+
+    /**
+     * Termos de um texto. Um texto sem espaços (e-mail, ISBN) vira um único termo, sem a
+     * pontuação, tanto ao indexar quanto ao buscar: "978-85-35" encontra "978-85-359-0277-5"
+     * e "joao.s" encontra "joao.silva@email.com".
+     */
+    private static List<String> termos(String texto) {
+        List<String> tokens = IndiceLivros.tokenizar(texto);
+        if (tokens.size() > 1 && texto.trim().indexOf(' ') < 0) {
+            return List.of(String.join("", tokens));
+        }
+        return tokens;
+    }
+
+    private static boolean passaFiltros(List<BitSet> filtros, int posicao) {
+        for (BitSet filtro : filtros) {
+            if (!filtro.get(posicao)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inclui ou reindexa um registro.
+     *
+     * @param rotulo texto exibido na sugestão
+     * @param textos textos pesquisáveis (ex.: nome e e-mail)
+     */
+    public void indexar(Long id, String rotulo, String... textos) {
+        Documento documento = new Documento(id, rotulo, textos);
+        trava.writeLock().lock();
+        try {
+            pendentes.put(id, documento);
+            descartados.add(id);
+        } finally {
+            trava.writeLock().unlock();
+        }
+        compactarSeNecessario();
+    }
+
+    public void remover(Long id) {
+        trava.writeLock().lock();
+        try {
+            pendentes.remove(id);
+            descartados.add(id);
+        } finally {
+            trava.writeLock().unlock();
+        }
+        compactarSeNecessario();
+    }
+
+    /**
+     * Descarta o índice; ele será recarregado do banco na próxima busca.
+     * Usado após alterações em massa que não passam por {@link #indexar}.
+     */
+    public void invalidar() {
+        trava.writeLock().lock();
+        try {
+            instantaneo = null;
+            pendentes.clear();
+            descartados.clear();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private Instantaneo garantirCarregado() {
+        Instantaneo atual = instantaneo;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (this) {
+            if (instantaneo == null) {
+                carregando = true;
+                try {
+                    List<Documento> documentos = new ArrayList<>();
+                    for (Entrada entrada : carga.get()) {
+                        documentos.add(new Documento(entrada.id(), entrada.rotulo(), entrada.textos()));
+                    }
+                    Instantaneo montado = new Instantaneo(documentos);
+                    // Alterações feitas durante a carga continuam valendo como pendentes
+                    trava.writeLock().lock();
+                    try {
+                        instantaneo = montado;
+                    } finally {
+                        trava.writeLock().unlock();
+                    }
+                } finally {
+                    carregando = false;
+                }
+            }
+            return instantaneo;
+        }
+    }
+
+    /**
+     * Remonta os arrays com as alterações pendentes quando elas passam do limite. A montagem
+     * é feita fora da trava, sobre uma cópia; apenas a troca dos arrays bloqueia as buscas.
+     */
+    private void compactarSeNecessario() {
+        if (!compactando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Instantaneo base;
+            Map<Long, Documento> aplicados;
+            Set<Long> removidos;
+            trava.readLock().lock();
+            try {
+                if (pendentes.size() + descartados.size() <= LIMITE_PENDENTES) {
+                    return;
+                }
+                base = instantaneo;
+                aplicados = new HashMap<>(pendentes);
+                removidos = new HashSet<>(descartados);
+            } finally {
+                trava.readLock().unlock();
+            }
+
+            if (base == null) {
+                // Ainda não carregado: a carga lerá as alterações diretamente do banco
+                if (!carregando) {
+                    trava.writeLock().lock();
+                    try {
+                        if (instantaneo == null) {
+                            pendentes.clear();
+                            descartados.clear();
+                        }
+                    } finally {
+                        trava.writeLock().unlock();
+                    }
+                }
+                return;
+            }
+
+            List<Documento> documentos = new ArrayList<>(base.documentos.length + aplicados.size());
+            for (Documento documento : base.documentos) {
+                if (!removidos.contains(documento.id)) {
+                    documentos.add(documento);
+                }
+            }
+            documentos.addAll(aplicados.values());
+            Instantaneo montado = new Instantaneo(documentos);
+
+            trava.writeLock().lock();
+            try {
+                if (instantaneo != base) {
+                    return;
+                }
+                instantaneo = montado;
+                // Só sai das pendentes o que não mudou de novo durante a montagem
+                for (Long id : removidos) {
+                    if (pendentes.get(id) == aplicados.get(id)) {
+                        pendentes.remove(id);
+                        descartados.remove(id);
+                    }
+                }
+            } finally {
+                trava.writeLock().unlock();
+            }
+        } finally {
+            compactando.set(false);
+        }
+    }
+
+    private record Candidato(String chave, Documento documento) {
+    }
+
+    private record Termo(String chave, int dono) {
+    }
+
+    private static final class Documento {
+        private final Long id;
+        private final String rotulo;
+        private final String ordem;
+        // Termos distintos do registro, em ordem
+        private final String[] termos;
+
+        private Documento(Long id, String rotulo, String[] textos) {
+            this.id = id;
+            this.rotulo = rotulo;
+            this.ordem = Texto.normalizar(rotulo);
+            Set<String> chaves = new HashSet<>();
+            for (String texto : textos) {
+                chaves.addAll(termos(texto));
+            }
+            this.termos = chaves.toArray(new String[0]);
+            Arrays.sort(this.termos);
+        }
+
+        /**
+         * Menor termo do registro que começa com o prefixo, ou null se nenhum começar.
+         */
+        private String primeiraChave(String prefixo) {
+            int posicao = Arrays.binarySearch(termos, prefixo);
+            if (posicao < 0) {
+                posicao = -posicao - 1;
+            }
+            return posicao < termos.length && termos[posicao].startsWith(prefixo) ? termos[posicao] : null;
+        }
+
+        private boolean contemTodos(List<String> prefixos) {
+            for (String prefixo : prefixos) {
+                if (primeiraChave(prefixo) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Arrays imutáveis do índice: registros em ordem de rótulo e termos de todos eles em
+     * ordem, cada um com a posição do seu registro.
+     */
+    private static final class Instantaneo {
+        private final Documento[] documentos;
+        private final String[] chaves;
+        private final int[] donos;
+
+        private Instantaneo(Collection<Documento> registros) {
+            documentos = registros.toArray(new Documento[0]);
+            Arrays.sort(documentos, Comparator.comparing((Documento documento) -> documento.ordem)
+                    .thenComparing(documento -> documento.id));
+
+            int total = 0;
+            for (Documento documento : documentos) {
+                total += documento.termos.length;
+            }
+            Termo[] termos = new Termo[total];
+            int k = 0;
+            for (int posicao = 0; posicao < documentos.length; posicao++) {
+                for (String termo : documentos[posicao].termos) {
+                    termos[k++] = new Termo(termo, posicao);
+                }
+            }
+            // Ordenação estável: termos iguais mantêm a ordem de rótulo dos registros
+            Arrays.sort(termos, Comparator.comparing(Termo::chave));
+
+            chaves = new String[total];
+            donos = new int[total];
+            for (int i = 0; i < total; i++) {
+                chaves[i] = termos[i].chave();
+                donos[i] = termos[i].dono();
+            }
+        }
+
+        /** Posição do primeiro termo maior ou igual ao prefixo. */
+        private int inicio(String prefixo) {
+            int baixo = 0;
+            int alto = chaves.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (chaves[meio].compareTo(prefixo) < 0) {
+                    baixo = meio + 1;
+                } else {
+                    alto = meio;
+                }
+            }
+            return baixo;
+        }
+
+        /** Posição logo após o último termo que começa com o prefixo. */
+        private int fim(String prefixo) {
+            return inicio(prefixo + Character.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Recebe cada comando SQL preparado pelo Hibernate, para que seja contado no método de
+ * repositório em execução e, se o eco estiver ligado, exibido no console.
+ * É instanciado pelo próprio Hibernate a partir da propriedade
+ * {@code hibernate.session_factory.statement_inspector} do persistence.xml.
+ */
+public class InspetorSql implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        MetricasRepositorio.registrarSql(sql);
+        return sql;
+    }
+}
@@ -1,23 +1,81 @@
 package repository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class JPAUtil {
 
+    private static final Logger LOG = LoggerFactory.getLogger(JPAUtil.class);
     private static final String PERSISTENCE_UNIT_NAME = "BibliotecaPU";
-    private static EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Modos de inicialização do esquema (-Dbiblioteca.esquema): "atualizar" (padrão) deixa o
+     * Hibernate atualizar as tabelas e aplica as migrações; "validar" apenas confere as tabelas
+     * com as entidades; "nenhum" não inspeciona o esquema. Nos dois últimos nenhum DDL é
+     * executado e a inicialização falha se houver migrações pendentes.
+     */
+    private static final String ESQUEMA_ATUALIZAR = "atualizar";
+    private static final String ESQUEMA_VALIDAR = "validar";
+    private static final String ESQUEMA_NENHUM = "nenhum";
+
+    private static volatile EntityManagerFactory entityManagerFactory;
 
     // Construtor privado para evitar instanciação
     private JPAUtil() {
     }
 
+    /**
+     * O EntityManagerFactory, criado na primeira chamada. Depois de criado, é lido sem travas:
+     * cada operação dos repositórios passa por aqui.
+     */
     public static EntityManagerFactory getEntityManagerFactory() {
+        EntityManagerFactory fabrica = entityManagerFactory;
+        if (fabrica != null && fabrica.isOpen()) {
+            return fabrica;
+        }
+        return criarEntityManagerFactory();
+    }
+
+    private static synchronized EntityManagerFactory criarEntityManagerFactory() {
         if (entityManagerFactory == null || !entityManagerFactory.isOpen()) {
+            EntityManagerFactory fabrica = null;
             try {
-                entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+                String modoEsquema = modoEsquema();
+                long inicio = System.nanoTime();
+                fabrica = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME,
+                        propriedadesExternas(modoEsquema));
+                long criacao = System.nanoTime() - inicio;
+                if (ESQUEMA_ATUALIZAR.equals(modoEsquema)) {
+                    MigracaoEsquema.aplicar(fabrica);
+                } else {
+                    MigracaoEsquema.verificar(fabrica);
+                }
+                long total = System.nanoTime() - inicio;
+                MetricasRepositorio.iniciar();
+                // Só publicado com o esquema pronto, pois as leituras sem trava o usam de imediato
+                entityManagerFactory = fabrica;
+                LOG.info("Banco de dados pronto em {} ms (EntityManagerFactory {} ms, esquema \"{}\" {} ms), "
+                                + "{} ms após o início da JVM", total / 1_000_000, criacao / 1_000_000, modoEsquema,
+                        (total - criacao) / 1_000_000, ManagementFactory.getRuntimeMXBean().getUptime());
             } catch (Exception e) {
+                if (fabrica != null && fabrica.isOpen()) {
+                    fabrica.close();
+                }
                 System.err.println("Erro ao criar EntityManagerFactory: " + e.getMessage());
                 e.printStackTrace();
                 throw new RuntimeException("Falha na inicialização do EntityManagerFactory", e);
@@ -26,13 +84,117 @@ public class JPAUtil {
         return entityManagerFactory;
     }
 
+    /**
+     * Cria o EntityManagerFactory em uma thread separada, para que a aplicação exiba sua tela
+     * inicial enquanto se conecta ao banco, e em seguida executa o aquecimento das consultas.
+     * O futuro é concluído assim que o banco está pronto, sem esperar pelo aquecimento.
+     */
+    public static CompletableFuture<EntityManagerFactory> iniciarEmSegundoPlano() {
+        CompletableFuture<EntityManagerFactory> pronto = new CompletableFuture<>();
+        Thread.ofPlatform().name("biblioteca-inicializacao").daemon().start(() -> {
+            try {
+                pronto.complete(getEntityManagerFactory());
+            } catch (RuntimeException e) {
+                pronto.completeExceptionally(e);
+                return;
+            }
+            aquecer();
+        });
+        return pronto;
+    }
+
+    /**
+     * Executa as consultas que as telas fazem ao abrir e carrega os índices em memória, a menos
+     * que desligado com -Dbiblioteca.aquecimento=false. Falhas são apenas registradas.
+     */
+    public static void aquecer() {
+        if (!Aquecimento.isAtivo()) {
+            return;
+        }
+        try {
+            Aquecimento.executar();
+        } catch (RuntimeException e) {
+            LOG.warn("Erro no aquecimento das consultas", e);
+        }
+    }
+
     public static EntityManager getEntityManager() {
         return getEntityManagerFactory().createEntityManager();
     }
 
-    public static void closeEntityManagerFactory() {
+    /**
+     * Retorna as métricas atuais do pool de conexões (conexões ativas, ociosas,
+     * tempo de espera etc.), ou null se o pool ainda não foi inicializado.
+     */
+    public static EstatisticasPool getEstatisticasPool() {
+        return MetricasPool.obterEstatisticas();
+    }
+
+    /**
+     * Retorna acertos, falhas e inserções de cada região do cache de segundo nível
+     * (entidades e consultas) desde a inicialização.
+     */
+    public static List<EstatisticasCache> getEstatisticasCache() {
+        Statistics estatisticas = getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        List<EstatisticasCache> regioes = new ArrayList<>();
+        for (String regiao : estatisticas.getSecondLevelCacheRegionNames()) {
+            adicionarRegiao(regioes, regiao, estatisticas.getCacheRegionStatistics(regiao));
+        }
+        String regiaoConsultas = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+        adicionarRegiao(regioes, regiaoConsultas, estatisticas.getQueryRegionStatistics(regiaoConsultas));
+        return regioes;
+    }
+
+    /**
+     * Retorna chamadas, falhas, latência, linhas e comandos SQL de cada método dos
+     * repositórios, do maior para o menor tempo total.
+     */
+    public static List<EstatisticasMetodo> getEstatisticasRepositorios() {
+        return MetricasRepositorio.obterEstatisticas();
+    }
+
+    private static void adicionarRegiao(List<EstatisticasCache> regioes, String regiao,
+                                        CacheRegionStatistics estatisticas) {
+        if (estatisticas == null) {
+            return;
+        }
+        long emMemoria = estatisticas.getElementCountInMemory();
+        regioes.add(new EstatisticasCache(regiao, estatisticas.getHitCount(), estatisticas.getMissCount(),
+                estatisticas.getPutCount(), emMemoria < 0 ? -1 : emMemoria));
+    }
+
+    public static synchronized void closeEntityManagerFactory() {
         if (entityManagerFactory != null && entityManagerFactory.isOpen()) {
             entityManagerFactory.close();
         }
     }
+
+    private static String modoEsquema() {
+        String modo = System.getProperty("biblioteca.esquema", ESQUEMA_ATUALIZAR).trim().toLowerCase(Locale.ROOT);
+        if (!modo.equals(ESQUEMA_ATUALIZAR) && !modo.equals(ESQUEMA_VALIDAR) && !modo.equals(ESQUEMA_NENHUM)) {
+            throw new IllegalArgumentException("Modo de esquema inválido: " + modo
+                    + " (use atualizar, validar ou nenhum)");
+        }
+        return modo;
+    }
+
+    /**
+     * Permite sobrescrever qualquer propriedade do persistence.xml via propriedades de sistema
+     * (ex.: -Dhibernate.hikari.maximumPoolSize=20 ou -Djavax.persistence.jdbc.url=...).
+     * Nos modos de esquema sem DDL, o hbm2ddl é ajustado, a menos que informado explicitamente.
+     */
+    private static Map<String, String> propriedadesExternas(String modoEsquema) {
+        Map<String, String> propriedades = new HashMap<>();
+        if (ESQUEMA_VALIDAR.equals(modoEsquema)) {
+            propriedades.put("hibernate.hbm2ddl.auto", "validate");
+        } else if (ESQUEMA_NENHUM.equals(modoEsquema)) {
+            propriedades.put("hibernate.hbm2ddl.auto", "none");
+        }
+        for (String chave : System.getProperties().stringPropertyNames()) {
+            if (chave.startsWith("hibernate.") || chave.startsWith("javax.persistence.")) {
+                propriedades.put(chave, System.getProperty(chave));
+            }
+        }
+        return propriedades;
+    }
 }
@@ -1,142 +1,531 @@
 package repository;
 
 import model.Livro;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 
 public class LivroRepository {
 
+    private static final String ESPACO_ESTOQUE = "livros_estoque";
+
+    private static final String SQL_RETIRAR_EXEMPLAR =
+            "UPDATE livros SET quantidade_disponivel = quantidade_disponivel - 1, versao = versao + 1 " +
+            "WHERE id IN (:ids) AND quantidade_disponivel > 0";
+    private static final String SQL_DEVOLVER_EXEMPLARES =
+            "UPDATE livros SET quantidade_disponivel = quantidade_disponivel + :quantidade, versao = versao + 1 " +
+            "WHERE id IN (:ids)";
+    private static final IndiceLivros INDICE = new IndiceLivros(LivroRepository::carregarIndice);
+    private static final IndicePrefixo SUGESTOES = new IndicePrefixo(LivroRepository::carregarSugestoes);
+
     public Livro salvar(Livro livro) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            em.persist(livro);
-            em.getTransaction().commit();
-            return livro;
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
-            throw new RuntimeException("Erro ao salvar livro: " + e.getMessage(), e);
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("LivroRepository.salvar", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                em.persist(livro);
+                em.getTransaction().commit();
+                INDICE.indexar(livro);
+                indexarSugestao(livro);
+                return livro;
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new RuntimeException("Erro ao salvar livro: " + e.getMessage(), e);
+            } finally {
+                em.close();
+            }
+        });
     }
+    /**
+     * Grava as alterações de um livro lido anteriormente. Se o livro foi alterado depois da
+     * leitura (inclusive por empréstimos e devoluções), nada é gravado e é lançada
+     * {@link ConflitoDeVersaoException}.
+     */
     public Livro atualizar(Livro livro) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            Livro livroAtualizado = em.merge(livro);
-            em.getTransaction().commit();
-            return livroAtualizado;
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
-            throw new RuntimeException("Erro ao atualizar livro: " + e.getMessage(), e);
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("LivroRepository.atualizar", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                Livro livroAtualizado = em.merge(livro);
+                em.getTransaction().commit();
+                INDICE.indexar(livroAtualizado);
+                indexarSugestao(livroAtualizado);
+                return livroAtualizado;
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                if (ConflitoDeVersaoException.causouConflito(e)) {
+                    // A próxima leitura deve vir do banco, não de uma cópia desatualizada no cache
+                    em.getEntityManagerFactory().getCache().evict(Livro.class, livro.getId());
+                    throw new ConflitoDeVersaoException("O livro foi alterado por outra operação: "
+                            + livro.getTitulo(), e);
+                }
+                throw new RuntimeException("Erro ao atualizar livro: " + e.getMessage(), e);
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public void remover(Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            Livro livro = em.find(Livro.class, id);
-            if (livro != null) {
-                em.remove(livro);
+        MetricasRepositorio.medir("LivroRepository.remover", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                Livro livro = em.find(Livro.class, id);
+                if (livro != null) {
+                    em.remove(livro);
+                }
+                em.getTransaction().commit();
+                INDICE.remover(id);
+                SUGESTOES.remover(id);
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new RuntimeException("Erro ao remover livro: " + e.getMessage(), e);
+            } finally {
+                em.close();
             }
-            em.getTransaction().commit();
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
-            throw new RuntimeException("Erro ao remover livro: " + e.getMessage(), e);
-        } finally {
-            em.close();
-        }
+        });
     }
 
     public Livro buscarPorId(Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            return em.find(Livro.class, id);
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("LivroRepository.buscarPorId", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return em.find(Livro.class, id);
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public Livro buscarPorIsbn(String isbn) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            TypedQuery<Livro> query = em.createQuery(
-                    "SELECT l FROM Livro l WHERE l.isbn = :isbn", Livro.class);
-            query.setParameter("isbn", isbn);
-            List<Livro> resultados = query.getResultList();
-            return resultados.isEmpty() ? null : resultados.get(0);
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("LivroRepository.buscarPorIsbn", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Livro> query = em.createQuery(
+                        "SELECT l FROM Livro l WHERE l.isbn = :isbn", Livro.class);
+                query.setParameter("isbn", isbn);
+                query.setHint(QueryHints.HINT_CACHEABLE, true);
+                List<Livro> resultados = query.getResultList();
+                return resultados.isEmpty() ? null : resultados.get(0);
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public List<Livro> listarTodos() {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            TypedQuery<Livro> query = em.createQuery("SELECT l FROM Livro l ORDER BY l.titulo", Livro.class);
-            return query.getResultList();
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("LivroRepository.listarTodos", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Livro> query = em.createQuery("SELECT l FROM Livro l ORDER BY l.titulo", Livro.class);
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public List<Livro> listarDisponiveis() {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            TypedQuery<Livro> query = em.createQuery(
-                    "SELECT l FROM Livro l WHERE l.quantidadeDisponivel > 0 ORDER BY l.titulo", Livro.class);
-            return query.getResultList();
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("LivroRepository.listarDisponiveis", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Livro> query = em.createQuery(
+                        "SELECT l FROM Livro l WHERE l.quantidadeDisponivel > 0 ORDER BY l.titulo", Livro.class);
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
     }
 
+    /**
+     * Busca pelo índice em memória: termos sem acento e sem diferenciar maiúsculas,
+     * comparados por prefixo. Os livros vêm ordenados por relevância.
+     */
     public List<Livro> buscarPorTitulo(String titulo) {
+        return MetricasRepositorio.medir("LivroRepository.buscarPorTitulo",
+                () -> buscarPorIds(INDICE.buscar(IndiceLivros.Campo.TITULO, titulo)));
+    }
+
+    /**
+     * Indica se a busca por título {@code nova} pode ser refeita em memória, com
+     * {@link #refinarPorTitulo}, sobre o resultado completo da busca {@code anterior}.
+     */
+    public boolean refinaBuscaPorTitulo(String anterior, String nova) {
+        return IndiceLivros.refina(anterior, nova);
+    }
+
+    /**
+     * Aplica a busca por título a livros já carregados, sem consultar o índice nem o banco.
+     */
+    public List<Livro> refinarPorTitulo(List<Livro> livros, String titulo) {
+        return IndiceLivros.filtrarPorTitulo(livros, titulo);
+    }
+
+    public List<Livro> buscarPorAutor(String autor) {
+        return MetricasRepositorio.medir("LivroRepository.buscarPorAutor",
+                () -> buscarPorIds(INDICE.buscar(IndiceLivros.Campo.AUTOR, autor)));
+    }
+
+    public List<Livro> buscarPorTema(String tema) {
+        return MetricasRepositorio.medir("LivroRepository.buscarPorTema",
+                () -> buscarPorIds(INDICE.buscar(IndiceLivros.Campo.TEMA, tema)));
+    }
+
+    /**
+     * Busca em título, autor e tema ao mesmo tempo.
+     */
+    public List<Livro> buscar(String texto) {
+        return MetricasRepositorio.medir("LivroRepository.buscar", () -> buscarPorIds(INDICE.buscar(texto)));
+    }
+
+    /**
+     * Descarta o índice de busca; ele é reconstruído na próxima busca.
+     * Deve ser chamado após alterações feitas diretamente no banco.
+     */
+    public void invalidarIndice() {
+        MetricasRepositorio.medir("LivroRepository.invalidarIndice", () -> {
+            INDICE.invalidar();
+            SUGESTOES.invalidar();
+        });
+    }
+
+    /**
+     * Sugestões de livros para o texto digitado, por prefixo do título ou do ISBN (com ou sem
+     * hífens), a partir do índice em memória.
+     *
+     * @param limite quantidade máxima de sugestões
+     */
+    public List<Sugestao> sugerir(String texto, int limite) {
+        return MetricasRepositorio.medir("LivroRepository.sugerir", () -> SUGESTOES.buscar(texto, limite));
+    }
+
+    /**
+     * Carrega o índice de sugestões, se ainda não estiver carregado.
+     */
+    public void prepararSugestoes() {
+        MetricasRepositorio.medir("LivroRepository.prepararSugestoes", () -> SUGESTOES.carregar());
+    }
+
+    /**
+     * Carrega o índice de busca por título, autor e tema, se ainda não estiver carregado.
+     */
+    public void prepararBusca() {
+        MetricasRepositorio.medir("LivroRepository.prepararBusca", () -> INDICE.preparar());
+    }
+
+    /**
+     * Retorna o conjunto de ISBNs já cadastrados, lido em uma única consulta.
+     */
+    public Set<String> listarIsbns() {
+        return MetricasRepositorio.medir("LivroRepository.listarIsbns", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return new HashSet<>(em.createQuery("SELECT l.isbn FROM Livro l", String.class).getResultList());
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Insere um lote de livros em uma única transação, usando um lote JDBC.
+     * Os IDs gerados por IDENTITY impedem o Hibernate de agrupar os INSERTs de persist(),
+     * por isso o lote é montado diretamente sobre a conexão da sessão. Os livros inseridos
+     * não ficam associados a nenhum EntityManager e seus IDs não são preenchidos; após a
+     * importação, chame {@link #concluirImportacao()}.
+     */
+    public void inserirEmLote(List<Livro> livros) {
+        MetricasRepositorio.medir("LivroRepository.inserirEmLote", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                em.unwrap(Session.class).doWork(conexao -> {
+                    try (PreparedStatement ps = conexao.prepareStatement(
+                            "INSERT INTO livros (titulo, tema, autor, isbn, data_publicacao, quantidade_disponivel) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)")) {
+                        for (Livro livro : livros) {
+                            ps.setString(1, livro.getTitulo());
+                            ps.setString(2, livro.getTema());
+                            ps.setString(3, livro.getAutor());
+                            ps.setString(4, livro.getIsbn());
+                            ps.setDate(5, Date.valueOf(livro.getDataPublicacao()));
+                            ps.setInt(6, livro.getQuantidadeDisponivel());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                });
+                em.getTransaction().commit();
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new RuntimeException("Erro ao importar livros: " + e.getMessage(), e);
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Atualiza o índice de busca e descarta os resultados de consultas em cache (ex.: uma busca
+     * por ISBN que não encontrou nada), já que os INSERTs em lote não passam pelo Hibernate.
+     */
+    public void concluirImportacao() {
+        MetricasRepositorio.medir("LivroRepository.concluirImportacao", () -> {
+            INDICE.invalidar();
+            SUGESTOES.invalidar();
+            JPAUtil.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+        });
+    }
+
+    /**
+     * Carrega os livros pela chave primária, preservando a ordem dos IDs informados.
+     */
+    private List<Livro> buscarPorIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<Livro> query = em.createQuery(
-                    "SELECT l FROM Livro l WHERE LOWER(l.titulo) LIKE LOWER(:titulo) ORDER BY l.titulo", Livro.class);
-            query.setParameter("titulo", "%" + titulo + "%");
-            return query.getResultList();
+            List<Livro> livros = em.unwrap(Session.class).byMultipleIds(Livro.class).multiLoad(ids);
+            livros.removeIf(Objects::isNull);
+            return livros;
         } finally {
             em.close();
         }
     }
 
-    public List<Livro> buscarPorAutor(String autor) {
+    private static void carregarIndice(IndiceLivros indice) {
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<Livro> query = em.createQuery(
-                    "SELECT l FROM Livro l WHERE LOWER(l.autor) LIKE LOWER(:autor) ORDER BY l.titulo", Livro.class);
-            query.setParameter("autor", "%" + autor + "%");
-            return query.getResultList();
+            List<Object[]> linhas = em.createQuery(
+                    "SELECT l.id, l.titulo, l.autor, l.tema FROM Livro l", Object[].class).getResultList();
+            for (Object[] linha : linhas) {
+                indice.indexar((Long) linha[0], (String) linha[1], (String) linha[2], (String) linha[3]);
+            }
         } finally {
             em.close();
         }
     }
 
-    public List<Livro> buscarPorTema(String tema) {
+    private static void indexarSugestao(Livro livro) {
+        SUGESTOES.indexar(livro.getId(), rotuloSugestao(livro.getTitulo(), livro.getAutor(), livro.getIsbn()),
+                livro.getTitulo(), livro.getIsbn());
+    }
+
+    private static String rotuloSugestao(String titulo, String autor, String isbn) {
+        return titulo + " - " + autor + " (ISBN " + isbn + ")";
+    }
+
+    private static List<IndicePrefixo.Entrada> carregarSugestoes() {
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<Livro> query = em.createQuery(
-                    "SELECT l FROM Livro l WHERE LOWER(l.tema) LIKE LOWER(:tema) ORDER BY l.titulo", Livro.class);
-            query.setParameter("tema", "%" + tema + "%");
-            return query.getResultList();
+            List<Object[]> linhas = em.createQuery(
+                    "SELECT l.id, l.titulo, l.autor, l.isbn FROM Livro l", Object[].class).getResultList();
+            List<IndicePrefixo.Entrada> entradas = new ArrayList<>(linhas.size());
+            for (Object[] linha : linhas) {
+                String titulo = (String) linha[1];
+                String isbn = (String) linha[3];
+                entradas.add(new IndicePrefixo.Entrada((Long) linha[0],
+                        rotuloSugestao(titulo, (String) linha[2], isbn), titulo, isbn));
+            }
+            return entradas;
         } finally {
             em.close();
         }
     }
+
+    public Livro buscarPorId(UnidadeDeTrabalho uow, Long id) {
+        return MetricasRepositorio.medir("LivroRepository.buscarPorId(uow)",
+                () -> uow.getEntityManager().find(Livro.class, id));
+    }
+
+    /**
+     * Retira um exemplar do estoque com uma atualização condicional, sem ler-modificar-gravar.
+     * A linha só é alterada se ainda houver exemplar disponível, o que impede que duas
+     * transações concorrentes emprestem o último exemplar.
+     *
+     * @return true se um exemplar foi retirado; false se o livro não existe ou está sem estoque
+     */
+    public boolean decrementarQuantidade(UnidadeDeTrabalho uow, Long id) {
+        return MetricasRepositorio.medir("LivroRepository.decrementarQuantidade(uow)",
+                () -> atualizarEstoque(uow, SQL_RETIRAR_EXEMPLAR, List.of(id), null) == 1);
+    }
+
+    /**
+     * Retira um exemplar de cada livro informado com uma única atualização condicional,
+     * como em {@link #decrementarQuantidade(UnidadeDeTrabalho, Long)}.
+     *
+     * @return quantidade de livros dos quais um exemplar foi retirado; se for menor que a de
+     * ids informados, algum livro não existe ou está sem estoque
+     */
+    public int decrementarQuantidades(UnidadeDeTrabalho uow, Collection<Long> ids) {
+        return MetricasRepositorio.medir("LivroRepository.decrementarQuantidades(uow)",
+                () -> atualizarEstoque(uow, SQL_RETIRAR_EXEMPLAR, ids, null));
+    }
+
+    /**
+     * Devolve um exemplar ao estoque com uma atualização atômica no banco.
+     */
+    public void incrementarQuantidade(UnidadeDeTrabalho uow, Long id) {
+        MetricasRepositorio.medir("LivroRepository.incrementarQuantidade(uow)", () -> {
+            atualizarEstoque(uow, SQL_DEVOLVER_EXEMPLARES, List.of(id), 1);
+        });
+    }
+
+    /**
+     * Devolve ao estoque os exemplares informados (quantidade por livro), com uma atualização
+     * para cada quantidade distinta; na devolução de livros diferentes, uma única atualização.
+     */
+    public void incrementarQuantidades(UnidadeDeTrabalho uow, Map<Long, Integer> exemplaresPorLivro) {
+        MetricasRepositorio.medir("LivroRepository.incrementarQuantidades(uow)", () -> {
+            Map<Integer, List<Long>> livrosPorQuantidade = new HashMap<>();
+            exemplaresPorLivro.forEach((id, quantidade) ->
+                    livrosPorQuantidade.computeIfAbsent(quantidade, q -> new ArrayList<>()).add(id));
+            livrosPorQuantidade.forEach((quantidade, ids) ->
+                    atualizarEstoque(uow, SQL_DEVOLVER_EXEMPLARES, ids, quantidade));
+        });
+    }
+
+    /**
+     * Busca os livros informados bloqueando suas linhas até o fim da transação. As linhas são
+     * bloqueadas na ordem dos ids, para que empréstimos em lote simultâneos não entrem em deadlock.
+     */
+    public List<Livro> buscarPorIdsParaAtualizacao(UnidadeDeTrabalho uow, Collection<Long> ids) {
+        return MetricasRepositorio.medir("LivroRepository.buscarPorIdsParaAtualizacao(uow)",
+                () -> uow.getEntityManager()
+                        .createQuery("SELECT l FROM Livro l WHERE l.id IN :ids ORDER BY l.id", Livro.class)
+                        .setParameter("ids", ids)
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                        .getResultList());
+    }
+
+    /**
+     * Relê do banco o estado de livros já carregados na unidade de trabalho. Necessário depois
+     * das atualizações de estoque, que são nativas e não alteram as entidades em memória.
+     */
+    public void recarregar(UnidadeDeTrabalho uow, Collection<Livro> livros) {
+        MetricasRepositorio.medir("LivroRepository.recarregar(uow)", () -> {
+            EntityManager em = uow.getEntityManager();
+            for (Livro livro : livros) {
+                em.refresh(livro);
+            }
+        });
+    }
+
+    /**
+     * Executa a atualização de estoque invalidando no cache de segundo nível apenas o livro
+     * alterado. Uma atualização em massa via JPQL descartaria todos os livros do cache a
+     * cada empréstimo; por isso a consulta é nativa e sincronizada com um espaço próprio,
+     * que não corresponde a nenhuma entidade. A invalidação é repetida após a confirmação,
+     * pois outra transação pode recolocar o valor antigo no cache antes dela.
+     */
+    private int atualizarEstoque(UnidadeDeTrabalho uow, String sql, Collection<Long> ids, Integer quantidade) {
+        EntityManager em = uow.getEntityManager();
+        NativeQuery<?> query = em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(ESPACO_ESTOQUE)
+                .setParameterList("ids", ids);
+        if (quantidade != null) {
+            query.setParameter("quantidade", quantidade);
+        }
+        int alterados = query.executeUpdate();
+        if (alterados > 0) {
+            Cache cache = em.getEntityManagerFactory().getCache();
+            for (Long id : ids) {
+                cache.evict(Livro.class, id);
+            }
+            uow.aposConfirmar(() -> {
+                for (Long id : ids) {
+                    cache.evict(Livro.class, id);
+                }
+            });
+        }
+        return alterados;
+    }
+
+    /**
+     * Lista uma página de livros ordenada por (título, id), a partir do cursor informado.
+     * O custo de cada página é constante, independente de quantas páginas já foram lidas.
+     *
+     * @param tituloApos título do último livro da página anterior (null para a primeira página)
+     * @param idApos id do último livro da página anterior (null para a primeira página)
+     * @param tamanho quantidade de livros por página (limitada a Paginacao.TAMANHO_MAXIMO)
+     */
+    public List<Livro> listarPagina(String tituloApos, Long idApos, int tamanho) {
+        return MetricasRepositorio.medir("LivroRepository.listarPagina", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Livro> query;
+                if (tituloApos == null || idApos == null) {
+                    query = em.createQuery("SELECT l FROM Livro l ORDER BY l.titulo, l.id", Livro.class);
+                } else {
+                    query = em.createQuery(
+                            "SELECT l FROM Livro l WHERE l.titulo > :titulo OR (l.titulo = :titulo AND l.id > :id) " +
+                            "ORDER BY l.titulo, l.id", Livro.class);
+                    query.setParameter("titulo", tituloApos);
+                    query.setParameter("id", idApos);
+                }
+                query.setMaxResults(Paginacao.limitar(tamanho));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Lista livros a partir de uma posição, na mesma ordem de {@link #listarPagina}.
+     * Usado apenas quando o cursor da página anterior não é conhecido (saltos na rolagem).
+     */
+    public List<Livro> listarPorPosicao(int inicio, int tamanho) {
+        return MetricasRepositorio.medir("LivroRepository.listarPorPosicao", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Livro> query = em.createQuery("SELECT l FROM Livro l ORDER BY l.titulo, l.id", Livro.class);
+                query.setFirstResult(inicio);
+                query.setMaxResults(Paginacao.limitar(tamanho));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    public long contarTodos() {
+        return MetricasRepositorio.medir("LivroRepository.contarTodos", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return em.createQuery("SELECT COUNT(l) FROM Livro l", Long.class).getSingleResult();
+            } finally {
+                em.close();
+            }
+        });
+    }
 }
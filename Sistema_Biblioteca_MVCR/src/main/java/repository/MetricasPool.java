@@ -0,0 +1,97 @@
+package repository;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Coleta métricas do pool de conexões (HikariCP).
+ * É instanciada pelo próprio Hikari a partir da propriedade
+ * {@code hibernate.hikari.metricsTrackerFactory} do persistence.xml.
+ */
+public class MetricasPool implements MetricsTrackerFactory {
+
+    private static volatile Rastreador rastreadorAtual;
+
+    @Override
+    public IMetricsTracker create(String nomePool, PoolStats poolStats) {
+        Rastreador rastreador = new Rastreador(nomePool, poolStats);
+        rastreadorAtual = rastreador;
+        return rastreador;
+    }
+
+    /**
+     * Retorna um retrato das métricas do pool ativo, ou null se o pool ainda não foi criado.
+     */
+    public static EstatisticasPool obterEstatisticas() {
+        Rastreador rastreador = rastreadorAtual;
+        return rastreador == null ? null : rastreador.retrato();
+    }
+
+    private static class Rastreador implements IMetricsTracker {
+        private final String nomePool;
+        private final PoolStats poolStats;
+
+        private final AtomicLong aquisicoes = new AtomicLong();
+        private final AtomicLong esperaTotalNanos = new AtomicLong();
+        private final LongAccumulator esperaMaximaNanos = new LongAccumulator(Long::max, 0);
+        private final AtomicLong usoTotalMillis = new AtomicLong();
+        private final LongAccumulator usoMaximoMillis = new LongAccumulator(Long::max, 0);
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong conexoesCriadas = new AtomicLong();
+
+        Rastreador(String nomePool, PoolStats poolStats) {
+            this.nomePool = nomePool;
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long millis) {
+            conexoesCriadas.incrementAndGet();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long nanos) {
+            aquisicoes.incrementAndGet();
+            esperaTotalNanos.addAndGet(nanos);
+            esperaMaximaNanos.accumulate(nanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long millis) {
+            usoTotalMillis.addAndGet(millis);
+            usoMaximoMillis.accumulate(millis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.incrementAndGet();
+        }
+
+        EstatisticasPool retrato() {
+            long total = aquisicoes.get();
+            double esperaMedia = total == 0 ? 0
+                    : (double) esperaTotalNanos.get() / total / TimeUnit.MILLISECONDS.toNanos(1);
+            double usoMedio = total == 0 ? 0 : (double) usoTotalMillis.get() / total;
+            return new EstatisticasPool(
+                    nomePool,
+                    poolStats.getActiveConnections(),
+                    poolStats.getIdleConnections(),
+                    poolStats.getTotalConnections(),
+                    poolStats.getPendingThreads(),
+                    poolStats.getMaxConnections(),
+                    total,
+                    esperaMedia,
+                    (double) esperaMaximaNanos.get() / TimeUnit.MILLISECONDS.toNanos(1),
+                    usoMedio,
+                    usoMaximoMillis.get(),
+                    timeouts.get(),
+                    conexoesCriadas.get()
+            );
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package repository;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Métricas por método de repositório: chamadas, falhas, histograma de latência, linhas
+ * retornadas e comandos SQL emitidos (contados pelo {@link InspetorSql}, inclusive os de
+ * métodos chamados por outros métodos medidos). Cada método público dos repositórios passa
+ * sua operação por {@link #medir}.
+ * <p>
+ * As métricas ficam disponíveis em {@link JPAUtil#getEstatisticasRepositorios()}, via JMX
+ * (biblioteca:type=MetricasRepositorio) e em um resumo periódico no console com os métodos
+ * que mais consumiram tempo no intervalo. O intervalo é ajustado com
+ * -Dbiblioteca.metricas.intervalo, em minutos (padrão: 5; 0 desliga o resumo).
+ * <p>
+ * O eco dos comandos SQL no console fica desligado; pode ser ligado com -Dbiblioteca.sql.eco=true
+ * ou, com a aplicação em execução, pelo atributo EcoSql no JMX.
+ */
+public final class MetricasRepositorio implements MetricasRepositorioMBean {
+
+    /** Limites superiores (em microssegundos) das faixas do histograma de latência. */
+    static final long[] LIMITES_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000};
+
+    private static final long INTERVALO_RESUMO_MINUTOS = Long.getLong("biblioteca.metricas.intervalo", 5);
+    private static final int METODOS_NO_RESUMO = 10;
+    private static final String NOME_JMX = "biblioteca:type=MetricasRepositorio";
+
+    private static final ConcurrentMap<String, Metrica> METRICAS = new ConcurrentHashMap<>();
+    private static final Map<String, EstatisticasMetodo> ULTIMO_RESUMO = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Medicao> MEDICAO_ATUAL = new ThreadLocal<>();
+    private static final AtomicBoolean INICIADO = new AtomicBoolean();
+    private static volatile boolean ecoSql = Boolean.getBoolean("biblioteca.sql.eco");
+
+    private MetricasRepositorio() {
+    }
+
+    /**
+     * Executa a operação medindo-a como o método informado (ex.: "LivroRepository.salvar").
+     * As linhas retornadas são o tamanho da coleção devolvida, ou 1 para um único resultado.
+     */
+    public static <T> T medir(String metodo, Supplier<T> operacao) {
+        return medir(metodo, operacao, MetricasRepositorio::contarLinhas);
+    }
+
+    /**
+     * Como {@link #medir(String, Supplier)}, com as linhas calculadas a partir do resultado
+     * (ex.: a quantidade de registros percorridos por um cursor).
+     */
+    public static <T> T medir(String metodo, Supplier<T> operacao, ToLongFunction<? super T> linhas) {
+        Medicao anterior = MEDICAO_ATUAL.get();
+        Medicao medicao = new Medicao(metodo);
+        MEDICAO_ATUAL.set(medicao);
+        long inicio = System.nanoTime();
+        boolean sucesso = false;
+        T resultado = null;
+        try {
+            resultado = operacao.get();
+            sucesso = true;
+            return resultado;
+        } finally {
+            long duracao = System.nanoTime() - inicio;
+            if (anterior == null) {
+                MEDICAO_ATUAL.remove();
+            } else {
+                MEDICAO_ATUAL.set(anterior);
+                anterior.comandosSql += medicao.comandosSql;
+            }
+            METRICAS.computeIfAbsent(metodo, Metrica::new)
+                    .registrar(duracao, sucesso ? linhas.applyAsLong(resultado) : 0, medicao.comandosSql, sucesso);
+        }
+    }
+
+    public static void medir(String metodo, Runnable operacao) {
+        medir(metodo, () -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    /**
+     * Conta um comando SQL no método em execução na thread atual e o exibe, se o eco estiver ligado.
+     */
+    static void registrarSql(String sql) {
+        Medicao medicao = MEDICAO_ATUAL.get();
+        if (medicao != null) {
+            medicao.comandosSql++;
+        }
+        if (ecoSql) {
+            System.out.println("SQL [" + (medicao == null ? "-" : medicao.metodo) + "] " + sql);
+        }
+    }
+
+    /**
+     * Métricas acumuladas de cada método desde o início (ou desde {@link #zerar()}),
+     * do maior para o menor tempo total.
+     */
+    public static List<EstatisticasMetodo> obterEstatisticas() {
+        List<EstatisticasMetodo> estatisticas = new ArrayList<>();
+        for (Metrica metrica : METRICAS.values()) {
+            estatisticas.add(metrica.retrato());
+        }
+        estatisticas.sort(Comparator.comparingLong(EstatisticasMetodo::tempoTotalNanos).reversed());
+        return estatisticas;
+    }
+
+    public static boolean isEcoSqlLigado() {
+        return ecoSql;
+    }
+
+    public static void setEcoSqlLigado(boolean ligado) {
+        ecoSql = ligado;
+    }
+
+    /**
+     * Registra o MBean e agenda o resumo periódico; chamado na criação do EntityManagerFactory.
+     * Chamadas seguintes não têm efeito.
+     */
+    static void iniciar() {
+        if (!INICIADO.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricasRepositorio(), new ObjectName(NOME_JMX));
+        } catch (JMException e) {
+            System.err.println("Erro ao registrar métricas dos repositórios no JMX: " + e.getMessage());
+        }
+        if (INTERVALO_RESUMO_MINUTOS > 0) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("biblioteca-metricas").daemon().factory());
+            executor.scheduleAtFixedRate(MetricasRepositorio::exibirResumo,
+                    INTERVALO_RESUMO_MINUTOS, INTERVALO_RESUMO_MINUTOS, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Exibe os métodos que mais consumiram tempo desde o resumo anterior; nada é exibido
+     * se nenhum método foi chamado no intervalo.
+     */
+    private static void exibirResumo() {
+        List<EstatisticasMetodo> intervalo = new ArrayList<>();
+        long chamadas = 0;
+        long comandosSql = 0;
+        for (Metrica metrica : METRICAS.values()) {
+            EstatisticasMetodo atual = metrica.retrato();
+            EstatisticasMetodo desde = atual.desde(ULTIMO_RESUMO.put(atual.metodo(), atual),
+                    metrica.maximoNoIntervalo.getThenReset());
+            if (desde.chamadas() > 0) {
+                intervalo.add(desde);
+                chamadas += desde.chamadas();
+                comandosSql += desde.comandosSql();
+            }
+        }
+        if (intervalo.isEmpty()) {
+            return;
+        }
+        intervalo.sort(Comparator.comparingLong(EstatisticasMetodo::tempoTotalNanos).reversed());
+        StringBuilder resumo = new StringBuilder(String.format(
+                "Métricas dos repositórios (últimos %d min): %d chamadas, %d comandos SQL",
+                INTERVALO_RESUMO_MINUTOS, chamadas, comandosSql));
+        for (EstatisticasMetodo estatisticas : intervalo.subList(0, Math.min(METODOS_NO_RESUMO, intervalo.size()))) {
+            resumo.append(System.lineSeparator()).append("  ").append(estatisticas);
+        }
+        System.out.println(resumo);
+    }
+
+    private static long contarLinhas(Object resultado) {
+        if (resultado == null) {
+            return 0;
+        }
+        if (resultado instanceof Collection<?> colecao) {
+            return colecao.size();
+        }
+        if (resultado instanceof Map<?, ?> mapa) {
+            return mapa.size();
+        }
+        return 1;
+    }
+
+    @Override
+    public String[] getMetodos() {
+        List<EstatisticasMetodo> estatisticas = obterEstatisticas();
+        String[] linhas = new String[estatisticas.size()];
+        for (int i = 0; i < linhas.length; i++) {
+            linhas[i] = estatisticas.get(i).toString();
+        }
+        return linhas;
+    }
+
+    @Override
+    public long getTotalChamadas() {
+        long total = 0;
+        for (Metrica metrica : METRICAS.values()) {
+            total += metrica.chamadas.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalComandosSql() {
+        long total = 0;
+        for (Metrica metrica : METRICAS.values()) {
+            total += metrica.comandosSql.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public boolean isEcoSql() {
+        return isEcoSqlLigado();
+    }
+
+    @Override
+    public void setEcoSql(boolean ecoSql) {
+        setEcoSqlLigado(ecoSql);
+    }
+
+    @Override
+    public void zerar() {
+        METRICAS.clear();
+        ULTIMO_RESUMO.clear();
+    }
+
+    /**
+     * Chamada em andamento na thread atual; acumula os comandos SQL emitidos durante ela.
+     */
+    private static final class Medicao {
+        private final String metodo;
+        private long comandosSql;
+
+        private Medicao(String metodo) {
+            this.metodo = metodo;
+        }
+    }
+
+    private static final class Metrica {
+        private final String metodo;
+        private final LongAdder chamadas = new LongAdder();
+        private final LongAdder falhas = new LongAdder();
+        private final LongAdder tempoTotalNanos = new LongAdder();
+        private final LongAccumulator tempoMaximoNanos = new LongAccumulator(Long::max, 0);
+        private final LongAccumulator maximoNoIntervalo = new LongAccumulator(Long::max, 0);
+        private final LongAdder linhas = new LongAdder();
+        private final LongAdder comandosSql = new LongAdder();
+        private final LongAdder[] histograma = new LongAdder[LIMITES_MICROS.length + 1];
+
+        private Metrica(String metodo) {
+            this.metodo = metodo;
+            for (int i = 0; i < histograma.length; i++) {
+                histograma[i] = new LongAdder();
+            }
+        }
+
+        private void registrar(long nanos, long linhasRetornadas, long comandos, boolean sucesso) {
+            chamadas.increment();
+            if (!sucesso) {
+                falhas.increment();
+            }
+            tempoTotalNanos.add(nanos);
+            tempoMaximoNanos.accumulate(nanos);
+            maximoNoIntervalo.accumulate(nanos);
+            linhas.add(linhasRetornadas);
+            comandosSql.add(comandos);
+            long micros = nanos / 1_000;
+            int faixa = 0;
+            while (faixa < LIMITES_MICROS.length && micros > LIMITES_MICROS[faixa]) {
+                faixa++;
+            }
+            histograma[faixa].increment();
+        }
+
+        private EstatisticasMetodo retrato() {
+            long[] contagens = new long[histograma.length];
+            for (int i = 0; i < histograma.length; i++) {
+                contagens[i] = histograma[i].sum();
+            }
+            return new EstatisticasMetodo(metodo, chamadas.sum(), falhas.sum(), tempoTotalNanos.sum(),
+                    tempoMaximoNanos.get(), linhas.sum(), comandosSql.sum(), contagens);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package repository;
+
+/**
+ * Visão JMX das métricas dos repositórios (biblioteca:type=MetricasRepositorio).
+ */
+public interface MetricasRepositorioMBean {
+
+    /**
+     * Uma linha por método, do maior para o menor tempo total.
+     */
+    String[] getMetodos();
+
+    long getTotalChamadas();
+
+    long getTotalComandosSql();
+
+    /**
+     * Se cada comando SQL emitido é exibido no console, com o método que o emitiu.
+     */
+    boolean isEcoSql();
+
+    void setEcoSql(boolean ecoSql);
+
+    /**
+     * Descarta as métricas acumuladas até agora.
+     */
+    void zerar();
+}
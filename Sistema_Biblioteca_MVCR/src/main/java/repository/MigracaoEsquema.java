@@ -0,0 +1,286 @@
+package repository;
+
+import model.Emprestimo;
+import model.Livro;
+import model.Usuario;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Migrações versionadas do esquema, aplicadas na inicialização, logo após a criação do
+ * EntityManagerFactory. A versão aplicada fica registrada na tabela esquema_versao, de
+ * modo que cada migração roda uma única vez por banco; ainda assim, as migrações verificam
+ * o que já existe antes de alterar o esquema, pois o hbm2ddl (quando ativo) pode ter se
+ * antecipado.
+ * <p>
+ * Em MySQL, após as migrações, os planos das consultas mais frequentes são conferidos com
+ * EXPLAIN e um aviso é emitido para as que percorrem a tabela inteira.
+ */
+final class MigracaoEsquema {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MigracaoEsquema.class);
+
+    private static final String TABELA_CONTROLE = "esquema_versao";
+
+    private static final List<Migracao> MIGRACOES = List.of(
+            new Migracao(1, "Índices das consultas de empréstimos, usuários e livros",
+                    MigracaoEsquema::criarIndicesDasEntidades),
+            new Migracao(2, "Contadores de empréstimos ativos por usuário",
+                    MigracaoEsquema::criarContadoresDeEmprestimos),
+            new Migracao(3, "Varredura diária de atrasos",
+                    MigracaoEsquema::criarControleDeAtrasos),
+            new Migracao(4, "Versão de livros e usuários para controle de concorrência otimista",
+                    MigracaoEsquema::criarColunasDeVersao)
+    );
+
+    /**
+     * Consultas críticas conferidas com EXPLAIN (os parâmetros são valores de exemplo).
+     */
+    private static final String[][] CONSULTAS_VERIFICADAS = {
+            {"listarAtrasados",
+                    "SELECT id FROM emprestimos WHERE ativo = 1 AND data_devolucao_prevista < CURRENT_DATE"},
+            {"contarEmprestimosAtivos",
+                    "SELECT COUNT(*) FROM emprestimos WHERE usuario_id = 1 AND ativo = 1"},
+            {"buscarProximaDevolucao",
+                    "SELECT MIN(data_devolucao_prevista) FROM emprestimos WHERE usuario_id = 1 AND ativo = 1"},
+            {"listarHistoricoPorUsuario",
+                    "SELECT id FROM emprestimos WHERE usuario_id = 1 ORDER BY data_emprestimo DESC"},
+            {"listarPorLivro",
+                    "SELECT id FROM emprestimos WHERE livro_id = 1 ORDER BY data_emprestimo DESC"},
+            {"buscarPorNome (prefixo)",
+                    "SELECT id FROM usuarios WHERE nome LIKE 'Ana%' ORDER BY nome, id"}
+    };
+
+    private MigracaoEsquema() {
+    }
+
+    static void aplicar(EntityManagerFactory entityManagerFactory) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.unwrap(Session.class).doWork(conexao -> {
+                criarTabelaControle(conexao);
+                int versaoAtual = versaoAtual(conexao);
+                for (Migracao migracao : MIGRACOES) {
+                    if (migracao.versao() > versaoAtual) {
+                        long inicio = System.nanoTime();
+                        migracao.acao().aplicar(conexao);
+                        registrar(conexao, migracao);
+                        LOG.info("Migração {} aplicada ({}) em {} ms", migracao.versao(), migracao.descricao(),
+                                (System.nanoTime() - inicio) / 1_000_000);
+                    }
+                }
+                if (conexao.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql")) {
+                    verificarPlanos(conexao);
+                }
+            });
+            em.getTransaction().commit();
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw new RuntimeException("Erro ao migrar o esquema do banco: " + e.getMessage(), e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Confere, sem alterar o esquema, se todas as migrações já foram aplicadas. Usado nos modos
+     * em que a aplicação não executa DDL; o esquema deve ser migrado antes, com o modo "atualizar".
+     */
+    static void verificar(EntityManagerFactory entityManagerFactory) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            int esperada = MIGRACOES.get(MIGRACOES.size() - 1).versao();
+            int atual = em.unwrap(Session.class).doReturningWork(conexao ->
+                    existeTabela(conexao, TABELA_CONTROLE) ? versaoAtual(conexao) : 0);
+            if (atual < esperada) {
+                throw new IllegalStateException(String.format("O esquema do banco está na versão %d, mas a "
+                        + "aplicação requer a versão %d. Inicie uma vez com -Dbiblioteca.esquema=atualizar "
+                        + "para aplicar as migrações.", atual, esperada));
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void criarTabelaControle(Connection conexao) throws SQLException {
+        if (existeTabela(conexao, TABELA_CONTROLE)) {
+            return;
+        }
+        try (Statement st = conexao.createStatement()) {
+            st.executeUpdate("CREATE TABLE " + TABELA_CONTROLE + " (versao INT NOT NULL PRIMARY KEY, "
+                    + "descricao VARCHAR(200) NOT NULL, aplicada_em TIMESTAMP NOT NULL)");
+        }
+    }
+
+    private static int versaoAtual(Connection conexao) throws SQLException {
+        try (Statement st = conexao.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MAX(versao) FROM " + TABELA_CONTROLE)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void registrar(Connection conexao, Migracao migracao) throws SQLException {
+        try (PreparedStatement ps = conexao.prepareStatement(
+                "INSERT INTO " + TABELA_CONTROLE + " (versao, descricao, aplicada_em) VALUES (?, ?, ?)")) {
+            ps.setInt(1, migracao.versao());
+            ps.setString(2, migracao.descricao());
+            ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Cria os índices declarados em {@code @Table(indexes = ...)} nas entidades que ainda
+     * não existirem no banco.
+     */
+    private static void criarIndicesDasEntidades(Connection conexao) throws SQLException {
+        for (Class<?> entidade : List.of(Livro.class, Usuario.class, Emprestimo.class)) {
+            Table tabela = entidade.getAnnotation(Table.class);
+            for (Index indice : tabela.indexes()) {
+                criarIndiceSeAusente(conexao, tabela.name(), indice.name(), indice.columnList());
+            }
+        }
+    }
+
+    /**
+     * Cria as colunas emprestimos_ativos e proxima_devolucao em usuarios, se ainda não
+     * existirem, e as preenche a partir dos empréstimos já registrados, por faixas de ids.
+     */
+    private static void criarContadoresDeEmprestimos(Connection conexao) throws SQLException {
+        criarColunaSeAusente(conexao, "usuarios", "emprestimos_ativos", "INT DEFAULT 0 NOT NULL");
+        criarColunaSeAusente(conexao, "usuarios", "proxima_devolucao", "DATE");
+        long ultimo;
+        try (Statement st = conexao.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MAX(id) FROM usuarios")) {
+            ultimo = rs.next() ? rs.getLong(1) : 0;
+        }
+        try (PreparedStatement ps = conexao.prepareStatement(UsuarioRepository.SQL_RECONCILIAR_CONTADORES)) {
+            for (long inicio = 1; inicio <= ultimo; inicio += UsuarioRepository.TAMANHO_LOTE_RECONCILIACAO) {
+                ps.setLong(1, inicio);
+                ps.setLong(2, inicio + UsuarioRepository.TAMANHO_LOTE_RECONCILIACAO - 1);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Cria a marcação de atraso dos empréstimos e a tabela com a última execução das
+     * tarefas agendadas. Os atrasos já existentes são marcados na primeira varredura.
+     */
+    private static void criarControleDeAtrasos(Connection conexao) throws SQLException {
+        criarColunaSeAusente(conexao, "emprestimos", "marcado_atrasado", "BOOLEAN DEFAULT FALSE NOT NULL");
+        if (!existeTabela(conexao, TarefaAgendadaRepository.TABELA)) {
+            try (Statement st = conexao.createStatement()) {
+                st.executeUpdate("CREATE TABLE " + TarefaAgendadaRepository.TABELA + " (nome VARCHAR(100) NOT NULL "
+                        + "PRIMARY KEY, ultima_execucao DATE NOT NULL)");
+            }
+        }
+    }
+
+    /**
+     * Cria a coluna versao em livros e usuarios; os registros existentes começam na versão 0.
+     */
+    private static void criarColunasDeVersao(Connection conexao) throws SQLException {
+        criarColunaSeAusente(conexao, "livros", "versao", "BIGINT DEFAULT 0 NOT NULL");
+        criarColunaSeAusente(conexao, "usuarios", "versao", "BIGINT DEFAULT 0 NOT NULL");
+    }
+
+    static void criarColunaSeAusente(Connection conexao, String tabela, String coluna, String definicao)
+            throws SQLException {
+        DatabaseMetaData metaData = conexao.getMetaData();
+        try (ResultSet rs = metaData.getColumns(conexao.getCatalog(), conexao.getSchema(),
+                identificador(metaData, tabela), identificador(metaData, coluna))) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        try (Statement st = conexao.createStatement()) {
+            st.executeUpdate("ALTER TABLE " + tabela + " ADD COLUMN " + coluna + " " + definicao);
+        }
+    }
+
+    static void criarIndiceSeAusente(Connection conexao, String tabela, String indice, String colunas)
+            throws SQLException {
+        if (existeIndice(conexao, tabela, indice)) {
+            return;
+        }
+        try (Statement st = conexao.createStatement()) {
+            st.executeUpdate("CREATE INDEX " + indice + " ON " + tabela + " (" + colunas + ")");
+        }
+    }
+
+    static boolean existeTabela(Connection conexao, String tabela) throws SQLException {
+        DatabaseMetaData metaData = conexao.getMetaData();
+        try (ResultSet rs = metaData.getTables(conexao.getCatalog(), conexao.getSchema(),
+                identificador(metaData, tabela), new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private static boolean existeIndice(Connection conexao, String tabela, String indice) throws SQLException {
+        DatabaseMetaData metaData = conexao.getMetaData();
+        try (ResultSet rs = metaData.getIndexInfo(conexao.getCatalog(), conexao.getSchema(),
+                identificador(metaData, tabela), false, true)) {
+            while (rs.next()) {
+                if (indice.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String identificador(DatabaseMetaData metaData, String nome) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return nome.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return nome.toLowerCase(Locale.ROOT);
+        }
+        return nome;
+    }
+
+    /**
+     * Emite um aviso para cada consulta crítica cujo plano percorre a tabela inteira
+     * (tipo de acesso ALL no EXPLAIN do MySQL).
+     */
+    private static void verificarPlanos(Connection conexao) throws SQLException {
+        for (String[] consulta : CONSULTAS_VERIFICADAS) {
+            try (Statement st = conexao.createStatement();
+                 ResultSet rs = st.executeQuery("EXPLAIN " + consulta[1])) {
+                while (rs.next()) {
+                    if ("ALL".equalsIgnoreCase(rs.getString("type"))) {
+                        LOG.warn("A consulta {} percorre toda a tabela {} (~{} linhas). Verifique os índices.",
+                                consulta[0], rs.getString("table"), rs.getString("rows"));
+                    }
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface AcaoMigracao {
+        void aplicar(Connection conexao) throws SQLException;
+    }
+
+    record Migracao(int versao, String descricao, AcaoMigracao acao) {
+    }
+}
@@ -0,0 +1,23 @@
+package repository;
+
+/**
+ * Regras comuns às consultas paginadas por cursor (keyset).
+ */
+public final class Paginacao {
+
+    public static final int TAMANHO_PADRAO = 100;
+    public static final int TAMANHO_MAXIMO = 500;
+
+    private Paginacao() {
+    }
+
+    /**
+     * Ajusta o tamanho de página solicitado ao intervalo [1, TAMANHO_MAXIMO].
+     */
+    public static int limitar(int tamanho) {
+        if (tamanho <= 0) {
+            return TAMANHO_PADRAO;
+        }
+        return Math.min(tamanho, TAMANHO_MAXIMO);
+    }
+}
@@ -0,0 +1,13 @@
+package repository;
+
+/**
+ * Item sugerido pela busca por prefixo ({@link IndicePrefixo}) enquanto o usuário digita:
+ * apenas o ID e o texto exibido, sem carregar a entidade.
+ */
+public record Sugestao(Long id, String rotulo) {
+
+    @Override
+    public String toString() {
+        return rotulo;
+    }
+}
@@ -0,0 +1,63 @@
+package repository;
+
+import org.hibernate.query.NativeQuery;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Registra a data da última execução das tarefas agendadas (tabela tarefas_agendadas,
+ * criada por {@link MigracaoEsquema}), para que cada execução processe apenas o que mudou
+ * desde a anterior.
+ */
+public class TarefaAgendadaRepository {
+
+    static final String TABELA = "tarefas_agendadas";
+
+    /**
+     * Data da última execução da tarefa, bloqueando seu registro até o fim da transação,
+     * de modo que duas execuções simultâneas (ex.: duas instâncias da aplicação) não
+     * processem o mesmo intervalo.
+     *
+     * @return data da última execução, ou null se a tarefa nunca foi executada
+     */
+    public LocalDate buscarUltimaExecucaoParaAtualizacao(UnidadeDeTrabalho uow, String tarefa) {
+        return MetricasRepositorio.medir("TarefaAgendadaRepository.buscarUltimaExecucaoParaAtualizacao(uow)", () -> {
+            List<?> resultado = uow.getEntityManager()
+                    .createNativeQuery("SELECT ultima_execucao FROM " + TABELA + " WHERE nome = :nome FOR UPDATE")
+                    .setParameter("nome", tarefa)
+                    .getResultList();
+            if (resultado.isEmpty()) {
+                return null;
+            }
+            Object data = resultado.get(0);
+            return data instanceof Date ? ((Date) data).toLocalDate() : (LocalDate) data;
+        });
+    }
+
+    public void registrarExecucao(UnidadeDeTrabalho uow, String tarefa, LocalDate data) {
+        MetricasRepositorio.medir("TarefaAgendadaRepository.registrarExecucao(uow)", () -> {
+            int atualizados = nativa(uow, "UPDATE " + TABELA + " SET ultima_execucao = :data WHERE nome = :nome")
+                    .setParameter("data", data)
+                    .setParameter("nome", tarefa)
+                    .executeUpdate();
+            if (atualizados == 0) {
+                nativa(uow, "INSERT INTO " + TABELA + " (nome, ultima_execucao) VALUES (:nome, :data)")
+                        .setParameter("nome", tarefa)
+                        .setParameter("data", data)
+                        .executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Consulta nativa restrita à tabela de controle, para que a atualização não invalide
+     * o cache de segundo nível das entidades.
+     */
+    private NativeQuery<?> nativa(UnidadeDeTrabalho uow, String sql) {
+        return uow.getEntityManager().createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(TABELA);
+    }
+}
@@ -0,0 +1,70 @@
+package repository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Agrupa várias operações de repositório em um único EntityManager e uma única transação.
+ * Os repositórios oferecem sobrecargas que recebem a unidade de trabalho, de modo que o
+ * controller coordena as regras de negócio sem manipular a API JPA diretamente.
+ */
+public class UnidadeDeTrabalho implements AutoCloseable {
+
+    private final EntityManager em;
+    private final List<Runnable> aposConfirmar = new ArrayList<>();
+
+    public UnidadeDeTrabalho() {
+        this.em = JPAUtil.getEntityManager();
+        this.em.getTransaction().begin();
+    }
+
+    /**
+     * Executa o trabalho informado em uma transação, confirmando ao final ou
+     * desfazendo tudo caso alguma exceção seja lançada.
+     */
+    public static <T> T executar(Function<UnidadeDeTrabalho, T> trabalho) {
+        return MetricasRepositorio.medir("UnidadeDeTrabalho.executar", () -> {
+            try (UnidadeDeTrabalho uow = new UnidadeDeTrabalho()) {
+                T resultado = trabalho.apply(uow);
+                uow.confirmar();
+                return resultado;
+            }
+        });
+    }
+
+    EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Registra uma ação a ser executada logo após a confirmação da transação
+     * (ex.: invalidar entradas de cache alteradas por atualizações diretas no banco).
+     */
+    void aposConfirmar(Runnable acao) {
+        aposConfirmar.add(acao);
+    }
+
+    public void confirmar() {
+        em.getTransaction().commit();
+        for (Runnable acao : aposConfirmar) {
+            acao.run();
+        }
+        aposConfirmar.clear();
+    }
+
+    /**
+     * Desfaz a transação caso ainda esteja ativa (não confirmada) e libera o EntityManager.
+     */
+    @Override
+    public void close() {
+        try {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -1,117 +1,437 @@
 package repository;
 
 import model.Usuario;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import util.Texto;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class UsuarioRepository {
 
+    // Limite de parâmetros por cláusula IN, para não estourar limites do driver/banco
+    private static final int TAMANHO_LOTE_IN = 1000;
+
+    private static final IndicePrefixo SUGESTOES = new IndicePrefixo(UsuarioRepository::carregarSugestoes);
+
+    private static final String SUBCONSULTA_ATIVOS =
+            " FROM emprestimos e WHERE e.usuario_id = usuarios.id AND e.ativo = TRUE)";
+
+    /** Usuários (faixa de ids) conferidos por transação na reconciliação dos contadores. */
+    static final int TAMANHO_LOTE_RECONCILIACAO = 1000;
+
+    /**
+     * Recalcula, a partir da tabela de empréstimos, os contadores dos usuários da faixa de ids
+     * informada (parâmetros: primeiro e último id) que estiverem divergentes. Compartilhado com
+     * a migração que cria os contadores.
+     */
+    static final String SQL_RECONCILIAR_CONTADORES =
+            "UPDATE usuarios SET versao = versao + 1, " +
+            "emprestimos_ativos = (SELECT COUNT(*)" + SUBCONSULTA_ATIVOS + ", " +
+            "proxima_devolucao = (SELECT MIN(e.data_devolucao_prevista)" + SUBCONSULTA_ATIVOS + " " +
+            "WHERE id BETWEEN ? AND ? " +
+            "AND (emprestimos_ativos <> (SELECT COUNT(*)" + SUBCONSULTA_ATIVOS + " " +
+            "OR COALESCE(proxima_devolucao, DATE '9999-12-31') <> " +
+            "COALESCE((SELECT MIN(e.data_devolucao_prevista)" + SUBCONSULTA_ATIVOS + ", DATE '9999-12-31'))";
+
     public Usuario salvar(Usuario usuario) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            em.persist(usuario);
-            em.getTransaction().commit();
-            return usuario;
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
+        return MetricasRepositorio.medir("UsuarioRepository.salvar", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                em.persist(usuario);
+                em.getTransaction().commit();
+                indexarSugestao(usuario);
+                return usuario;
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new RuntimeException("Erro ao salvar usuário: " + e.getMessage(), e);
+            } finally {
+                em.close();
             }
-            throw new RuntimeException("Erro ao salvar usuário: " + e.getMessage(), e);
-        } finally {
-            em.close();
-        }
+        });
     }
 
+    /**
+     * Grava as alterações de um usuário lido anteriormente. Se o usuário foi alterado depois
+     * da leitura (inclusive contadores de empréstimos e multas), nada é gravado e é lançada
+     * {@link ConflitoDeVersaoException}, em vez de sobrescrever os valores atuais do banco.
+     */
     public Usuario atualizar(Usuario usuario) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            Usuario usuarioAtualizado = em.merge(usuario);
-            em.getTransaction().commit();
-            return usuarioAtualizado;
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
+        return MetricasRepositorio.medir("UsuarioRepository.atualizar", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                Usuario usuarioAtualizado = em.merge(usuario);
+                em.getTransaction().commit();
+                indexarSugestao(usuarioAtualizado);
+                return usuarioAtualizado;
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                if (ConflitoDeVersaoException.causouConflito(e)) {
+                    // A próxima leitura deve vir do banco, não de uma cópia desatualizada no cache
+                    em.getEntityManagerFactory().getCache().evict(Usuario.class, usuario.getId());
+                    throw new ConflitoDeVersaoException("O usuário foi alterado por outra operação: "
+                            + usuario.getNome(), e);
+                }
+                throw new RuntimeException("Erro ao atualizar usuário: " + e.getMessage(), e);
+            } finally {
+                em.close();
             }
-            throw new RuntimeException("Erro ao atualizar usuário: " + e.getMessage(), e);
-        } finally {
-            em.close();
-        }
+        });
     }
 
     public void remover(Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            Usuario usuario = em.find(Usuario.class, id);
-            if (usuario != null) {
-                em.remove(usuario);
+        MetricasRepositorio.medir("UsuarioRepository.remover", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+                Usuario usuario = em.find(Usuario.class, id);
+                if (usuario != null) {
+                    em.remove(usuario);
+                }
+                em.getTransaction().commit();
+                SUGESTOES.remover(id);
+            } catch (Exception e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new RuntimeException("Erro ao remover usuário: " + e.getMessage(), e);
+            } finally {
+                em.close();
             }
-            em.getTransaction().commit();
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
-            throw new RuntimeException("Erro ao remover usuário: " + e.getMessage(), e);
-        } finally {
-            em.close();
-        }
+        });
     }
 
     public Usuario buscarPorId(Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            return em.find(Usuario.class, id);
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("UsuarioRepository.buscarPorId", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return em.find(Usuario.class, id);
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public Usuario buscarPorEmail(String email) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            TypedQuery<Usuario> query = em.createQuery(
-                    "SELECT u FROM Usuario u WHERE u.email = :email", Usuario.class);
-            query.setParameter("email", email);
-            List<Usuario> resultados = query.getResultList();
-            return resultados.isEmpty() ? null : resultados.get(0);
-        } finally {
-            em.close();
-        }
+        return MetricasRepositorio.medir("UsuarioRepository.buscarPorEmail", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Usuario> query = em.createQuery(
+                        "SELECT u FROM Usuario u WHERE u.email = :email", Usuario.class);
+                query.setParameter("email", email);
+                query.setHint(QueryHints.HINT_CACHEABLE, true);
+                List<Usuario> resultados = query.getResultList();
+                return resultados.isEmpty() ? null : resultados.get(0);
+            } finally {
+                em.close();
+            }
+        });
     }
 
     public List<Usuario> listarTodos() {
+        return MetricasRepositorio.medir("UsuarioRepository.listarTodos", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Usuario> query = em.createQuery("SELECT u FROM Usuario u ORDER BY u.nome", Usuario.class);
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    public List<Usuario> buscarPorNome(String nome) {
+        return MetricasRepositorio.medir("UsuarioRepository.buscarPorNome", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Usuario> query = em.createQuery(
+                        "SELECT u FROM Usuario u WHERE LOWER(u.nome) LIKE LOWER(:nome) ORDER BY u.nome", Usuario.class);
+                query.setParameter("nome", "%" + nome + "%");
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Indica se a busca por nome {@code nova} pode ser refeita em memória, com
+     * {@link #refinarPorNome}, sobre o resultado completo da busca {@code anterior}: o
+     * novo texto precisa conter o anterior. Textos com curingas do LIKE vão sempre ao banco.
+     */
+    public boolean refinaBuscaPorNome(String anterior, String nova) {
+        if (anterior == null || nova == null || nova.indexOf('%') >= 0 || nova.indexOf('_') >= 0) {
+            return false;
+        }
+        return Texto.normalizar(nova).contains(Texto.normalizar(anterior));
+    }
+
+    /**
+     * Aplica a busca por nome a usuários já carregados, mantendo a ordem recebida.
+     * Maiúsculas e acentos são ignorados, como na collation padrão do MySQL.
+     */
+    public List<Usuario> refinarPorNome(List<Usuario> usuarios, String nome) {
+        String termo = Texto.normalizar(nome);
+        List<Usuario> encontrados = new ArrayList<>();
+        for (Usuario usuario : usuarios) {
+            if (Texto.normalizar(usuario.getNome()).contains(termo)) {
+                encontrados.add(usuario);
+            }
+        }
+        return encontrados;
+    }
+
+    public List<Usuario> buscarPorCelular(String celular) {
+        return MetricasRepositorio.medir("UsuarioRepository.buscarPorCelular", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Usuario> query = em.createQuery(
+                        "SELECT u FROM Usuario u WHERE u.celular LIKE :celular ORDER BY u.nome", Usuario.class);
+                query.setParameter("celular", "%" + celular + "%");
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Sugestões de usuários para o texto digitado, por prefixo do nome ou do e-mail, a partir
+     * do índice em memória (sem consultar o banco, exceto na carga do índice).
+     *
+     * @param limite quantidade máxima de sugestões
+     */
+    public List<Sugestao> sugerir(String texto, int limite) {
+        return MetricasRepositorio.medir("UsuarioRepository.sugerir", () -> SUGESTOES.buscar(texto, limite));
+    }
+
+    /**
+     * Carrega o índice de sugestões, se ainda não estiver carregado.
+     */
+    public void prepararSugestoes() {
+        MetricasRepositorio.medir("UsuarioRepository.prepararSugestoes", () -> SUGESTOES.carregar());
+    }
+
+    private static void indexarSugestao(Usuario usuario) {
+        SUGESTOES.indexar(usuario.getId(), rotuloSugestao(usuario.getNome(), usuario.getEmail()),
+                usuario.getNome(), usuario.getEmail());
+    }
+
+    private static String rotuloSugestao(String nome, String email) {
+        return nome + " <" + email + ">";
+    }
+
+    private static List<IndicePrefixo.Entrada> carregarSugestoes() {
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<Usuario> query = em.createQuery("SELECT u FROM Usuario u ORDER BY u.nome", Usuario.class);
-            return query.getResultList();
+            List<Object[]> linhas = em.createQuery(
+                    "SELECT u.id, u.nome, u.email FROM Usuario u", Object[].class).getResultList();
+            List<IndicePrefixo.Entrada> entradas = new ArrayList<>(linhas.size());
+            for (Object[] linha : linhas) {
+                String nome = (String) linha[1];
+                String email = (String) linha[2];
+                entradas.add(new IndicePrefixo.Entrada((Long) linha[0], rotuloSugestao(nome, email), nome, email));
+            }
+            return entradas;
         } finally {
             em.close();
         }
     }
 
-    public List<Usuario> buscarPorNome(String nome) {
+    /**
+     * Busca o usuário bloqueando sua linha até o fim da transação, para que operações
+     * concorrentes sobre o mesmo usuário (ex.: limite de empréstimos) sejam serializadas.
+     */
+    public Usuario buscarPorIdParaAtualizacao(UnidadeDeTrabalho uow, Long id) {
+        return MetricasRepositorio.medir("UsuarioRepository.buscarPorIdParaAtualizacao(uow)",
+                () -> uow.getEntityManager().find(Usuario.class, id, LockModeType.PESSIMISTIC_WRITE));
+    }
+
+    /**
+     * Retorna, para os usuários informados, a data de fim das multas ainda vigentes.
+     * Usuários sem multa vigente não aparecem no mapa.
+     */
+    public Map<Long, LocalDate> buscarFimMultaVigente(Collection<Long> ids) {
+        return MetricasRepositorio.medir("UsuarioRepository.buscarFimMultaVigente", () -> {
+            Map<Long, LocalDate> resultado = new HashMap<>();
+            if (ids.isEmpty()) {
+                return resultado;
+            }
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                List<Long> lista = new ArrayList<>(ids);
+                for (int i = 0; i < lista.size(); i += TAMANHO_LOTE_IN) {
+                    TypedQuery<Object[]> query = em.createQuery(
+                            "SELECT u.id, u.dataFimMulta FROM Usuario u " +
+                            "WHERE u.id IN :ids AND u.dataFimMulta >= :hoje", Object[].class);
+                    query.setParameter("ids", lista.subList(i, Math.min(i + TAMANHO_LOTE_IN, lista.size())));
+                    query.setParameter("hoje", LocalDate.now());
+                    for (Object[] linha : query.getResultList()) {
+                        resultado.put((Long) linha[0], (LocalDate) linha[1]);
+                    }
+                }
+                return resultado;
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Retorna quais dos usuários informados possuem empréstimo ativo com devolução atrasada,
+     * pela próxima devolução mantida em cada usuário (sem consultar os empréstimos).
+     */
+    public Set<Long> buscarComAtrasoPendente(Collection<Long> ids) {
+        return MetricasRepositorio.medir("UsuarioRepository.buscarComAtrasoPendente", () -> {
+            Set<Long> resultado = new HashSet<>();
+            if (ids.isEmpty()) {
+                return resultado;
+            }
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                List<Long> lista = new ArrayList<>(ids);
+                for (int i = 0; i < lista.size(); i += TAMANHO_LOTE_IN) {
+                    TypedQuery<Long> query = em.createQuery(
+                            "SELECT u.id FROM Usuario u WHERE u.id IN :ids AND u.proximaDevolucao < :hoje", Long.class);
+                    query.setParameter("ids", lista.subList(i, Math.min(i + TAMANHO_LOTE_IN, lista.size())));
+                    query.setParameter("hoje", LocalDate.now());
+                    resultado.addAll(query.getResultList());
+                }
+                return resultado;
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Lista uma página de usuários ordenada por (nome, id), a partir do cursor informado.
+     *
+     * @param nomeApos nome do último usuário da página anterior (null para a primeira página)
+     * @param idApos id do último usuário da página anterior (null para a primeira página)
+     * @param tamanho quantidade de usuários por página (limitada a Paginacao.TAMANHO_MAXIMO)
+     */
+    public List<Usuario> listarPagina(String nomeApos, Long idApos, int tamanho) {
+        return MetricasRepositorio.medir("UsuarioRepository.listarPagina", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Usuario> query;
+                if (nomeApos == null || idApos == null) {
+                    query = em.createQuery("SELECT u FROM Usuario u ORDER BY u.nome, u.id", Usuario.class);
+                } else {
+                    query = em.createQuery(
+                            "SELECT u FROM Usuario u WHERE u.nome > :nome OR (u.nome = :nome AND u.id > :id) " +
+                            "ORDER BY u.nome, u.id", Usuario.class);
+                    query.setParameter("nome", nomeApos);
+                    query.setParameter("id", idApos);
+                }
+                query.setMaxResults(Paginacao.limitar(tamanho));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Lista usuários a partir de uma posição, na mesma ordem de {@link #listarPagina}.
+     * Usado apenas quando o cursor da página anterior não é conhecido (saltos na rolagem).
+     */
+    public List<Usuario> listarPorPosicao(int inicio, int tamanho) {
+        return MetricasRepositorio.medir("UsuarioRepository.listarPorPosicao", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                TypedQuery<Usuario> query = em.createQuery("SELECT u FROM Usuario u ORDER BY u.nome, u.id", Usuario.class);
+                query.setFirstResult(inicio);
+                query.setMaxResults(Paginacao.limitar(tamanho));
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    public long contarTodos() {
+        return MetricasRepositorio.medir("UsuarioRepository.contarTodos", () -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                return em.createQuery("SELECT COUNT(u) FROM Usuario u", Long.class).getSingleResult();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Reconstrói os contadores de empréstimos ativos e a próxima devolução de cada usuário
+     * a partir da tabela de empréstimos, corrigindo eventuais divergências (ex.: alterações
+     * feitas diretamente no banco). Os usuários são conferidos por faixas de
+     * {@value #TAMANHO_LOTE_RECONCILIACAO} ids, cada uma na sua própria transação: só ficam
+     * bloqueados, e até o fim da faixa, os usuários dela e seus empréstimos ativos (lidos pelo
+     * índice de usuario_id), então empréstimos e devoluções dos demais usuários não esperam
+     * pela reconciliação. Um empréstimo confirmado entre duas faixas já é refletido pela
+     * faixa que ainda não foi conferida.
+     *
+     * @return quantidade de usuários corrigidos
+     */
+    public int reconciliarContadores() {
+        return MetricasRepositorio.medir("UsuarioRepository.reconciliarContadores", () -> {
+            Object[] faixa = buscarFaixaDeIds();
+            if (faixa[0] == null) {
+                return 0;
+            }
+            long primeiro = ((Number) faixa[0]).longValue();
+            long ultimo = ((Number) faixa[1]).longValue();
+            int corrigidos = 0;
+            for (long inicio = primeiro; inicio <= ultimo; inicio += TAMANHO_LOTE_RECONCILIACAO) {
+                corrigidos += reconciliarContadores(inicio, Math.min(ultimo, inicio + TAMANHO_LOTE_RECONCILIACAO - 1));
+            }
+            return corrigidos;
+        });
+    }
+
+    private Object[] buscarFaixaDeIds() {
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<Usuario> query = em.createQuery(
-                    "SELECT u FROM Usuario u WHERE LOWER(u.nome) LIKE LOWER(:nome) ORDER BY u.nome", Usuario.class);
-            query.setParameter("nome", "%" + nome + "%");
-            return query.getResultList();
+            return em.createQuery("SELECT MIN(u.id), MAX(u.id) FROM Usuario u", Object[].class).getSingleResult();
         } finally {
             em.close();
         }
     }
 
-    public List<Usuario> buscarPorCelular(String celular) {
+    private int reconciliarContadores(long primeiroId, long ultimoId) {
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<Usuario> query = em.createQuery(
-                    "SELECT u FROM Usuario u WHERE u.celular LIKE :celular ORDER BY u.nome", Usuario.class);
-            query.setParameter("celular", "%" + celular + "%");
-            return query.getResultList();
+            em.getTransaction().begin();
+            int corrigidos = em.createNativeQuery(SQL_RECONCILIAR_CONTADORES)
+                    .setParameter(1, primeiroId)
+                    .setParameter(2, ultimoId)
+                    .unwrap(NativeQuery.class)
+                    .addSynchronizedEntityClass(Usuario.class)
+                    .executeUpdate();
+            em.getTransaction().commit();
+            return corrigidos;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw new RuntimeException("Erro ao reconciliar contadores de empréstimos: " + e.getMessage(), e);
         } finally {
             em.close();
         }
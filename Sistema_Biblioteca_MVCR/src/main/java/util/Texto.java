@@ -0,0 +1,28 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Operações sobre texto compartilhadas pelas buscas de livros e de usuários.
+ */
+public final class Texto {
+
+    private static final Pattern MARCAS_ACENTO = Pattern.compile("\\p{M}+");
+
+    private Texto() {
+    }
+
+    /**
+     * Forma usada nas comparações das buscas: sem acentos e em minúsculas, de modo que
+     * "Érico" e "erico" sejam iguais. Null vira texto vazio.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = MARCAS_ACENTO.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+}
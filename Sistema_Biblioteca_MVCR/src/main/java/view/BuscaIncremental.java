@@ -0,0 +1,139 @@
+package view;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Busca enquanto o usuário digita em um campo de texto.
+ * <p>
+ * A consulta só é disparada depois de uma pausa na digitação ({@code -Dbiblioteca.busca.atraso},
+ * em milissegundos; padrão 250), e um texto igual ao da última busca não gera nova consulta.
+ * Uma nova busca cancela a consulta em andamento. Quando o novo texto apenas restringe o
+ * anterior (ex.: "dom" &rarr; "dom casm"), o resultado anterior é filtrado em memória, sem
+ * voltar ao banco. Com o campo vazio, a tela volta à listagem completa.
+ * <p>
+ * Deve ser usada apenas a partir da thread do Swing.
+ */
+public class BuscaIncremental<T> {
+
+    private static final int ATRASO_MS = Integer.getInteger("biblioteca.busca.atraso", 250);
+
+    private final JTextField campo;
+    private final Function<String, CompletableFuture<List<T>>> consulta;
+    private final BiPredicate<String, String> refina;
+    private final BiFunction<List<T>, String, List<T>> refinar;
+    private final Consumer<List<T>> aoExibir;
+    private final Runnable aoLimpar;
+    private final Consumer<Throwable> aoFalhar;
+    private final RequisicaoTela requisicao = new RequisicaoTela();
+    private final Timer atraso;
+
+    private String termoExibido;
+    private List<T> resultadoExibido;
+    private String termoPendente;
+
+    /**
+     * @param consulta busca completa no banco para o texto digitado
+     * @param refina   indica se o resultado de uma busca (1º argumento) contém todo o resultado
+     *                 de outra (2º argumento), podendo ser filtrado em vez de consultado
+     * @param refinar  filtra um resultado anterior com o novo texto, com o mesmo critério da consulta
+     * @param aoExibir recebe cada resultado, na thread do Swing
+     * @param aoLimpar chamado quando o campo fica vazio
+     * @param aoFalhar recebe o erro de uma consulta, na thread do Swing
+     */
+    public BuscaIncremental(JTextField campo,
+                            Function<String, CompletableFuture<List<T>>> consulta,
+                            BiPredicate<String, String> refina,
+                            BiFunction<List<T>, String, List<T>> refinar,
+                            Consumer<List<T>> aoExibir,
+                            Runnable aoLimpar,
+                            Consumer<Throwable> aoFalhar) {
+        this.campo = campo;
+        this.consulta = consulta;
+        this.refina = refina;
+        this.refinar = refinar;
+        this.aoExibir = aoExibir;
+        this.aoLimpar = aoLimpar;
+        this.aoFalhar = aoFalhar;
+
+        atraso = new Timer(ATRASO_MS, e -> buscar());
+        atraso.setRepeats(false);
+        campo.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                atraso.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                atraso.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                atraso.restart();
+            }
+        });
+    }
+
+    /**
+     * Busca imediatamente o texto do campo, sem esperar a pausa na digitação (ex.: Enter ou botão Buscar).
+     */
+    public void buscar() {
+        atraso.stop();
+        String termo = campo.getText().trim();
+        if (termo.equals(termoPendente) || (termoPendente == null && termo.equals(termoExibido))) {
+            return;
+        }
+
+        if (termo.isEmpty()) {
+            reiniciar();
+            aoLimpar.run();
+            termoExibido = termo;
+            return;
+        }
+
+        if (termoExibido != null && !termoExibido.isEmpty() && refina.test(termoExibido, termo)) {
+            requisicao.cancelar();
+            termoPendente = null;
+            exibir(termo, refinar.apply(resultadoExibido, termo));
+            return;
+        }
+
+        termoPendente = termo;
+        requisicao.executar(consulta.apply(termo),
+                resultado -> {
+                    termoPendente = null;
+                    exibir(termo, resultado);
+                },
+                e -> {
+                    termoPendente = null;
+                    aoFalhar.accept(e);
+                });
+    }
+
+    /**
+     * Cancela a busca pendente e esquece o último resultado; a próxima busca vai ao banco.
+     * Usado quando a tela recarrega a listagem (ex.: após salvar ou excluir).
+     */
+    public void reiniciar() {
+        atraso.stop();
+        requisicao.cancelar();
+        termoPendente = null;
+        termoExibido = null;
+        resultadoExibido = null;
+    }
+
+    private void exibir(String termo, List<T> resultado) {
+        termoExibido = termo;
+        resultadoExibido = resultado;
+        aoExibir.accept(resultado);
+    }
+}
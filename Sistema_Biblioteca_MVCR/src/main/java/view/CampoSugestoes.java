@@ -0,0 +1,181 @@
+package view;
+
+import repository.Sugestao;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Campo de texto com sugestões enquanto o usuário digita: a cada alteração consulta a fonte
+ * (ex.: o índice de usuários) e exibe as sugestões em uma lista abaixo do campo, escolhidas
+ * com o mouse ou com as setas e Enter. Uma nova digitação cancela a consulta anterior.
+ * <p>
+ * Alterar o texto desfaz a escolha; {@link #getSelecionada()} só retorna um item depois que
+ * uma sugestão é escolhida.
+ */
+public class CampoSugestoes extends JTextField {
+
+    private static final int LINHAS_VISIVEIS = 8;
+
+    private final DefaultListModel<Sugestao> modelo = new DefaultListModel<>();
+    private final JList<Sugestao> lista = new JList<>(modelo);
+    private final JPopupMenu popup = new JPopupMenu();
+    private final RequisicaoTela requisicao = new RequisicaoTela();
+    private Function<String, CompletableFuture<List<Sugestao>>> fonte;
+    private Consumer<Sugestao> aoSelecionar = sugestao -> { };
+    private Sugestao selecionada;
+    private boolean alterandoTexto;
+
+    public CampoSugestoes() {
+        lista.setFocusable(false);
+        lista.setVisibleRowCount(LINHAS_VISIVEIS);
+        lista.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        JScrollPane rolagem = new JScrollPane(lista);
+        rolagem.setBorder(BorderFactory.createEmptyBorder());
+        popup.setFocusable(false);
+        popup.add(rolagem);
+
+        getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textoAlterado();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textoAlterado();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                textoAlterado();
+            }
+        });
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                teclaPressionada(e);
+            }
+        });
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+        lista.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int indice = lista.locationToIndex(e.getPoint());
+                if (indice >= 0) {
+                    selecionar(modelo.get(indice));
+                }
+            }
+        });
+    }
+
+    /**
+     * Define de onde vêm as sugestões para o texto digitado.
+     */
+    public void setFonte(Function<String, CompletableFuture<List<Sugestao>>> fonte) {
+        this.fonte = fonte;
+    }
+
+    /**
+     * Chamado na thread do Swing quando uma sugestão é escolhida, ou com null quando a
+     * escolha é desfeita pela digitação.
+     */
+    public void setAoSelecionar(Consumer<Sugestao> aoSelecionar) {
+        this.aoSelecionar = aoSelecionar;
+    }
+
+    public Sugestao getSelecionada() {
+        return selecionada;
+    }
+
+    /**
+     * Cancela a consulta em andamento e fecha a lista de sugestões.
+     */
+    public void cancelar() {
+        requisicao.cancelar();
+        popup.setVisible(false);
+    }
+
+    private void textoAlterado() {
+        if (alterandoTexto) {
+            return;
+        }
+        if (selecionada != null) {
+            selecionada = null;
+            aoSelecionar.accept(null);
+        }
+        String texto = getText().trim();
+        if (texto.isEmpty() || fonte == null) {
+            cancelar();
+            return;
+        }
+        requisicao.executar(fonte.apply(texto), this::exibir, e -> {
+            popup.setVisible(false);
+            e.printStackTrace();
+        });
+    }
+
+    private void exibir(List<Sugestao> sugestoes) {
+        modelo.clear();
+        modelo.addAll(sugestoes);
+        if (sugestoes.isEmpty() || !isShowing() || !hasFocus()) {
+            popup.setVisible(false);
+            return;
+        }
+        lista.setSelectedIndex(0);
+        lista.setVisibleRowCount(Math.min(LINHAS_VISIVEIS, sugestoes.size()));
+        popup.setPopupSize(getWidth(), lista.getPreferredScrollableViewportSize().height + 4);
+        popup.show(this, 0, getHeight());
+    }
+
+    private void teclaPressionada(KeyEvent e) {
+        if (!popup.isVisible()) {
+            return;
+        }
+        int indice = lista.getSelectedIndex();
+        if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+            lista.setSelectedIndex(Math.min(indice + 1, modelo.size() - 1));
+            lista.ensureIndexIsVisible(lista.getSelectedIndex());
+            e.consume();
+        } else if (e.getKeyCode() == KeyEvent.VK_UP) {
+            lista.setSelectedIndex(Math.max(indice - 1, 0));
+            lista.ensureIndexIsVisible(lista.getSelectedIndex());
+            e.consume();
+        } else if (e.getKeyCode() == KeyEvent.VK_ENTER && indice >= 0) {
+            selecionar(modelo.get(indice));
+            e.consume();
+        } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+            popup.setVisible(false);
+            e.consume();
+        }
+    }
+
+    private void selecionar(Sugestao sugestao) {
+        requisicao.cancelar();
+        popup.setVisible(false);
+        alterandoTexto = true;
+        try {
+            setText(sugestao.rotulo());
+        } finally {
+            alterandoTexto = false;
+        }
+        selecionada = sugestao;
+        aoSelecionar.accept(sugestao);
+    }
+}
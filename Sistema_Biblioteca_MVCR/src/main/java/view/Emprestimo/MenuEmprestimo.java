@@ -1,14 +1,18 @@
 package view.Emprestimo;
 
 import controller.EmprestimoController;
-import model.Emprestimo;
+import controller.EmprestimoControllerAsync;
+import model.EmprestimoResumo;
+import view.FontePaginada;
+import view.ModeloTabelaPaginada;
+import view.RequisicaoTela;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 public class MenuEmprestimo extends JFrame {
@@ -21,7 +25,10 @@ public class MenuEmprestimo extends JFrame {
     private JButton btnFechar;
 
     private EmprestimoController emprestimoController;
-    private DefaultTableModel tableModel;
+    private EmprestimoControllerAsync emprestimoControllerAsync;
+    private ModeloTabelaPaginada<EmprestimoResumo> tableModel;
+    private final RequisicaoTela requisicaoLista = new RequisicaoTela();
+    private final RequisicaoTela requisicaoGravacao = new RequisicaoTela();
 
     public MenuEmprestimo() {
         setTitle("Gerenciamento de Empréstimos");
@@ -31,6 +38,7 @@ public class MenuEmprestimo extends JFrame {
         setLocationRelativeTo(null);
 
         this.emprestimoController = new EmprestimoController();
+        this.emprestimoControllerAsync = new EmprestimoControllerAsync(emprestimoController);
 
         configurarTabela();
         configurarEventos();
@@ -42,14 +50,17 @@ public class MenuEmprestimo extends JFrame {
      */
     private void configurarTabela() {
         String[] colunas = {"ID", "Usuário", "Livro", "Data Empréstimo", "Devolução Prevista", "Status"};
-        tableModel = new DefaultTableModel(colunas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new ModeloTabelaPaginada<>(colunas, this::converterLinhas);
+        tableModel.setTratadorErro(e -> {
+            JOptionPane.showMessageDialog(this,
+                "Erro ao carregar empréstimos: " + e.getMessage(),
+                "Erro",
+                JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
         tblEmprestimos.setModel(tableModel);
-        tblEmprestimos.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // Várias linhas podem ser selecionadas para devolver de uma vez os livros de um usuário
+        tblEmprestimos.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
     }
 
     /**
@@ -93,52 +104,59 @@ public class MenuEmprestimo extends JFrame {
     }
 
     /**
-     * Carrega empréstimos ativos na tabela.
+     * Carrega empréstimos ativos na tabela, sob demanda, conforme a rolagem.
      */
     private void carregarEmprestimosAtivos() {
-        try {
-            List<Emprestimo> emprestimos = emprestimoController.listarAtivos();
-            atualizarTabela(emprestimos);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Erro ao carregar empréstimos: " + e.getMessage(),
-                "Erro",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        requisicaoLista.cancelar();
+        tableModel.setFonte(new FontePaginada<EmprestimoResumo>() {
+            @Override
+            public long contar() {
+                return emprestimoController.contarAtivos();
+            }
+
+            @Override
+            public List<EmprestimoResumo> carregar(EmprestimoResumo anterior, int inicio, int tamanho) {
+                if (anterior != null) {
+                    return emprestimoController.listarResumoAtivosPagina(
+                        anterior.dataEmprestimo(), anterior.id(), tamanho);
+                }
+                return emprestimoController.listarResumoAtivosPorPosicao(inicio, tamanho);
+            }
+        });
     }
 
     /**
      * Lista apenas empréstimos atrasados.
      */
     private void listarAtrasados() {
-        try {
-            List<Emprestimo> emprestimos = emprestimoController.listarAtrasados();
-            atualizarTabela(emprestimos);
-
-            if (emprestimos.isEmpty()) {
+        requisicaoLista.executar(emprestimoControllerAsync.listarResumoAtrasados(),
+            emprestimos -> {
+                tableModel.setFonte(FontePaginada.deLista(emprestimos));
+
+                if (emprestimos.isEmpty()) {
+                    JOptionPane.showMessageDialog(this,
+                        "Não há empréstimos atrasados!",
+                        "Informação",
+                        JOptionPane.INFORMATION_MESSAGE);
+                }
+            },
+            e -> {
                 JOptionPane.showMessageDialog(this,
-                    "Não há empréstimos atrasados!",
-                    "Informação",
-                    JOptionPane.INFORMATION_MESSAGE);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Erro ao listar empréstimos atrasados: " + e.getMessage(),
-                "Erro",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+                    "Erro ao listar empréstimos atrasados: " + e.getMessage(),
+                    "Erro",
+                    JOptionPane.ERROR_MESSAGE);
+                e.printStackTrace();
+            });
     }
 
     /**
-     * Atualiza a tabela com a lista de empréstimos.
+     * Converte um bloco de empréstimos em linhas da tabela.
      */
-    private void atualizarTabela(List<Emprestimo> emprestimos) {
-        tableModel.setRowCount(0);
+    private List<Object[]> converterLinhas(List<EmprestimoResumo> emprestimos) {
+        List<Object[]> linhas = new ArrayList<>(emprestimos.size());
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
-        for (Emprestimo emprestimo : emprestimos) {
+        for (EmprestimoResumo emprestimo : emprestimos) {
             String status;
             if (emprestimo.isAtrasado()) {
                 status = "ATRASADO (" + emprestimo.getDiasAtraso() + " dias)";
@@ -147,21 +165,16 @@ public class MenuEmprestimo extends JFrame {
             }
 
             Object[] row = {
-                emprestimo.getId(),
-                emprestimo.getUsuario().getNome(),
-                emprestimo.getLivro().getTitulo(),
-                emprestimo.getDataEmprestimo().format(formatter),
-                emprestimo.getDataDevolucaoPrevista().format(formatter),
+                emprestimo.id(),
+                emprestimo.usuarioNome(),
+                emprestimo.livroTitulo(),
+                emprestimo.dataEmprestimo().format(formatter),
+                emprestimo.dataDevolucaoPrevista().format(formatter),
                 status
             };
-            tableModel.addRow(row);
-
-            // Destaca linhas atrasadas em vermelho
-            if (emprestimo.isAtrasado()) {
-                int rowIndex = tableModel.getRowCount() - 1;
-                // Nota: Para colorir a linha, seria necessário um TableCellRenderer customizado
-            }
+            linhas.add(row);
         }
+        return linhas;
     }
 
     /**
@@ -177,11 +190,20 @@ public class MenuEmprestimo extends JFrame {
     }
 
     /**
-     * Registra a devolução do empréstimo selecionado.
+     * Registra a devolução dos empréstimos selecionados, todos em uma única operação.
      */
     private void registrarDevolucao() {
-        int selectedRow = tblEmprestimos.getSelectedRow();
-        if (selectedRow == -1) {
+        if (requisicaoGravacao.isEmAndamento()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (int linha : tblEmprestimos.getSelectedRows()) {
+            EmprestimoResumo emprestimo = tableModel.getItem(linha);
+            if (emprestimo != null) {
+                ids.add(emprestimo.id());
+            }
+        }
+        if (ids.isEmpty()) {
             JOptionPane.showMessageDialog(this,
                 "Selecione um empréstimo para registrar a devolução",
                 "Aviso",
@@ -190,29 +212,35 @@ public class MenuEmprestimo extends JFrame {
         }
 
         int opcao = JOptionPane.showConfirmDialog(this,
-            "Deseja registrar a devolução deste empréstimo?",
+            ids.size() == 1
+                ? "Deseja registrar a devolução deste empréstimo?"
+                : "Deseja registrar a devolução dos " + ids.size() + " empréstimos selecionados?",
             "Confirmar Devolução",
             JOptionPane.YES_NO_OPTION,
             JOptionPane.QUESTION_MESSAGE);
 
         if (opcao == JOptionPane.YES_OPTION) {
-            try {
-                Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-                emprestimoController.registrarDevolucao(id);
-
-                JOptionPane.showMessageDialog(this,
-                    "Devolução registrada com sucesso!",
-                    "Sucesso",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-                carregarEmprestimosAtivos();
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this,
-                    "Erro ao registrar devolução: " + e.getMessage(),
-                    "Erro",
-                    JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
-            }
+            btnRegistrarDevolucao.setEnabled(false);
+            requisicaoGravacao.executarGravacao(emprestimoControllerAsync.registrarDevolucoes(ids),
+                emprestimos -> {
+                    btnRegistrarDevolucao.setEnabled(true);
+                    JOptionPane.showMessageDialog(this,
+                        emprestimos.size() == 1
+                            ? "Devolução registrada com sucesso!"
+                            : emprestimos.size() + " devoluções registradas com sucesso!",
+                        "Sucesso",
+                        JOptionPane.INFORMATION_MESSAGE);
+
+                    carregarEmprestimosAtivos();
+                },
+                e -> {
+                    btnRegistrarDevolucao.setEnabled(true);
+                    JOptionPane.showMessageDialog(this,
+                        "Erro ao registrar devolução: " + e.getMessage(),
+                        "Erro",
+                        JOptionPane.ERROR_MESSAGE);
+                    e.printStackTrace();
+                });
         }
     }
 }
@@ -1,10 +1,12 @@
 package view.Emprestimo;
 
-import controller.EmprestimoController;
-import controller.LivroController;
-import controller.UsuarioController;
-import model.Livro;
+import controller.EmprestimoControllerAsync;
+import controller.LivroControllerAsync;
+import controller.UsuarioControllerAsync;
 import model.Usuario;
+import repository.Sugestao;
+import view.CampoSugestoes;
+import view.RequisicaoTela;
 
 import javax.swing.*;
 import javax.swing.text.MaskFormatter;
@@ -14,40 +16,59 @@ import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Tela para registrar novos empréstimos.
- * Permite selecionar usuário e livro, e registrar o empréstimo com data.
+ * Permite selecionar o usuário e um ou mais livros, e registrar os empréstimos com data.
+ * <p>
+ * Usuário e livros são escolhidos por sugestões enquanto se digita (nome ou e-mail; título ou
+ * ISBN), vindas de índices em memória; apenas o usuário e os livros escolhidos são lidos do banco.
+ * Cada livro escolhido com exemplares disponíveis entra na lista, e todos são emprestados em uma
+ * única operação: se algum não puder ser emprestado, nenhum empréstimo é registrado.
  */
 public class RegistrarEmprestimo extends JDialog {
+
+    /** Quantidade de sugestões exibidas por vez. */
+    private static final int LIMITE_SUGESTOES = 10;
+
     private JPanel mainPanel;
-    private JComboBox<ComboItem> cmbUsuario;
-    private JComboBox<ComboItem> cmbLivro;
+    private CampoSugestoes campoUsuario;
+    private CampoSugestoes campoLivro;
+    private JLabel lblSituacaoUsuario;
+    private JLabel lblSituacaoLivro;
+    private JList<Sugestao> lstLivros;
+    private JButton btnRemoverLivro;
     private JFormattedTextField txtDataEmprestimo;
     private JButton btnRegistrar;
     private JButton btnCancelar;
 
-    private EmprestimoController emprestimoController;
-    private UsuarioController usuarioController;
-    private LivroController livroController;
+    private EmprestimoControllerAsync emprestimoController;
+    private UsuarioControllerAsync usuarioController;
+    private LivroControllerAsync livroController;
+    private final RequisicaoTela requisicaoUsuarios = new RequisicaoTela();
+    private final RequisicaoTela requisicaoLivros = new RequisicaoTela();
+    private final RequisicaoTela requisicaoRegistro = new RequisicaoTela();
+    private final DefaultListModel<Sugestao> livrosSelecionados = new DefaultListModel<>();
+    private Usuario usuarioSelecionado;
     private boolean registrou = false;
 
     public RegistrarEmprestimo(JFrame parent) {
         super(parent, "Registrar Empréstimo", true);
 
-        this.emprestimoController = new EmprestimoController();
-        this.usuarioController = new UsuarioController();
-        this.livroController = new LivroController();
+        this.emprestimoController = new EmprestimoControllerAsync();
+        this.usuarioController = new UsuarioControllerAsync();
+        this.livroController = new LivroControllerAsync();
 
         setContentPane(mainPanel);
-        setSize(500, 350);
+        setSize(500, 450);
         setLocationRelativeTo(parent);
         setResizable(false);
 
         configurarComponentes();
         configurarEventos();
-        carregarDados();
+        prepararSugestoes();
     }
 
     /**
@@ -66,6 +87,13 @@ public class RegistrarEmprestimo extends JDialog {
         // Define data atual como padrão
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         txtDataEmprestimo.setText(LocalDate.now().format(formatter));
+
+        campoUsuario.setFonte(texto -> usuarioController.sugerir(texto, LIMITE_SUGESTOES));
+        campoLivro.setFonte(texto -> livroController.sugerir(texto, LIMITE_SUGESTOES));
+        campoUsuario.setToolTipText("Digite o nome ou o e-mail do usuário");
+        campoLivro.setToolTipText("Digite o título ou o ISBN do livro; cada livro escolhido entra na lista");
+
+        lstLivros.setModel(livrosSelecionados);
     }
 
     /**
@@ -85,89 +113,176 @@ public class RegistrarEmprestimo extends JDialog {
                 cancelar();
             }
         });
+
+        btnRemoverLivro.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                removerLivrosSelecionados();
+            }
+        });
+
+        campoUsuario.setAoSelecionar(this::usuarioEscolhido);
+        campoLivro.setAoSelecionar(this::livroEscolhido);
     }
 
     /**
-     * Carrega usuários e livros disponíveis nos combos.
+     * Carrega em segundo plano os índices de sugestões de usuários e livros (só na primeira
+     * abertura da tela; nas seguintes eles já estão em memória).
      */
-    private void carregarDados() {
-        try {
-            // Carrega usuários
-            List<Usuario> usuarios = usuarioController.listarTodos();
-            cmbUsuario.removeAllItems();
-            for (Usuario usuario : usuarios) {
-                String nomeUsuario = usuario.getNome();
+    private void prepararSugestoes() {
+        lblSituacaoUsuario.setText("Carregando sugestões...");
+        requisicaoUsuarios.executar(usuarioController.prepararSugestoes(),
+            pronto -> lblSituacaoUsuario.setText(" "),
+            this::mostrarErroCarregamento);
+
+        lblSituacaoLivro.setText("Carregando sugestões...");
+        requisicaoLivros.executar(livroController.prepararSugestoes(),
+            pronto -> lblSituacaoLivro.setText(" "),
+            this::mostrarErroCarregamento);
+    }
+
+    /**
+     * Lê o usuário escolhido para exibir sua situação (multa, atrasos e empréstimos ativos).
+     */
+    private void usuarioEscolhido(Sugestao sugestao) {
+        usuarioSelecionado = null;
+        if (sugestao == null) {
+            requisicaoUsuarios.cancelar();
+            lblSituacaoUsuario.setText(" ");
+            return;
+        }
+        lblSituacaoUsuario.setText("Carregando...");
+        requisicaoUsuarios.executar(usuarioController.buscarPorId(sugestao.id()),
+            usuario -> {
+                if (usuario == null) {
+                    lblSituacaoUsuario.setText("Usuário não encontrado");
+                    return;
+                }
+                usuarioSelecionado = usuario;
                 if (usuario.isEmMulta()) {
-                    nomeUsuario += String.format(" (MULTADO - %d dias)", usuario.getDiasRestantesMulta());
+                    lblSituacaoUsuario.setText(String.format("MULTADO - %d dias", usuario.getDiasRestantesMulta()));
+                } else if (usuario.isComAtrasoPendente()) {
+                    lblSituacaoUsuario.setText("BLOQUEADO (Livro em Atraso)");
+                } else {
+                    lblSituacaoUsuario.setText("Empréstimos ativos: " + usuario.getEmprestimosAtivos());
                 }
-                cmbUsuario.addItem(new ComboItem(usuario.getId(), nomeUsuario, usuario.isEmMulta()));
-            }
+            },
+            this::mostrarErroCarregamento);
+    }
 
-            // Carrega apenas livros disponíveis
-            List<Livro> livros = livroController.listarDisponiveis();
-            cmbLivro.removeAllItems();
-            for (Livro livro : livros) {
-                String descricao = livro.getTitulo() + " - " + livro.getAutor() + 
-                                  " (Disponível: " + livro.getQuantidadeDisponivel() + ")";
-                cmbLivro.addItem(new ComboItem(livro.getId(), descricao));
-            }
+    /**
+     * Lê o livro escolhido para exibir o estoque atual e, se houver exemplares disponíveis,
+     * o inclui na lista de livros a emprestar.
+     */
+    private void livroEscolhido(Sugestao sugestao) {
+        if (sugestao == null) {
+            requisicaoLivros.cancelar();
+            lblSituacaoLivro.setText(" ");
+            return;
+        }
+        lblSituacaoLivro.setText("Carregando...");
+        requisicaoLivros.executar(livroController.buscarPorId(sugestao.id()),
+            livro -> {
+                if (livro == null) {
+                    lblSituacaoLivro.setText("Livro não encontrado");
+                    return;
+                }
+                if (livro.getQuantidadeDisponivel() <= 0) {
+                    lblSituacaoLivro.setText("Sem exemplares disponíveis");
+                    return;
+                }
+                lblSituacaoLivro.setText("Disponível: " + livro.getQuantidadeDisponivel());
+                if (!livrosSelecionados.contains(sugestao)) {
+                    livrosSelecionados.addElement(sugestao);
+                }
+            },
+            this::mostrarErroCarregamento);
+    }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Erro ao carregar dados: " + e.getMessage(),
-                "Erro",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+    private void removerLivrosSelecionados() {
+        int[] indices = lstLivros.getSelectedIndices();
+        for (int i = indices.length - 1; i >= 0; i--) {
+            livrosSelecionados.remove(indices[i]);
         }
     }
 
+    private void mostrarErroCarregamento(Throwable e) {
+        JOptionPane.showMessageDialog(this,
+            "Erro ao carregar dados: " + e.getMessage(),
+            "Erro",
+            JOptionPane.ERROR_MESSAGE);
+        e.printStackTrace();
+    }
+
     /**
-     * Registra o empréstimo.
+     * Registra os empréstimos dos livros da lista.
      */
     private void registrarEmprestimo() {
+        Long usuarioId;
+        List<Long> livroIds = new ArrayList<>();
+        LocalDate dataEmprestimo;
         try {
             // Valida seleções
-            ComboItem usuarioItem = (ComboItem) cmbUsuario.getSelectedItem();
-            ComboItem livroItem = (ComboItem) cmbLivro.getSelectedItem();
-            
+            Sugestao usuarioItem = campoUsuario.getSelecionada();
+
             if (usuarioItem == null) {
                 throw new IllegalArgumentException("Selecione um usuário");
             }
 
-            if (livroItem == null) {
-                throw new IllegalArgumentException("Selecione um livro");
+            if (livrosSelecionados.isEmpty()) {
+                throw new IllegalArgumentException("Selecione ao menos um livro com exemplares disponíveis");
             }
-            
+
             // Verifica se o usuário está em multa (redundante, mas garante a validação)
-            if (usuarioItem.isEmMulta()) {
+            if (usuarioSelecionado != null && usuarioSelecionado.isEmMulta()) {
                 throw new IllegalArgumentException("O usuário selecionado está em período de multa e não pode realizar empréstimos.");
             }
 
             // Obtém IDs selecionados
-            Long usuarioId = usuarioItem.getId();
-            Long livroId = livroItem.getId();
+            usuarioId = usuarioItem.id();
+            for (int i = 0; i < livrosSelecionados.size(); i++) {
+                livroIds.add(livrosSelecionados.get(i).id());
+            }
 
             // Obtém e valida data
             String dataTexto = txtDataEmprestimo.getText().trim();
-            LocalDate dataEmprestimo = parseData(dataTexto);
+            dataEmprestimo = parseData(dataTexto);
+        } catch (IllegalArgumentException ex) {
+            mostrarErro(ex);
+            return;
+        }
 
-            // Registra o empréstimo
-            emprestimoController.registrarEmprestimo(usuarioId, livroId, dataEmprestimo);
+        // Registra os empréstimos
+        btnRegistrar.setEnabled(false);
+        requisicaoRegistro.executarGravacao(emprestimoController.registrarEmprestimos(usuarioId, livroIds,
+                dataEmprestimo),
+            emprestimos -> {
+                JOptionPane.showMessageDialog(this,
+                    emprestimos.size() == 1
+                        ? "Empréstimo registrado com sucesso!"
+                        : emprestimos.size() + " empréstimos registrados com sucesso!",
+                    "Sucesso",
+                    JOptionPane.INFORMATION_MESSAGE);
 
-            JOptionPane.showMessageDialog(this,
-                "Empréstimo registrado com sucesso!",
-                "Sucesso",
-                JOptionPane.INFORMATION_MESSAGE);
-
-            registrou = true;
-            dispose();
+                registrou = true;
+                dispose();
+            },
+            ex -> {
+                btnRegistrar.setEnabled(true);
+                mostrarErro(ex);
+            });
+    }
 
-        } catch (IllegalArgumentException ex) {
+    /**
+     * Exibe o erro de validação ou de persistência ao usuário.
+     */
+    private void mostrarErro(Throwable ex) {
+        if (ex instanceof IllegalArgumentException) {
             JOptionPane.showMessageDialog(this,
                 ex.getMessage(),
                 "Erro de Validação",
                 JOptionPane.ERROR_MESSAGE);
-        } catch (Exception ex) {
+        } else {
             JOptionPane.showMessageDialog(this,
                 "Erro ao registrar empréstimo: " + ex.getMessage(),
                 "Erro",
@@ -196,6 +311,10 @@ public class RegistrarEmprestimo extends JDialog {
      * Cancela a operação.
      */
     private void cancelar() {
+        requisicaoUsuarios.cancelar();
+        requisicaoLivros.cancelar();
+        campoUsuario.cancelar();
+        campoLivro.cancelar();
         dispose();
     }
 
@@ -205,36 +324,4 @@ public class RegistrarEmprestimo extends JDialog {
     public boolean isRegistrou() {
         return registrou;
     }
-
-    /**
-     * Classe auxiliar para itens do ComboBox.
-     */
-    private static class ComboItem {
-        private Long id;
-        private String descricao;
-        private boolean emMulta;
-
-        public ComboItem(Long id, String descricao) {
-            this(id, descricao, false);
-        }
-        
-        public ComboItem(Long id, String descricao, boolean emMulta) {
-            this.id = id;
-            this.descricao = descricao;
-            this.emMulta = emMulta;
-        }
-
-        public Long getId() {
-            return id;
-        }
-        
-        public boolean isEmMulta() {
-            return emMulta;
-        }
-
-        @Override
-        public String toString() {
-            return descricao;
-        }
-    }
 }
@@ -0,0 +1,44 @@
+package view;
+
+import java.util.List;
+
+/**
+ * Origem dos dados de uma {@link ModeloTabelaPaginada}.
+ * As chamadas são feitas fora da thread do Swing.
+ *
+ * @param <T> tipo dos itens exibidos na tabela
+ */
+public interface FontePaginada<T> {
+
+    /**
+     * Quantidade total de itens.
+     */
+    long contar();
+
+    /**
+     * Carrega um bloco de itens.
+     *
+     * @param anterior último item antes da posição {@code inicio}, quando conhecido;
+     *                 permite paginação por cursor em vez de deslocamento
+     * @param inicio posição do primeiro item do bloco
+     * @param tamanho quantidade de itens do bloco
+     */
+    List<T> carregar(T anterior, int inicio, int tamanho);
+
+    /**
+     * Cria uma fonte sobre uma lista já carregada (ex.: resultado de uma busca).
+     */
+    static <T> FontePaginada<T> deLista(List<T> itens) {
+        return new FontePaginada<T>() {
+            @Override
+            public long contar() {
+                return itens.size();
+            }
+
+            @Override
+            public List<T> carregar(T anterior, int inicio, int tamanho) {
+                return itens.subList(Math.min(inicio, itens.size()), Math.min(inicio + tamanho, itens.size()));
+            }
+        };
+    }
+}
@@ -1,7 +1,8 @@
 package view.Livro;
 
-import controller.LivroController;
+import controller.LivroControllerAsync;
 import model.Livro;
+import view.RequisicaoTela;
 
 import javax.swing.*;
 import javax.swing.text.MaskFormatter;
@@ -11,6 +12,7 @@ import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
 
 public class CadastroLivro extends JDialog {
     private JPanel mainPanel;
@@ -23,7 +25,8 @@ public class CadastroLivro extends JDialog {
     private JButton btnSalvar;
     private JButton btnCancelar;
 
-    private LivroController livroController;
+    private LivroControllerAsync livroController;
+    private final RequisicaoTela requisicao = new RequisicaoTela();
     private Livro livroEditando;
     private boolean salvou = false;
 
@@ -39,7 +42,7 @@ public class CadastroLivro extends JDialog {
      */
     public CadastroLivro(JFrame parent, Livro livro) {
         super(parent, livro == null ? "Cadastro de Livro" : "Editar Livro", true);
-        this.livroController = new LivroController();
+        this.livroController = new LivroControllerAsync();
         this.livroEditando = livro;
 
         setContentPane(mainPanel);
@@ -113,6 +116,8 @@ public class CadastroLivro extends JDialog {
      * Salva o livro (cadastro ou edição).
      */
     private void salvar() {
+        CompletableFuture<Livro> operacao;
+        String mensagemSucesso;
         try {
             // Obtém os dados dos campos
             String titulo = txtTitulo.getText().trim();
@@ -128,32 +133,49 @@ public class CadastroLivro extends JDialog {
             // Salva ou atualiza
             if (livroEditando == null) {
                 // Cadastro novo
-                livroController.cadastrarLivro(titulo, tema, autor, isbn, dataPublicacao, quantidade);
-                JOptionPane.showMessageDialog(this, 
-                    "Livro cadastrado com sucesso!", 
-                    "Sucesso", 
-                    JOptionPane.INFORMATION_MESSAGE);
+                operacao = livroController.cadastrarLivro(titulo, tema, autor, isbn, dataPublicacao, quantidade);
+                mensagemSucesso = "Livro cadastrado com sucesso!";
             } else {
-                // Edição
-                livroController.atualizarLivro(
+                // Edição: aplica ao estoque atual apenas a alteração feita no formulário
+                operacao = livroController.atualizarLivro(
                     livroEditando.getId(), 
-                    titulo, tema, autor, isbn, dataPublicacao, quantidade
+                    titulo, tema, autor, isbn, dataPublicacao, quantidade,
+                    livroEditando.getQuantidadeDisponivel()
                 );
+                mensagemSucesso = "Livro atualizado com sucesso!";
+            }
+        } catch (IllegalArgumentException ex) {
+            mostrarErro(ex);
+            return;
+        }
+
+        btnSalvar.setEnabled(false);
+        requisicao.executarGravacao(operacao,
+            livro -> {
                 JOptionPane.showMessageDialog(this, 
-                    "Livro atualizado com sucesso!", 
+                    mensagemSucesso, 
                     "Sucesso", 
                     JOptionPane.INFORMATION_MESSAGE);
-            }
 
-            salvou = true;
-            dispose();
+                salvou = true;
+                dispose();
+            },
+            ex -> {
+                btnSalvar.setEnabled(true);
+                mostrarErro(ex);
+            });
+    }
 
-        } catch (IllegalArgumentException ex) {
+    /**
+     * Exibe o erro de validação ou de persistência ao usuário.
+     */
+    private void mostrarErro(Throwable ex) {
+        if (ex instanceof IllegalArgumentException) {
             JOptionPane.showMessageDialog(this, 
                 ex.getMessage(), 
                 "Erro de Validação", 
                 JOptionPane.ERROR_MESSAGE);
-        } catch (Exception ex) {
+        } else {
             JOptionPane.showMessageDialog(this, 
                 "Erro ao salvar livro: " + ex.getMessage(), 
                 "Erro", 
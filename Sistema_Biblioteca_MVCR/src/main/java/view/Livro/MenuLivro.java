@@ -1,13 +1,18 @@
 package view.Livro;
 
 import controller.LivroController;
+import controller.LivroControllerAsync;
 import model.Livro;
+import view.BuscaIncremental;
+import view.FontePaginada;
+import view.ModeloTabelaPaginada;
+import view.RequisicaoTela;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -26,7 +31,11 @@ public class MenuLivro extends JFrame {
     private JButton btnFechar;
 
     private LivroController livroController;
-    private DefaultTableModel tableModel;
+    private LivroControllerAsync livroControllerAsync;
+    private ModeloTabelaPaginada<Livro> tableModel;
+    private BuscaIncremental<Livro> busca;
+    private final RequisicaoTela requisicaoAcao = new RequisicaoTela();
+    private final RequisicaoTela requisicaoGravacao = new RequisicaoTela();
 
     public MenuLivro() {
         setTitle("Gerenciamento de Livros");
@@ -36,6 +45,7 @@ public class MenuLivro extends JFrame {
         setLocationRelativeTo(null);
 
         this.livroController = new LivroController();
+        this.livroControllerAsync = new LivroControllerAsync(livroController);
 
         configurarTabela();
         configurarEventos();
@@ -47,20 +57,36 @@ public class MenuLivro extends JFrame {
      */
     private void configurarTabela() {
         String[] colunas = {"ID", "Título", "Autor", "Tema", "ISBN", "Data Publicação", "Qtd. Disponível"};
-        tableModel = new DefaultTableModel(colunas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Tabela não editável
-            }
-        };
+        tableModel = new ModeloTabelaPaginada<>(colunas, this::converterLinhas);
+        tableModel.setTratadorErro(e -> {
+            JOptionPane.showMessageDialog(this,
+                "Erro ao carregar livros: " + e.getMessage(),
+                "Erro",
+                JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
         tblLivros.setModel(tableModel);
         tblLivros.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
     }
 
     /**
-     * Configura os eventos dos botões.
+     * Configura a busca enquanto se digita e os eventos dos botões.
      */
     private void configurarEventos() {
+        busca = new BuscaIncremental<>(txtBusca,
+                livroControllerAsync::buscarPorTitulo,
+                livroController::refinaBuscaPorTitulo,
+                livroController::refinarBuscaPorTitulo,
+                resultado -> tableModel.setFonte(FontePaginada.deLista(resultado)),
+                this::carregarLivros,
+                e -> {
+                    JOptionPane.showMessageDialog(this,
+                        "Erro ao buscar livros: " + e.getMessage(),
+                        "Erro",
+                        JOptionPane.ERROR_MESSAGE);
+                    e.printStackTrace();
+                });
+
         btnNovo.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -82,6 +108,13 @@ public class MenuLivro extends JFrame {
             }
         });
 
+        txtBusca.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                buscarLivros();
+            }
+        });
+
         btnBuscar.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -105,50 +138,38 @@ public class MenuLivro extends JFrame {
     }
 
     /**
-     * Carrega todos os livros na tabela.
+     * Carrega o catálogo na tabela, sob demanda, conforme a rolagem.
      */
     private void carregarLivros() {
-        try {
-            List<Livro> livros = livroController.listarTodos();
-            atualizarTabela(livros);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Erro ao carregar livros: " + e.getMessage(),
-                "Erro",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        busca.reiniciar();
+        tableModel.setFonte(new FontePaginada<Livro>() {
+            @Override
+            public long contar() {
+                return livroController.contarTodos();
+            }
+
+            @Override
+            public List<Livro> carregar(Livro anterior, int inicio, int tamanho) {
+                if (anterior != null) {
+                    return livroController.listarPagina(anterior.getTitulo(), anterior.getId(), tamanho);
+                }
+                return livroController.listarPorPosicao(inicio, tamanho);
+            }
+        });
     }
 
     /**
-     * Busca livros por título.
+     * Busca livros por título sem esperar o fim da digitação (Enter ou botão Buscar).
      */
     private void buscarLivros() {
-        try {
-            String busca = txtBusca.getText().trim();
-            List<Livro> livros;
-
-            if (busca.isEmpty()) {
-                livros = livroController.listarTodos();
-            } else {
-                livros = livroController.buscarPorTitulo(busca);
-            }
-
-            atualizarTabela(livros);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Erro ao buscar livros: " + e.getMessage(),
-                "Erro",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        busca.buscar();
     }
 
     /**
-     * Atualiza a tabela com a lista de livros.
+     * Converte um bloco de livros em linhas da tabela.
      */
-    private void atualizarTabela(List<Livro> livros) {
-        tableModel.setRowCount(0);
+    private List<Object[]> converterLinhas(List<Livro> livros) {
+        List<Object[]> linhas = new ArrayList<>(livros.size());
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
         for (Livro livro : livros) {
@@ -161,8 +182,9 @@ public class MenuLivro extends JFrame {
                 livro.getDataPublicacao().format(formatter),
                 livro.getQuantidadeDisponivel()
             };
-            tableModel.addRow(row);
+            linhas.add(row);
         }
+        return linhas;
     }
 
     /**
@@ -182,7 +204,7 @@ public class MenuLivro extends JFrame {
      */
     private void editarLivro() {
         int selectedRow = tblLivros.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getItem(selectedRow) == null) {
             JOptionPane.showMessageDialog(this,
                 "Selecione um livro para editar",
                 "Aviso",
@@ -190,33 +212,36 @@ public class MenuLivro extends JFrame {
             return;
         }
 
-        try {
-            Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-            Livro livro = livroController.buscarPorId(id);
+        Long id = tableModel.getItem(selectedRow).getId();
+        requisicaoAcao.executar(livroControllerAsync.buscarPorId(id),
+            livro -> {
+                if (livro != null) {
+                    CadastroLivro cadastro = new CadastroLivro(this, livro);
+                    cadastro.setVisible(true);
 
-            if (livro != null) {
-                CadastroLivro cadastro = new CadastroLivro(this, livro);
-                cadastro.setVisible(true);
-
-                if (cadastro.isSalvou()) {
-                    carregarLivros();
+                    if (cadastro.isSalvou()) {
+                        carregarLivros();
+                    }
                 }
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Erro ao editar livro: " + e.getMessage(),
-                "Erro",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+            },
+            e -> {
+                JOptionPane.showMessageDialog(this,
+                    "Erro ao editar livro: " + e.getMessage(),
+                    "Erro",
+                    JOptionPane.ERROR_MESSAGE);
+                e.printStackTrace();
+            });
     }
 
     /**
      * Exclui o livro selecionado.
      */
     private void excluirLivro() {
+        if (requisicaoGravacao.isEmAndamento()) {
+            return;
+        }
         int selectedRow = tblLivros.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getItem(selectedRow) == null) {
             JOptionPane.showMessageDialog(this,
                 "Selecione um livro para excluir",
                 "Aviso",
@@ -231,23 +256,26 @@ public class MenuLivro extends JFrame {
             JOptionPane.WARNING_MESSAGE);
 
         if (opcao == JOptionPane.YES_OPTION) {
-            try {
-                Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-                livroController.removerLivro(id);
-
-                JOptionPane.showMessageDialog(this,
-                    "Livro excluído com sucesso!",
-                    "Sucesso",
-                    JOptionPane.INFORMATION_MESSAGE);
+            Long id = tableModel.getItem(selectedRow).getId();
+            btnExcluir.setEnabled(false);
+            requisicaoGravacao.executarGravacao(livroControllerAsync.removerLivro(id),
+                ignorado -> {
+                    btnExcluir.setEnabled(true);
+                    JOptionPane.showMessageDialog(this,
+                        "Livro excluído com sucesso!",
+                        "Sucesso",
+                        JOptionPane.INFORMATION_MESSAGE);
 
-                carregarLivros();
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this,
-                    "Erro ao excluir livro: " + e.getMessage(),
-                    "Erro",
-                    JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
-            }
+                    carregarLivros();
+                },
+                e -> {
+                    btnExcluir.setEnabled(true);
+                    JOptionPane.showMessageDialog(this,
+                        "Erro ao excluir livro: " + e.getMessage(),
+                        "Erro",
+                        JOptionPane.ERROR_MESSAGE);
+                    e.printStackTrace();
+                });
         }
     }
 }
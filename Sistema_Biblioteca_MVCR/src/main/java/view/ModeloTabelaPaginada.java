@@ -0,0 +1,221 @@
+package view;
+
+import controller.ExecucaoAssincrona;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Modelo de tabela que carrega as linhas sob demanda, em blocos, à medida que ficam visíveis.
+ * Mantém apenas os blocos usados mais recentemente em memória (LRU) e pré-carrega o bloco
+ * vizinho durante a rolagem, de modo que tabelas muito grandes abrem imediatamente e ocupam
+ * memória limitada.
+ * <p>
+ * Todo o estado do modelo é acessado apenas pela thread do Swing; a fonte de dados e o
+ * conversor de linhas são executados em segundo plano.
+ *
+ * @param <T> tipo dos itens exibidos
+ */
+public class ModeloTabelaPaginada<T> extends AbstractTableModel {
+
+    public static final String CARREGANDO = "Carregando...";
+
+    private static final int TAMANHO_BLOCO = 100;
+    private static final int MAXIMO_BLOCOS = 20;
+    private static final int MAXIMO_CURSORES = 1000;
+
+    private final String[] colunas;
+    private final Function<List<T>, List<Object[]>> conversor;
+
+    private final Map<Integer, Bloco<T>> blocos = new LinkedHashMap<Integer, Bloco<T>>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Bloco<T>> maisAntigo) {
+            return size() > MAXIMO_BLOCOS;
+        }
+    };
+
+    // Último item de cada bloco já lido, usado como cursor para carregar o bloco seguinte
+    private final Map<Integer, T> cursores = new LinkedHashMap<Integer, T>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, T> maisAntigo) {
+            return size() > MAXIMO_CURSORES;
+        }
+    };
+
+    private final Set<Integer> pendentes = new HashSet<>();
+    private final Set<Integer> comFalha = new HashSet<>();
+
+    private FontePaginada<T> fonte;
+    private Consumer<Throwable> tratadorErro = Throwable::printStackTrace;
+    private int totalLinhas;
+    private int geracao;
+
+    /**
+     * @param colunas nomes das colunas
+     * @param conversor converte um bloco de itens em linhas da tabela (executado em segundo plano,
+     *                  o que permite buscar dados complementares de todo o bloco de uma vez)
+     */
+    public ModeloTabelaPaginada(String[] colunas, Function<List<T>, List<Object[]>> conversor) {
+        this.colunas = colunas;
+        this.conversor = conversor;
+    }
+
+    public void setTratadorErro(Consumer<Throwable> tratadorErro) {
+        this.tratadorErro = tratadorErro;
+    }
+
+    /**
+     * Troca a origem dos dados e recarrega a tabela.
+     */
+    public void setFonte(FontePaginada<T> fonte) {
+        this.fonte = fonte;
+        recarregar();
+    }
+
+    /**
+     * Descarta os blocos em memória e recalcula a quantidade de linhas.
+     */
+    public void recarregar() {
+        geracao++;
+        blocos.clear();
+        cursores.clear();
+        pendentes.clear();
+        comFalha.clear();
+        totalLinhas = 0;
+        fireTableDataChanged();
+
+        if (fonte == null) {
+            return;
+        }
+
+        final int geracaoAtual = geracao;
+        final FontePaginada<T> fonteAtual = fonte;
+        ExecucaoAssincrona.executar(fonteAtual::contar)
+                .whenComplete((total, erro) -> SwingUtilities.invokeLater(() -> {
+                    if (geracaoAtual != geracao) {
+                        return;
+                    }
+                    if (erro != null) {
+                        tratadorErro.accept(causa(erro));
+                        return;
+                    }
+                    totalLinhas = (int) Math.min(total, Integer.MAX_VALUE);
+                    fireTableDataChanged();
+                }));
+    }
+
+    /**
+     * Retorna o item exibido na linha, ou null se o bloco da linha ainda não foi carregado.
+     */
+    public T getItem(int linha) {
+        Bloco<T> bloco = blocos.get(linha / TAMANHO_BLOCO);
+        if (bloco == null) {
+            return null;
+        }
+        int posicao = linha % TAMANHO_BLOCO;
+        return posicao < bloco.itens.size() ? bloco.itens.get(posicao) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return totalLinhas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return colunas.length;
+    }
+
+    @Override
+    public String getColumnName(int coluna) {
+        return colunas[coluna];
+    }
+
+    @Override
+    public boolean isCellEditable(int linha, int coluna) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        int indice = linha / TAMANHO_BLOCO;
+        int posicao = linha % TAMANHO_BLOCO;
+
+        Bloco<T> bloco = blocos.get(indice);
+        if (bloco == null) {
+            solicitar(indice);
+            return coluna == 0 ? null : CARREGANDO;
+        }
+
+        // Pré-carrega o bloco vizinho na direção provável da rolagem
+        if (posicao >= TAMANHO_BLOCO / 2) {
+            solicitar(indice + 1);
+        } else if (indice > 0) {
+            solicitar(indice - 1);
+        }
+
+        if (posicao >= bloco.linhas.size()) {
+            return null;
+        }
+        return bloco.linhas.get(posicao)[coluna];
+    }
+
+    private void solicitar(int indice) {
+        int inicio = indice * TAMANHO_BLOCO;
+        if (fonte == null || inicio >= totalLinhas || blocos.containsKey(indice)
+                || comFalha.contains(indice) || !pendentes.add(indice)) {
+            return;
+        }
+
+        final int geracaoAtual = geracao;
+        final FontePaginada<T> fonteAtual = fonte;
+        final T anterior = indice == 0 ? null : cursores.get(indice - 1);
+
+        ExecucaoAssincrona.executar(() -> {
+                    List<T> itens = new ArrayList<>(fonteAtual.carregar(anterior, inicio, TAMANHO_BLOCO));
+                    return new Bloco<>(itens, conversor.apply(itens));
+                })
+                .whenComplete((bloco, erro) -> SwingUtilities.invokeLater(() -> {
+                    if (geracaoAtual != geracao) {
+                        return;
+                    }
+                    pendentes.remove(indice);
+                    if (erro != null) {
+                        comFalha.add(indice);
+                        tratadorErro.accept(causa(erro));
+                        return;
+                    }
+                    blocos.put(indice, bloco);
+                    if (!bloco.itens.isEmpty()) {
+                        cursores.put(indice, bloco.itens.get(bloco.itens.size() - 1));
+                        int fim = Math.min(inicio + bloco.itens.size(), totalLinhas) - 1;
+                        if (fim >= inicio) {
+                            fireTableRowsUpdated(inicio, fim);
+                        }
+                    }
+                }));
+    }
+
+    private static Throwable causa(Throwable erro) {
+        return erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+    }
+
+    private static class Bloco<T> {
+        private final List<T> itens;
+        private final List<Object[]> linhas;
+
+        Bloco(List<T> itens, List<Object[]> linhas) {
+            this.itens = itens;
+            this.linhas = linhas;
+        }
+    }
+}
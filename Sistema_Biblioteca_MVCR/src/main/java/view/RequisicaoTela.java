@@ -0,0 +1,89 @@
+package view;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Acompanha a requisição em andamento de um componente da tela (ex.: a busca de uma tabela).
+ * Uma nova requisição cancela a anterior, e o resultado de uma requisição já substituída
+ * é descartado. Os callbacks são sempre executados na thread do Swing.
+ * <p>
+ * Gravações (cadastros, exclusões, devoluções) usam {@link #executarGravacao}, que nunca é
+ * cancelada; por isso, leituras e gravações de uma tela usam instâncias separadas.
+ * <p>
+ * Deve ser usada apenas a partir da thread do Swing.
+ */
+public class RequisicaoTela {
+
+    private CompletableFuture<?> atual;
+    private boolean gravacao;
+
+    public <T> void executar(CompletableFuture<T> futuro, Consumer<T> aoConcluir, Consumer<Throwable> aoFalhar) {
+        if (gravacao) {
+            throw new IllegalStateException("Gravação em andamento: use outra requisição para as leituras");
+        }
+        cancelar();
+        atual = futuro;
+        futuro.whenComplete((resultado, erro) -> SwingUtilities.invokeLater(() -> {
+            if (futuro != atual) {
+                return;
+            }
+            atual = null;
+            if (erro == null) {
+                aoConcluir.accept(resultado);
+                return;
+            }
+            Throwable causa = causa(erro);
+            if (!(causa instanceof CancellationException)) {
+                aoFalhar.accept(causa);
+            }
+        }));
+    }
+
+    /**
+     * Executa uma gravação. Ao contrário de {@link #executar}, ela não é cancelada por
+     * {@link #cancelar()}: interromper a thread no meio da transação deixaria a tela sem saber
+     * se o banco a confirmou. Enquanto {@link #isEmAndamento()}, a tela deve manter a ação
+     * desabilitada.
+     *
+     * @throws IllegalStateException se já houver uma requisição em andamento
+     */
+    public <T> void executarGravacao(CompletableFuture<T> futuro, Consumer<T> aoConcluir,
+                                     Consumer<Throwable> aoFalhar) {
+        if (atual != null) {
+            throw new IllegalStateException("Já há uma requisição em andamento");
+        }
+        atual = futuro;
+        gravacao = true;
+        futuro.whenComplete((resultado, erro) -> SwingUtilities.invokeLater(() -> {
+            atual = null;
+            gravacao = false;
+            if (erro == null) {
+                aoConcluir.accept(resultado);
+            } else {
+                aoFalhar.accept(causa(erro));
+            }
+        }));
+    }
+
+    /**
+     * Cancela a requisição em andamento, se houver e não for uma gravação.
+     */
+    public void cancelar() {
+        if (atual != null && !gravacao) {
+            atual.cancel(true);
+            atual = null;
+        }
+    }
+
+    public boolean isEmAndamento() {
+        return atual != null;
+    }
+
+    private static Throwable causa(Throwable erro) {
+        return erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+    }
+}
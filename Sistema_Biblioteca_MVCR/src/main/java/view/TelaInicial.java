@@ -0,0 +1,32 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Janela exibida enquanto a aplicação se conecta ao banco de dados, antes da tela principal.
+ */
+public class TelaInicial extends JWindow {
+
+    public TelaInicial() {
+        JLabel titulo = new JLabel("Sistema de Biblioteca", SwingConstants.CENTER);
+        titulo.setFont(titulo.getFont().deriveFont(Font.BOLD, 20f));
+
+        JLabel mensagem = new JLabel("Conectando ao banco de dados...", SwingConstants.CENTER);
+
+        JProgressBar progresso = new JProgressBar();
+        progresso.setIndeterminate(true);
+
+        JPanel painel = new JPanel(new BorderLayout(0, 12));
+        painel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(Color.GRAY),
+                BorderFactory.createEmptyBorder(24, 32, 24, 32)));
+        painel.add(titulo, BorderLayout.NORTH);
+        painel.add(mensagem, BorderLayout.CENTER);
+        painel.add(progresso, BorderLayout.SOUTH);
+
+        setContentPane(painel);
+        setSize(380, 150);
+        setLocationRelativeTo(null);
+    }
+}
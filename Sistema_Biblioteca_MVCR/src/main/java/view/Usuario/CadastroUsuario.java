@@ -1,13 +1,15 @@
 package view.Usuario;
 
-import controller.UsuarioController;
+import controller.UsuarioControllerAsync;
 import model.Usuario;
+import view.RequisicaoTela;
 
 import javax.swing.*;
 import javax.swing.text.MaskFormatter;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.text.ParseException;
+import java.util.concurrent.CompletableFuture;
 
 
 public class CadastroUsuario extends JDialog {
@@ -19,7 +21,8 @@ public class CadastroUsuario extends JDialog {
     private JButton btnSalvar;
     private JButton btnCancelar;
 
-    private UsuarioController usuarioController;
+    private UsuarioControllerAsync usuarioController;
+    private final RequisicaoTela requisicao = new RequisicaoTela();
     private Usuario usuarioEditando;
     private boolean salvou = false;
     public CadastroUsuario(JFrame parent) {
@@ -29,7 +32,7 @@ public class CadastroUsuario extends JDialog {
 
     public CadastroUsuario(JFrame parent, Usuario usuario) {
         super(parent, usuario == null ? "Cadastro de Usuário" : "Editar Usuário", true);
-        this.usuarioController = new UsuarioController();
+        this.usuarioController = new UsuarioControllerAsync();
         this.usuarioEditando = usuario;
 
         setContentPane(mainPanel);
@@ -83,48 +86,54 @@ public class CadastroUsuario extends JDialog {
     }
 
     private void salvar() {
-        try {
-            // Obtém os dados dos campos
-            String nome = txtNome.getText().trim();
-            String sexo = (String) cmbSexo.getSelectedItem();
-            String celular = txtCelular.getText().trim();
-            String email = txtEmail.getText().trim();
-
-            // Salva ou atualiza
-            if (usuarioEditando == null) {
-                // Cadastro novo
-                usuarioController.cadastrarUsuario(nome, sexo, celular, email);
-                JOptionPane.showMessageDialog(this,
-                    "Usuário cadastrado com sucesso!",
-                    "Sucesso",
-                    JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                // Edição
-                usuarioController.atualizarUsuario(
-                    usuarioEditando.getId(),
-                    nome, sexo, celular, email
-                );
+        // Obtém os dados dos campos
+        String nome = txtNome.getText().trim();
+        String sexo = (String) cmbSexo.getSelectedItem();
+        String celular = txtCelular.getText().trim();
+        String email = txtEmail.getText().trim();
+
+        // Salva ou atualiza
+        CompletableFuture<Usuario> operacao;
+        String mensagemSucesso;
+        if (usuarioEditando == null) {
+            // Cadastro novo
+            operacao = usuarioController.cadastrarUsuario(nome, sexo, celular, email);
+            mensagemSucesso = "Usuário cadastrado com sucesso!";
+        } else {
+            // Edição
+            operacao = usuarioController.atualizarUsuario(
+                usuarioEditando.getId(),
+                nome, sexo, celular, email
+            );
+            mensagemSucesso = "Usuário atualizado com sucesso!";
+        }
+
+        btnSalvar.setEnabled(false);
+        requisicao.executarGravacao(operacao,
+            usuario -> {
                 JOptionPane.showMessageDialog(this,
-                    "Usuário atualizado com sucesso!",
+                    mensagemSucesso,
                     "Sucesso",
                     JOptionPane.INFORMATION_MESSAGE);
-            }
 
-            salvou = true;
-            dispose();
-
-        } catch (IllegalArgumentException ex) {
-            JOptionPane.showMessageDialog(this,
-                ex.getMessage(),
-                "Erro de Validação",
-                JOptionPane.ERROR_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Erro ao salvar usuário: " + ex.getMessage(),
-                "Erro",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
-        }
+                salvou = true;
+                dispose();
+            },
+            ex -> {
+                btnSalvar.setEnabled(true);
+                if (ex instanceof IllegalArgumentException) {
+                    JOptionPane.showMessageDialog(this,
+                        ex.getMessage(),
+                        "Erro de Validação",
+                        JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Erro ao salvar usuário: " + ex.getMessage(),
+                        "Erro",
+                        JOptionPane.ERROR_MESSAGE);
+                    ex.printStackTrace();
+                }
+            });
     }
 
     /**
@@ -2,13 +2,19 @@ package view.Usuario;
 
 import controller.EmprestimoController;
 import controller.UsuarioController;
+import controller.UsuarioControllerAsync;
 import model.Usuario;
+import view.BuscaIncremental;
+import view.FontePaginada;
+import view.ModeloTabelaPaginada;
+import view.RequisicaoTela;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class MenuUsuario extends JFrame {
     private JPanel mainPanel;
@@ -22,8 +28,12 @@ public class MenuUsuario extends JFrame {
     private JButton btnFechar;
 
     private UsuarioController usuarioController;
+    private UsuarioControllerAsync usuarioControllerAsync;
     private EmprestimoController emprestimoController;
-    private DefaultTableModel tableModel;
+    private ModeloTabelaPaginada<Usuario> tableModel;
+    private BuscaIncremental<Usuario> busca;
+    private final RequisicaoTela requisicaoAcao = new RequisicaoTela();
+    private final RequisicaoTela requisicaoGravacao = new RequisicaoTela();
 
     public MenuUsuario() {
         setTitle("Gerenciamento de Usuários");
@@ -33,6 +43,7 @@ public class MenuUsuario extends JFrame {
         setLocationRelativeTo(null);
 
         this.usuarioController = new UsuarioController();
+        this.usuarioControllerAsync = new UsuarioControllerAsync(usuarioController);
         this.emprestimoController = new EmprestimoController();
 
         configurarTabela();
@@ -42,17 +53,33 @@ public class MenuUsuario extends JFrame {
 
     private void configurarTabela() {
         String[] colunas = {"ID", "Nome", "Sexo", "Celular", "E-mail", "Status Multa"};
-        tableModel = new DefaultTableModel(colunas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new ModeloTabelaPaginada<>(colunas, this::converterLinhas);
+        tableModel.setTratadorErro(e -> {
+            JOptionPane.showMessageDialog(this,
+                    "Erro ao carregar usuários: " + e.getMessage(),
+                    "Erro",
+                    JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
         tblUsuarios.setModel(tableModel);
         tblUsuarios.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
     }
 
     private void configurarEventos() {
+        busca = new BuscaIncremental<>(txtBusca,
+                usuarioControllerAsync::buscarPorNome,
+                usuarioController::refinaBuscaPorNome,
+                usuarioController::refinarBuscaPorNome,
+                resultado -> tableModel.setFonte(FontePaginada.deLista(resultado)),
+                this::carregarUsuarios,
+                e -> {
+                    JOptionPane.showMessageDialog(this,
+                            "Erro ao buscar usuários: " + e.getMessage(),
+                            "Erro",
+                            JOptionPane.ERROR_MESSAGE);
+                    e.printStackTrace();
+                });
+
         btnNovo.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -74,6 +101,13 @@ public class MenuUsuario extends JFrame {
             }
         });
 
+        txtBusca.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                buscarUsuarios();
+            }
+        });
+
         btnBuscar.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -97,45 +131,38 @@ public class MenuUsuario extends JFrame {
     }
 
     private void carregarUsuarios() {
-        try {
-            List<Usuario> usuarios = usuarioController.listarTodos();
-            atualizarTabela(usuarios);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Erro ao carregar usuários: " + e.getMessage(),
-                    "Erro",
-                    JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
-    }
+        busca.reiniciar();
+        tableModel.setFonte(new FontePaginada<Usuario>() {
+            @Override
+            public long contar() {
+                return usuarioController.contarTodos();
+            }
 
-    private void buscarUsuarios() {
-        try {
-            String busca = txtBusca.getText().trim();
-            List<Usuario> usuarios;
-
-            if (busca.isEmpty()) {
-                usuarios = usuarioController.listarTodos();
-            } else {
-                usuarios = usuarioController.buscarPorNome(busca);
+            @Override
+            public List<Usuario> carregar(Usuario anterior, int inicio, int tamanho) {
+                if (anterior != null) {
+                    return usuarioController.listarPagina(anterior.getNome(), anterior.getId(), tamanho);
+                }
+                return usuarioController.listarPorPosicao(inicio, tamanho);
             }
+        });
+    }
 
-            atualizarTabela(usuarios);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Erro ao buscar usuários: " + e.getMessage(),
-                    "Erro",
-                    JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+    private void buscarUsuarios() {
+        busca.buscar();
     }
 
-    private void atualizarTabela(List<Usuario> usuarios) {
-        tableModel.setRowCount(0);
+    private List<Object[]> converterLinhas(List<Usuario> usuarios) {
+        List<Long> ids = new ArrayList<>();
+        for (Usuario usuario : usuarios) {
+            ids.add(usuario.getId());
+        }
+        Map<Long, String> status = emprestimoController.verificarStatusEmLote(ids);
 
+        List<Object[]> linhas = new ArrayList<>(usuarios.size());
         for (Usuario usuario : usuarios) {
 
-            String statusMulta = emprestimoController.verificarStatusTexto(usuario.getId());
+            String statusMulta = status.get(usuario.getId());
 
             Object[] row = {
                     usuario.getId(),
@@ -145,8 +172,9 @@ public class MenuUsuario extends JFrame {
                     usuario.getEmail(),
                     statusMulta
             };
-            tableModel.addRow(row);
+            linhas.add(row);
         }
+        return linhas;
     }
 
     private void novoUsuario() {
@@ -160,7 +188,7 @@ public class MenuUsuario extends JFrame {
 
     private void editarUsuario() {
         int selectedRow = tblUsuarios.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getItem(selectedRow) == null) {
             JOptionPane.showMessageDialog(this,
                     "Selecione um usuário para editar",
                     "Aviso",
@@ -168,30 +196,33 @@ public class MenuUsuario extends JFrame {
             return;
         }
 
-        try {
-            Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-            Usuario usuario = usuarioController.buscarPorId(id);
-
-            if (usuario != null) {
-                CadastroUsuario cadastro = new CadastroUsuario(this, usuario);
-                cadastro.setVisible(true);
-
-                if (cadastro.isSalvou()) {
-                    carregarUsuarios();
-                }
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Erro ao editar usuário: " + e.getMessage(),
-                    "Erro",
-                    JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        Long id = tableModel.getItem(selectedRow).getId();
+        requisicaoAcao.executar(usuarioControllerAsync.buscarPorId(id),
+                usuario -> {
+                    if (usuario != null) {
+                        CadastroUsuario cadastro = new CadastroUsuario(this, usuario);
+                        cadastro.setVisible(true);
+
+                        if (cadastro.isSalvou()) {
+                            carregarUsuarios();
+                        }
+                    }
+                },
+                e -> {
+                    JOptionPane.showMessageDialog(this,
+                            "Erro ao editar usuário: " + e.getMessage(),
+                            "Erro",
+                            JOptionPane.ERROR_MESSAGE);
+                    e.printStackTrace();
+                });
     }
 
     private void excluirUsuario() {
+        if (requisicaoGravacao.isEmAndamento()) {
+            return;
+        }
         int selectedRow = tblUsuarios.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getItem(selectedRow) == null) {
             JOptionPane.showMessageDialog(this,
                     "Selecione um usuário para excluir",
                     "Aviso",
@@ -206,23 +237,26 @@ public class MenuUsuario extends JFrame {
                 JOptionPane.WARNING_MESSAGE);
 
         if (opcao == JOptionPane.YES_OPTION) {
-            try {
-                Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-                usuarioController.removerUsuario(id);
-
-                JOptionPane.showMessageDialog(this,
-                        "Usuário excluído com sucesso!",
-                        "Sucesso",
-                        JOptionPane.INFORMATION_MESSAGE);
-
-                carregarUsuarios();
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this,
-                        "Erro ao excluir usuário: " + e.getMessage(),
-                        "Erro",
-                        JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
-            }
+            Long id = tableModel.getItem(selectedRow).getId();
+            btnExcluir.setEnabled(false);
+            requisicaoGravacao.executarGravacao(usuarioControllerAsync.removerUsuario(id),
+                    ignorado -> {
+                        btnExcluir.setEnabled(true);
+                        JOptionPane.showMessageDialog(this,
+                                "Usuário excluído com sucesso!",
+                                "Sucesso",
+                                JOptionPane.INFORMATION_MESSAGE);
+
+                        carregarUsuarios();
+                    },
+                    e -> {
+                        btnExcluir.setEnabled(true);
+                        JOptionPane.showMessageDialog(this,
+                                "Erro ao excluir usuário: " + e.getMessage(),
+                                "Erro",
+                                JOptionPane.ERROR_MESSAGE);
+                        e.printStackTrace();
+                    });
         }
     }
-}
\ No newline at end of file
+}